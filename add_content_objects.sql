@@ -0,0 +1,12 @@
+-- Module content is stored once per distinct file. Uploads look the SHA-256 of the file up here and
+-- take a reference on the stored object instead of uploading it again; ref_count is the number of
+-- modules pointing at object_key. Content uploaded before this table existed has no row and is
+-- handled by the cleanup job's module lookup as before.
+CREATE TABLE IF NOT EXISTS content_objects (
+    hash         VARCHAR(64)   PRIMARY KEY,
+    object_key   VARCHAR(1024) NOT NULL UNIQUE,
+    size         BIGINT        NOT NULL,
+    content_type VARCHAR(255),
+    ref_count    INTEGER       NOT NULL,
+    created_at   TIMESTAMP     NOT NULL
+);
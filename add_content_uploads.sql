@@ -0,0 +1,21 @@
+-- State of resumable module content uploads (PATCH /api/modules/{id}/uploads/{uploadId}). Each
+-- chunk is written to S3 as the next part of the multipart upload s3_upload_id and then recorded
+-- here, so any instance can take the next chunk. lease_until is set while a chunk is being
+-- written; uploads not advanced for upload.resumable.expire-after are aborted by the sweeper.
+CREATE TABLE IF NOT EXISTS content_uploads (
+    id            VARCHAR(36)   PRIMARY KEY,
+    module_id     BIGINT        NOT NULL,
+    user_id       VARCHAR(255)  NOT NULL,
+    object_key    VARCHAR(1024) NOT NULL,
+    s3_upload_id  VARCHAR(1024) NOT NULL,
+    filename      VARCHAR(1024),
+    content_type  VARCHAR(255)  NOT NULL,
+    upload_length BIGINT        NOT NULL,
+    upload_offset BIGINT        NOT NULL DEFAULT 0,
+    part_count    INTEGER       NOT NULL DEFAULT 0,
+    lease_until   TIMESTAMP,
+    created_at    TIMESTAMP     NOT NULL,
+    updated_at    TIMESTAMP     NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_content_uploads_updated_at ON content_uploads (updated_at);
@@ -0,0 +1,13 @@
+-- Indexes for the analytics rollup job (CourseAnalyticsRollupService). Each run scans the rows stamped
+-- after the source watermarks and recomputes the touched course days, so every source needs its
+-- timestamp indexed. The rollup tables themselves are created by the service on startup.
+CREATE INDEX IF NOT EXISTS idx_enrollments_enrolled_at ON enrollments (enrolled_at);
+CREATE INDEX IF NOT EXISTS idx_enrollments_course_enrolled_at ON enrollments (course_id, enrolled_at);
+CREATE INDEX IF NOT EXISTS idx_progress_completed_at ON progress (completed_at) WHERE completed_at IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_quiz_results_submitted_at ON quiz_results (submitted_at);
+CREATE INDEX IF NOT EXISTS idx_progress_events_occurred_at ON progress_events (occurred_at) WHERE event_type = 'RESET';
+
+-- The first run after deployment backfills all history up to now minus the configured lag.
+-- To start from a later point instead, seed the watermarks before the service starts, e.g.:
+-- INSERT INTO analytics_watermarks (source, high_water)
+-- VALUES ('enrollments', now()), ('progress', now()), ('quiz_results', now());
@@ -0,0 +1,5 @@
+-- Course and module deletes remove child rows with one statement per table, joined on these
+-- foreign keys; without the indexes each statement scans its whole table.
+CREATE INDEX IF NOT EXISTS idx_progress_module_id ON progress (module_id);
+CREATE INDEX IF NOT EXISTS idx_quiz_questions_quiz_id ON quiz_questions (quiz_id);
+CREATE INDEX IF NOT EXISTS idx_quiz_answers_question_id ON quiz_answers (question_id);
@@ -0,0 +1,12 @@
+-- Remove duplicate enrollments, keeping the earliest one for each user and course
+DELETE FROM enrollments e
+USING enrollments d
+WHERE e.user_id = d.user_id
+  AND e.course_id = d.course_id
+  AND e.id > d.id;
+
+-- One enrollment per user and course; enrollment inserts rely on it for ON CONFLICT
+ALTER TABLE enrollments ADD CONSTRAINT uk_enrollments_user_course UNIQUE (user_id, course_id);
+
+-- Key of the request that created the enrollment, used to replay retried requests
+ALTER TABLE enrollments ADD COLUMN IF NOT EXISTS idempotency_key VARCHAR(255);
@@ -0,0 +1,4 @@
+-- Course version at which each module (or its quiz, questions and answers) last changed.
+-- Course bundle delta syncs return the modules stamped after the client's version; existing
+-- modules start at 0, which every client that has synced once is already past.
+ALTER TABLE modules ADD COLUMN IF NOT EXISTS content_version BIGINT NOT NULL DEFAULT 0;
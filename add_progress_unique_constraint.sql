@@ -0,0 +1,9 @@
+-- Remove duplicate progress rows, keeping the latest one for each user and module
+DELETE FROM progress p
+USING progress d
+WHERE p.user_id = d.user_id
+  AND p.module_id = d.module_id
+  AND p.id < d.id;
+
+-- One progress row per user and module; completing a module is an upsert that relies on it for ON CONFLICT
+ALTER TABLE progress ADD CONSTRAINT uk_progress_user_module UNIQUE (user_id, module_id);
@@ -0,0 +1,35 @@
+-- Modules no longer map their quiz, so deleting a module (or its course) relies on the database to
+-- remove the quiz and its questions and answers. ddl-auto does not alter existing foreign keys, so
+-- the generated ones are replaced with ON DELETE CASCADE versions here.
+DO $$
+DECLARE
+    fk RECORD;
+BEGIN
+    FOR fk IN
+        SELECT c.conrelid::regclass AS table_name, c.conname
+        FROM pg_constraint c
+        JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = ANY (c.conkey)
+        WHERE c.contype = 'f'
+          AND c.confdeltype <> 'c'
+          AND ((c.conrelid = 'quizzes'::regclass AND a.attname = 'module_id')
+            OR (c.conrelid = 'quiz_questions'::regclass AND a.attname = 'quiz_id')
+            OR (c.conrelid = 'quiz_answers'::regclass AND a.attname = 'question_id'))
+    LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', fk.table_name, fk.conname);
+    END LOOP;
+END $$;
+
+ALTER TABLE quizzes DROP CONSTRAINT IF EXISTS fk_quizzes_module;
+ALTER TABLE quizzes ADD CONSTRAINT fk_quizzes_module
+    FOREIGN KEY (module_id) REFERENCES modules (id) ON DELETE CASCADE;
+
+ALTER TABLE quiz_questions DROP CONSTRAINT IF EXISTS fk_quiz_questions_quiz;
+ALTER TABLE quiz_questions ADD CONSTRAINT fk_quiz_questions_quiz
+    FOREIGN KEY (quiz_id) REFERENCES quizzes (id) ON DELETE CASCADE;
+
+ALTER TABLE quiz_answers DROP CONSTRAINT IF EXISTS fk_quiz_answers_question;
+ALTER TABLE quiz_answers ADD CONSTRAINT fk_quiz_answers_question
+    FOREIGN KEY (question_id) REFERENCES quiz_questions (id) ON DELETE CASCADE;
+
+-- Backs the per-module quiz lookup in the module select
+CREATE INDEX IF NOT EXISTS idx_quizzes_module_id ON quizzes (module_id);
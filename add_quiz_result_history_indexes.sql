@@ -0,0 +1,3 @@
+-- Serve the paginated, date-range filtered result history of a user and of a quiz (newest first)
+CREATE INDEX IF NOT EXISTS idx_quiz_results_user_submitted ON quiz_results (user_id, submitted_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_quiz_results_quiz_submitted ON quiz_results (quiz_id, submitted_at DESC, id DESC);
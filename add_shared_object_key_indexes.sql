@@ -0,0 +1,4 @@
+-- Cloned courses share content files and thumbnails with the original. Before an object queued in
+-- s3_deletions is removed from S3, the cleanup job looks the key up in both columns.
+CREATE INDEX IF NOT EXISTS idx_modules_content_url ON modules (content_url);
+CREATE INDEX IF NOT EXISTS idx_courses_thumbnail_object_key ON courses (thumbnail_object_key);
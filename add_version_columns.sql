@@ -0,0 +1,4 @@
+-- Optimistic locking versions; the course version also backs the course and module ETags
+ALTER TABLE courses ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE modules ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE progress ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
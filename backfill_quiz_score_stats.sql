@@ -0,0 +1,22 @@
+-- Build the quiz score aggregates from existing results. Run once after the service has created
+-- the quiz_score_buckets and quiz_best_scores tables, before new results are submitted.
+-- Scores outside 0-100 are clamped into the histogram range.
+INSERT INTO quiz_best_scores (quiz_id, user_id, best_score)
+SELECT quiz_id, user_id, LEAST(GREATEST(MAX(score), 0), 100)
+FROM quiz_results
+GROUP BY quiz_id, user_id
+ON CONFLICT (quiz_id, user_id) DO NOTHING;
+
+INSERT INTO quiz_score_buckets (quiz_id, score, result_count, best_count)
+SELECT r.quiz_id, r.score, r.result_count, COALESCE(b.best_count, 0)
+FROM (
+    SELECT quiz_id, LEAST(GREATEST(score, 0), 100) AS score, COUNT(*) AS result_count
+    FROM quiz_results
+    GROUP BY 1, 2
+) r
+LEFT JOIN (
+    SELECT quiz_id, best_score AS score, COUNT(*) AS best_count
+    FROM quiz_best_scores
+    GROUP BY 1, 2
+) b ON b.quiz_id = r.quiz_id AND b.score = r.score
+ON CONFLICT (quiz_id, score) DO NOTHING;
@@ -0,0 +1,71 @@
+-- Convert quiz_results to a table range partitioned by month on submitted_at, and create the
+-- partitioned progress_events history table. Run with the service stopped. The service creates
+-- upcoming monthly partitions and retires old ones itself (partitioning.* settings).
+BEGIN;
+
+ALTER TABLE quiz_results RENAME TO quiz_results_unpartitioned;
+ALTER INDEX IF EXISTS idx_quiz_results_user_submitted RENAME TO idx_quiz_results_unpartitioned_user_submitted;
+ALTER INDEX IF EXISTS idx_quiz_results_quiz_submitted RENAME TO idx_quiz_results_unpartitioned_quiz_submitted;
+
+-- The partition key has to be part of the primary key
+CREATE TABLE quiz_results (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    user_id VARCHAR(255) NOT NULL,
+    quiz_id BIGINT NOT NULL REFERENCES quizzes (id),
+    score INTEGER NOT NULL,
+    submitted_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id, submitted_at)
+) PARTITION BY RANGE (submitted_at);
+
+CREATE TABLE progress_events (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    user_id VARCHAR(255) NOT NULL,
+    module_id BIGINT NOT NULL,
+    course_id BIGINT,
+    event_type VARCHAR(255) NOT NULL,
+    occurred_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id, occurred_at)
+) PARTITION BY RANGE (occurred_at);
+
+-- Catch-all for rows outside the monthly partitions; should stay empty
+CREATE TABLE quiz_results_default PARTITION OF quiz_results DEFAULT;
+CREATE TABLE progress_events_default PARTITION OF progress_events DEFAULT;
+
+-- One partition per month from the oldest result up to three months ahead
+DO $$
+DECLARE
+    month DATE;
+BEGIN
+    FOR month IN
+        SELECT generate_series(
+            date_trunc('month', COALESCE((SELECT MIN(submitted_at) FROM quiz_results_unpartitioned), now())),
+            date_trunc('month', now()) + INTERVAL '3 months',
+            INTERVAL '1 month')::date
+    LOOP
+        EXECUTE format('CREATE TABLE quiz_results_p%s PARTITION OF quiz_results FOR VALUES FROM (%L) TO (%L)',
+                       to_char(month, 'YYYYMM'), month, month + INTERVAL '1 month');
+    END LOOP;
+
+    FOR month IN
+        SELECT generate_series(date_trunc('month', now()), date_trunc('month', now()) + INTERVAL '3 months', INTERVAL '1 month')::date
+    LOOP
+        EXECUTE format('CREATE TABLE progress_events_p%s PARTITION OF progress_events FOR VALUES FROM (%L) TO (%L)',
+                       to_char(month, 'YYYYMM'), month, month + INTERVAL '1 month');
+    END LOOP;
+END $$;
+
+INSERT INTO quiz_results (id, user_id, quiz_id, score, submitted_at)
+SELECT id, user_id, quiz_id, score, COALESCE(submitted_at, now())
+FROM quiz_results_unpartitioned;
+
+SELECT setval(pg_get_serial_sequence('quiz_results', 'id'), COALESCE((SELECT MAX(id) FROM quiz_results), 0) + 1, false);
+
+-- Indexes on the parent are created on every partition
+CREATE INDEX idx_quiz_results_user_submitted ON quiz_results (user_id, submitted_at DESC, id DESC);
+CREATE INDEX idx_quiz_results_quiz_submitted ON quiz_results (quiz_id, submitted_at DESC, id DESC);
+CREATE INDEX idx_progress_events_user_occurred ON progress_events (user_id, occurred_at DESC);
+CREATE INDEX idx_progress_events_course_occurred ON progress_events (course_id, occurred_at DESC);
+
+DROP TABLE quiz_results_unpartitioned;
+
+COMMIT;
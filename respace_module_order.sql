@@ -0,0 +1,11 @@
+-- Spread existing module orders out so modules can be moved by updating a single row
+UPDATE modules m
+SET module_order = r.position * 1024
+FROM (
+    SELECT id, ROW_NUMBER() OVER (PARTITION BY course_id ORDER BY module_order, id) AS position
+    FROM modules
+) r
+WHERE m.id = r.id;
+
+-- Serves the ordered module listing of a course and the neighbour lookups of a move
+CREATE INDEX IF NOT EXISTS idx_modules_course_order ON modules (course_id, module_order);
@@ -0,0 +1,59 @@
+package org.edunex.courseservice.config;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which users wrote recently so their reads can be pinned to the primary
+ * until the replica has had time to catch up (read-your-writes).
+ * State is kept per instance; size the window to cover the expected replication lag.
+ */
+public class PrimaryStickiness {
+
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    private final Map<String, Long> pinnedUntil = new ConcurrentHashMap<>();
+    private final long windowNanos;
+
+    public PrimaryStickiness(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    /**
+     * Record that the given user has just written to the primary
+     * @param userId The ID of the user that wrote
+     */
+    public void recordWrite(String userId) {
+        if (userId == null || windowNanos <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        pinnedUntil.put(userId, now + windowNanos);
+
+        // Drop expired entries once the map grows, so it stays bounded by recent writers
+        if (pinnedUntil.size() > PRUNE_THRESHOLD) {
+            pinnedUntil.entrySet().removeIf(entry -> entry.getValue() - now <= 0);
+        }
+    }
+
+    /**
+     * Check whether reads for the given user should still go to the primary
+     * @param userId The ID of the user reading
+     * @return true if the user wrote within the stickiness window
+     */
+    public boolean isPinned(String userId) {
+        if (userId == null) {
+            return false;
+        }
+        Long until = pinnedUntil.get(userId);
+        if (until == null) {
+            return false;
+        }
+        if (until - System.nanoTime() <= 0) {
+            pinnedUntil.remove(userId, until);
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,50 @@
+package org.edunex.courseservice.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes connections for read-only transactions to the replica pool and everything else to the primary.
+ * Users that wrote within the stickiness window keep reading from the primary so they see their own changes.
+ * Must be wrapped in a LazyConnectionDataSourceProxy so the read-only flag is known when the connection is fetched.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final PrimaryStickiness stickiness;
+
+    public ReplicaRoutingDataSource(PrimaryStickiness stickiness) {
+        this.stickiness = stickiness;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String userId = currentUserId();
+
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return stickiness.isPinned(userId) ? Route.PRIMARY : Route.REPLICA;
+        }
+
+        // A read-write transaction is about to run for this user, pin their next reads to the primary
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            stickiness.recordWrite(userId);
+        }
+        return Route.PRIMARY;
+    }
+
+    private String currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -7,6 +7,7 @@ import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 @Configuration
 public class S3Config {
@@ -29,4 +30,16 @@ public class S3Config {
                 .credentialsProvider(credentialsProvider)
                 .build();
     }
-}
\ No newline at end of file
+
+    // Signs download URLs locally for the redirect download mode; no request is made to S3
+    @Bean
+    public S3Presigner s3Presigner(
+            @Value("${spring.aws.region.static}") String region,
+            @Value("${spring.aws.credentials.access-key}") String accessKey,
+            @Value("${spring.aws.credentials.secret-key}") String secretKey) {
+        return S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
+                .build();
+    }
+}
@@ -0,0 +1,12 @@
+package org.edunex.courseservice.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the service's background maintenance jobs (@Scheduled methods)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,66 @@
+package org.edunex.courseservice.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.edunex.courseservice.service.UploadAdmission;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Puts content uploads through {@link UploadAdmission}. Runs after Spring Security, so the uploader is
+ * known, and before the DispatcherServlet parses the multipart body, so a request that is queued or
+ * turned away has not been read into memory or temp files yet.
+ */
+@Component
+public class UploadAdmissionFilter extends OncePerRequestFilter {
+
+    private record UploadEndpoint(String method, String pattern) {
+    }
+
+    private static final List<UploadEndpoint> UPLOAD_ENDPOINTS = List.of(
+            new UploadEndpoint("POST", "/api/modules/*/content"),
+            new UploadEndpoint("PATCH", "/api/modules/*/uploads/*"),
+            new UploadEndpoint("POST", "/api/courses/*/thumbnail"));
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Autowired
+    private UploadAdmission uploadAdmission;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return UPLOAD_ENDPOINTS.stream().noneMatch(endpoint ->
+                endpoint.method().equals(request.getMethod()) && pathMatcher.match(endpoint.pattern(), path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userId = authentication != null ? authentication.getName() : "anonymous";
+
+        UploadAdmission.Permit permit;
+        try {
+            permit = uploadAdmission.admit(userId, request.getContentLengthLong());
+        } catch (ResponseStatusException e) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(uploadAdmission.getRetryAfterSeconds()));
+            response.sendError(e.getStatusCode().value(), e.getReason());
+            return;
+        }
+        try (permit) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
@@ -1,17 +1,31 @@
 package org.edunex.courseservice.controller;
 
+import org.edunex.courseservice.dto.CourseAnalyticsDTO;
+import org.edunex.courseservice.dto.CourseBundleDTO;
 import org.edunex.courseservice.dto.CourseDTO;
+import jakarta.servlet.http.HttpServletRequest;
 import org.edunex.courseservice.model.CourseStatus;
+import org.edunex.courseservice.service.CourseAnalyticsService;
+import org.edunex.courseservice.service.CourseArchiveService;
+import org.edunex.courseservice.service.CourseBundleService;
 import org.edunex.courseservice.service.impl.CourseServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -21,11 +35,21 @@ public class CourseController {
     @Autowired
     private CourseServiceImpl courseService;
 
+    @Autowired
+    private CourseAnalyticsService courseAnalyticsService;
+
+    @Autowired
+    private CourseBundleService courseBundleService;
+
+    @Autowired
+    private CourseArchiveService courseArchiveService;
+
     @GetMapping
-    public ResponseEntity<List<CourseDTO>> getAllCourses(
+    public ResponseEntity<List<?>> getAllCourses(
             @RequestParam(required = false, defaultValue = "false") boolean filterByUser,
             @RequestParam(required = false) CourseStatus status,
             @RequestParam(required = false, defaultValue = "false") boolean includeInstructorCourses,
+            @RequestParam(defaultValue = "full") String view, // "summary" leaves out descriptions
             @AuthenticationPrincipal Jwt jwt) {
         String userId = filterByUser || includeInstructorCourses ? jwt.getSubject() : null;
         
@@ -35,6 +59,10 @@ public class CourseController {
             effectiveStatus = CourseStatus.PUBLISHED;
         }
         
+        if ("summary".equalsIgnoreCase(view)) {
+            return ResponseEntity.ok(courseService.getCourseSummaries(userId, effectiveStatus));
+        }
+
         List<CourseDTO> courseDTOs = courseService.getAllCourses(userId, effectiveStatus);
         return ResponseEntity.ok(courseDTOs);
     }
@@ -44,10 +72,21 @@ public class CourseController {
             @PathVariable Long id,
             @RequestParam(defaultValue = "false") boolean includeModules,
             @RequestParam(required = false) CourseStatus status, // Optional status for instructors to view drafts
-            @AuthenticationPrincipal Jwt jwt) {
+            @AuthenticationPrincipal Jwt jwt,
+            WebRequest webRequest) {
         String userId = jwt != null ? jwt.getSubject() : null;
+
+        // Answer 304 from the version query alone when the client's copy is current
+        String eTag = courseService.getCourseETag(id, userId, includeModules);
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+
         CourseDTO courseDTO = courseService.getCourseById(id, userId, includeModules, status);
-        return ResponseEntity.ok(courseDTO);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(eTag)
+                .body(courseDTO);
     }
 
     @GetMapping("/instructor/{instructorId}")
@@ -171,4 +210,115 @@ public class CourseController {
         List<CourseDTO> courseDTOs = courseService.getCoursesByInstructorId(instructorId, instructorId, status);
         return ResponseEntity.ok(courseDTOs);
     }
+
+    /**
+     * Get the analytics of a course for its instructor: daily enrollments, active learners and
+     * quiz scores over a date range, and the module completion funnel.
+     * Served from rollup tables that are refreshed every few minutes.
+     *
+     * @param id The ID of the course
+     * @param from Optional first day of the range (ISO date), defaults to 30 days before to
+     * @param to Optional last day of the range (ISO date), defaults to today
+     * @param jwt The JWT token containing user information
+     * @return The course analytics
+     */
+    @GetMapping("/{id}/analytics")
+    public ResponseEntity<CourseAnalyticsDTO> getCourseAnalytics(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @AuthenticationPrincipal Jwt jwt) {
+
+        String userId = jwt.getSubject();
+        CourseAnalyticsDTO analytics = courseAnalyticsService.getCourseAnalytics(id, userId, from, to);
+        return ResponseEntity.ok(analytics);
+    }
+
+    /**
+     * Get a course with its modules, quizzes (with questions and answers) and the caller's progress
+     * in one response, for offline and mobile clients. With since, only the modules changed after that
+     * course version are included, together with the full ordered list of module IDs so removed and
+     * reordered modules can be detected.
+     *
+     * @param id The ID of the course
+     * @param since Optional course version the client already has
+     * @param jwt The JWT token containing user information
+     * @param webRequest Used to answer 304 when the client's copy is current
+     * @return The course bundle
+     */
+    @GetMapping("/{id}/bundle")
+    public ResponseEntity<CourseBundleDTO> getCourseBundle(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long since,
+            @AuthenticationPrincipal Jwt jwt,
+            WebRequest webRequest) {
+        String userId = jwt != null ? jwt.getSubject() : null;
+
+        String eTag = courseBundleService.getBundleETag(id, userId, since);
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+
+        CourseBundleDTO bundle = courseBundleService.getCourseBundle(id, userId, since);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(eTag)
+                .body(bundle);
+    }
+
+    /**
+     * Download a course with its modules, quizzes, questions and answers as a course archive, streamed
+     * as it is read. Module content files and the thumbnail are not included.
+     *
+     * @param id The ID of the course
+     * @param jwt The JWT token containing user information
+     * @return The course archive document
+     */
+    @GetMapping("/{id}/export")
+    public ResponseEntity<StreamingResponseBody> exportCourse(
+            @PathVariable Long id,
+            @AuthenticationPrincipal Jwt jwt) {
+        courseArchiveService.verifyCanExport(id, jwt.getSubject());
+        StreamingResponseBody body = output -> courseArchiveService.exportCourse(id, output);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("course-" + id + ".json")
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    /**
+     * Create a DRAFT course owned by the authenticated instructor from a course archive, as written
+     * by the export endpoint. The body is parsed as it is read.
+     *
+     * @param jwt The JWT token containing user information
+     * @param request The request whose body is the course archive document
+     * @return The created course
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<CourseDTO> importCourse(
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest request) throws IOException {
+        CourseDTO importedCourse = courseArchiveService.importCourse(request.getInputStream(), jwt.getSubject());
+        return new ResponseEntity<>(importedCourse, HttpStatus.CREATED);
+    }
+
+    /**
+     * Copy a course with its modules and quizzes as a new DRAFT course of the authenticated instructor
+     *
+     * @param id The ID of the course to copy
+     * @param title Optional title of the copy, defaults to "Copy of" the original title
+     * @param jwt The JWT token containing user information
+     * @return The created course
+     */
+    @PostMapping("/{id}/clone")
+    public ResponseEntity<CourseDTO> cloneCourse(
+            @PathVariable Long id,
+            @RequestParam(required = false) String title,
+            @AuthenticationPrincipal Jwt jwt) {
+        CourseDTO clonedCourse = courseArchiveService.cloneCourse(id, jwt.getSubject(), title);
+        return new ResponseEntity<>(clonedCourse, HttpStatus.CREATED);
+    }
 }
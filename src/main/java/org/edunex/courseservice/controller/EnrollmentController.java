@@ -1,15 +1,26 @@
 package org.edunex.courseservice.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.edunex.courseservice.dto.EnrollmentDTO;
+import org.edunex.courseservice.dto.SliceDTO;
+import org.edunex.courseservice.service.BulkEnrollmentService;
 import org.edunex.courseservice.service.EnrollmentService;
+import org.edunex.courseservice.service.ExportFormat;
+import org.edunex.courseservice.service.ExportService;
+import org.edunex.courseservice.service.Paging;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -19,12 +30,32 @@ public class EnrollmentController {
     @Autowired
     private EnrollmentService enrollmentService;
 
+    @Autowired
+    private BulkEnrollmentService bulkEnrollmentService;
+
+    @Autowired
+    private ExportService exportService;
+
     @GetMapping
-    public ResponseEntity<List<EnrollmentDTO>> getAllEnrollments() {
-        List<EnrollmentDTO> enrollmentDTOs = enrollmentService.getAllEnrollments();
+    public ResponseEntity<SliceDTO<EnrollmentDTO>> getAllEnrollments(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + Paging.DEFAULT_PAGE_SIZE) int size) {
+        SliceDTO<EnrollmentDTO> enrollmentDTOs = enrollmentService.getAllEnrollments(page, size);
         return ResponseEntity.ok(enrollmentDTOs);
     }
 
+    /**
+     * Download every enrollment as NDJSON or CSV, streamed from a database cursor
+     * @param format "ndjson" (default) or "csv"
+     * @return The streaming export
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAllEnrollments(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        StreamingResponseBody rows = output -> enrollmentService.exportAllEnrollments(exportFormat, output);
+        return exportService.toResponse("enrollments", exportFormat, rows);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<EnrollmentDTO> getEnrollmentById(@PathVariable Long id) {
         EnrollmentDTO enrollmentDTO = enrollmentService.getEnrollmentById(id);
@@ -55,7 +86,7 @@ public class EnrollmentController {
 
     /**
      * Enroll the current user in a course (original method)
-     * @deprecated Use {@link #enrollInCourse(Long, Jwt)} instead
+     * @deprecated Use {@link #enrollInCourse(Long, String, Jwt)} instead
      */
     @Deprecated
     @PostMapping
@@ -67,19 +98,50 @@ public class EnrollmentController {
     /**
      * Enroll the current user in a course
      * 
+     * Retries that send the same Idempotency-Key header get the original enrollment back instead of a conflict.
+     * 
      * @param courseId The ID of the course to enroll in
+     * @param idempotencyKey Optional key identifying this enrollment request across retries
      * @param jwt The JWT token containing user information
      * @return The created enrollment details
      */
     @PostMapping("/course/{courseId}")
     public ResponseEntity<EnrollmentDTO> enrollInCourse(
             @PathVariable Long courseId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @AuthenticationPrincipal Jwt jwt) {
         String userId = jwt.getSubject();
-        EnrollmentDTO createdEnrollment = enrollmentService.createEnrollment(userId, courseId);
+        EnrollmentDTO createdEnrollment = enrollmentService.createEnrollment(userId, courseId, idempotencyKey);
         return new ResponseEntity<>(createdEnrollment, HttpStatus.CREATED);
     }
 
+    /**
+     * Enroll a cohort of users in a course.
+     * The body is a JSON array or NDJSON of user IDs (or objects with a userId field), or CSV with the
+     * user ID in the first column. Results are streamed back as NDJSON, one line per element in input
+     * order, while the body is still being read.
+     *
+     * @param courseId The ID of the course to enroll users in
+     * @param contentType The format of the request body
+     * @param request The request whose body is streamed
+     * @return Streaming per-user enrollment results
+     */
+    @PostMapping(value = "/course/{courseId}/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, "text/csv"},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> bulkEnrollInCourse(
+            @PathVariable Long courseId,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            HttpServletRequest request) throws IOException {
+        bulkEnrollmentService.verifyCourseExists(courseId);
+        InputStream body = request.getInputStream();
+        StreamingResponseBody results = output ->
+                bulkEnrollmentService.importEnrollments(courseId, body, contentType, output);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(results);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteEnrollment(@PathVariable Long id) {
         enrollmentService.deleteEnrollment(id);
@@ -1,8 +1,8 @@
 package org.edunex.courseservice.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.edunex.courseservice.service.S3Service;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -21,10 +21,11 @@ public class FileController {
     /**
      * Direct download of a file from S3, bypassing CloudFront
      * This can be useful for administrative purposes or when 
-     * needing original files without CloudFront caching
+     * needing original files without CloudFront caching.
+     * In redirect download mode this is a 302 to a presigned S3 URL instead.
      */
     @GetMapping("/download")
-    public ResponseEntity<InputStreamResource> downloadFile(@RequestParam String objectKey) {
-        return s3Service.downloadFile(objectKey);
+    public ResponseEntity<?> downloadFile(@RequestParam String objectKey, HttpServletRequest request) {
+        return s3Service.serveFile(objectKey, request);
     }
 }
\ No newline at end of file
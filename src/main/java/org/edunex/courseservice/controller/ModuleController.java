@@ -1,20 +1,36 @@
 package org.edunex.courseservice.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.edunex.courseservice.dto.FileDTO;
 import org.edunex.courseservice.dto.ModuleDTO;
+import org.edunex.courseservice.dto.SliceDTO;
+import org.edunex.courseservice.model.ContentUpload;
 import org.edunex.courseservice.model.enums.ModuleType;
+import org.edunex.courseservice.service.ExportFormat;
+import org.edunex.courseservice.service.ExportService;
 import org.edunex.courseservice.service.ModuleService;
+import org.edunex.courseservice.service.Paging;
+import org.edunex.courseservice.service.ResumableUploadService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/modules")
@@ -23,12 +39,37 @@ public class ModuleController {
     @Autowired
     private ModuleService moduleService;
 
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private ResumableUploadService resumableUploadService;
+
+    private static final String TUS_RESUMABLE = "Tus-Resumable";
+    private static final String TUS_VERSION = "1.0.0";
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+    private static final String UPLOAD_LENGTH = "Upload-Length";
+
     @GetMapping
-    public ResponseEntity<List<ModuleDTO>> getAllModules() {
-        List<ModuleDTO> moduleDTOs = moduleService.getAllModules();
+    public ResponseEntity<SliceDTO<ModuleDTO>> getAllModules(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + Paging.DEFAULT_PAGE_SIZE) int size) {
+        SliceDTO<ModuleDTO> moduleDTOs = moduleService.getAllModules(page, size);
         return ResponseEntity.ok(moduleDTOs);
     }
 
+    /**
+     * Download every module as NDJSON or CSV, streamed from a database cursor
+     * @param format "ndjson" (default) or "csv"
+     * @return The streaming export
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAllModules(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        StreamingResponseBody rows = output -> moduleService.exportAllModules(exportFormat, output);
+        return exportService.toResponse("modules", exportFormat, rows);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ModuleDTO> getModuleById(
             @PathVariable Long id,
@@ -39,12 +80,27 @@ public class ModuleController {
     }
 
     @GetMapping("/course/{courseId}")
-    public ResponseEntity<List<ModuleDTO>> getModulesByCourseId(
+    public ResponseEntity<List<?>> getModulesByCourseId(
             @PathVariable Long courseId,
-            @AuthenticationPrincipal Jwt jwt) {
+            @RequestParam(defaultValue = "full") String view, // "summary" leaves out content URLs
+            @AuthenticationPrincipal Jwt jwt,
+            WebRequest webRequest) {
         String userId = jwt != null ? jwt.getSubject() : null;
-        List<ModuleDTO> moduleDTOs = moduleService.getModulesByCourseId(courseId, userId);
-        return ResponseEntity.ok(moduleDTOs);
+        boolean summary = "summary".equalsIgnoreCase(view);
+
+        // Answer 304 from the version query alone when the client's copy is current
+        String eTag = moduleService.getModulesETag(courseId, userId, summary);
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+
+        List<?> moduleDTOs = summary
+                ? moduleService.getModuleSummariesByCourseId(courseId, userId)
+                : moduleService.getModulesByCourseId(courseId, userId);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(eTag)
+                .body(moduleDTOs);
     }
 
     @GetMapping("/type/{type}")
@@ -84,11 +140,23 @@ public class ModuleController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Move a module to a new 1-based position within its course
+     */
     @PostMapping("/{id}/reorder")
     public ResponseEntity<Void> reorderModule(@PathVariable Long id, @RequestParam int newOrder) {
         moduleService.reorderModule(id, newOrder);
         return ResponseEntity.ok().build();
     }
+
+    /**
+     * Set the order of all modules in a course from a list of module IDs
+     */
+    @PutMapping("/course/{courseId}/order")
+    public ResponseEntity<Void> setModuleOrder(@PathVariable Long courseId, @RequestBody List<Long> moduleIds) {
+        moduleService.setModuleOrder(courseId, moduleIds);
+        return ResponseEntity.ok().build();
+    }
     
     /**
      * Upload content (video or PDF) for a module
@@ -105,8 +173,8 @@ public class ModuleController {
      * Download content for a module
      */
     @GetMapping("/{id}/content")
-    public ResponseEntity<InputStreamResource> downloadModuleContent(@PathVariable Long id) {
-        return moduleService.downloadModuleContent(id);
+    public ResponseEntity<?> downloadModuleContent(@PathVariable Long id, HttpServletRequest request) {
+        return moduleService.downloadModuleContent(id, request);
     }
     
     /**
@@ -117,4 +185,90 @@ public class ModuleController {
         moduleService.deleteModuleContent(id);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Start a resumable (tus-style) content upload. Upload-Length is the file size; Upload-Metadata may
+     * carry the base64 "filename" and "filetype". The Location is where the chunks are sent.
+     */
+    @PostMapping("/{id}/uploads")
+    public ResponseEntity<Void> createContentUpload(
+            @PathVariable Long id,
+            @RequestHeader(UPLOAD_LENGTH) long uploadLength,
+            @RequestHeader(value = "Upload-Metadata", required = false) String uploadMetadata,
+            @AuthenticationPrincipal Jwt jwt) {
+        Map<String, String> metadata = parseUploadMetadata(uploadMetadata);
+        ContentUpload upload = resumableUploadService.createUpload(
+                id, jwt.getSubject(), uploadLength, metadata.get("filename"), metadata.get("filetype"));
+        return ResponseEntity.created(ServletUriComponentsBuilder.fromCurrentRequest()
+                        .path("/{uploadId}").buildAndExpand(upload.getId()).toUri())
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, "0")
+                .build();
+    }
+
+    /**
+     * The offset a resumable upload continues from
+     */
+    @RequestMapping(value = "/{id}/uploads/{uploadId}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> getContentUpload(
+            @PathVariable Long id,
+            @PathVariable String uploadId,
+            @AuthenticationPrincipal Jwt jwt) {
+        ContentUpload upload = resumableUploadService.getUpload(id, uploadId, jwt.getSubject());
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, Long.toString(upload.getUploadOffset()))
+                .header(UPLOAD_LENGTH, Long.toString(upload.getUploadLength()))
+                .build();
+    }
+
+    /**
+     * Send the next chunk of a resumable upload, starting at Upload-Offset. The body is streamed to S3
+     * as it is read; the chunk that completes the file also sets it as the module's content.
+     */
+    @PatchMapping(value = "/{id}/uploads/{uploadId}", consumes = "application/offset+octet-stream")
+    public ResponseEntity<Void> appendContentUpload(
+            @PathVariable Long id,
+            @PathVariable String uploadId,
+            @RequestHeader(UPLOAD_OFFSET) long uploadOffset,
+            @AuthenticationPrincipal Jwt jwt,
+            HttpServletRequest request) throws IOException {
+        long offset = resumableUploadService.appendChunk(id, uploadId, jwt.getSubject(), uploadOffset,
+                request.getContentLengthLong(), request.getInputStream());
+        return ResponseEntity.noContent()
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, Long.toString(offset))
+                .build();
+    }
+
+    /**
+     * Cancel a resumable upload
+     */
+    @DeleteMapping("/{id}/uploads/{uploadId}")
+    public ResponseEntity<Void> cancelContentUpload(
+            @PathVariable Long id,
+            @PathVariable String uploadId,
+            @AuthenticationPrincipal Jwt jwt) {
+        resumableUploadService.cancelUpload(id, uploadId, jwt.getSubject());
+        return ResponseEntity.noContent().header(TUS_RESUMABLE, TUS_VERSION).build();
+    }
+
+    // Upload-Metadata is a comma-separated list of "key base64value" pairs
+    private static Map<String, String> parseUploadMetadata(String header) {
+        Map<String, String> metadata = new HashMap<>();
+        if (header == null || header.isBlank()) {
+            return metadata;
+        }
+        for (String pair : header.split(",")) {
+            String[] parts = pair.trim().split(" ", 2);
+            try {
+                String value = parts.length > 1 ? new String(Base64.getDecoder().decode(parts[1].trim()), StandardCharsets.UTF_8) : "";
+                metadata.put(parts[0], value);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid Upload-Metadata value for " + parts[0]);
+            }
+        }
+        return metadata;
+    }
 }
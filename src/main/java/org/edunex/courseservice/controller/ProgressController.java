@@ -1,6 +1,10 @@
 package org.edunex.courseservice.controller;
 
 import org.edunex.courseservice.dto.ProgressDTO;
+import org.edunex.courseservice.dto.SliceDTO;
+import org.edunex.courseservice.service.ExportFormat;
+import org.edunex.courseservice.service.ExportService;
+import org.edunex.courseservice.service.Paging;
 import org.edunex.courseservice.service.ProgressService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -9,6 +13,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -20,12 +25,29 @@ public class ProgressController {
     @Autowired
     private ProgressService progressService;
 
+    @Autowired
+    private ExportService exportService;
+
     @GetMapping
-    public ResponseEntity<List<ProgressDTO>> getAllProgress() {
-        List<ProgressDTO> progressDTOs = progressService.getAllProgress();
+    public ResponseEntity<SliceDTO<ProgressDTO>> getAllProgress(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + Paging.DEFAULT_PAGE_SIZE) int size) {
+        SliceDTO<ProgressDTO> progressDTOs = progressService.getAllProgress(page, size);
         return ResponseEntity.ok(progressDTOs);
     }
 
+    /**
+     * Download every progress record as NDJSON or CSV, streamed from a database cursor
+     * @param format "ndjson" (default) or "csv"
+     * @return The streaming export
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAllProgress(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        StreamingResponseBody rows = output -> progressService.exportAllProgress(exportFormat, output);
+        return exportService.toResponse("progress", exportFormat, rows);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ProgressDTO> getProgressById(@PathVariable Long id) {
         ProgressDTO progressDTO = progressService.getProgressById(id);
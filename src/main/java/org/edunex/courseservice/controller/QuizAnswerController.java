@@ -1,11 +1,16 @@
 package org.edunex.courseservice.controller;
 
 import org.edunex.courseservice.dto.QuizAnswerDTO;
+import org.edunex.courseservice.dto.SliceDTO;
+import org.edunex.courseservice.service.ExportFormat;
+import org.edunex.courseservice.service.ExportService;
+import org.edunex.courseservice.service.Paging;
 import org.edunex.courseservice.service.QuizAnswerService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -16,12 +21,29 @@ public class QuizAnswerController {
     @Autowired
     private QuizAnswerService quizAnswerService;
 
+    @Autowired
+    private ExportService exportService;
+
     @GetMapping
-    public ResponseEntity<List<QuizAnswerDTO>> getAllQuizAnswers() {
-        List<QuizAnswerDTO> answerDTOs = quizAnswerService.getAllQuizAnswers();
+    public ResponseEntity<SliceDTO<QuizAnswerDTO>> getAllQuizAnswers(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + Paging.DEFAULT_PAGE_SIZE) int size) {
+        SliceDTO<QuizAnswerDTO> answerDTOs = quizAnswerService.getAllQuizAnswers(page, size);
         return ResponseEntity.ok(answerDTOs);
     }
 
+    /**
+     * Download every quiz answer as NDJSON or CSV, streamed from a database cursor
+     * @param format "ndjson" (default) or "csv"
+     * @return The streaming export
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAllQuizAnswers(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        StreamingResponseBody rows = output -> quizAnswerService.exportAllQuizAnswers(exportFormat, output);
+        return exportService.toResponse("quiz-answers", exportFormat, rows);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<QuizAnswerDTO> getQuizAnswerById(@PathVariable Long id) {
         QuizAnswerDTO answerDTO = quizAnswerService.getQuizAnswerById(id);
@@ -1,11 +1,16 @@
 package org.edunex.courseservice.controller;
 
 import org.edunex.courseservice.dto.QuizDTO;
+import org.edunex.courseservice.dto.SliceDTO;
+import org.edunex.courseservice.service.ExportFormat;
+import org.edunex.courseservice.service.ExportService;
+import org.edunex.courseservice.service.Paging;
 import org.edunex.courseservice.service.QuizService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -16,12 +21,29 @@ public class QuizController {
     @Autowired
     private QuizService quizService;
 
+    @Autowired
+    private ExportService exportService;
+
     @GetMapping
-    public ResponseEntity<List<QuizDTO>> getAllQuizzes() {
-        List<QuizDTO> quizDTOs = quizService.getAllQuizzes();
+    public ResponseEntity<SliceDTO<QuizDTO>> getAllQuizzes(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + Paging.DEFAULT_PAGE_SIZE) int size) {
+        SliceDTO<QuizDTO> quizDTOs = quizService.getAllQuizzes(page, size);
         return ResponseEntity.ok(quizDTOs);
     }
 
+    /**
+     * Download every quiz as NDJSON or CSV, streamed from a database cursor
+     * @param format "ndjson" (default) or "csv"
+     * @return The streaming export
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAllQuizzes(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        StreamingResponseBody rows = output -> quizService.exportAllQuizzes(exportFormat, output);
+        return exportService.toResponse("quizzes", exportFormat, rows);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<QuizDTO> getQuizById(@PathVariable Long id) {
         QuizDTO quizDTO = quizService.getQuizById(id);
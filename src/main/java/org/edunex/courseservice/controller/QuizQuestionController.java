@@ -1,11 +1,16 @@
 package org.edunex.courseservice.controller;
 
 import org.edunex.courseservice.dto.QuizQuestionDTO;
+import org.edunex.courseservice.dto.SliceDTO;
+import org.edunex.courseservice.service.ExportFormat;
+import org.edunex.courseservice.service.ExportService;
+import org.edunex.courseservice.service.Paging;
 import org.edunex.courseservice.service.QuizQuestionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -16,12 +21,29 @@ public class QuizQuestionController {
     @Autowired
     private QuizQuestionService quizQuestionService;
 
+    @Autowired
+    private ExportService exportService;
+
     @GetMapping
-    public ResponseEntity<List<QuizQuestionDTO>> getAllQuizQuestions() {
-        List<QuizQuestionDTO> questionDTOs = quizQuestionService.getAllQuizQuestions();
+    public ResponseEntity<SliceDTO<QuizQuestionDTO>> getAllQuizQuestions(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + Paging.DEFAULT_PAGE_SIZE) int size) {
+        SliceDTO<QuizQuestionDTO> questionDTOs = quizQuestionService.getAllQuizQuestions(page, size);
         return ResponseEntity.ok(questionDTOs);
     }
 
+    /**
+     * Download every quiz question as NDJSON or CSV, streamed from a database cursor
+     * @param format "ndjson" (default) or "csv"
+     * @return The streaming export
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAllQuizQuestions(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        StreamingResponseBody rows = output -> quizQuestionService.exportAllQuizQuestions(exportFormat, output);
+        return exportService.toResponse("quiz-questions", exportFormat, rows);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<QuizQuestionDTO> getQuizQuestionById(@PathVariable Long id) {
         QuizQuestionDTO questionDTO = quizQuestionService.getQuizQuestionById(id);
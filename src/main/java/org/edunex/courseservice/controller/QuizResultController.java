@@ -1,14 +1,23 @@
 package org.edunex.courseservice.controller;
 
+import org.edunex.courseservice.dto.QuizRankDTO;
 import org.edunex.courseservice.dto.QuizResultDTO;
+import org.edunex.courseservice.dto.QuizStatsDTO;
+import org.edunex.courseservice.dto.SliceDTO;
+import org.edunex.courseservice.service.ExportFormat;
+import org.edunex.courseservice.service.ExportService;
+import org.edunex.courseservice.service.Paging;
 import org.edunex.courseservice.service.QuizResultService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -18,12 +27,29 @@ public class QuizResultController {
     @Autowired
     private QuizResultService quizResultService;
 
+    @Autowired
+    private ExportService exportService;
+
     @GetMapping
-    public ResponseEntity<List<QuizResultDTO>> getAllQuizResults() {
-        List<QuizResultDTO> resultDTOs = quizResultService.getAllQuizResults();
+    public ResponseEntity<SliceDTO<QuizResultDTO>> getAllQuizResults(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + Paging.DEFAULT_PAGE_SIZE) int size) {
+        SliceDTO<QuizResultDTO> resultDTOs = quizResultService.getAllQuizResults(page, size);
         return ResponseEntity.ok(resultDTOs);
     }
 
+    /**
+     * Download every quiz result as NDJSON or CSV, streamed from a database cursor
+     * @param format "ndjson" (default) or "csv"
+     * @return The streaming export
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAllQuizResults(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        StreamingResponseBody rows = output -> quizResultService.exportAllQuizResults(exportFormat, output);
+        return exportService.toResponse("quiz-results", exportFormat, rows);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<QuizResultDTO> getQuizResultById(@PathVariable Long id) {
         QuizResultDTO resultDTO = quizResultService.getQuizResultById(id);
@@ -31,15 +57,25 @@ public class QuizResultController {
     }
 
     @GetMapping("/user")
-    public ResponseEntity<List<QuizResultDTO>> getQuizResultsByUserId(@AuthenticationPrincipal Jwt jwt) {
+    public ResponseEntity<SliceDTO<QuizResultDTO>> getQuizResultsByUserId(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + Paging.DEFAULT_PAGE_SIZE) int size,
+            @AuthenticationPrincipal Jwt jwt) {
         String userId = jwt.getSubject();
-        List<QuizResultDTO> resultDTOs = quizResultService.getQuizResultsByUserId(userId);
+        SliceDTO<QuizResultDTO> resultDTOs = quizResultService.getQuizResultsByUserId(userId, from, to, page, size);
         return ResponseEntity.ok(resultDTOs);
     }
 
     @GetMapping("/quiz/{quizId}")
-    public ResponseEntity<List<QuizResultDTO>> getQuizResultsByQuizId(@PathVariable Long quizId) {
-        List<QuizResultDTO> resultDTOs = quizResultService.getQuizResultsByQuizId(quizId);
+    public ResponseEntity<SliceDTO<QuizResultDTO>> getQuizResultsByQuizId(
+            @PathVariable Long quizId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + Paging.DEFAULT_PAGE_SIZE) int size) {
+        SliceDTO<QuizResultDTO> resultDTOs = quizResultService.getQuizResultsByQuizId(quizId, from, to, page, size);
         return ResponseEntity.ok(resultDTOs);
     }
 
@@ -61,6 +97,21 @@ public class QuizResultController {
         return ResponseEntity.ok(resultDTO);
     }
 
+    @GetMapping("/quiz/{quizId}/stats")
+    public ResponseEntity<QuizStatsDTO> getQuizStats(@PathVariable Long quizId) {
+        QuizStatsDTO statsDTO = quizResultService.getQuizStats(quizId);
+        return ResponseEntity.ok(statsDTO);
+    }
+
+    @GetMapping("/quiz/{quizId}/rank")
+    public ResponseEntity<QuizRankDTO> getQuizRankForUser(
+            @PathVariable Long quizId,
+            @AuthenticationPrincipal Jwt jwt) {
+        String userId = jwt.getSubject();
+        QuizRankDTO rankDTO = quizResultService.getQuizRankForUser(userId, quizId);
+        return ResponseEntity.ok(rankDTO);
+    }
+
     @PostMapping
     public ResponseEntity<QuizResultDTO> createQuizResult(
             @RequestBody QuizResultDTO quizResultDTO,
@@ -0,0 +1,21 @@
+package org.edunex.courseservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkEnrollmentResultDTO {
+    private String userId;
+    private Status status;
+
+    public enum Status {
+        ENROLLED,          // A new enrollment was created
+        ALREADY_ENROLLED,  // The user was enrolled before this import
+        DUPLICATE,         // The user ID appeared earlier in the same batch and was skipped
+        INVALID,           // The user ID was blank or malformed and was skipped
+        MALFORMED          // The element could not be parsed and was skipped
+    }
+}
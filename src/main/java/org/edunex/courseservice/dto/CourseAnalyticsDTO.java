@@ -0,0 +1,28 @@
+package org.edunex.courseservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Instructor view of a course's activity, read from the analytics rollup tables.
+ * Activity after refreshedUpTo is not included yet.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseAnalyticsDTO {
+    private Long courseId;
+    private LocalDate from;
+    private LocalDate to;
+    private LocalDateTime refreshedUpTo;
+    private long enrollments;           // Over the date range
+    private long quizSubmissions;       // Over the date range
+    private Double averageQuizScore;    // Over the date range, null without submissions
+    private List<CourseDailyStatsDTO> days;     // Only days with activity
+    private List<ModuleFunnelDTO> funnel;       // All modules of the course, in module order
+}
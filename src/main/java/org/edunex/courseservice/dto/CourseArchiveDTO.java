@@ -0,0 +1,65 @@
+package org.edunex.courseservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.edunex.courseservice.model.enums.ModuleType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The document written by the course export endpoint and read by the course import endpoint.
+ * Course fields come before modules so both sides can stream it; modules are in course order.
+ * IDs and S3 object keys are not part of it, module content and thumbnails are uploaded again after an import.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CourseArchiveDTO {
+
+    public static final int FORMAT_VERSION = 1;
+
+    private Integer formatVersion;
+    private String title;
+    private String description;
+    private String category;
+    private List<Module> modules;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Module {
+        private String title;
+        private ModuleType type;
+        private int coinsRequired;
+        private Quiz quiz;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Quiz {
+        private String title;
+        private List<Question> questions = new ArrayList<>();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Question {
+        private String questionText;
+        private List<Answer> answers = new ArrayList<>();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Answer {
+        private String answerText;
+        private boolean correct;
+    }
+}
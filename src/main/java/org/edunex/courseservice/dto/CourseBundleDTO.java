@@ -0,0 +1,25 @@
+package org.edunex.courseservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Everything a client needs to open a course: the course, its modules and quizzes, and the caller's progress.
+ * A delta bundle (since is set) only carries the modules and quizzes that changed after that version;
+ * moduleIds always lists every module, so modules missing from it have been deleted.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseBundleDTO {
+    private Long version;                   // Pass as since on the next sync
+    private Long since;                     // Null for a full bundle
+    private CourseDTO course;
+    private List<Long> moduleIds;           // All modules of the course, in order
+    private List<ModuleDTO> modules;        // Changed modules, in order
+    private List<QuizDTO> quizzes;          // Quizzes of the changed modules, with questions and answers
+    private List<ProgressDTO> progress;     // All of the caller's progress in the course
+}
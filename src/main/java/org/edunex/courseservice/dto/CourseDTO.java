@@ -30,4 +30,20 @@ public class CourseDTO {
     // Related data
     private List<ModuleDTO> modules;
     private boolean userEnrolled;
+
+    // Used by the JPQL constructor expression in CourseRepository
+    public CourseDTO(Long id, String title, String description, String instructorId, String category,
+                     LocalDateTime createdAt, String thumbnailUrl, CourseStatus status,
+                     Long moduleCount, Long enrollmentCount) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.instructorId = instructorId;
+        this.category = category;
+        this.createdAt = createdAt;
+        this.thumbnailUrl = thumbnailUrl;
+        this.status = status;
+        this.moduleCount = moduleCount.intValue();
+        this.enrollmentCount = enrollmentCount.intValue();
+    }
 }
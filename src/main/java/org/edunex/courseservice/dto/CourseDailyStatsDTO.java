@@ -0,0 +1,27 @@
+package org.edunex.courseservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseDailyStatsDTO {
+    private LocalDate date;
+    private long enrollments;
+    private long activeLearners;
+    private long quizSubmissions;
+    private Double averageQuizScore;    // Null when no quiz was submitted that day
+
+    // Used by the JPQL constructor expression in CourseDailyStatsRepository
+    public CourseDailyStatsDTO(LocalDate date, long enrollments, long activeLearners, long quizSubmissions, long quizScoreSum) {
+        this.date = date;
+        this.enrollments = enrollments;
+        this.activeLearners = activeLearners;
+        this.quizSubmissions = quizSubmissions;
+        this.averageQuizScore = quizSubmissions > 0 ? (double) quizScoreSum / quizSubmissions : null;
+    }
+}
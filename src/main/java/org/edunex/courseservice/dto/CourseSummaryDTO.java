@@ -0,0 +1,43 @@
+package org.edunex.courseservice.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.edunex.courseservice.model.CourseStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Compact course representation for list pages. Leaves out the description and modules,
+ * and is read with a single projection query instead of loading course entities.
+ */
+@Data
+@NoArgsConstructor
+public class CourseSummaryDTO {
+    private Long id;
+    private String title;
+    private String instructorId;
+    private String category;
+    private LocalDateTime createdAt;
+    private String thumbnailUrl;
+    private CourseStatus status;
+
+    // Statistics
+    private int moduleCount;
+    private int enrollmentCount;
+    private double completionPercentage; // For the current user if specified
+    private boolean userEnrolled;
+
+    // Used by the JPQL constructor expression in CourseRepository
+    public CourseSummaryDTO(Long id, String title, String instructorId, String category, LocalDateTime createdAt,
+                            String thumbnailUrl, CourseStatus status, Long moduleCount, Long enrollmentCount) {
+        this.id = id;
+        this.title = title;
+        this.instructorId = instructorId;
+        this.category = category;
+        this.createdAt = createdAt;
+        this.thumbnailUrl = thumbnailUrl;
+        this.status = status;
+        this.moduleCount = moduleCount.intValue();
+        this.enrollmentCount = enrollmentCount.intValue();
+    }
+}
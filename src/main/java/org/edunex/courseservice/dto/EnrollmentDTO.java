@@ -17,4 +17,15 @@ public class EnrollmentDTO {
     private String courseTitle;
     private LocalDateTime enrolledAt;
     private double completionPercentage; // Progress percentage in the course
+
+    // Used by the JPQL constructor expression in EnrollmentRepository
+    public EnrollmentDTO(Long id, String userId, Long courseId, String courseTitle, LocalDateTime enrolledAt,
+                         Long completedModules, Long totalModules) {
+        this.id = id;
+        this.userId = userId;
+        this.courseId = courseId;
+        this.courseTitle = courseTitle;
+        this.enrolledAt = enrolledAt;
+        this.completionPercentage = totalModules > 0 ? (double) completedModules / totalModules * 100 : 0;
+    }
 }
@@ -21,4 +21,18 @@ public class ModuleDTO {
     private Long quizId;
     private boolean completed;
     private double progressPercentage;
+
+    // Used by the JPQL constructor expression in ModuleRepository
+    public ModuleDTO(Long id, String title, ModuleType type, int coinsRequired, String contentUrl, int moduleOrder,
+                     Long courseId, String courseName, Long quizId) {
+        this.id = id;
+        this.title = title;
+        this.type = type;
+        this.coinsRequired = coinsRequired;
+        this.contentUrl = contentUrl;
+        this.moduleOrder = moduleOrder;
+        this.courseId = courseId;
+        this.courseName = courseName;
+        this.quizId = quizId;
+    }
 }
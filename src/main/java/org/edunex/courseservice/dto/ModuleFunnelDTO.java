@@ -0,0 +1,18 @@
+package org.edunex.courseservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One step of a course's completion funnel
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ModuleFunnelDTO {
+    private Long moduleId;
+    private String title;
+    private int moduleOrder;
+    private long completions;
+}
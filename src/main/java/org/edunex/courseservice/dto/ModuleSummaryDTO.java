@@ -0,0 +1,29 @@
+package org.edunex.courseservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.edunex.courseservice.model.enums.ModuleType;
+
+/**
+ * Compact module representation for course outlines. Leaves out the content URLs and course name,
+ * and is read with a single projection query instead of loading module entities.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ModuleSummaryDTO {
+    private Long id;
+    private String title;
+    private ModuleType type;
+    private int coinsRequired;
+    private int moduleOrder;
+    private Long courseId;
+    private Long quizId;
+    private boolean completed;
+
+    // Used by the JPQL constructor expression in ModuleRepository
+    public ModuleSummaryDTO(Long id, String title, ModuleType type, int coinsRequired, int moduleOrder, Long courseId, Long quizId) {
+        this(id, title, type, coinsRequired, moduleOrder, courseId, quizId, false);
+    }
+}
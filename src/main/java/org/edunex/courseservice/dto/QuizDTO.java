@@ -15,4 +15,12 @@ public class QuizDTO {
     private Long moduleId;
     private String moduleTitle;
     private List<QuizQuestionDTO> questions;
+
+    // Used by the JPQL constructor expression in QuizRepository
+    public QuizDTO(Long id, String title, Long moduleId, String moduleTitle) {
+        this.id = id;
+        this.title = title;
+        this.moduleId = moduleId;
+        this.moduleTitle = moduleTitle;
+    }
 }
@@ -14,4 +14,11 @@ public class QuizQuestionDTO {
     private String questionText;
     private Long quizId;
     private List<QuizAnswerDTO> answers;
+
+    // Used by the JPQL constructor expression in QuizQuestionRepository
+    public QuizQuestionDTO(Long id, String questionText, Long quizId) {
+        this.id = id;
+        this.questionText = questionText;
+        this.quizId = quizId;
+    }
 }
@@ -0,0 +1,20 @@
+package org.edunex.courseservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A user's standing on a quiz, ranked by each user's best score. Users with the same best score share a rank.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuizRankDTO {
+    private Long quizId;
+    private String userId;
+    private int bestScore;
+    private long rank;           // 1 is the top
+    private long participants;
+    private double percentile;   // Share of participants with a lower best score
+}
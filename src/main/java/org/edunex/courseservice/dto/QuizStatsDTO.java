@@ -0,0 +1,25 @@
+package org.edunex.courseservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Score statistics of a quiz over all submitted results. Score fields are null when there are no results.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuizStatsDTO {
+    private Long quizId;
+    private long attempts;
+    private long participants;   // Users with at least one result
+    private Double averageScore;
+    private Integer minScore;
+    private Integer maxScore;
+    private Integer medianScore;
+    private Integer percentile25Score;
+    private Integer percentile75Score;
+    private Integer percentile90Score;
+    private long[] histogram;    // Number of results per score, indexed by score (0-100)
+}
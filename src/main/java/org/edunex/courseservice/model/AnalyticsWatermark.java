@@ -0,0 +1,27 @@
+package org.edunex.courseservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * How far the analytics rollup has read a source table. Rows with a timestamp after the
+ * high water mark have not been rolled up yet.
+ */
+@Entity
+@Table(name = "analytics_watermarks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsWatermark {
+
+    @Id
+    @Column(length = 64)
+    private String source;
+
+    @Column(name = "high_water", nullable = false)
+    private LocalDateTime highWater;
+}
@@ -0,0 +1,40 @@
+package org.edunex.courseservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An uploaded module content file, stored once per distinct content. refCount is the number of
+ * modules pointing at the object; S3CleanupService removes the row and the object once it drops to zero.
+ */
+@Entity
+@Table(name = "content_objects")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentObject {
+
+    // Hex SHA-256 of the file content
+    @Id
+    @Column(name = "hash", length = 64)
+    private String hash;
+
+    @Column(name = "object_key", nullable = false, unique = true, length = 1024)
+    private String objectKey;
+
+    @Column(name = "size", nullable = false)
+    private long size;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
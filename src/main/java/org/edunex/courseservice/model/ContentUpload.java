@@ -0,0 +1,62 @@
+package org.edunex.courseservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A resumable module content upload in progress. Chunks are forwarded to the S3 multipart upload
+ * s3UploadId as they arrive; uploadOffset and partCount record how much of the file S3 already has,
+ * so the upload can be resumed on any instance.
+ */
+@Entity
+@Table(name = "content_uploads")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentUpload {
+
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Column(name = "module_id", nullable = false)
+    private Long moduleId;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Column(name = "object_key", nullable = false, length = 1024)
+    private String objectKey;
+
+    @Column(name = "s3_upload_id", nullable = false, length = 1024)
+    private String s3UploadId;
+
+    @Column(name = "filename", length = 1024)
+    private String filename;
+
+    @Column(name = "content_type", nullable = false)
+    private String contentType;
+
+    @Column(name = "upload_length", nullable = false)
+    private long uploadLength;
+
+    @Column(name = "upload_offset", nullable = false)
+    private long uploadOffset;
+
+    @Column(name = "part_count", nullable = false)
+    private int partCount;
+
+    // Set while a chunk is being written to S3, so a second writer at the same offset is turned away
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -2,6 +2,7 @@ package org.edunex.courseservice.model;
 
 import jakarta.persistence.*;
 import jakarta.persistence.PostLoad;
+import org.hibernate.annotations.ColumnDefault;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -23,6 +24,8 @@ public class Course {
     @Column(nullable = false)
     private String title;
 
+    // Only loaded when read, list and summary views select their columns explicitly
+    @Basic(fetch = FetchType.LAZY)
     @Column(columnDefinition = "TEXT")
     private String description;
 
@@ -43,6 +46,13 @@ public class Course {
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    // Bumped on every change to the course and, explicitly, on changes to its modules and quizzes.
+    // Course and module ETags are derived from it.
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     // A course has many modules
     @OneToMany(mappedBy = "course", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Module> modules;
@@ -0,0 +1,52 @@
+package org.edunex.courseservice.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDate;
+
+/**
+ * Activity of a course on one day, maintained by the analytics rollup job.
+ * A day is recomputed from the source tables whenever new rows for it are picked up.
+ */
+@Entity
+@Table(name = "course_daily_stats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_course_daily_stats_course_date", columnNames = {"course_id", "activity_date"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseDailyStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "course_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    private Course course;
+
+    @Column(name = "activity_date", nullable = false)
+    private LocalDate activityDate;
+
+    // Users who enrolled that day (and are still enrolled)
+    @Column(nullable = false)
+    private long enrollments;
+
+    // Distinct users who completed a module or submitted a quiz that day
+    @Column(name = "active_learners", nullable = false)
+    private long activeLearners;
+
+    @Column(name = "quiz_submissions", nullable = false)
+    private long quizSubmissions;
+
+    // Sum of the scores of that day's quiz submissions, for averaging over any date range
+    @Column(name = "quiz_score_sum", nullable = false)
+    private long quizScoreSum;
+}
@@ -9,7 +9,8 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "enrollments")
+@Table(name = "enrollments",
+        uniqueConstraints = @UniqueConstraint(name = "uk_enrollments_user_course", columnNames = {"user_id", "course_id"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,7 +21,7 @@ public class Enrollment {
     private Long id;
 
     // The ID of the user from the User & Auth Service (Keycloak)
-    @Column(nullable = false)
+    @Column(name = "user_id", nullable = false)
     private String userId;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -30,4 +31,8 @@ public class Enrollment {
 
     @Column(name = "enrolled_at", updatable = false)
     private LocalDateTime enrolledAt = LocalDateTime.now();
+
+    // Client supplied Idempotency-Key of the request that created this enrollment, so retries can be replayed
+    @Column(name = "idempotency_key", updatable = false)
+    private String idempotencyKey;
 }
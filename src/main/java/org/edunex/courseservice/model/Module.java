@@ -3,6 +3,8 @@ package org.edunex.courseservice.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.edunex.courseservice.model.enums.ModuleType;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Formula;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -35,13 +37,25 @@ public class Module {
     // To maintain the order of modules in a course
     private int moduleOrder;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    // Course version at which the module or its quiz last changed, stamped by ModuleRepository.touchContent
+    @ColumnDefault("0")
+    @Column(name = "content_version", nullable = false, insertable = false, updatable = false)
+    private Long contentVersion;
+
     // A module belongs to one course
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "course_id", nullable = false)
     @JsonIgnore // Prevents infinite loops in JSON serialization
     private Course course;
 
-    // A module can optionally have one quiz
-    @OneToOne(mappedBy = "module", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
-    private Quiz quiz;
+    // A module can optionally have one quiz. quizzes.module_id owns the association, and an inverse
+    // @OneToOne cannot be proxied, so it would cost a quizzes lookup per loaded module; only the ID is
+    // needed and it is read in the same statement. The quiz is removed with the module by ON DELETE CASCADE.
+    @Formula("(SELECT MIN(q.id) FROM quizzes q WHERE q.module_id = id)")
+    private Long quizId;
 }
@@ -0,0 +1,40 @@
+package org.edunex.courseservice.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * Number of users who have completed a module, maintained by the analytics rollup job.
+ * Read in module order, the counts of a course form its completion funnel.
+ */
+@Entity
+@Table(name = "module_completion_counts")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ModuleCompletionCount {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "course_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    private Course course;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "module_id", nullable = false, unique = true)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    private Module module;
+
+    @Column(nullable = false)
+    private long completions;
+}
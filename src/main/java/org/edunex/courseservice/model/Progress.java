@@ -1,6 +1,7 @@
 package org.edunex.courseservice.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -8,7 +9,8 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "progress")
+@Table(name = "progress",
+        uniqueConstraints = @UniqueConstraint(name = "uk_progress_user_module", columnNames = {"user_id", "module_id"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -28,4 +30,10 @@ public class Progress {
     private boolean completed = false;
 
     private LocalDateTime completedAt;
+
+    // Bumped on every update; part of the per-user progress fingerprint in course and module ETags
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
 }
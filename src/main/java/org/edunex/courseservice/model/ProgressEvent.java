@@ -0,0 +1,42 @@
+package org.edunex.courseservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.edunex.courseservice.model.enums.ProgressEventType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Append-only history of progress changes. The table is range partitioned by month on occurred_at
+ * (see partition_quiz_results.sql), so the primary key in the database is (id, occurred_at).
+ * Module and course are plain IDs so the history outlives deleted modules.
+ */
+@Entity
+@Table(name = "progress_events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProgressEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private String userId;
+
+    @Column(name = "module_id", nullable = false, updatable = false)
+    private Long moduleId;
+
+    @Column(name = "course_id", updatable = false)
+    private Long courseId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, updatable = false)
+    private ProgressEventType eventType;
+
+    @Column(name = "occurred_at", nullable = false, updatable = false)
+    private LocalDateTime occurredAt;
+}
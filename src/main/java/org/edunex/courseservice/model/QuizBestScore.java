@@ -0,0 +1,37 @@
+package org.edunex.courseservice.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * A user's best score on a quiz, kept up to date as results are recorded and deleted
+ */
+@Entity
+@Table(name = "quiz_best_scores",
+        uniqueConstraints = @UniqueConstraint(name = "uk_quiz_best_scores_quiz_user", columnNames = {"quiz_id", "user_id"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuizBestScore {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "quiz_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    private Quiz quiz;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Column(name = "best_score", nullable = false)
+    private int bestScore;
+}
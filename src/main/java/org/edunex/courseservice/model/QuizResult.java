@@ -27,6 +27,7 @@ public class QuizResult {
 
     private int score; // e.g., 80 for 80%
 
-    @Column(name = "submitted_at", updatable = false)
+    // Partition key of the quiz_results table (monthly range partitions), so it can never be null
+    @Column(name = "submitted_at", nullable = false, updatable = false)
     private LocalDateTime submittedAt = LocalDateTime.now();
 }
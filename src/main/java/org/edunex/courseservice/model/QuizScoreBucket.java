@@ -0,0 +1,43 @@
+package org.edunex.courseservice.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * One bucket of a quiz's score histogram, kept up to date as results are recorded and deleted.
+ * Each quiz has at most one bucket per score from 0 to 100.
+ */
+@Entity
+@Table(name = "quiz_score_buckets",
+        uniqueConstraints = @UniqueConstraint(name = "uk_quiz_score_buckets_quiz_score", columnNames = {"quiz_id", "score"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuizScoreBucket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "quiz_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    private Quiz quiz;
+
+    @Column(nullable = false)
+    private int score;
+
+    // Number of results with this score
+    @Column(name = "result_count", nullable = false)
+    private long resultCount;
+
+    // Number of users whose best result has this score
+    @Column(name = "best_count", nullable = false)
+    private long bestCount;
+}
@@ -0,0 +1,34 @@
+package org.edunex.courseservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An S3 object whose database rows have been deleted. Queued in the same transaction as the delete
+ * and removed from S3 by S3CleanupService, so a failed or slow S3 call never holds up the delete.
+ */
+@Entity
+@Table(name = "s3_deletions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class S3Deletion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "object_key", nullable = false, length = 1024)
+    private String objectKey;
+
+    @Column(name = "queued_at", nullable = false)
+    private LocalDateTime queuedAt;
+
+    // Set while a cleanup run is deleting the object; an expired claim is picked up again
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+}
@@ -0,0 +1,6 @@
+package org.edunex.courseservice.model.enums;
+
+public enum ProgressEventType {
+    COMPLETED,
+    RESET,
+}
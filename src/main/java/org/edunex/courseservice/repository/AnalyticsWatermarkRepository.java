@@ -0,0 +1,17 @@
+package org.edunex.courseservice.repository;
+
+import org.edunex.courseservice.model.AnalyticsWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface AnalyticsWatermarkRepository extends JpaRepository<AnalyticsWatermark, String> {
+
+    // All sources advance together, so the lowest mark is how far the rollup tables are complete
+    @Query("SELECT MIN(w.highWater) FROM AnalyticsWatermark w")
+    Optional<LocalDateTime> findLowestHighWater();
+}
@@ -0,0 +1,24 @@
+package org.edunex.courseservice.repository;
+
+import org.edunex.courseservice.model.ContentObject;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface ContentObjectRepository extends JpaRepository<ContentObject, String>, ContentObjectRepositoryCustom {
+
+    // Keys that are not content objects (external URLs, files uploaded before deduplication) match no row
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE content_objects SET ref_count = ref_count + 1 WHERE object_key = :objectKey", nativeQuery = true)
+    int retain(@Param("objectKey") String objectKey);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE content_objects SET ref_count = ref_count - 1 WHERE object_key = :objectKey", nativeQuery = true)
+    int release(@Param("objectKey") String objectKey);
+}
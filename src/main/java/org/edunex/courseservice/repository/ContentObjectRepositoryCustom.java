@@ -0,0 +1,29 @@
+package org.edunex.courseservice.repository;
+
+import java.util.Optional;
+
+/**
+ * Reference-taking lookups of content objects, which need UPDATE/INSERT ... RETURNING.
+ */
+public interface ContentObjectRepositoryCustom {
+
+    /**
+     * Take a reference on the stored object with this content, if there is one
+     *
+     * @param hash Hex SHA-256 of the content
+     * @return The object key, or empty if no object with this content is stored
+     */
+    Optional<String> acquireByHash(String hash);
+
+    /**
+     * Record a newly uploaded object with one reference. If an upload of the same content was recorded
+     * first, a reference is taken on that object instead.
+     *
+     * @param hash Hex SHA-256 of the content
+     * @param objectKey The S3 object key the content was uploaded to
+     * @param size The size of the content in bytes
+     * @param contentType The content type of the object
+     * @return The object key now recorded for the content, which is not objectKey if another upload won
+     */
+    String acquire(String hash, String objectKey, long size, String contentType);
+}
@@ -0,0 +1,35 @@
+package org.edunex.courseservice.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+public class ContentObjectRepositoryCustomImpl implements ContentObjectRepositoryCustom {
+
+    // The row lock taken here is what S3CleanupService waits on before it removes an unreferenced object
+    private static final String ACQUIRE_BY_HASH_SQL =
+            "UPDATE content_objects SET ref_count = ref_count + 1 WHERE hash = ? RETURNING object_key";
+
+    private static final String ACQUIRE_SQL = """
+            INSERT INTO content_objects (hash, object_key, size, content_type, ref_count, created_at)
+            VALUES (?, ?, ?, ?, 1, now())
+            ON CONFLICT (hash) DO UPDATE SET ref_count = content_objects.ref_count + 1
+            RETURNING object_key
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Optional<String> acquireByHash(String hash) {
+        List<String> keys = jdbcTemplate.queryForList(ACQUIRE_BY_HASH_SQL, String.class, hash);
+        return keys.stream().findFirst();
+    }
+
+    @Override
+    public String acquire(String hash, String objectKey, long size, String contentType) {
+        return jdbcTemplate.queryForObject(ACQUIRE_SQL, String.class, hash, objectKey, size, contentType);
+    }
+}
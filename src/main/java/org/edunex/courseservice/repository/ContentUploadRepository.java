@@ -0,0 +1,37 @@
+package org.edunex.courseservice.repository;
+
+import org.edunex.courseservice.model.ContentUpload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface ContentUploadRepository extends JpaRepository<ContentUpload, String> {
+
+    // Take the write lease for the chunk at offset; 0 if the upload has moved on or another chunk is being written
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE content_uploads SET lease_until = now() + CAST(:lease AS interval)
+            WHERE id = :id AND upload_offset = :offset AND (lease_until IS NULL OR lease_until < now())
+            """, nativeQuery = true)
+    int claim(@Param("id") String id, @Param("offset") long offset, @Param("lease") String lease);
+
+    // Record a chunk written to S3 as the next part and drop the lease
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE content_uploads
+            SET upload_offset = :newOffset, part_count = part_count + 1, lease_until = NULL, updated_at = now()
+            WHERE id = :id AND upload_offset = :offset
+            """, nativeQuery = true)
+    int advance(@Param("id") String id, @Param("offset") long offset, @Param("newOffset") long newOffset);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE content_uploads SET lease_until = NULL WHERE id = :id", nativeQuery = true)
+    int releaseLease(@Param("id") String id);
+}
@@ -0,0 +1,26 @@
+package org.edunex.courseservice.repository;
+
+import org.edunex.courseservice.dto.CourseDailyStatsDTO;
+import org.edunex.courseservice.model.CourseDailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface CourseDailyStatsRepository extends JpaRepository<CourseDailyStats, Long> {
+
+    @Query("""
+            SELECT new org.edunex.courseservice.dto.CourseDailyStatsDTO(
+                s.activityDate, s.enrollments, s.activeLearners, s.quizSubmissions, s.quizScoreSum)
+            FROM CourseDailyStats s
+            WHERE s.course.id = :courseId AND s.activityDate BETWEEN :from AND :to
+            ORDER BY s.activityDate
+            """)
+    List<CourseDailyStatsDTO> findDTOsByCourseIdAndDateBetween(@Param("courseId") Long courseId,
+                                                             @Param("from") LocalDate from,
+                                                             @Param("to") LocalDate to);
+}
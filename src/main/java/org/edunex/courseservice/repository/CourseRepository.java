@@ -1,21 +1,107 @@
 package org.edunex.courseservice.repository;
 
+import org.edunex.courseservice.dto.CourseDTO;
+import org.edunex.courseservice.dto.CourseSummaryDTO;
 import org.edunex.courseservice.model.Course;
 import org.edunex.courseservice.model.CourseStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface CourseRepository extends JpaRepository<Course, Long> {
+public interface CourseRepository extends JpaRepository<Course, Long>, CourseRepositoryCustom {
+    // Narrow projection shared by the summary queries below; counts are correlated subqueries
+    // so no module or enrollment rows are loaded
+    String COURSE_SUMMARY_SELECT = """
+            SELECT new org.edunex.courseservice.dto.CourseSummaryDTO(
+                c.id, c.title, c.instructorId, c.category, c.createdAt, c.thumbnailUrl, c.status,
+                (SELECT COUNT(m) FROM Module m WHERE m.course.id = c.id),
+                (SELECT COUNT(e) FROM Enrollment e WHERE e.course.id = c.id))
+            FROM Course c
+            """;
+
+    // Full course representation read straight into DTOs, with the same correlated counts
+    String COURSE_DTO_SELECT = """
+            SELECT new org.edunex.courseservice.dto.CourseDTO(
+                c.id, c.title, c.description, c.instructorId, c.category, c.createdAt, c.thumbnailUrl, c.status,
+                (SELECT COUNT(m) FROM Module m WHERE m.course.id = c.id),
+                (SELECT COUNT(e) FROM Enrollment e WHERE e.course.id = c.id))
+            FROM Course c
+            """;
+
     List<Course> findByInstructorId(String instructorId);
     List<Course> findByCategory(String category);
     List<Course> findByCategoryAndStatus(String category, CourseStatus status);
     List<Course> findByStatus(CourseStatus status);
     List<Course> findByInstructorIdAndStatus(String instructorId, CourseStatus status);
+    boolean existsByInstructorId(String instructorId);
+
+    @Query(COURSE_SUMMARY_SELECT + "WHERE c.status = :status")
+    List<CourseSummaryDTO> findSummariesByStatus(@Param("status") CourseStatus status);
+
+    @Query(COURSE_SUMMARY_SELECT + "WHERE c.instructorId = :instructorId")
+    List<CourseSummaryDTO> findSummariesByInstructorId(@Param("instructorId") String instructorId);
+
+    @Query(COURSE_SUMMARY_SELECT + "WHERE c.instructorId = :instructorId AND c.status = :status")
+    List<CourseSummaryDTO> findSummariesByInstructorIdAndStatus(@Param("instructorId") String instructorId, @Param("status") CourseStatus status);
+
+    @Query(COURSE_SUMMARY_SELECT + "WHERE c.status = :status AND EXISTS (SELECT 1 FROM Enrollment e WHERE e.course.id = c.id AND e.userId = :userId)")
+    List<CourseSummaryDTO> findEnrolledSummariesByUserIdAndStatus(@Param("userId") String userId, @Param("status") CourseStatus status);
+
+    @Query(COURSE_DTO_SELECT + "WHERE c.id = :id")
+    Optional<CourseDTO> findDTOById(@Param("id") Long id);
+
+    @Query(COURSE_DTO_SELECT + "WHERE c.status = :status")
+    List<CourseDTO> findDTOsByStatus(@Param("status") CourseStatus status);
+
+    @Query(COURSE_DTO_SELECT + "WHERE c.instructorId = :instructorId")
+    List<CourseDTO> findDTOsByInstructorId(@Param("instructorId") String instructorId);
+
+    @Query(COURSE_DTO_SELECT + "WHERE c.instructorId = :instructorId AND c.status = :status")
+    List<CourseDTO> findDTOsByInstructorIdAndStatus(@Param("instructorId") String instructorId, @Param("status") CourseStatus status);
+
+    @Query(COURSE_DTO_SELECT + "WHERE c.category = :category AND c.status = :status")
+    List<CourseDTO> findDTOsByCategoryAndStatus(@Param("category") String category, @Param("status") CourseStatus status);
+
+    @Query(COURSE_DTO_SELECT + "WHERE c.status = :status AND EXISTS (SELECT 1 FROM Enrollment e WHERE e.course.id = c.id AND e.userId = :userId)")
+    List<CourseDTO> findEnrolledDTOsByUserIdAndStatus(@Param("userId") String userId, @Param("status") CourseStatus status);
+
+    @Query(COURSE_DTO_SELECT + "WHERE (UPPER(c.title) LIKE UPPER(CONCAT('%', :searchTerm, '%')) OR UPPER(c.description) LIKE UPPER(CONCAT('%', :searchTerm, '%'))) AND c.status = :status")
+    List<CourseDTO> searchDTOsByStatus(@Param("searchTerm") String searchTerm, @Param("status") CourseStatus status);
+
+    // Locks the course row so concurrent changes to its module order are applied one at a time
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Course c WHERE c.id = :id")
+    Optional<Course> findByIdForUpdate(@Param("id") Long id);
+
+    // Invalidates course and module ETags after a change to one of the course's modules or quizzes
+    @Transactional
+    @Modifying
+    @Query("UPDATE Course c SET c.version = c.version + 1 WHERE c.id = :id")
+    int incrementVersion(@Param("id") Long id);
+
+    // Sets a course's thumbnail without loading it; bumps the version like a JPA update would
+    @Transactional
+    @Modifying
+    @Query("UPDATE Course c SET c.thumbnailObjectKey = :objectKey, c.thumbnailUrl = :url, c.version = c.version + 1 WHERE c.id = :id")
+    int updateThumbnail(@Param("id") Long id, @Param("objectKey") String objectKey, @Param("url") String url);
+
+    @Query("""
+            SELECT new org.edunex.courseservice.repository.CourseVersion(
+                c.version,
+                (SELECT COUNT(e) FROM Enrollment e WHERE e.course.id = c.id),
+                (SELECT COUNT(p) FROM Progress p WHERE p.module.course.id = c.id AND p.userId = :userId),
+                (SELECT COALESCE(SUM(p.id + p.version), 0) FROM Progress p WHERE p.module.course.id = c.id AND p.userId = :userId))
+            FROM Course c WHERE c.id = :id""")
+    Optional<CourseVersion> findVersionById(@Param("id") Long id, @Param("userId") String userId);
 
     @Query("SELECT DISTINCT c FROM Course c JOIN c.enrollments e WHERE e.userId = :userId")
     List<Course> findEnrolledCoursesByUserId(@Param("userId") String userId);
@@ -0,0 +1,32 @@
+package org.edunex.courseservice.repository;
+
+import java.util.Optional;
+
+/**
+ * Course statements that JPA would run entity by entity.
+ */
+public interface CourseRepositoryCustom {
+
+    /**
+     * Delete a course with its modules (and everything under them, see
+     * {@link ModuleRepositoryCustom#deleteModuleTree}), enrollments and analytics rows using one
+     * set-based statement per table. Content files and the thumbnail are queued for removal from S3.
+     * Nothing is loaded into the persistence context.
+     *
+     * @param courseId The ID of the course to delete
+     * @return The number of courses deleted, 0 if the course does not exist
+     */
+    int deleteCourseTree(Long courseId);
+
+    /**
+     * Copy a course with its modules, quizzes, questions and answers as a new DRAFT course of another
+     * instructor, in one INSERT ... SELECT statement per table run as a single statement. Content
+     * files and the thumbnail are shared with the original course rather than copied in S3.
+     *
+     * @param courseId The ID of the course to copy
+     * @param instructorId The instructor of the copy
+     * @param title The title of the copy, or null for "Copy of" the original title
+     * @return The ID of the copy, empty if the course does not exist
+     */
+    Optional<Long> cloneCourseTree(Long courseId, String instructorId, String title);
+}
@@ -0,0 +1,86 @@
+package org.edunex.courseservice.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+public class CourseRepositoryCustomImpl implements CourseRepositoryCustom {
+
+    // Run after the module trees are gone; progress_events is append-only history left to partition retention
+    private static final List<String> COURSE_DELETES = List.of(
+            """
+            INSERT INTO s3_deletions (object_key, queued_at)
+            SELECT c.thumbnail_object_key, now() FROM courses c
+            WHERE c.id = ? AND c.thumbnail_object_key IS NOT NULL AND c.thumbnail_object_key <> ''
+            """,
+            "DELETE FROM enrollments WHERE course_id = ?",
+            "DELETE FROM course_daily_stats WHERE course_id = ?",
+            "DELETE FROM courses WHERE id = ?");
+
+    // Each level maps the old IDs to IDs drawn from the table's sequence, so the level below can be
+    // inserted against the new parents without reading anything back. The maps call nextval, so they
+    // are evaluated once; foreign keys are checked at the end of the statement. The original course is
+    // share-locked so a concurrent delete cannot queue its files for removal before the copy commits,
+    // and the copied modules take their own references on deduplicated content.
+    private static final String CLONE_SQL = """
+            WITH new_course AS (
+                INSERT INTO courses (title, description, instructor_id, category, thumbnail_object_key, thumbnail_url, status, created_at, version)
+                SELECT COALESCE(?, 'Copy of ' || c.title), c.description, ?, c.category, c.thumbnail_object_key, c.thumbnail_url,
+                       'DRAFT', now(), 0
+                FROM courses c WHERE c.id = ?
+                FOR SHARE
+                RETURNING id),
+            module_map AS (
+                SELECT m.id AS old_id, nextval(pg_get_serial_sequence('modules', 'id')) AS new_id
+                FROM modules m WHERE m.course_id = ? AND EXISTS (SELECT 1 FROM new_course)),
+            new_modules AS (
+                INSERT INTO modules (id, title, type, coins_required, content_url, module_order, version, content_version, course_id)
+                SELECT mm.new_id, m.title, m.type, m.coins_required, m.content_url, m.module_order, 0, 0, nc.id
+                FROM module_map mm JOIN modules m ON m.id = mm.old_id CROSS JOIN new_course nc),
+            shared_content AS (
+                UPDATE content_objects o SET ref_count = o.ref_count + r.refs
+                FROM (SELECT m.content_url, count(*) AS refs FROM module_map mm JOIN modules m ON m.id = mm.old_id
+                      GROUP BY m.content_url) r
+                WHERE o.object_key = r.content_url),
+            quiz_map AS (
+                SELECT q.id AS old_id, mm.new_id AS module_id, nextval(pg_get_serial_sequence('quizzes', 'id')) AS new_id
+                FROM quizzes q JOIN module_map mm ON q.module_id = mm.old_id),
+            new_quizzes AS (
+                INSERT INTO quizzes (id, title, module_id)
+                SELECT qm.new_id, q.title, qm.module_id FROM quiz_map qm JOIN quizzes q ON q.id = qm.old_id),
+            question_map AS (
+                SELECT qq.id AS old_id, qm.new_id AS quiz_id, nextval(pg_get_serial_sequence('quiz_questions', 'id')) AS new_id
+                FROM quiz_questions qq JOIN quiz_map qm ON qq.quiz_id = qm.old_id),
+            new_questions AS (
+                INSERT INTO quiz_questions (id, question_text, quiz_id)
+                SELECT qm.new_id, qq.question_text, qm.quiz_id FROM question_map qm JOIN quiz_questions qq ON qq.id = qm.old_id),
+            new_answers AS (
+                INSERT INTO quiz_answers (answer_text, correct, question_id)
+                SELECT a.answer_text, a.correct, qm.new_id FROM quiz_answers a JOIN question_map qm ON a.question_id = qm.old_id)
+            SELECT id FROM new_course
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int deleteCourseTree(Long courseId) {
+        for (String sql : ModuleTreeDeletes.BY_COURSE) {
+            jdbcTemplate.update(sql, courseId);
+        }
+        int deleted = 0;
+        for (String sql : COURSE_DELETES) {
+            // The last statement deletes the course itself
+            deleted = jdbcTemplate.update(sql, courseId);
+        }
+        return deleted;
+    }
+
+    @Override
+    public Optional<Long> cloneCourseTree(Long courseId, String instructorId, String title) {
+        List<Long> ids = jdbcTemplate.queryForList(CLONE_SQL, Long.class, title, instructorId, courseId, courseId);
+        return ids.stream().findFirst();
+    }
+}
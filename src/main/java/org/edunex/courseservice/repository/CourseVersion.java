@@ -0,0 +1,22 @@
+package org.edunex.courseservice.repository;
+
+/**
+ * Everything a course or module list response depends on, read in one query so an ETag can be
+ * computed without loading or mapping the course.
+ *
+ * @param version The course version, bumped on changes to the course, its modules and quizzes
+ * @param enrollmentCount The number of enrollments in the course
+ * @param progressCount The number of progress rows of the requesting user in the course
+ * @param progressChecksum Sum of the IDs and versions of those progress rows, changes on any insert, update or delete
+ */
+public record CourseVersion(Long version, Long enrollmentCount, Long progressCount, Long progressChecksum) {
+
+    /**
+     * Build a strong ETag for one representation of the course
+     * @param representation Distinguishes responses built from the same course (e.g. with or without modules)
+     * @return The quoted ETag value
+     */
+    public String toETag(String representation) {
+        return "\"" + representation + "-" + version + "-" + enrollmentCount + "-" + progressCount + "-" + progressChecksum + "\"";
+    }
+}
@@ -1,16 +1,57 @@
 package org.edunex.courseservice.repository;
 
+import jakarta.persistence.QueryHint;
+import org.edunex.courseservice.dto.EnrollmentDTO;
 import org.edunex.courseservice.model.Enrollment;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
-    List<Enrollment> findByUserId(String userId);
-    List<Enrollment> findByCourseId(Long courseId);
+public interface EnrollmentRepository extends JpaRepository<Enrollment, Long>, EnrollmentRepositoryCustom {
+    // Read paths select straight into DTOs; completion counts are correlated subqueries
+    // instead of two extra queries per enrollment
+    String ENROLLMENT_DTO_SELECT = """
+            SELECT new org.edunex.courseservice.dto.EnrollmentDTO(
+                e.id, e.userId, c.id, c.title, e.enrolledAt,
+                (SELECT COUNT(p) FROM Progress p WHERE p.userId = e.userId AND p.module.course.id = c.id AND p.completed = true),
+                (SELECT COUNT(m) FROM Module m WHERE m.course.id = c.id))
+            FROM Enrollment e JOIN e.course c
+            """;
+
+    @Override
+    @EntityGraph(attributePaths = {"course"})
+    List<Enrollment> findAll();
+
+    @Query(ENROLLMENT_DTO_SELECT + "ORDER BY e.id")
+    Slice<EnrollmentDTO> findAllDTOs(Pageable pageable);
+
+    @Query(ENROLLMENT_DTO_SELECT + "ORDER BY e.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ExportHints.FETCH_SIZE))
+    Stream<EnrollmentDTO> streamAllDTOs();
+
+    @Query(ENROLLMENT_DTO_SELECT + "WHERE e.id = :id")
+    Optional<EnrollmentDTO> findDTOById(@Param("id") Long id);
+
+    @Query(ENROLLMENT_DTO_SELECT + "WHERE e.userId = :userId")
+    List<EnrollmentDTO> findDTOsByUserId(@Param("userId") String userId);
+
+    @Query(ENROLLMENT_DTO_SELECT + "WHERE c.id = :courseId")
+    List<EnrollmentDTO> findDTOsByCourseId(@Param("courseId") Long courseId);
+
     Optional<Enrollment> findByUserIdAndCourseId(String userId, Long courseId);
     boolean existsByUserIdAndCourseId(String userId, Long courseId);
+
+    @Query("SELECT e.course.id FROM Enrollment e WHERE e.userId = :userId")
+    List<Long> findCourseIdsByUserId(@Param("userId") String userId);
 }
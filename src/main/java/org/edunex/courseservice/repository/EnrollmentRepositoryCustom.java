@@ -0,0 +1,34 @@
+package org.edunex.courseservice.repository;
+
+import org.edunex.courseservice.dto.EnrollmentDTO;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Enrollment queries that need SQL features JPA does not expose (ON CONFLICT, RETURNING).
+ */
+public interface EnrollmentRepositoryCustom {
+
+    /**
+     * Enroll a user in a course with a single statement.
+     * The insert is skipped when the user is already enrolled or the course does not exist.
+     *
+     * @param userId The ID of the user enrolling
+     * @param courseId The ID of the course to enroll in
+     * @param idempotencyKey Optional client supplied key stored with the enrollment
+     * @return The created enrollment, or empty if nothing was inserted
+     */
+    Optional<EnrollmentDTO> insertIfAbsent(String userId, Long courseId, String idempotencyKey);
+
+    /**
+     * Enroll many users in a course with one multi-row insert.
+     * Users that are already enrolled are skipped.
+     *
+     * @param courseId The ID of the course to enroll in
+     * @param userIds The IDs of the users to enroll
+     * @return The IDs of the users that were newly enrolled
+     */
+    Set<String> insertAllIfAbsent(Long courseId, Collection<String> userIds);
+}
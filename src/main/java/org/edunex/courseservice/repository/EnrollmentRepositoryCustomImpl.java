@@ -0,0 +1,81 @@
+package org.edunex.courseservice.repository;
+
+import org.edunex.courseservice.dto.EnrollmentDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+public class EnrollmentRepositoryCustomImpl implements EnrollmentRepositoryCustom {
+
+    // Inserts only when the course exists and the (user_id, course_id) pair is free, then returns
+    // the new row together with what the enrollment DTO needs, all in one round trip
+    private static final String INSERT_IF_ABSENT_SQL = """
+            WITH inserted AS (
+                INSERT INTO enrollments (user_id, course_id, enrolled_at, idempotency_key)
+                SELECT ?, c.id, ?, ? FROM courses c WHERE c.id = ?
+                ON CONFLICT (user_id, course_id) DO NOTHING
+                RETURNING id, user_id, course_id, enrolled_at
+            )
+            SELECT i.id, i.user_id, i.course_id, i.enrolled_at, c.title,
+                   (SELECT COUNT(*) FROM progress p JOIN modules m ON m.id = p.module_id
+                     WHERE p.user_id = i.user_id AND m.course_id = i.course_id AND p.completed) AS completed_modules,
+                   (SELECT COUNT(*) FROM modules m WHERE m.course_id = i.course_id) AS total_modules
+            FROM inserted i JOIN courses c ON c.id = i.course_id
+            """;
+
+    // Expands the user ID array into rows so a whole batch is a single statement and round trip
+    private static final String INSERT_ALL_IF_ABSENT_SQL = """
+            INSERT INTO enrollments (user_id, course_id, enrolled_at)
+            SELECT u.user_id, ?, ? FROM unnest(?) AS u(user_id)
+            ON CONFLICT (user_id, course_id) DO NOTHING
+            RETURNING user_id
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Optional<EnrollmentDTO> insertIfAbsent(String userId, Long courseId, String idempotencyKey) {
+        List<EnrollmentDTO> inserted = jdbcTemplate.query(INSERT_IF_ABSENT_SQL, (rs, rowNum) -> {
+            EnrollmentDTO dto = new EnrollmentDTO();
+            dto.setId(rs.getLong("id"));
+            dto.setUserId(rs.getString("user_id"));
+            dto.setCourseId(rs.getLong("course_id"));
+            dto.setCourseTitle(rs.getString("title"));
+            dto.setEnrolledAt(rs.getObject("enrolled_at", LocalDateTime.class));
+
+            long completedModules = rs.getLong("completed_modules");
+            long totalModules = rs.getLong("total_modules");
+            dto.setCompletionPercentage(totalModules > 0 ? (double) completedModules / totalModules * 100 : 0);
+            return dto;
+        }, userId, LocalDateTime.now(), idempotencyKey, courseId);
+
+        return inserted.stream().findFirst();
+    }
+
+    @Override
+    public Set<String> insertAllIfAbsent(Long courseId, Collection<String> userIds) {
+        Set<String> inserted = new HashSet<>();
+        if (userIds.isEmpty()) {
+            return inserted;
+        }
+
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT_ALL_IF_ABSENT_SQL);
+            ps.setLong(1, courseId);
+            ps.setObject(2, LocalDateTime.now());
+            ps.setArray(3, con.createArrayOf("varchar", userIds.toArray()));
+            return ps;
+        }, rs -> {
+            inserted.add(rs.getString("user_id"));
+        });
+        return inserted;
+    }
+}
@@ -0,0 +1,14 @@
+package org.edunex.courseservice.repository;
+
+/**
+ * Query hint values shared by the streaming export queries
+ */
+public final class ExportHints {
+
+    // Rows fetched per round trip while streaming. PostgreSQL only uses a cursor (instead of
+    // reading the whole result into memory) when a fetch size is set inside a transaction.
+    public static final String FETCH_SIZE = "1000";
+
+    private ExportHints() {
+    }
+}
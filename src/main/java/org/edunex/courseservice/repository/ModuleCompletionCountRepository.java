@@ -0,0 +1,23 @@
+package org.edunex.courseservice.repository;
+
+import org.edunex.courseservice.dto.ModuleFunnelDTO;
+import org.edunex.courseservice.model.ModuleCompletionCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ModuleCompletionCountRepository extends JpaRepository<ModuleCompletionCount, Long> {
+
+    // Modules the rollup has not counted yet are included with zero completions
+    @Query("""
+            SELECT new org.edunex.courseservice.dto.ModuleFunnelDTO(m.id, m.title, m.moduleOrder, COALESCE(c.completions, 0L))
+            FROM Module m LEFT JOIN ModuleCompletionCount c ON c.module = m
+            WHERE m.course.id = :courseId
+            ORDER BY m.moduleOrder, m.id
+            """)
+    List<ModuleFunnelDTO> findFunnelByCourseId(@Param("courseId") Long courseId);
+}
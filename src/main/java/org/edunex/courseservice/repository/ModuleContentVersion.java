@@ -0,0 +1,10 @@
+package org.edunex.courseservice.repository;
+
+/**
+ * The course version at which a module last changed, used to pick the modules of a course bundle delta
+ *
+ * @param moduleId The module ID
+ * @param contentVersion The course version stamped by {@link ModuleRepositoryCustom#touchContent(Long)}
+ */
+public record ModuleContentVersion(Long moduleId, Long contentVersion) {
+}
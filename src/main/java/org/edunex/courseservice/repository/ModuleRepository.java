@@ -1,16 +1,77 @@
 package org.edunex.courseservice.repository;
 
+import jakarta.persistence.QueryHint;
+import org.edunex.courseservice.dto.ModuleDTO;
+import org.edunex.courseservice.dto.ModuleSummaryDTO;
 import org.edunex.courseservice.model.Module;
 import org.edunex.courseservice.model.enums.ModuleType;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ModuleRepository extends JpaRepository<Module, Long> {
+public interface ModuleRepository extends JpaRepository<Module, Long>, ModuleRepositoryCustom {
+    // Read paths select straight into DTOs so no entities or dirty-checking snapshots are created
+    String MODULE_DTO_SELECT = """
+            SELECT new org.edunex.courseservice.dto.ModuleDTO(
+                m.id, m.title, m.type, m.coinsRequired, m.contentUrl, m.moduleOrder, c.id, c.title, q.id)
+            FROM Module m JOIN m.course c LEFT JOIN Quiz q ON q.module = m
+            """;
+
+    @Override
+    @EntityGraph(attributePaths = {"course"})
+    List<Module> findAll();
+
     List<Module> findByCourseId(Long courseId);
+    @EntityGraph(attributePaths = {"course"})
     List<Module> findByCourseIdOrderByModuleOrder(Long courseId);
-    List<Module> findByType(ModuleType type);
-    List<Module> findByCourseIdAndCoinsRequiredLessThanEqual(Long courseId, int coins);
+
+    @Query(MODULE_DTO_SELECT + "ORDER BY m.id")
+    Slice<ModuleDTO> findAllDTOs(Pageable pageable);
+
+    @Query(MODULE_DTO_SELECT + "ORDER BY m.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ExportHints.FETCH_SIZE))
+    Stream<ModuleDTO> streamAllDTOs();
+
+    @Query(MODULE_DTO_SELECT + "WHERE m.id = :id")
+    Optional<ModuleDTO> findDTOById(@Param("id") Long id);
+
+    @Query(MODULE_DTO_SELECT + "WHERE c.id = :courseId ORDER BY m.moduleOrder")
+    List<ModuleDTO> findDTOsByCourseIdOrderByModuleOrder(@Param("courseId") Long courseId);
+
+    @Query(MODULE_DTO_SELECT + "WHERE m.type = :type")
+    List<ModuleDTO> findDTOsByType(@Param("type") ModuleType type);
+
+    @Query(MODULE_DTO_SELECT + "WHERE c.id = :courseId AND m.coinsRequired <= :coins")
+    List<ModuleDTO> findDTOsByCourseIdAndCoinsRequiredLessThanEqual(@Param("courseId") Long courseId, @Param("coins") int coins);
+
+    @Query("""
+            SELECT new org.edunex.courseservice.dto.ModuleSummaryDTO(
+                m.id, m.title, m.type, m.coinsRequired, m.moduleOrder, m.course.id, q.id)
+            FROM Module m LEFT JOIN Quiz q ON q.module = m
+            WHERE m.course.id = :courseId
+            ORDER BY m.moduleOrder""")
+    List<ModuleSummaryDTO> findSummariesByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT m.id FROM Module m WHERE m.course.id = :courseId")
+    List<Long> findIdsByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT new org.edunex.courseservice.repository.ModuleContentVersion(m.id, m.contentVersion) FROM Module m WHERE m.course.id = :courseId")
+    List<ModuleContentVersion> findContentVersionsByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT COALESCE(MAX(m.moduleOrder), 0) FROM Module m WHERE m.course.id = :courseId")
+    int findMaxModuleOrderByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT m.course.id FROM Module m WHERE m.id = :id")
+    Optional<Long> findCourseIdById(@Param("id") Long id);
 }
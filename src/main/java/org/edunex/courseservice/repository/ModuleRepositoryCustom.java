@@ -0,0 +1,75 @@
+package org.edunex.courseservice.repository;
+
+import org.edunex.courseservice.model.enums.ModuleType;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Module queries that need SQL features JPA does not expose (array parameters, UPDATE ... FROM, data-modifying CTEs).
+ */
+public interface ModuleRepositoryCustom {
+
+    /**
+     * What a module pointed at before {@link #replaceContent} changed it
+     *
+     * @param objectKey The previous S3 object key, or null if the module had no content
+     */
+    record PreviousContent(String objectKey) {
+    }
+
+    /**
+     * Set the ordering key of many modules of a course with a single statement
+     *
+     * @param courseId The ID of the course the modules belong to
+     * @param moduleIds The IDs of the modules to update
+     * @param moduleOrders The new ordering key of each module, matched by index
+     * @return The number of modules updated
+     */
+    int updateModuleOrders(Long courseId, List<Long> moduleIds, List<Integer> moduleOrders);
+
+    /**
+     * Insert a module into a course without loading the course's modules, which association
+     * management would do to keep Course.modules in sync when a module entity is given its course
+     *
+     * @param courseId The ID of the course, which must exist
+     * @param title The module title
+     * @param type The module type
+     * @param coinsRequired Coins required to do the module
+     * @param contentUrl The S3 object key of the module content, or null
+     * @param moduleOrder The ordering key of the module in the course
+     * @return The ID of the new module
+     */
+    Long insertModule(Long courseId, String title, ModuleType type, int coinsRequired, String contentUrl, int moduleOrder);
+
+    /**
+     * Point a module at other content, or at none, and return what it pointed at before in the same
+     * statement. The row is locked while the old key is read, so of two concurrent replacements the
+     * second one sees the first one's key. Bumps the module version like a JPA update would.
+     *
+     * @param moduleId The ID of the module
+     * @param objectKey The new S3 object key, or null to clear the content
+     * @param type The new module type, or null to keep the current one
+     * @return The previous content, empty if the module does not exist
+     */
+    Optional<PreviousContent> replaceContent(Long moduleId, String objectKey, ModuleType type);
+
+    /**
+     * Record a change to a module or its quiz: bump the course version and stamp the module with
+     * the new version, so course bundle delta syncs from an older version include the module
+     *
+     * @param moduleId The ID of the changed module
+     * @return The number of modules stamped, 0 if the module does not exist
+     */
+    int touchContent(Long moduleId);
+
+    /**
+     * Delete a module with its quiz, questions, answers, quiz results and score aggregates, progress
+     * and completion count using one set-based statement per table. Its content file is queued for
+     * removal from S3. Nothing is loaded into the persistence context.
+     *
+     * @param moduleId The ID of the module to delete
+     * @return The number of modules deleted, 0 if the module does not exist
+     */
+    int deleteModuleTree(Long moduleId);
+}
@@ -0,0 +1,90 @@
+package org.edunex.courseservice.repository;
+
+import org.edunex.courseservice.model.enums.ModuleType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Optional;
+
+public class ModuleRepositoryCustomImpl implements ModuleRepositoryCustom {
+
+    // Zips the two arrays into (id, module_order) rows so every module is updated in one round trip
+    private static final String UPDATE_MODULE_ORDERS_SQL = """
+            UPDATE modules m SET module_order = v.module_order, version = m.version + 1
+            FROM unnest(?, ?) AS v(id, module_order)
+            WHERE m.id = v.id AND m.course_id = ?
+            """;
+
+    private static final String INSERT_MODULE_SQL = """
+            INSERT INTO modules (title, type, coins_required, content_url, module_order, version, content_version, course_id)
+            VALUES (?, ?, ?, ?, ?, 0, 0, ?)
+            RETURNING id
+            """;
+
+    // The subquery locks the row before reading the old key; a concurrent replacement waits for the
+    // lock and then reads the key this one wrote, so every key is handed back exactly once
+    private static final String REPLACE_CONTENT_SQL = """
+            UPDATE modules m SET content_url = ?, type = COALESCE(CAST(? AS varchar), m.type), version = m.version + 1
+            FROM (SELECT id, content_url FROM modules WHERE id = ? FOR UPDATE) previous
+            WHERE m.id = previous.id
+            RETURNING previous.content_url
+            """;
+
+    // Bumps the course version and stamps the module with the result in one statement
+    private static final String TOUCH_CONTENT_SQL = """
+            WITH bumped AS (
+                UPDATE courses c SET version = c.version + 1
+                FROM modules m
+                WHERE m.id = ? AND c.id = m.course_id
+                RETURNING c.version
+            )
+            UPDATE modules SET content_version = (SELECT version FROM bumped) WHERE id = ?
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int updateModuleOrders(Long courseId, List<Long> moduleIds, List<Integer> moduleOrders) {
+        if (moduleIds.isEmpty()) {
+            return 0;
+        }
+
+        return jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(UPDATE_MODULE_ORDERS_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", moduleIds.toArray()));
+            ps.setArray(2, con.createArrayOf("integer", moduleOrders.toArray()));
+            ps.setLong(3, courseId);
+            return ps;
+        });
+    }
+
+    @Override
+    public Long insertModule(Long courseId, String title, ModuleType type, int coinsRequired, String contentUrl, int moduleOrder) {
+        return jdbcTemplate.queryForObject(INSERT_MODULE_SQL, (rs, rowNum) -> rs.getLong("id"),
+                title, type != null ? type.name() : null, coinsRequired, contentUrl, moduleOrder, courseId);
+    }
+
+    @Override
+    public Optional<PreviousContent> replaceContent(Long moduleId, String objectKey, ModuleType type) {
+        return jdbcTemplate.query(REPLACE_CONTENT_SQL, (rs, rowNum) -> new PreviousContent(rs.getString("content_url")),
+                objectKey, type != null ? type.name() : null, moduleId).stream().findFirst();
+    }
+
+    @Override
+    public int touchContent(Long moduleId) {
+        return jdbcTemplate.update(TOUCH_CONTENT_SQL, moduleId, moduleId);
+    }
+
+    @Override
+    public int deleteModuleTree(Long moduleId) {
+        int deleted = 0;
+        for (String sql : ModuleTreeDeletes.BY_MODULE) {
+            // The last statement deletes the module itself
+            deleted = jdbcTemplate.update(sql, moduleId);
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,48 @@
+package org.edunex.courseservice.repository;
+
+import java.util.List;
+
+/**
+ * The set-based statements that delete modules together with everything hanging off them, children
+ * first. Each statement selects its modules (alias m) with the same one-parameter filter, so a course
+ * and a single module are deleted by the same SQL.
+ */
+final class ModuleTreeDeletes {
+
+    private static final List<String> TEMPLATES = List.of(
+            // Content files lose the references of the deleted modules and are queued for removal from S3
+            // before the rows pointing at them go
+            """
+            UPDATE content_objects o SET ref_count = o.ref_count - r.refs
+            FROM (SELECT m.content_url, count(*) AS refs FROM modules m WHERE %s GROUP BY m.content_url) r
+            WHERE o.object_key = r.content_url
+            """,
+            """
+            INSERT INTO s3_deletions (object_key, queued_at)
+            SELECT m.content_url, now() FROM modules m
+            WHERE %s AND m.content_url IS NOT NULL AND m.content_url <> ''
+            """,
+            """
+            DELETE FROM quiz_answers a USING quiz_questions qq, quizzes q, modules m
+            WHERE a.question_id = qq.id AND qq.quiz_id = q.id AND q.module_id = m.id AND %s
+            """,
+            "DELETE FROM quiz_questions qq USING quizzes q, modules m WHERE qq.quiz_id = q.id AND q.module_id = m.id AND %s",
+            "DELETE FROM quiz_results r USING quizzes q, modules m WHERE r.quiz_id = q.id AND q.module_id = m.id AND %s",
+            "DELETE FROM quiz_best_scores s USING quizzes q, modules m WHERE s.quiz_id = q.id AND q.module_id = m.id AND %s",
+            "DELETE FROM quiz_score_buckets b USING quizzes q, modules m WHERE b.quiz_id = q.id AND q.module_id = m.id AND %s",
+            "DELETE FROM quizzes q USING modules m WHERE q.module_id = m.id AND %s",
+            "DELETE FROM progress p USING modules m WHERE p.module_id = m.id AND %s",
+            "DELETE FROM module_completion_counts c USING modules m WHERE c.module_id = m.id AND %s",
+            "DELETE FROM modules m WHERE %s");
+
+    static final List<String> BY_MODULE = statements("m.id = ?");
+
+    static final List<String> BY_COURSE = statements("m.course_id = ?");
+
+    private ModuleTreeDeletes() {
+    }
+
+    private static List<String> statements(String moduleFilter) {
+        return TEMPLATES.stream().map(template -> template.formatted(moduleFilter)).toList();
+    }
+}
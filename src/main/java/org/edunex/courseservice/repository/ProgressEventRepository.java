@@ -0,0 +1,9 @@
+package org.edunex.courseservice.repository;
+
+import org.edunex.courseservice.model.ProgressEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ProgressEventRepository extends JpaRepository<ProgressEvent, Long> {
+}
@@ -1,26 +1,73 @@
 package org.edunex.courseservice.repository;
 
+import jakarta.persistence.QueryHint;
+import org.edunex.courseservice.dto.ProgressDTO;
 import org.edunex.courseservice.model.Progress;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProgressRepository extends JpaRepository<Progress, Long> {
-    List<Progress> findByUserId(String userId);
-    List<Progress> findByModuleId(Long moduleId);
+public interface ProgressRepository extends JpaRepository<Progress, Long>, ProgressRepositoryCustom {
+    // Read paths select straight into DTOs so no entities or dirty-checking snapshots are created
+    String PROGRESS_DTO_SELECT = """
+            SELECT new org.edunex.courseservice.dto.ProgressDTO(
+                p.id, p.userId, m.id, m.title, m.type, p.completed, p.completedAt, c.id, c.title)
+            FROM Progress p JOIN p.module m JOIN m.course c
+            """;
+
+    @Override
+    @EntityGraph(attributePaths = {"module", "module.course"})
+    List<Progress> findAll();
+
     Optional<Progress> findByUserIdAndModuleId(String userId, Long moduleId);
 
+    @Query(PROGRESS_DTO_SELECT + "ORDER BY p.id")
+    Slice<ProgressDTO> findAllDTOs(Pageable pageable);
+
+    @Query(PROGRESS_DTO_SELECT + "ORDER BY p.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ExportHints.FETCH_SIZE))
+    Stream<ProgressDTO> streamAllDTOs();
+
+    @Query(PROGRESS_DTO_SELECT + "WHERE p.id = :id")
+    Optional<ProgressDTO> findDTOById(@Param("id") Long id);
+
+    @Query(PROGRESS_DTO_SELECT + "WHERE p.userId = :userId")
+    List<ProgressDTO> findDTOsByUserId(@Param("userId") String userId);
+
+    @Query(PROGRESS_DTO_SELECT + "WHERE m.id = :moduleId")
+    List<ProgressDTO> findDTOsByModuleId(@Param("moduleId") Long moduleId);
+
+    @Query(PROGRESS_DTO_SELECT + "WHERE p.userId = :userId AND m.id = :moduleId")
+    Optional<ProgressDTO> findDTOByUserIdAndModuleId(@Param("userId") String userId, @Param("moduleId") Long moduleId);
+
+    @Query(PROGRESS_DTO_SELECT + "WHERE p.userId = :userId AND c.id = :courseId")
+    List<ProgressDTO> findDTOsByUserIdAndCourseId(@Param("userId") String userId, @Param("courseId") Long courseId);
+
     @Query("SELECT COUNT(p) FROM Progress p WHERE p.userId = :userId AND p.module.course.id = :courseId AND p.completed = true")
     Long countCompletedModulesByCourseAndUser(@Param("userId") String userId, @Param("courseId") Long courseId);
 
     @Query("SELECT COUNT(m) FROM Module m WHERE m.course.id = :courseId")
     Long countModulesByCourse(@Param("courseId") Long courseId);
 
-    @Query("SELECT p FROM Progress p WHERE p.userId = :userId AND p.module.course.id = :courseId")
-    List<Progress> findByCourseIdAndUserId(@Param("userId") String userId, @Param("courseId") Long courseId);
+    @Query("SELECT p.module.id FROM Progress p WHERE p.userId = :userId AND p.module.course.id = :courseId AND p.completed = true")
+    List<Long> findCompletedModuleIdsByCourseAndUser(@Param("userId") String userId, @Param("courseId") Long courseId);
+
+    @Query("SELECT p.module.id FROM Progress p WHERE p.userId = :userId AND p.module.id IN :moduleIds AND p.completed = true")
+    List<Long> findCompletedModuleIdsByUserAndModuleIds(@Param("userId") String userId, @Param("moduleIds") Collection<Long> moduleIds);
+
+    // Completed module count per course for one user, for a whole page of courses in one query
+    @Query("SELECT p.module.course.id, COUNT(p) FROM Progress p WHERE p.userId = :userId AND p.completed = true AND p.module.course.id IN :courseIds GROUP BY p.module.course.id")
+    List<Object[]> countCompletedModulesByCoursesAndUser(@Param("userId") String userId, @Param("courseIds") Collection<Long> courseIds);
 }
@@ -0,0 +1,33 @@
+package org.edunex.courseservice.repository;
+
+import org.edunex.courseservice.dto.ProgressDTO;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Progress writes that need SQL features JPA does not expose (ON CONFLICT, RETURNING, data-modifying CTEs).
+ * Each write also appends its progress_events row in the same statement.
+ */
+public interface ProgressRepositoryCustom {
+
+    /**
+     * Mark a module as completed for a user with a single upsert
+     *
+     * @param userId The ID of the user
+     * @param moduleId The ID of the completed module
+     * @param completedAt When the module was completed
+     * @return The user's progress on the module, or empty if the module does not exist
+     */
+    Optional<ProgressDTO> upsertCompleted(String userId, Long moduleId, LocalDateTime completedAt);
+
+    /**
+     * Mark a user's progress on a module as not completed with a single update
+     *
+     * @param userId The ID of the user
+     * @param moduleId The ID of the module
+     * @param resetAt When the progress was reset
+     * @return The user's progress on the module, or empty if the user has none
+     */
+    Optional<ProgressDTO> reset(String userId, Long moduleId, LocalDateTime resetAt);
+}
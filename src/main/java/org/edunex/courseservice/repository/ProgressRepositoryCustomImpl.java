@@ -0,0 +1,76 @@
+package org.edunex.courseservice.repository;
+
+import org.edunex.courseservice.dto.ProgressDTO;
+import org.edunex.courseservice.model.enums.ModuleType;
+import org.edunex.courseservice.model.enums.ProgressEventType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public class ProgressRepositoryCustomImpl implements ProgressRepositoryCustom {
+
+    // Inserts only when the module exists; a repeated completion updates the row and bumps its version
+    // like a JPA update would, so progress ETags change
+    private static final String UPSERT_COMPLETED_SQL = """
+            WITH changed AS (
+                INSERT INTO progress (user_id, module_id, completed, completed_at, version)
+                SELECT ?, m.id, true, ?, 0 FROM modules m WHERE m.id = ?
+                ON CONFLICT (user_id, module_id) DO UPDATE
+                    SET completed = true, completed_at = EXCLUDED.completed_at, version = progress.version + 1
+                RETURNING id, user_id, module_id, completed, completed_at
+            ),
+            event AS (
+                INSERT INTO progress_events (user_id, module_id, course_id, event_type, occurred_at)
+                SELECT ch.user_id, ch.module_id, m.course_id, ?, ch.completed_at
+                FROM changed ch JOIN modules m ON m.id = ch.module_id
+            )
+            SELECT ch.id, ch.user_id, ch.module_id, m.title AS module_title, m.type AS module_type,
+                   ch.completed, ch.completed_at, c.id AS course_id, c.title AS course_title
+            FROM changed ch JOIN modules m ON m.id = ch.module_id JOIN courses c ON c.id = m.course_id
+            """;
+
+    private static final String RESET_SQL = """
+            WITH changed AS (
+                UPDATE progress SET completed = false, completed_at = NULL, version = version + 1
+                WHERE user_id = ? AND module_id = ?
+                RETURNING id, user_id, module_id, completed, completed_at
+            ),
+            event AS (
+                INSERT INTO progress_events (user_id, module_id, course_id, event_type, occurred_at)
+                SELECT ch.user_id, ch.module_id, m.course_id, ?, ?
+                FROM changed ch JOIN modules m ON m.id = ch.module_id
+            )
+            SELECT ch.id, ch.user_id, ch.module_id, m.title AS module_title, m.type AS module_type,
+                   ch.completed, ch.completed_at, c.id AS course_id, c.title AS course_title
+            FROM changed ch JOIN modules m ON m.id = ch.module_id JOIN courses c ON c.id = m.course_id
+            """;
+
+    private static final RowMapper<ProgressDTO> PROGRESS_DTO_MAPPER = (rs, rowNum) -> new ProgressDTO(
+            rs.getLong("id"),
+            rs.getString("user_id"),
+            rs.getLong("module_id"),
+            rs.getString("module_title"),
+            ModuleType.valueOf(rs.getString("module_type")),
+            rs.getBoolean("completed"),
+            rs.getObject("completed_at", LocalDateTime.class),
+            rs.getLong("course_id"),
+            rs.getString("course_title"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Optional<ProgressDTO> upsertCompleted(String userId, Long moduleId, LocalDateTime completedAt) {
+        return jdbcTemplate.query(UPSERT_COMPLETED_SQL, PROGRESS_DTO_MAPPER,
+                userId, completedAt, moduleId, ProgressEventType.COMPLETED.name()).stream().findFirst();
+    }
+
+    @Override
+    public Optional<ProgressDTO> reset(String userId, Long moduleId, LocalDateTime resetAt) {
+        return jdbcTemplate.query(RESET_SQL, PROGRESS_DTO_MAPPER,
+                userId, moduleId, ProgressEventType.RESET.name(), resetAt).stream().findFirst();
+    }
+}
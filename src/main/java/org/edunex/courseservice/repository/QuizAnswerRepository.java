@@ -1,13 +1,44 @@
 package org.edunex.courseservice.repository;
 
+import jakarta.persistence.QueryHint;
+import org.edunex.courseservice.dto.QuizAnswerDTO;
 import org.edunex.courseservice.model.QuizAnswer;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface QuizAnswerRepository extends JpaRepository<QuizAnswer, Long> {
+public interface QuizAnswerRepository extends JpaRepository<QuizAnswer, Long>, QuizAnswerRepositoryCustom {
+    String QUIZ_ANSWER_DTO_SELECT = """
+            SELECT new org.edunex.courseservice.dto.QuizAnswerDTO(a.id, a.answerText, a.correct, qq.id)
+            FROM QuizAnswer a LEFT JOIN a.question qq
+            """;
+
     List<QuizAnswer> findByQuestionId(Long questionId);
     List<QuizAnswer> findByQuestionIdAndCorrect(Long questionId, boolean correct);
+
+    @Query(QUIZ_ANSWER_DTO_SELECT + "WHERE qq.quiz.module.course.id = :courseId ORDER BY a.id")
+    List<QuizAnswerDTO> findDTOsByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT a.question.id FROM QuizAnswer a WHERE a.id = :id")
+    Optional<Long> findQuestionIdById(@Param("id") Long id);
+
+    @Query("SELECT a.question.quiz.module.id FROM QuizAnswer a WHERE a.id = :id")
+    Optional<Long> findModuleIdById(@Param("id") Long id);
+
+    @Query(QUIZ_ANSWER_DTO_SELECT + "ORDER BY a.id")
+    Slice<QuizAnswerDTO> findAllDTOs(Pageable pageable);
+
+    @Query(QUIZ_ANSWER_DTO_SELECT + "ORDER BY a.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ExportHints.FETCH_SIZE))
+    Stream<QuizAnswerDTO> streamAllDTOs();
 }
@@ -0,0 +1,29 @@
+package org.edunex.courseservice.repository;
+
+/**
+ * Quiz answer writes that set question_id directly. With association management enhanced in, assigning
+ * an answer's question loads that question and all of its answers to keep QuizQuestion.answers in sync.
+ */
+public interface QuizAnswerRepositoryCustom {
+
+    /**
+     * Insert an answer to a question without loading the question
+     *
+     * @param questionId The ID of the question, which must exist
+     * @param answerText The answer text
+     * @param correct Whether the answer is correct
+     * @return The ID of the new answer
+     */
+    Long insertAnswer(Long questionId, String answerText, boolean correct);
+
+    /**
+     * Replace the text, correctness and question of an answer without loading it or either question
+     *
+     * @param id The ID of the answer
+     * @param questionId The ID of the question the answer belongs to from now on, which must exist
+     * @param answerText The new answer text
+     * @param correct Whether the answer is correct
+     * @return The number of answers updated, 0 if the answer does not exist
+     */
+    int updateAnswer(Long id, Long questionId, String answerText, boolean correct);
+}
@@ -0,0 +1,28 @@
+package org.edunex.courseservice.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class QuizAnswerRepositoryCustomImpl implements QuizAnswerRepositoryCustom {
+
+    private static final String INSERT_ANSWER_SQL = """
+            INSERT INTO quiz_answers (answer_text, correct, question_id) VALUES (?, ?, ?) RETURNING id
+            """;
+
+    private static final String UPDATE_ANSWER_SQL = """
+            UPDATE quiz_answers SET answer_text = ?, correct = ?, question_id = ? WHERE id = ?
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Long insertAnswer(Long questionId, String answerText, boolean correct) {
+        return jdbcTemplate.queryForObject(INSERT_ANSWER_SQL, (rs, rowNum) -> rs.getLong("id"), answerText, correct, questionId);
+    }
+
+    @Override
+    public int updateAnswer(Long id, Long questionId, String answerText, boolean correct) {
+        return jdbcTemplate.update(UPDATE_ANSWER_SQL, answerText, correct, questionId, id);
+    }
+}
@@ -1,12 +1,48 @@
 package org.edunex.courseservice.repository;
 
+import jakarta.persistence.QueryHint;
+import org.edunex.courseservice.dto.QuizQuestionDTO;
 import org.edunex.courseservice.model.QuizQuestion;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface QuizQuestionRepository extends JpaRepository<QuizQuestion, Long> {
-    List<QuizQuestion> findByQuizId(Long quizId);
+public interface QuizQuestionRepository extends JpaRepository<QuizQuestion, Long>, QuizQuestionRepositoryCustom {
+    String QUIZ_QUESTION_DTO_SELECT = """
+            SELECT new org.edunex.courseservice.dto.QuizQuestionDTO(qq.id, qq.questionText, q.id)
+            FROM QuizQuestion qq LEFT JOIN qq.quiz q
+            """;
+
+    // questionText is lazy on the entity, so reads that return it select straight into DTOs instead
+    @Query(QUIZ_QUESTION_DTO_SELECT + "WHERE qq.id = :id")
+    Optional<QuizQuestionDTO> findDTOById(@Param("id") Long id);
+
+    @Query(QUIZ_QUESTION_DTO_SELECT + "WHERE q.id = :quizId ORDER BY qq.id")
+    List<QuizQuestionDTO> findDTOsByQuizId(@Param("quizId") Long quizId);
+
+    @Query(QUIZ_QUESTION_DTO_SELECT + "WHERE q.module.course.id = :courseId ORDER BY qq.id")
+    List<QuizQuestionDTO> findDTOsByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT qq.quiz.id FROM QuizQuestion qq WHERE qq.id = :id")
+    Optional<Long> findQuizIdById(@Param("id") Long id);
+
+    @Query("SELECT qq.quiz.module.id FROM QuizQuestion qq WHERE qq.id = :id")
+    Optional<Long> findModuleIdById(@Param("id") Long id);
+
+    @Query(QUIZ_QUESTION_DTO_SELECT + "ORDER BY qq.id")
+    Slice<QuizQuestionDTO> findAllDTOs(Pageable pageable);
+
+    @Query(QUIZ_QUESTION_DTO_SELECT + "ORDER BY qq.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ExportHints.FETCH_SIZE))
+    Stream<QuizQuestionDTO> streamAllDTOs();
 }
@@ -0,0 +1,27 @@
+package org.edunex.courseservice.repository;
+
+/**
+ * Quiz question writes that set quiz_id directly. With association management enhanced in, assigning
+ * a question's quiz loads that quiz and all of its questions to keep Quiz.questions in sync.
+ */
+public interface QuizQuestionRepositoryCustom {
+
+    /**
+     * Insert a question into a quiz without loading the quiz
+     *
+     * @param quizId The ID of the quiz, which must exist
+     * @param questionText The question text
+     * @return The ID of the new question
+     */
+    Long insertQuestion(Long quizId, String questionText);
+
+    /**
+     * Replace the text and quiz of a question without loading it or either quiz
+     *
+     * @param id The ID of the question
+     * @param quizId The ID of the quiz the question belongs to from now on, which must exist
+     * @param questionText The new question text
+     * @return The number of questions updated, 0 if the question does not exist
+     */
+    int updateQuestion(Long id, Long quizId, String questionText);
+}
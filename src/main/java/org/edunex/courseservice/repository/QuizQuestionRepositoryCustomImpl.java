@@ -0,0 +1,28 @@
+package org.edunex.courseservice.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class QuizQuestionRepositoryCustomImpl implements QuizQuestionRepositoryCustom {
+
+    private static final String INSERT_QUESTION_SQL = """
+            INSERT INTO quiz_questions (question_text, quiz_id) VALUES (?, ?) RETURNING id
+            """;
+
+    private static final String UPDATE_QUESTION_SQL = """
+            UPDATE quiz_questions SET question_text = ?, quiz_id = ? WHERE id = ?
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Long insertQuestion(Long quizId, String questionText) {
+        return jdbcTemplate.queryForObject(INSERT_QUESTION_SQL, (rs, rowNum) -> rs.getLong("id"), questionText, quizId);
+    }
+
+    @Override
+    public int updateQuestion(Long id, Long quizId, String questionText) {
+        return jdbcTemplate.update(UPDATE_QUESTION_SQL, questionText, quizId, id);
+    }
+}
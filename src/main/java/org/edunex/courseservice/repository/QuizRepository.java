@@ -1,14 +1,47 @@
 package org.edunex.courseservice.repository;
 
+import jakarta.persistence.QueryHint;
+import org.edunex.courseservice.dto.QuizDTO;
 import org.edunex.courseservice.model.Quiz;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface QuizRepository extends JpaRepository<Quiz, Long> {
+    String QUIZ_DTO_SELECT = """
+            SELECT new org.edunex.courseservice.dto.QuizDTO(q.id, q.title, m.id, m.title)
+            FROM Quiz q LEFT JOIN q.module m
+            """;
+
+    @Query(QUIZ_DTO_SELECT + "ORDER BY q.id")
+    Slice<QuizDTO> findAllDTOs(Pageable pageable);
+
+    @Query(QUIZ_DTO_SELECT + "ORDER BY q.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ExportHints.FETCH_SIZE))
+    Stream<QuizDTO> streamAllDTOs();
+
+    @Override
+    @EntityGraph(attributePaths = {"module"})
+    List<Quiz> findAll();
+
+    @EntityGraph(attributePaths = {"module"})
     List<Quiz> findByModuleId(Long moduleId);
     Optional<Quiz> findByTitle(String title);
+
+    @Query(QUIZ_DTO_SELECT + "WHERE m.course.id = :courseId")
+    List<QuizDTO> findDTOsByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT q.module.id FROM Quiz q WHERE q.id = :id")
+    Optional<Long> findModuleIdById(@Param("id") Long id);
 }
@@ -1,17 +1,69 @@
 package org.edunex.courseservice.repository;
 
+import jakarta.persistence.QueryHint;
+import org.edunex.courseservice.dto.QuizResultDTO;
 import org.edunex.courseservice.model.QuizResult;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface QuizResultRepository extends JpaRepository<QuizResult, Long> {
-    List<QuizResult> findByUserId(String userId);
-    List<QuizResult> findByQuizId(Long quizId);
+public interface QuizResultRepository extends JpaRepository<QuizResult, Long>, QuizResultRepositoryCustom {
+    // Read paths select straight into DTOs so no entities or dirty-checking snapshots are created
+    String QUIZ_RESULT_DTO_SELECT = """
+            SELECT new org.edunex.courseservice.dto.QuizResultDTO(
+                r.id, r.userId, q.id, q.title, r.score, r.submittedAt, m.title, c.id, c.title)
+            FROM QuizResult r JOIN r.quiz q LEFT JOIN q.module m LEFT JOIN m.course c
+            """;
+
+    @Override
+    @EntityGraph(attributePaths = {"quiz", "quiz.module", "quiz.module.course"})
+    List<QuizResult> findAll();
+
     Optional<QuizResult> findByUserIdAndQuizId(String userId, Long quizId);
-    List<QuizResult> findByUserIdAndQuizIdOrderBySubmittedAtDesc(String userId, Long quizId);
-    Optional<QuizResult> findTopByUserIdAndQuizIdOrderByScoreDesc(String userId, Long quizId);
+
+    @Query(QUIZ_RESULT_DTO_SELECT + "ORDER BY r.id")
+    Slice<QuizResultDTO> findAllDTOs(Pageable pageable);
+
+    @Query(QUIZ_RESULT_DTO_SELECT + "ORDER BY r.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ExportHints.FETCH_SIZE))
+    Stream<QuizResultDTO> streamAllDTOs();
+
+    @Query(QUIZ_RESULT_DTO_SELECT + "WHERE r.id = :id")
+    Optional<QuizResultDTO> findDTOById(@Param("id") Long id);
+
+    // History pages, newest first; served by the (user_id|quiz_id, submitted_at, id) indexes
+    @Query(QUIZ_RESULT_DTO_SELECT + """
+            WHERE r.userId = :userId AND r.submittedAt >= :from AND r.submittedAt < :to
+            ORDER BY r.submittedAt DESC, r.id DESC""")
+    Slice<QuizResultDTO> findDTOsByUserIdAndSubmittedAtBetween(@Param("userId") String userId,
+                                                               @Param("from") LocalDateTime from,
+                                                               @Param("to") LocalDateTime to,
+                                                               Pageable pageable);
+
+    @Query(QUIZ_RESULT_DTO_SELECT + """
+            WHERE q.id = :quizId AND r.submittedAt >= :from AND r.submittedAt < :to
+            ORDER BY r.submittedAt DESC, r.id DESC""")
+    Slice<QuizResultDTO> findDTOsByQuizIdAndSubmittedAtBetween(@Param("quizId") Long quizId,
+                                                               @Param("from") LocalDateTime from,
+                                                               @Param("to") LocalDateTime to,
+                                                               Pageable pageable);
+
+    @Query(QUIZ_RESULT_DTO_SELECT + "WHERE r.userId = :userId AND q.id = :quizId ORDER BY r.submittedAt DESC")
+    List<QuizResultDTO> findDTOsByUserIdAndQuizIdOrderBySubmittedAtDesc(@Param("userId") String userId, @Param("quizId") Long quizId);
+
+    @Query(QUIZ_RESULT_DTO_SELECT + "WHERE r.userId = :userId AND q.id = :quizId ORDER BY r.score DESC")
+    List<QuizResultDTO> findDTOsByUserIdAndQuizIdOrderByScoreDesc(@Param("userId") String userId, @Param("quizId") Long quizId, Limit limit);
 }
@@ -0,0 +1,61 @@
+package org.edunex.courseservice.repository;
+
+import org.edunex.courseservice.dto.QuizRankDTO;
+import org.edunex.courseservice.dto.QuizResultDTO;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Saves quiz results and maintains the per-quiz score aggregates (score histogram and per-user best)
+ * with SQL features JPA does not expose (ON CONFLICT, RETURNING, row locks, array parameters).
+ */
+public interface QuizResultRepositoryCustom {
+
+    /**
+     * Save a result with a single statement that also reads back what the result DTO needs
+     *
+     * @param quizId The ID of the quiz
+     * @param userId The ID of the user who submitted the result
+     * @param score The score of the result
+     * @param submittedAt When the result was submitted
+     * @return The saved result, or empty if the quiz does not exist
+     */
+    Optional<QuizResultDTO> insertResult(Long quizId, String userId, int score, LocalDateTime submittedAt);
+
+    /**
+     * Add a new result to its quiz's aggregates. Must run in the transaction that saves the result.
+     *
+     * @param quizId The ID of the quiz
+     * @param userId The ID of the user who submitted the result
+     * @param score The score of the result, between 0 and 100
+     */
+    void recordScore(Long quizId, String userId, int score);
+
+    /**
+     * Remove a deleted result from its quiz's aggregates. Must run in the transaction that deletes the result.
+     *
+     * @param resultId The ID of the deleted result, excluded when the user's best is recomputed
+     * @param quizId The ID of the quiz
+     * @param userId The ID of the user who submitted the result
+     * @param score The score of the result
+     */
+    void removeScore(Long resultId, Long quizId, String userId, int score);
+
+    /**
+     * Read a quiz's score histogram
+     *
+     * @param quizId The ID of the quiz
+     * @return The histogram, empty if the quiz has no results
+     */
+    QuizScoreHistogram findScoreHistogram(Long quizId);
+
+    /**
+     * Rank a user on a quiz by their best score, counting users with a better best score from the histogram
+     *
+     * @param quizId The ID of the quiz
+     * @param userId The ID of the user
+     * @return The user's rank, or empty if the user has no result for the quiz
+     */
+    Optional<QuizRankDTO> findRank(Long quizId, String userId);
+}
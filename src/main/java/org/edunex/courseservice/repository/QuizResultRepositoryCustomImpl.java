@@ -0,0 +1,192 @@
+package org.edunex.courseservice.repository;
+
+import org.edunex.courseservice.dto.QuizRankDTO;
+import org.edunex.courseservice.dto.QuizResultDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+public class QuizResultRepositoryCustomImpl implements QuizResultRepositoryCustom {
+
+    // Inserts only when the quiz exists and returns the row with its quiz, module and course titles
+    private static final String INSERT_RESULT_SQL = """
+            WITH inserted AS (
+                INSERT INTO quiz_results (user_id, quiz_id, score, submitted_at)
+                SELECT ?, q.id, ?, ? FROM quizzes q WHERE q.id = ?
+                RETURNING id, user_id, quiz_id, score, submitted_at
+            )
+            SELECT i.id, i.user_id, i.quiz_id, q.title AS quiz_title, i.score, i.submitted_at,
+                   m.title AS module_title, c.id AS course_id, c.title AS course_title
+            FROM inserted i
+            JOIN quizzes q ON q.id = i.quiz_id
+            LEFT JOIN modules m ON m.id = q.module_id
+            LEFT JOIN courses c ON c.id = m.course_id
+            """;
+
+    private static final String INSERT_BEST_SCORE_SQL = """
+            INSERT INTO quiz_best_scores (quiz_id, user_id, best_score) VALUES (?, ?, ?)
+            ON CONFLICT (quiz_id, user_id) DO NOTHING
+            """;
+
+    // Locks the user's row so concurrent submissions by the same user update their best one at a time
+    private static final String SELECT_BEST_SCORE_FOR_UPDATE_SQL = """
+            SELECT best_score FROM quiz_best_scores WHERE quiz_id = ? AND user_id = ? FOR UPDATE
+            """;
+
+    private static final String UPDATE_BEST_SCORE_SQL = """
+            UPDATE quiz_best_scores SET best_score = ? WHERE quiz_id = ? AND user_id = ?
+            """;
+
+    private static final String DELETE_BEST_SCORE_SQL = """
+            DELETE FROM quiz_best_scores WHERE quiz_id = ? AND user_id = ?
+            """;
+
+    private static final String SELECT_REMAINING_BEST_SQL = """
+            SELECT MAX(score) FROM quiz_results WHERE quiz_id = ? AND user_id = ? AND id <> ?
+            """;
+
+    // Applies all bucket changes of one result in a single statement. Rows are taken in score order
+    // so concurrent submissions lock the buckets of a quiz in the same order.
+    private static final String APPLY_BUCKET_DELTAS_SQL = """
+            INSERT INTO quiz_score_buckets (quiz_id, score, result_count, best_count)
+            SELECT ?, d.score, d.result_delta, d.best_delta
+            FROM unnest(?, ?, ?) AS d(score, result_delta, best_delta)
+            ORDER BY d.score
+            ON CONFLICT (quiz_id, score) DO UPDATE SET
+                result_count = quiz_score_buckets.result_count + EXCLUDED.result_count,
+                best_count = quiz_score_buckets.best_count + EXCLUDED.best_count
+            """;
+
+    private static final String SELECT_BUCKETS_SQL = """
+            SELECT score, result_count, best_count FROM quiz_score_buckets WHERE quiz_id = ?
+            """;
+
+    private static final String SELECT_RANK_SQL = """
+            SELECT s.best_score,
+                   COALESCE(SUM(b.best_count) FILTER (WHERE b.score > s.best_score), 0) AS users_above,
+                   COALESCE(SUM(b.best_count) FILTER (WHERE b.score < s.best_score), 0) AS users_below,
+                   COALESCE(SUM(b.best_count), 0) AS participants
+            FROM quiz_best_scores s
+            LEFT JOIN quiz_score_buckets b ON b.quiz_id = s.quiz_id
+            WHERE s.quiz_id = ? AND s.user_id = ?
+            GROUP BY s.best_score
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Optional<QuizResultDTO> insertResult(Long quizId, String userId, int score, LocalDateTime submittedAt) {
+        List<QuizResultDTO> inserted = jdbcTemplate.query(INSERT_RESULT_SQL, (rs, rowNum) -> new QuizResultDTO(
+                rs.getLong("id"),
+                rs.getString("user_id"),
+                rs.getLong("quiz_id"),
+                rs.getString("quiz_title"),
+                rs.getInt("score"),
+                rs.getObject("submitted_at", LocalDateTime.class),
+                rs.getString("module_title"),
+                rs.getObject("course_id", Long.class),
+                rs.getString("course_title")), userId, score, submittedAt, quizId);
+        return inserted.stream().findFirst();
+    }
+
+    @Override
+    public void recordScore(Long quizId, String userId, int score) {
+        // Score -> {result delta, best delta}
+        Map<Integer, long[]> deltas = new TreeMap<>();
+        addDelta(deltas, score, 1, 0);
+
+        if (jdbcTemplate.update(INSERT_BEST_SCORE_SQL, quizId, userId, score) == 1) {
+            addDelta(deltas, score, 0, 1);
+        } else {
+            int previousBest = jdbcTemplate.queryForObject(SELECT_BEST_SCORE_FOR_UPDATE_SQL, Integer.class, quizId, userId);
+            if (score > previousBest) {
+                jdbcTemplate.update(UPDATE_BEST_SCORE_SQL, score, quizId, userId);
+                addDelta(deltas, previousBest, 0, -1);
+                addDelta(deltas, score, 0, 1);
+            }
+        }
+
+        applyBucketDeltas(quizId, deltas);
+    }
+
+    @Override
+    public void removeScore(Long resultId, Long quizId, String userId, int score) {
+        Map<Integer, long[]> deltas = new TreeMap<>();
+        addDelta(deltas, score, -1, 0);
+
+        List<Integer> previousBest = jdbcTemplate.queryForList(SELECT_BEST_SCORE_FOR_UPDATE_SQL, Integer.class, quizId, userId);
+        if (!previousBest.isEmpty()) {
+            int oldBest = previousBest.get(0);
+            Integer newBest = jdbcTemplate.queryForObject(SELECT_REMAINING_BEST_SQL, Integer.class, quizId, userId, resultId);
+            if (newBest == null) {
+                jdbcTemplate.update(DELETE_BEST_SCORE_SQL, quizId, userId);
+                addDelta(deltas, oldBest, 0, -1);
+            } else if (newBest != oldBest) {
+                jdbcTemplate.update(UPDATE_BEST_SCORE_SQL, newBest, quizId, userId);
+                addDelta(deltas, oldBest, 0, -1);
+                addDelta(deltas, newBest, 0, 1);
+            }
+        }
+
+        applyBucketDeltas(quizId, deltas);
+    }
+
+    @Override
+    public QuizScoreHistogram findScoreHistogram(Long quizId) {
+        QuizScoreHistogram histogram = QuizScoreHistogram.empty();
+        jdbcTemplate.query(SELECT_BUCKETS_SQL, rs -> {
+            int score = rs.getInt("score");
+            histogram.resultCounts()[score] = rs.getLong("result_count");
+            histogram.bestCounts()[score] = rs.getLong("best_count");
+        }, quizId);
+        return histogram;
+    }
+
+    @Override
+    public Optional<QuizRankDTO> findRank(Long quizId, String userId) {
+        List<QuizRankDTO> ranks = jdbcTemplate.query(SELECT_RANK_SQL, (rs, rowNum) -> {
+            long usersAbove = rs.getLong("users_above");
+            long usersBelow = rs.getLong("users_below");
+            long participants = rs.getLong("participants");
+
+            QuizRankDTO dto = new QuizRankDTO();
+            dto.setQuizId(quizId);
+            dto.setUserId(userId);
+            dto.setBestScore(rs.getInt("best_score"));
+            dto.setRank(usersAbove + 1);
+            dto.setParticipants(participants);
+            dto.setPercentile(participants > 0 ? (double) usersBelow / participants * 100 : 0);
+            return dto;
+        }, quizId, userId);
+
+        return ranks.stream().findFirst();
+    }
+
+    private void addDelta(Map<Integer, long[]> deltas, int score, long resultDelta, long bestDelta) {
+        long[] delta = deltas.computeIfAbsent(score, s -> new long[2]);
+        delta[0] += resultDelta;
+        delta[1] += bestDelta;
+    }
+
+    private void applyBucketDeltas(Long quizId, Map<Integer, long[]> deltas) {
+        Integer[] scores = deltas.keySet().toArray(new Integer[0]);
+        Long[] resultDeltas = deltas.values().stream().map(d -> d[0]).toArray(Long[]::new);
+        Long[] bestDeltas = deltas.values().stream().map(d -> d[1]).toArray(Long[]::new);
+
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(APPLY_BUCKET_DELTAS_SQL);
+            ps.setLong(1, quizId);
+            ps.setArray(2, con.createArrayOf("integer", scores));
+            ps.setArray(3, con.createArrayOf("bigint", resultDeltas));
+            ps.setArray(4, con.createArrayOf("bigint", bestDeltas));
+            return ps;
+        });
+    }
+}
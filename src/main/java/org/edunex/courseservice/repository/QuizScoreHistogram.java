@@ -0,0 +1,63 @@
+package org.edunex.courseservice.repository;
+
+/**
+ * A quiz's score histogram, read from its maintained buckets rather than by scanning quiz results.
+ *
+ * @param resultCounts Number of results per score, indexed by score
+ * @param bestCounts Number of users whose best result has each score, indexed by score
+ */
+public record QuizScoreHistogram(long[] resultCounts, long[] bestCounts) {
+
+    public static final int MIN_SCORE = 0;
+    public static final int MAX_SCORE = 100;
+
+    public static QuizScoreHistogram empty() {
+        return new QuizScoreHistogram(new long[MAX_SCORE + 1], new long[MAX_SCORE + 1]);
+    }
+
+    public long attempts() {
+        long attempts = 0;
+        for (long count : resultCounts) {
+            attempts += count;
+        }
+        return attempts;
+    }
+
+    public long participants() {
+        long participants = 0;
+        for (long count : bestCounts) {
+            participants += count;
+        }
+        return participants;
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (int score = MIN_SCORE; score <= MAX_SCORE; score++) {
+            sum += score * resultCounts[score];
+        }
+        return sum;
+    }
+
+    /**
+     * Nearest-rank percentile of all results
+     * @param percentile The percentile, between 0 and 100
+     * @return The score, or null if there are no results
+     */
+    public Integer percentile(double percentile) {
+        long attempts = attempts();
+        if (attempts == 0) {
+            return null;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * attempts));
+        long seen = 0;
+        for (int score = MIN_SCORE; score <= MAX_SCORE; score++) {
+            seen += resultCounts[score];
+            if (seen >= rank) {
+                return score;
+            }
+        }
+        return MAX_SCORE;
+    }
+}
@@ -0,0 +1,20 @@
+package org.edunex.courseservice.repository;
+
+import org.edunex.courseservice.model.S3Deletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface S3DeletionRepository extends JpaRepository<S3Deletion, Long> {
+
+    // Queue an object for S3CleanupService; call after the row that pointed at it has been updated,
+    // so a key that is still shared with a cloned course is recognised as in use
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO s3_deletions (object_key, queued_at) VALUES (:objectKey, now())", nativeQuery = true)
+    int enqueue(@Param("objectKey") String objectKey);
+}
@@ -0,0 +1,304 @@
+package org.edunex.courseservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.edunex.courseservice.dto.BulkEnrollmentResultDTO;
+import org.edunex.courseservice.repository.CourseRepository;
+import org.edunex.courseservice.repository.EnrollmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Enrolls whole cohorts into a course. User IDs are read from the request as a stream and inserted
+ * in batches of multi-row upserts, so memory use is bounded by the batch size rather than the cohort size.
+ */
+@Service
+public class BulkEnrollmentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkEnrollmentService.class);
+
+    public static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private static final int MAX_USER_ID_LENGTH = 255;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private EnrollmentCache enrollmentCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${enrollment.bulk.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * Fail fast before the response starts streaming if the course does not exist
+     * @param courseId The ID of the course to enroll users in
+     */
+    public void verifyCourseExists(Long courseId) {
+        if (!courseRepository.existsById(courseId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found");
+        }
+    }
+
+    /**
+     * Enroll the user IDs read from the input into a course, writing one NDJSON result line per input
+     * element in input order. A user ID repeated within a batch is reported as a duplicate; repeated in
+     * a later batch, it is reported as already enrolled.
+     * @param courseId The ID of the course to enroll users in
+     * @param input The request body with the user IDs
+     * @param contentType JSON array, NDJSON or CSV (first column)
+     * @param output Where the per-user results are written
+     */
+    public void importEnrollments(Long courseId, InputStream input, MediaType contentType, OutputStream output) throws IOException {
+        long startedAt = System.nanoTime();
+        long total = 0;
+        long enrolled = 0;
+
+        Iterator<BulkEnrollmentResultDTO> elements = readElements(input, contentType);
+        // Results are held back until their batch is inserted, so lines come out in input order
+        List<BulkEnrollmentResultDTO> results = new ArrayList<>();
+        Set<String> batch = new LinkedHashSet<>();
+
+        while (elements.hasNext()) {
+            BulkEnrollmentResultDTO result = elements.next();
+            total++;
+
+            // Malformed elements come out of the reader with their status already set
+            if (result.getStatus() == null) {
+                String userId = result.getUserId();
+                if (userId == null || userId.isBlank() || userId.length() > MAX_USER_ID_LENGTH) {
+                    result.setStatus(BulkEnrollmentResultDTO.Status.INVALID);
+                } else {
+                    result.setUserId(userId.trim());
+                    if (!batch.add(result.getUserId())) {
+                        result.setStatus(BulkEnrollmentResultDTO.Status.DUPLICATE);
+                    }
+                }
+            }
+
+            results.add(result);
+            if (results.size() >= batchSize) {
+                enrolled += flushBatch(courseId, batch, results, output);
+            }
+        }
+        enrolled += flushBatch(courseId, batch, results, output);
+
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+        logger.info("Bulk enrollment for courseId={} processed {} users ({} newly enrolled) in {} ms, {} users/s",
+                courseId, total, enrolled, elapsedMillis, total * 1000 / elapsedMillis);
+    }
+
+    private int flushBatch(Long courseId, Set<String> batch, List<BulkEnrollmentResultDTO> results,
+                           OutputStream output) throws IOException {
+        if (results.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> inserted = batch.isEmpty() ? Set.of() : enrollmentRepository.insertAllIfAbsent(courseId, batch);
+        inserted.forEach(enrollmentCache::invalidate);
+        for (BulkEnrollmentResultDTO result : results) {
+            // Only the first occurrence of each batched user ID is still open
+            if (result.getStatus() == null) {
+                result.setStatus(inserted.contains(result.getUserId())
+                        ? BulkEnrollmentResultDTO.Status.ENROLLED
+                        : BulkEnrollmentResultDTO.Status.ALREADY_ENROLLED);
+            }
+            writeResult(output, result);
+        }
+        output.flush();
+
+        logger.debug("Bulk enrollment batch for courseId={} size={} inserted={}", courseId, batch.size(), inserted.size());
+        batch.clear();
+        results.clear();
+        return inserted.size();
+    }
+
+    private void writeResult(OutputStream output, BulkEnrollmentResultDTO result) throws IOException {
+        output.write(objectMapper.writeValueAsBytes(result));
+        output.write('\n');
+    }
+
+    // Each element is read as a result with the raw user ID and no status yet, or as MALFORMED
+    private Iterator<BulkEnrollmentResultDTO> readElements(InputStream input, MediaType contentType) throws IOException {
+        if (contentType != null && TEXT_CSV.includes(contentType)) {
+            Iterator<String> userIds = readCsvUserIds(input);
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return userIds.hasNext();
+                }
+
+                @Override
+                public BulkEnrollmentResultDTO next() {
+                    return new BulkEnrollmentResultDTO(userIds.next(), null);
+                }
+            };
+        }
+        if (contentType != null && MediaType.APPLICATION_NDJSON.includes(contentType)) {
+            return readNdjsonElements(input);
+        }
+
+        // A root level JSON array is unwrapped by the iterator, so arrays and concatenated values share one path
+        MappingIterator<JsonNode> nodes = objectMapper.readerFor(JsonNode.class).readValues(input);
+        return new Iterator<>() {
+            private boolean broken;
+            private BulkEnrollmentResultDTO next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public BulkEnrollmentResultDTO next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                BulkEnrollmentResultDTO element = next;
+                next = advance();
+                return element;
+            }
+
+            private BulkEnrollmentResultDTO advance() {
+                if (broken) {
+                    return null;
+                }
+                try {
+                    return nodes.hasNextValue() ? new BulkEnrollmentResultDTO(userId(nodes.nextValue()), null) : null;
+                } catch (JsonProcessingException e) {
+                    // There is no telling where the next element of a broken document starts, so reading stops here
+                    broken = true;
+                    return new BulkEnrollmentResultDTO(null, BulkEnrollmentResultDTO.Status.MALFORMED);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    // Every line is parsed on its own, so a malformed line is reported and the next one is read as usual
+    private Iterator<BulkEnrollmentResultDTO> readNdjsonElements(InputStream input) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        return new Iterator<>() {
+            private String nextLine = advance();
+
+            @Override
+            public boolean hasNext() {
+                return nextLine != null;
+            }
+
+            @Override
+            public BulkEnrollmentResultDTO next() {
+                if (nextLine == null) {
+                    throw new NoSuchElementException();
+                }
+                String line = nextLine;
+                nextLine = advance();
+
+                try {
+                    return new BulkEnrollmentResultDTO(userId(objectMapper.readTree(line)), null);
+                } catch (JsonProcessingException e) {
+                    return new BulkEnrollmentResultDTO(null, BulkEnrollmentResultDTO.Status.MALFORMED);
+                }
+            }
+
+            private String advance() {
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (!line.isBlank()) {
+                            return line;
+                        }
+                    }
+                    return null;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    private static String userId(JsonNode node) {
+        if (node.isObject()) {
+            node = node.path("userId");
+        }
+        return node.isTextual() ? node.asText() : null;
+    }
+
+    private Iterator<String> readCsvUserIds(InputStream input) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        return new Iterator<>() {
+            private String nextLine = advance(true);
+
+            @Override
+            public boolean hasNext() {
+                return nextLine != null;
+            }
+
+            @Override
+            public String next() {
+                if (nextLine == null) {
+                    throw new NoSuchElementException();
+                }
+                String line = nextLine;
+                nextLine = advance(false);
+
+                // The user ID is the first column, optionally quoted
+                int comma = line.indexOf(',');
+                String userId = (comma >= 0 ? line.substring(0, comma) : line).trim();
+                if (userId.length() >= 2 && userId.startsWith("\"") && userId.endsWith("\"")) {
+                    userId = userId.substring(1, userId.length() - 1);
+                }
+                return userId;
+            }
+
+            private String advance(boolean firstLine) {
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isBlank()) {
+                            continue;
+                        }
+                        // Skip an optional header row
+                        if (firstLine && line.trim().toLowerCase().matches("\"?user_?id\"?(,.*)?")) {
+                            firstLine = false;
+                            continue;
+                        }
+                        return line;
+                    }
+                    return null;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,517 @@
+package org.edunex.courseservice.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Local disk copy of the S3 objects served by proxied downloads, so a hot file is fetched from S3
+ * once per instance instead of once per request. Files are evicted least recently used first once
+ * the cache holds more than max-bytes, and concurrent requests for an uncached object share one
+ * S3 fetch. Cached files are sent with Tomcat's sendfile where the connector supports it.
+ * <p>
+ * A response pins the file it sends, so an eviction only drops it from the index and the file is
+ * deleted once the last response using it has finished. Evicted files still being sent are not
+ * counted against max-bytes.
+ */
+@Service
+public class ContentDiskCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentDiskCache.class);
+
+    // Request attributes of Tomcat's sendfile support, as used by its DefaultServlet
+    static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    // Prefix of the per-response links handed to sendfile, removed by sweepSendfileLinks()
+    private static final String SENDFILE_LINK_PREFIX = "send-";
+
+    // Keys of objects too large to cache, remembered so their downloads skip the fill
+    private static final int MAX_OVERSIZED_KEYS = 10_000;
+
+    @Autowired
+    private S3Client s3Client;
+
+    @Value("${aws.bucket.name}")
+    private String bucketName;
+
+    @Value("${s3.download.disk-cache.directory:${java.io.tmpdir}/course-content-cache}")
+    private Path directory;
+
+    @Value("${s3.download.disk-cache.max-bytes:0}")
+    private long maxBytes;
+
+    @Value("${s3.download.disk-cache.sendfile-link-ttl:5m}")
+    private Duration sendfileLinkTtl;
+
+    // Cached files by object key, access ordered so the eldest entry is the least recently used one
+    private final LinkedHashMap<String, CachedFile> files = new LinkedHashMap<>(256, 0.75f, true);
+    private long cachedBytes;
+
+    // Object keys are never reused for other content, so a key too large to cache stays too large
+    private final Map<String, Boolean> oversized = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_OVERSIZED_KEYS;
+        }
+    };
+
+    // Fills in progress; later requests for the same key wait for the first one instead of going to S3
+    private final Map<String, CompletableFuture<Optional<CachedFile>>> fills = new ConcurrentHashMap<>();
+
+    // Sendfile links by path, with their creation time
+    private final Map<Path, Long> sendfileLinks = new ConcurrentHashMap<>();
+
+    // Each fill writes a new file, so a file deleted after its last response never belongs to a later fill
+    private final AtomicLong fillSequence = new AtomicLong();
+
+    static final class CachedFile {
+        private final Path path;
+        private final long size;
+        private final String contentType;
+
+        // Guarded by files: responses using the file, and whether it has left the index
+        private int pins;
+        private boolean evicted;
+
+        CachedFile(Path path, long size, String contentType) {
+            this.path = path;
+            this.size = size;
+            this.contentType = contentType;
+        }
+
+        Path path() {
+            return path;
+        }
+
+        long size() {
+            return size;
+        }
+
+        String contentType() {
+            return contentType;
+        }
+    }
+
+    /**
+     * The index is only kept in memory, so files left by a previous run are removed on startup
+     */
+    @PostConstruct
+    void initialize() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        Files.createDirectories(directory);
+        try (Stream<Path> leftovers = Files.list(directory)) {
+            for (Path leftover : leftovers.toList()) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+        logger.info("Content disk cache at {} with a budget of {} bytes", directory, maxBytes);
+    }
+
+    /**
+     * @return true if s3.download.disk-cache.max-bytes is set
+     */
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * Serve an S3 object from the disk cache, fetching it into the cache first if needed.
+     * A single byte range in the Range header is honoured.
+     * @param objectKey The S3 object key for the file
+     * @param request The download request, for its Range header and sendfile support
+     * @return The response, or empty if the cache is disabled or the object is larger than the whole cache
+     */
+    public Optional<ResponseEntity<?>> serve(String objectKey, HttpServletRequest request) {
+        if (!isEnabled() || isOversized(objectKey)) {
+            return Optional.empty();
+        }
+        return get(objectKey).map(file -> {
+            try {
+                return respond(objectKey, file, request);
+            } catch (RuntimeException e) {
+                release(file);
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Drop cached copies of objects deleted from S3
+     * @param objectKeys The S3 object keys to drop
+     */
+    public void evict(List<String> objectKeys) {
+        if (!isEnabled()) {
+            return;
+        }
+        for (String objectKey : objectKeys) {
+            boolean delete = false;
+            CachedFile removed;
+            synchronized (files) {
+                removed = files.remove(objectKey);
+                if (removed != null) {
+                    delete = retire(removed);
+                }
+            }
+            if (delete) {
+                deleteQuietly(removed.path());
+            }
+        }
+    }
+
+    /**
+     * Get an object's cached file, filling it first if needed, pinned until {@link #release(CachedFile)}
+     * @return The pinned file, or empty if the object does not fit in the cache
+     */
+    Optional<CachedFile> get(String objectKey) {
+        // A file can be evicted between its fill and pinning it; the next round fills it again
+        for (int attempt = 0; attempt < 3; attempt++) {
+            CachedFile cached = pinCached(objectKey);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+            Optional<CachedFile> filled = fill(objectKey);
+            if (filled.isEmpty() || pin(filled.get())) {
+                return filled;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Optional<CachedFile> fill(String objectKey) {
+        CompletableFuture<Optional<CachedFile>> fill = new CompletableFuture<>();
+        CompletableFuture<Optional<CachedFile>> running = fills.putIfAbsent(objectKey, fill);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            // Another fill may have finished between the lookup and taking over the key
+            CachedFile cached = lookup(objectKey);
+            fill.complete(cached != null ? Optional.of(cached) : Optional.ofNullable(fetch(objectKey)));
+        } catch (RuntimeException e) {
+            fill.completeExceptionally(e);
+        } finally {
+            fills.remove(objectKey, fill);
+        }
+        return await(fill);
+    }
+
+    private CachedFile lookup(String objectKey) {
+        synchronized (files) {
+            return files.get(objectKey);
+        }
+    }
+
+    private CachedFile pinCached(String objectKey) {
+        synchronized (files) {
+            CachedFile cached = files.get(objectKey);
+            if (cached != null) {
+                cached.pins++;
+            }
+            return cached;
+        }
+    }
+
+    private boolean pin(CachedFile file) {
+        synchronized (files) {
+            if (file.evicted) {
+                return false;
+            }
+            file.pins++;
+            return true;
+        }
+    }
+
+    /**
+     * Drop a response's pin on a file, deleting the file if it was evicted while pinned
+     */
+    void release(CachedFile file) {
+        boolean delete;
+        synchronized (files) {
+            file.pins--;
+            delete = file.evicted && file.pins == 0;
+        }
+        if (delete) {
+            deleteQuietly(file.path());
+        }
+    }
+
+    // Mark a file removed from the index; true if no response holds it and it can be deleted now
+    private boolean retire(CachedFile file) {
+        cachedBytes -= file.size();
+        file.evicted = true;
+        return file.pins == 0;
+    }
+
+    private boolean isOversized(String objectKey) {
+        synchronized (oversized) {
+            return oversized.containsKey(objectKey);
+        }
+    }
+
+    private Optional<CachedFile> await(CompletableFuture<Optional<CachedFile>> fill) {
+        try {
+            return fill.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Download an object into the cache directory and add it to the index
+     * @return The cached file, or null if the object does not fit in the cache
+     */
+    private CachedFile fetch(String objectKey) {
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(objectKey)
+                .build();
+
+        Path temporary = null;
+        try (ResponseInputStream<GetObjectResponse> s3Object = s3Client.getObject(getObjectRequest)) {
+            GetObjectResponse objectResponse = s3Object.response();
+            if (objectResponse.contentLength() != null && objectResponse.contentLength() > maxBytes) {
+                s3Object.abort();
+                synchronized (oversized) {
+                    oversized.put(objectKey, Boolean.TRUE);
+                }
+                logger.debug("Not caching key={} of {} bytes", objectKey, objectResponse.contentLength());
+                return null;
+            }
+
+            temporary = Files.createTempFile(directory, "fill-", ".tmp");
+            long size = Files.copy(s3Object, temporary, StandardCopyOption.REPLACE_EXISTING);
+            Path path = directory.resolve(fileName(objectKey) + "-" + fillSequence.incrementAndGet());
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            temporary = null;
+
+            CachedFile file = new CachedFile(path, size, objectResponse.contentType());
+            add(objectKey, file);
+            logger.info("Cached key={} ({} bytes) from S3", objectKey, size);
+            return file;
+        } catch (S3Exception e) {
+            logger.error("S3Exception while caching key={}: {}", objectKey, e.getMessage(), e);
+            if (e.statusCode() == 404) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "File not found");
+            }
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "S3 error: " + e.getMessage());
+        } catch (IOException e) {
+            logger.error("IOException while caching key={}: {}", objectKey, e.getMessage(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to read file: " + e.getMessage());
+        } finally {
+            if (temporary != null) {
+                deleteQuietly(temporary);
+            }
+        }
+    }
+
+    private void add(String objectKey, CachedFile file) {
+        List<CachedFile> deletable = new ArrayList<>();
+        synchronized (files) {
+            CachedFile replaced = files.put(objectKey, file);
+            if (replaced != null && retire(replaced)) {
+                deletable.add(replaced);
+            }
+            cachedBytes += file.size();
+
+            // The new file is the most recently used one, so it is evicted last. Pinned victims are
+            // deleted by the release of their last response.
+            Iterator<CachedFile> eldest = files.values().iterator();
+            while (cachedBytes > maxBytes && files.size() > 1) {
+                CachedFile victim = eldest.next();
+                eldest.remove();
+                if (retire(victim)) {
+                    deletable.add(victim);
+                }
+            }
+        }
+        deletable.forEach(victim -> deleteQuietly(victim.path()));
+    }
+
+    private ResponseEntity<?> respond(String objectKey, CachedFile file, HttpServletRequest request) {
+        long start = 0;
+        long end = file.size() - 1;
+        HttpStatus status = HttpStatus.OK;
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = null;
+            }
+            if (ranges == null || (ranges.size() == 1 && !isSatisfiable(ranges.get(0), file.size()))) {
+                release(file);
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + file.size())
+                        .build();
+            }
+            // Several ranges would need a multipart body; the whole file is a valid answer to them
+            if (ranges.size() == 1) {
+                start = ranges.get(0).getRangeStart(file.size());
+                end = ranges.get(0).getRangeEnd(file.size());
+                status = HttpStatus.PARTIAL_CONTENT;
+            }
+        }
+
+        String filename = objectKey.substring(objectKey.lastIndexOf("/") + 1);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status)
+                .contentType(file.contentType() != null
+                        ? MediaType.parseMediaType(file.contentType())
+                        : MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(end - start + 1)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.formData().name("attachment").filename(filename).build().toString());
+        if (status == HttpStatus.PARTIAL_CONTENT) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + file.size());
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+            Path link = linkForSendfile(file);
+            if (link != null) {
+                // Tomcat sends the file from the page cache to the socket itself once the headers are written
+                request.setAttribute(SENDFILE_FILENAME_ATTR, link.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START_ATTR, start);
+                request.setAttribute(SENDFILE_END_ATTR, end + 1);
+                return response.build();
+            }
+        }
+        long position = start;
+        long count = end - start + 1;
+        StreamingResponseBody body = output -> {
+            try {
+                transfer(file.path(), position, count, Channels.newChannel(output));
+            } finally {
+                release(file);
+            }
+        };
+        return response.body(body);
+    }
+
+    /**
+     * Tomcat opens a sendfile by name after the handler has returned and reports no completion, so
+     * the response gets its own hard link to the cached file; the data outlives an eviction of the
+     * cached name, and the pin is dropped as soon as the link exists
+     * @return The link, or null if the file system does not support hard links
+     */
+    private Path linkForSendfile(CachedFile file) {
+        Path link = directory.resolve(SENDFILE_LINK_PREFIX + UUID.randomUUID());
+        try {
+            Files.createLink(link, file.path());
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.debug("Cannot link {} for sendfile, streaming it instead: {}", file.path(), e.getMessage());
+            return null;
+        }
+        sendfileLinks.put(link, System.nanoTime());
+        release(file);
+        return link;
+    }
+
+    /**
+     * Remove sendfile links older than sendfile-link-ttl. Tomcat opens the file as soon as the response
+     * headers are written, and an open file stays readable after its last link is removed.
+     */
+    @Scheduled(fixedDelayString = "${s3.download.disk-cache.sendfile-link-sweep-interval:1m}")
+    public void sweepSendfileLinks() {
+        long now = System.nanoTime();
+        long ttl = sendfileLinkTtl.toNanos();
+        // A link shares its inode's modification time, so its age is tracked here instead
+        sendfileLinks.forEach((link, created) -> {
+            if (now - created >= ttl && sendfileLinks.remove(link, created)) {
+                deleteQuietly(link);
+            }
+        });
+    }
+
+    private boolean isSatisfiable(HttpRange range, long size) {
+        try {
+            return range.getRangeStart(size) < size;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private void transfer(Path path, long position, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long sent = 0;
+            while (sent < count) {
+                long transferred = channel.transferTo(position + sent, count - sent, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                sent += transferred;
+            }
+        }
+    }
+
+    // Object keys contain slashes, so files are named by a hash of the key
+    private String fileName(String objectKey) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(objectKey.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Failed to delete cached file {}", path, e);
+        }
+    }
+}
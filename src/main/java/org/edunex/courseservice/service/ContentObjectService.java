@@ -0,0 +1,109 @@
+package org.edunex.courseservice.service;
+
+import org.edunex.courseservice.repository.ContentObjectRepository;
+import org.edunex.courseservice.repository.S3DeletionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Content-addressed storage of module content. Each distinct file is stored in S3 once and shared by
+ * every module it was uploaded to, with a reference count in content_objects; the object is removed
+ * by S3CleanupService once the last module lets go of it.
+ */
+@Service
+public class ContentObjectService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentObjectService.class);
+
+    @Autowired
+    private ContentObjectRepository contentObjectRepository;
+
+    @Autowired
+    private S3DeletionRepository s3DeletionRepository;
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Store a file, or take a reference on the stored copy if the same content was uploaded before
+     * @param file The uploaded file
+     * @return The S3 object key of the content, with one reference taken for the caller
+     */
+    public String store(MultipartFile file) {
+        String hash = sha256(file);
+
+        Optional<String> existing = contentObjectRepository.acquireByHash(hash);
+        if (existing.isPresent()) {
+            logger.info("Reusing stored content key={} for {} ({} bytes)", existing.get(), file.getOriginalFilename(), file.getSize());
+            return existing.get();
+        }
+
+        // The upload runs without a transaction; the reference and, when a concurrent upload of the same
+        // content was recorded first, the queued removal of our unreferenced copy commit together
+        String objectKey = s3Service.uploadContent(file, hash);
+        return transactionTemplate.execute(status -> {
+            String storedKey = contentObjectRepository.acquire(hash, objectKey, file.getSize(), file.getContentType());
+            if (!storedKey.equals(objectKey)) {
+                s3DeletionRepository.enqueue(objectKey);
+            }
+            return storedKey;
+        });
+    }
+
+    /**
+     * Take a reference on an object key a module was pointed at directly
+     * @param objectKey The object key, which may not be a content object at all
+     */
+    public void retain(String objectKey) {
+        if (objectKey != null && !objectKey.isEmpty()) {
+            contentObjectRepository.retain(objectKey);
+        }
+    }
+
+    /**
+     * Drop a module's reference on an object and queue it for removal; the cleanup job only removes it
+     * once nothing references it any more
+     * @param objectKey The object key the module no longer points at
+     */
+    @Transactional
+    public void release(String objectKey) {
+        if (objectKey != null && !objectKey.isEmpty()) {
+            contentObjectRepository.release(objectKey);
+            s3DeletionRepository.enqueue(objectKey);
+        }
+    }
+
+    // Multipart uploads are staged on local disk, so this is a sequential read of the staged file
+    private String sha256(MultipartFile file) {
+        try (InputStream input = file.getInputStream()) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to read file: " + e.getMessage());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
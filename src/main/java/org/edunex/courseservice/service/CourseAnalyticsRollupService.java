@@ -0,0 +1,161 @@
+package org.edunex.courseservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Incrementally rolls enrollments, progress and quiz results up into the instructor analytics tables
+ * (course_daily_stats and module_completion_counts). Each source table has a watermark on its timestamp
+ * column; a run only reads rows between the watermark and now minus the configured lag, recomputes the
+ * course days and course funnels those rows touch, and advances the watermarks, all in one transaction.
+ */
+@Service
+public class CourseAnalyticsRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseAnalyticsRollupService.class);
+
+    public static final String ENROLLMENTS = "enrollments";
+    public static final String PROGRESS = "progress";
+    public static final String QUIZ_RESULTS = "quiz_results";
+
+    // Before the first run every row is new
+    static final LocalDateTime INITIAL_WATERMARK = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final String TRY_LOCK_SQL = "SELECT pg_try_advisory_xact_lock(hashtext('analytics:rollup'))";
+
+    private static final String WATERMARK_SQL = "SELECT high_water FROM analytics_watermarks WHERE source = ?";
+
+    private static final String UPSERT_WATERMARK_SQL = """
+            INSERT INTO analytics_watermarks (source, high_water) VALUES (?, ?)
+            ON CONFLICT (source) DO UPDATE SET high_water = GREATEST(analytics_watermarks.high_water, EXCLUDED.high_water)
+            """;
+
+    // Every (course, day) with new rows is recomputed in full from the source tables, so re-running
+    // a window and late rows for an already rolled up day both leave the correct totals
+    private static final String ROLLUP_DAILY_STATS_SQL = """
+            WITH touched AS (
+                SELECT e.course_id, CAST(e.enrolled_at AS date) AS activity_date
+                FROM enrollments e
+                WHERE e.enrolled_at > ? AND e.enrolled_at <= ?
+                UNION
+                SELECT m.course_id, CAST(p.completed_at AS date)
+                FROM progress p JOIN modules m ON m.id = p.module_id
+                WHERE p.completed_at > ? AND p.completed_at <= ?
+                UNION
+                SELECT m.course_id, CAST(r.submitted_at AS date)
+                FROM quiz_results r JOIN quizzes q ON q.id = r.quiz_id JOIN modules m ON m.id = q.module_id
+                WHERE r.submitted_at > ? AND r.submitted_at <= ?
+            )
+            INSERT INTO course_daily_stats (course_id, activity_date, enrollments, active_learners, quiz_submissions, quiz_score_sum)
+            SELECT t.course_id, t.activity_date,
+                   (SELECT COUNT(*) FROM enrollments e
+                     WHERE e.course_id = t.course_id
+                       AND e.enrolled_at >= t.activity_date AND e.enrolled_at < t.activity_date + 1),
+                   (SELECT COUNT(DISTINCT a.user_id) FROM (
+                        SELECT p.user_id FROM progress p JOIN modules m ON m.id = p.module_id
+                         WHERE m.course_id = t.course_id
+                           AND p.completed_at >= t.activity_date AND p.completed_at < t.activity_date + 1
+                        UNION ALL
+                        SELECT r.user_id FROM quiz_results r JOIN quizzes q ON q.id = r.quiz_id JOIN modules m ON m.id = q.module_id
+                         WHERE m.course_id = t.course_id
+                           AND r.submitted_at >= t.activity_date AND r.submitted_at < t.activity_date + 1
+                    ) a),
+                   qs.submissions, qs.score_sum
+            FROM touched t
+            CROSS JOIN LATERAL (
+                SELECT COUNT(*) AS submissions, COALESCE(SUM(r.score), 0) AS score_sum
+                FROM quiz_results r JOIN quizzes q ON q.id = r.quiz_id JOIN modules m ON m.id = q.module_id
+                WHERE m.course_id = t.course_id
+                  AND r.submitted_at >= t.activity_date AND r.submitted_at < t.activity_date + 1
+            ) qs
+            ON CONFLICT (course_id, activity_date) DO UPDATE SET
+                enrollments = EXCLUDED.enrollments,
+                active_learners = EXCLUDED.active_learners,
+                quiz_submissions = EXCLUDED.quiz_submissions,
+                quiz_score_sum = EXCLUDED.quiz_score_sum
+            """;
+
+    // Resets clear completed_at, so courses with a reset in the window are found through progress_events
+    private static final String ROLLUP_FUNNEL_SQL = """
+            WITH touched AS (
+                SELECT m.course_id
+                FROM progress p JOIN modules m ON m.id = p.module_id
+                WHERE p.completed_at > ? AND p.completed_at <= ?
+                UNION
+                SELECT pe.course_id
+                FROM progress_events pe
+                WHERE pe.event_type = 'RESET' AND pe.occurred_at > ? AND pe.occurred_at <= ?
+            )
+            INSERT INTO module_completion_counts (course_id, module_id, completions)
+            SELECT m.course_id, m.id, COUNT(p.id)
+            FROM modules m
+            JOIN touched t ON t.course_id = m.course_id
+            LEFT JOIN progress p ON p.module_id = m.id AND p.completed
+            GROUP BY m.course_id, m.id
+            ON CONFLICT (module_id) DO UPDATE SET completions = EXCLUDED.completions
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${analytics.rollup.lag:2m}")
+    private Duration lag;
+
+    @Scheduled(cron = "${analytics.rollup.cron:0 */5 * * * *}")
+    public void rollup() {
+        rollup(LocalDateTime.now().minus(lag));
+    }
+
+    /**
+     * Roll up the rows stamped after the current watermarks and up to the given time
+     * @param highWater The new watermark of every source
+     */
+    void rollup(LocalDateTime highWater) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_LOCK_SQL, Boolean.class))) {
+                    logger.debug("Analytics rollup is running elsewhere, skipping");
+                    return;
+                }
+
+                long startedAt = System.nanoTime();
+                LocalDateTime enrollmentsFrom = watermark(ENROLLMENTS);
+                LocalDateTime progressFrom = watermark(PROGRESS);
+                LocalDateTime quizResultsFrom = watermark(QUIZ_RESULTS);
+
+                int days = jdbcTemplate.update(ROLLUP_DAILY_STATS_SQL,
+                        enrollmentsFrom, highWater, progressFrom, highWater, quizResultsFrom, highWater);
+                int modules = jdbcTemplate.update(ROLLUP_FUNNEL_SQL,
+                        progressFrom, highWater, progressFrom, highWater);
+
+                for (String source : List.of(ENROLLMENTS, PROGRESS, QUIZ_RESULTS)) {
+                    jdbcTemplate.update(UPSERT_WATERMARK_SQL, source, highWater);
+                }
+
+                logger.info("Analytics rollup up to {} refreshed {} course days and {} module counts in {} ms",
+                        highWater, days, modules, (System.nanoTime() - startedAt) / 1_000_000);
+            });
+        } catch (DataAccessException e) {
+            logger.warn("Analytics rollup up to {} failed", highWater, e);
+        }
+    }
+
+    private LocalDateTime watermark(String source) {
+        List<LocalDateTime> marks = jdbcTemplate.queryForList(WATERMARK_SQL, LocalDateTime.class, source);
+        return marks.isEmpty() ? INITIAL_WATERMARK : marks.get(0);
+    }
+}
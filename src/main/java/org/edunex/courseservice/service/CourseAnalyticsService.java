@@ -0,0 +1,95 @@
+package org.edunex.courseservice.service;
+
+import org.edunex.courseservice.dto.CourseAnalyticsDTO;
+import org.edunex.courseservice.dto.CourseDailyStatsDTO;
+import org.edunex.courseservice.dto.ModuleFunnelDTO;
+import org.edunex.courseservice.model.Course;
+import org.edunex.courseservice.repository.AnalyticsWatermarkRepository;
+import org.edunex.courseservice.repository.CourseDailyStatsRepository;
+import org.edunex.courseservice.repository.CourseRepository;
+import org.edunex.courseservice.repository.ModuleCompletionCountRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Serves instructor analytics from the tables maintained by {@link CourseAnalyticsRollupService},
+ * so a request reads at most one row per day and one per module instead of scanning the activity tables.
+ */
+@Service
+public class CourseAnalyticsService {
+
+    public static final int DEFAULT_RANGE_DAYS = 30;
+    public static final int MAX_RANGE_DAYS = 366;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private CourseDailyStatsRepository courseDailyStatsRepository;
+
+    @Autowired
+    private ModuleCompletionCountRepository moduleCompletionCountRepository;
+
+    @Autowired
+    private AnalyticsWatermarkRepository analyticsWatermarkRepository;
+
+    /**
+     * Get the analytics of a course for its instructor
+     * @param courseId The ID of the course
+     * @param userId The ID of the requesting user, who must be the course's instructor
+     * @param from First day of the range, defaults to DEFAULT_RANGE_DAYS before to
+     * @param to Last day of the range, defaults to today
+     * @return Daily activity over the range and the course's completion funnel
+     */
+    @Transactional(readOnly = true)
+    public CourseAnalyticsDTO getCourseAnalytics(Long courseId, String userId, LocalDate from, LocalDate to) {
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found"));
+        if (userId == null || !userId.equals(course.getInstructorId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    "Only the instructor of the course can view its analytics");
+        }
+
+        LocalDate rangeEnd = to != null ? to : LocalDate.now();
+        LocalDate rangeStart = from != null ? from : rangeEnd.minusDays(DEFAULT_RANGE_DAYS - 1);
+        if (rangeStart.isAfter(rangeEnd)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(rangeStart, rangeEnd) >= MAX_RANGE_DAYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Date range must not be longer than " + MAX_RANGE_DAYS + " days");
+        }
+
+        List<CourseDailyStatsDTO> days = courseDailyStatsRepository.findDTOsByCourseIdAndDateBetween(courseId, rangeStart, rangeEnd);
+        List<ModuleFunnelDTO> funnel = moduleCompletionCountRepository.findFunnelByCourseId(courseId);
+
+        long enrollments = 0;
+        long quizSubmissions = 0;
+        double quizScoreSum = 0;
+        for (CourseDailyStatsDTO day : days) {
+            enrollments += day.getEnrollments();
+            quizSubmissions += day.getQuizSubmissions();
+            if (day.getAverageQuizScore() != null) {
+                quizScoreSum += day.getAverageQuizScore() * day.getQuizSubmissions();
+            }
+        }
+
+        return new CourseAnalyticsDTO(
+                courseId,
+                rangeStart,
+                rangeEnd,
+                analyticsWatermarkRepository.findLowestHighWater().orElse(null),
+                enrollments,
+                quizSubmissions,
+                quizSubmissions > 0 ? quizScoreSum / quizSubmissions : null,
+                days,
+                funnel);
+    }
+}
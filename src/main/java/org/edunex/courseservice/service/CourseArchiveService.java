@@ -0,0 +1,429 @@
+package org.edunex.courseservice.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.edunex.courseservice.dto.CourseArchiveDTO;
+import org.edunex.courseservice.dto.CourseDTO;
+import org.edunex.courseservice.model.CourseStatus;
+import org.edunex.courseservice.repository.CourseRepository;
+import org.edunex.courseservice.repository.ExportHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Exports a course tree as a {@link CourseArchiveDTO} document, imports such a document as a new
+ * course and clones courses. Export and import stream the document, so neither materialises the tree:
+ * the export writes rows of one ordered join as they arrive from the cursor, the import reads modules
+ * one at a time and inserts them in JDBC batches.
+ */
+@Service
+public class CourseArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseArchiveService.class);
+
+    // One row per answer (or per question, quiz or module without children), in document order.
+    // Only the module's first quiz is exported, the one the rest of the API exposes.
+    private static final String EXPORT_SQL = """
+            SELECT m.id AS module_id, m.title AS module_title, m.type, m.coins_required,
+                   q.id AS quiz_id, q.title AS quiz_title,
+                   qq.id AS question_id, qq.question_text,
+                   a.id AS answer_id, a.answer_text, a.correct
+            FROM modules m
+            LEFT JOIN quizzes q ON q.id = (SELECT MIN(q2.id) FROM quizzes q2 WHERE q2.module_id = m.id)
+            LEFT JOIN quiz_questions qq ON qq.quiz_id = q.id
+            LEFT JOIN quiz_answers a ON a.question_id = qq.id
+            WHERE m.course_id = ?
+            ORDER BY m.module_order, m.id, qq.id, a.id
+            """;
+
+    private static final String INSERT_COURSE_SQL = """
+            INSERT INTO courses (title, description, instructor_id, category, status, created_at, version)
+            VALUES (?, ?, ?, ?, ?, now(), 0)
+            RETURNING id
+            """;
+
+    private static final String INSERT_MODULE_SQL = """
+            INSERT INTO modules (id, title, type, coins_required, module_order, version, content_version, course_id)
+            VALUES (?, ?, ?, ?, ?, 0, 0, ?)
+            """;
+
+    private static final String INSERT_QUIZ_SQL = "INSERT INTO quizzes (id, title, module_id) VALUES (?, ?, ?)";
+
+    private static final String INSERT_QUESTION_SQL = "INSERT INTO quiz_questions (id, question_text, quiz_id) VALUES (?, ?, ?)";
+
+    private static final String INSERT_ANSWER_SQL = "INSERT INTO quiz_answers (answer_text, correct, question_id) VALUES (?, ?, ?)";
+
+    // IDs are drawn up front so a whole level can be batch inserted without reading generated keys back
+    private static final String NEXT_IDS_SQL = "SELECT nextval(pg_get_serial_sequence(?, 'id')) FROM generate_series(1, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${course.archive.import-batch-size:100}")
+    private int importBatchSize;
+
+    /**
+     * Fail fast before the response starts streaming if the course cannot be exported by the user
+     * @param courseId The ID of the course to export
+     * @param userId The ID of the requesting user, who must be the course's instructor
+     */
+    @Transactional(readOnly = true)
+    public void verifyCanExport(Long courseId, String userId) {
+        requireInstructor(courseId, userId, "export");
+    }
+
+    /**
+     * Write a course with its modules, quizzes, questions and answers as a course archive document.
+     * The caller owns the stream and closes it.
+     * @param courseId The ID of the course to export
+     * @param output Where the document is written
+     */
+    @Transactional(readOnly = true)
+    public void exportCourse(Long courseId, OutputStream output) throws IOException {
+        CourseDTO course = courseRepository.findDTOById(courseId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found"));
+
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartObject();
+        generator.writeNumberField("formatVersion", CourseArchiveDTO.FORMAT_VERSION);
+        generator.writeStringField("title", course.getTitle());
+        generator.writeStringField("description", course.getDescription());
+        generator.writeStringField("category", course.getCategory());
+        generator.writeArrayFieldStart("modules");
+
+        ArchiveWriter writer = new ArchiveWriter(generator);
+        try {
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(EXPORT_SQL);
+                ps.setFetchSize(Integer.parseInt(ExportHints.FETCH_SIZE));
+                ps.setLong(1, courseId);
+                return ps;
+            }, writer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.flush();
+        logger.info("Exported courseId={} with {} modules", courseId, writer.modules);
+    }
+
+    /**
+     * Create a DRAFT course owned by the requesting user from a course archive document
+     * @param input The document, with the course fields before its modules
+     * @param instructorId The ID of the requesting user, who becomes the course's instructor
+     * @return The created course
+     */
+    @Transactional
+    public CourseDTO importCourse(InputStream input, String instructorId) throws IOException {
+        CourseArchiveDTO course = new CourseArchiveDTO();
+        Long courseId = null;
+        int moduleCount = 0;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Course archive must be a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "formatVersion" -> course.setFormatVersion(parser.getValueAsInt());
+                    case "title" -> course.setTitle(parser.getValueAsString());
+                    case "description" -> course.setDescription(parser.getValueAsString());
+                    case "category" -> course.setCategory(parser.getValueAsString());
+                    case "modules" -> {
+                        if (value != JsonToken.START_ARRAY) {
+                            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "modules must be an array");
+                        }
+                        courseId = insertCourse(course, instructorId);
+                        moduleCount = importModules(parser, courseId);
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid course archive: " + e.getOriginalMessage());
+        }
+
+        if (courseId == null) {
+            courseId = insertCourse(course, instructorId);
+        }
+        logger.info("Imported courseId={} with {} modules for instructorId={}", courseId, moduleCount, instructorId);
+        return courseRepository.findDTOById(courseId).orElseThrow();
+    }
+
+    /**
+     * Copy a course with its modules, quizzes, questions and answers as a new DRAFT course.
+     * The copy is made by the database; content files and the thumbnail are shared with the original.
+     * @param courseId The ID of the course to copy
+     * @param userId The ID of the requesting user, who must be the course's instructor
+     * @param title The title of the copy, or null for "Copy of" the original title
+     * @return The created course
+     */
+    @Transactional
+    public CourseDTO cloneCourse(Long courseId, String userId, String title) {
+        requireInstructor(courseId, userId, "clone");
+        if (title != null && title.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Course title cannot be empty");
+        }
+
+        Long cloneId = courseRepository.cloneCourseTree(courseId, userId, title)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found"));
+        logger.info("Cloned courseId={} as courseId={} for instructorId={}", courseId, cloneId, userId);
+        return courseRepository.findDTOById(cloneId).orElseThrow();
+    }
+
+    private void requireInstructor(Long courseId, String userId, String action) {
+        CourseDTO course = courseRepository.findDTOById(courseId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found"));
+        if (userId == null || !userId.equals(course.getInstructorId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    "Only the instructor of the course can " + action + " it");
+        }
+    }
+
+    private Long insertCourse(CourseArchiveDTO course, String instructorId) {
+        if (course.getFormatVersion() != null && course.getFormatVersion() != CourseArchiveDTO.FORMAT_VERSION) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unsupported course archive format version: " + course.getFormatVersion());
+        }
+        if (course.getTitle() == null || course.getTitle().isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Course title is required and must come before the modules");
+        }
+        return jdbcTemplate.queryForObject(INSERT_COURSE_SQL, Long.class,
+                course.getTitle(), course.getDescription(), instructorId, course.getCategory(), CourseStatus.DRAFT.name());
+    }
+
+    private int importModules(JsonParser parser, Long courseId) throws IOException {
+        List<CourseArchiveDTO.Module> batch = new ArrayList<>();
+        int imported = 0;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            batch.add(objectMapper.readValue(parser, CourseArchiveDTO.Module.class));
+            if (batch.size() >= importBatchSize) {
+                imported += insertModules(courseId, batch, imported);
+                batch.clear();
+            }
+        }
+        if (parser.currentToken() != JsonToken.END_ARRAY) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "modules must be an array of objects");
+        }
+        imported += insertModules(courseId, batch, imported);
+        return imported;
+    }
+
+    /**
+     * Insert a batch of modules with their quizzes, one batched statement per table
+     * @param offset The number of modules of the course already inserted, for their order
+     * @return The number of modules inserted
+     */
+    private int insertModules(Long courseId, List<CourseArchiveDTO.Module> modules, int offset) {
+        if (modules.isEmpty()) {
+            return 0;
+        }
+        modules.forEach(this::validateModule);
+
+        List<Long> moduleIds = nextIds("modules", modules.size());
+        List<Object[]> moduleRows = new ArrayList<>();
+        List<Object[]> quizRows = new ArrayList<>();
+        List<CourseArchiveDTO.Quiz> quizzes = new ArrayList<>();
+        for (int i = 0; i < modules.size(); i++) {
+            CourseArchiveDTO.Module module = modules.get(i);
+            moduleRows.add(new Object[]{moduleIds.get(i), module.getTitle(), module.getType().name(),
+                    module.getCoinsRequired(), (offset + i + 1) * ModuleService.MODULE_ORDER_GAP, courseId});
+            if (module.getQuiz() != null) {
+                quizzes.add(module.getQuiz());
+                quizRows.add(new Object[]{null, module.getQuiz().getTitle(), moduleIds.get(i)});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_MODULE_SQL, moduleRows);
+
+        if (!quizzes.isEmpty()) {
+            List<Long> quizIds = nextIds("quizzes", quizzes.size());
+            List<Object[]> questionRows = new ArrayList<>();
+            List<CourseArchiveDTO.Question> questions = new ArrayList<>();
+            for (int i = 0; i < quizzes.size(); i++) {
+                quizRows.get(i)[0] = quizIds.get(i);
+                for (CourseArchiveDTO.Question question : quizzes.get(i).getQuestions()) {
+                    questions.add(question);
+                    questionRows.add(new Object[]{null, question.getQuestionText(), quizIds.get(i)});
+                }
+            }
+            jdbcTemplate.batchUpdate(INSERT_QUIZ_SQL, quizRows);
+
+            if (!questions.isEmpty()) {
+                List<Long> questionIds = nextIds("quiz_questions", questions.size());
+                List<Object[]> answerRows = new ArrayList<>();
+                for (int i = 0; i < questions.size(); i++) {
+                    questionRows.get(i)[0] = questionIds.get(i);
+                    for (CourseArchiveDTO.Answer answer : questions.get(i).getAnswers()) {
+                        answerRows.add(new Object[]{answer.getAnswerText(), answer.isCorrect(), questionIds.get(i)});
+                    }
+                }
+                jdbcTemplate.batchUpdate(INSERT_QUESTION_SQL, questionRows);
+                if (!answerRows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_ANSWER_SQL, answerRows);
+                }
+            }
+        }
+
+        logger.debug("Imported batch of {} modules into courseId={}", modules.size(), courseId);
+        return modules.size();
+    }
+
+    private void validateModule(CourseArchiveDTO.Module module) {
+        if (module.getTitle() == null || module.getTitle().isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Module title is required");
+        }
+        if (module.getType() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Module type is required");
+        }
+        if (module.getCoinsRequired() < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Coins required cannot be negative");
+        }
+        if (module.getQuiz() == null) {
+            return;
+        }
+        if (module.getQuiz().getQuestions() == null) {
+            module.getQuiz().setQuestions(List.of());
+        }
+        for (CourseArchiveDTO.Question question : module.getQuiz().getQuestions()) {
+            if (question.getQuestionText() == null || question.getQuestionText().isBlank()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Question text cannot be null or empty");
+            }
+            if (question.getAnswers() == null) {
+                question.setAnswers(List.of());
+            }
+            for (CourseArchiveDTO.Answer answer : question.getAnswers()) {
+                if (answer.getAnswerText() == null || answer.getAnswerText().isBlank()) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Answer text cannot be null or empty");
+                }
+            }
+        }
+    }
+
+    private List<Long> nextIds(String table, int count) {
+        return jdbcTemplate.queryForList(NEXT_IDS_SQL, Long.class, table, count);
+    }
+
+    /**
+     * Turns the rows of EXPORT_SQL into nested modules, opening and closing objects whenever the
+     * module or question changes
+     */
+    private static final class ArchiveWriter implements RowCallbackHandler {
+
+        private final JsonGenerator generator;
+        private Long moduleId;
+        private Long questionId;
+        private boolean quizOpen;
+        private int modules;
+
+        private ArchiveWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                long rowModuleId = rs.getLong("module_id");
+                if (!Objects.equals(moduleId, rowModuleId)) {
+                    finish();
+                    startModule(rs, rowModuleId);
+                }
+
+                long rowQuestionId = rs.getLong("question_id");
+                if (!rs.wasNull() && !Objects.equals(questionId, rowQuestionId)) {
+                    endQuestion();
+                    questionId = rowQuestionId;
+                    generator.writeStartObject();
+                    generator.writeStringField("questionText", rs.getString("question_text"));
+                    generator.writeArrayFieldStart("answers");
+                }
+
+                rs.getLong("answer_id");
+                if (!rs.wasNull()) {
+                    generator.writeStartObject();
+                    generator.writeStringField("answerText", rs.getString("answer_text"));
+                    generator.writeBooleanField("correct", rs.getBoolean("correct"));
+                    generator.writeEndObject();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void startModule(ResultSet rs, long rowModuleId) throws SQLException, IOException {
+            moduleId = rowModuleId;
+            modules++;
+            generator.writeStartObject();
+            generator.writeStringField("title", rs.getString("module_title"));
+            generator.writeStringField("type", rs.getString("type"));
+            generator.writeNumberField("coinsRequired", rs.getInt("coins_required"));
+
+            rs.getLong("quiz_id");
+            if (!rs.wasNull()) {
+                quizOpen = true;
+                generator.writeObjectFieldStart("quiz");
+                generator.writeStringField("title", rs.getString("quiz_title"));
+                generator.writeArrayFieldStart("questions");
+            }
+        }
+
+        private void endQuestion() throws IOException {
+            if (questionId != null) {
+                generator.writeEndArray();
+                generator.writeEndObject();
+                questionId = null;
+            }
+        }
+
+        /**
+         * Close the open module, if any
+         */
+        void finish() throws IOException {
+            if (moduleId == null) {
+                return;
+            }
+            endQuestion();
+            if (quizOpen) {
+                generator.writeEndArray();
+                generator.writeEndObject();
+                quizOpen = false;
+            }
+            generator.writeEndObject();
+            moduleId = null;
+        }
+    }
+}
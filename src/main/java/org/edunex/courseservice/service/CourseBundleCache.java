@@ -0,0 +1,65 @@
+package org.edunex.courseservice.service;
+
+import org.edunex.courseservice.dto.ModuleDTO;
+import org.edunex.courseservice.dto.QuizDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory copy of the user independent part of course bundles (modules and quizzes), keyed by course
+ * and tagged with the course version it was read at. Any change to a module or quiz bumps the course
+ * version, so an entry is used only while its version is current and needs no invalidation.
+ * Courses are evicted least recently used first.
+ */
+@Service
+public class CourseBundleCache {
+
+    @Value("${course.bundle.cache.max-courses:200}")
+    private int maxCourses;
+
+    // Access ordered so the eldest entry is the least recently used one
+    private final Map<Long, CourseContent> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CourseContent> eldest) {
+            return size() > maxCourses;
+        }
+    };
+
+    /**
+     * The modules and quizzes of a course at one version. Shared between requests, so never modified.
+     *
+     * @param version The course version the content was read at
+     * @param modules The modules, in order
+     * @param contentVersions The course version each module last changed at, by module ID
+     * @param quizzes The quizzes with their questions and answers
+     */
+    public record CourseContent(long version, List<ModuleDTO> modules, Map<Long, Long> contentVersions, List<QuizDTO> quizzes) {
+    }
+
+    /**
+     * Get the cached content of a course
+     * @param courseId The ID of the course
+     * @param version The current version of the course
+     * @return The content, or null if it is not cached at that version
+     */
+    public CourseContent get(Long courseId, long version) {
+        synchronized (entries) {
+            CourseContent content = entries.get(courseId);
+            return content != null && content.version() == version ? content : null;
+        }
+    }
+
+    public void put(Long courseId, CourseContent content) {
+        synchronized (entries) {
+            CourseContent cached = entries.get(courseId);
+            // A slower load of an older version must not replace a newer one
+            if (cached == null || cached.version() <= content.version()) {
+                entries.put(courseId, content);
+            }
+        }
+    }
+}
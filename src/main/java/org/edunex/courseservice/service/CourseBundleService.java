@@ -0,0 +1,161 @@
+package org.edunex.courseservice.service;
+
+import org.edunex.courseservice.dto.CourseBundleDTO;
+import org.edunex.courseservice.dto.CourseDTO;
+import org.edunex.courseservice.dto.ModuleDTO;
+import org.edunex.courseservice.dto.ProgressDTO;
+import org.edunex.courseservice.dto.QuizAnswerDTO;
+import org.edunex.courseservice.dto.QuizDTO;
+import org.edunex.courseservice.dto.QuizQuestionDTO;
+import org.edunex.courseservice.model.CourseStatus;
+import org.edunex.courseservice.repository.CourseRepository;
+import org.edunex.courseservice.repository.CourseVersion;
+import org.edunex.courseservice.repository.ModuleContentVersion;
+import org.edunex.courseservice.repository.ModuleRepository;
+import org.edunex.courseservice.repository.ProgressRepository;
+import org.edunex.courseservice.repository.QuizAnswerRepository;
+import org.edunex.courseservice.repository.QuizQuestionRepository;
+import org.edunex.courseservice.repository.QuizRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Assembles course bundles for offline and mobile clients. The modules and quizzes of a course are read
+ * with a fixed number of queries however many modules it has, and cached per course version.
+ */
+@Service
+public class CourseBundleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseBundleService.class);
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private QuizQuestionRepository quizQuestionRepository;
+
+    @Autowired
+    private QuizAnswerRepository quizAnswerRepository;
+
+    @Autowired
+    private ProgressRepository progressRepository;
+
+    @Autowired
+    private ModuleService moduleService;
+
+    @Autowired
+    private EnrollmentCache enrollmentCache;
+
+    @Autowired
+    private CourseBundleCache courseBundleCache;
+
+    /**
+     * Compute the ETag of a course bundle for a user without assembling it
+     * @param courseId The course ID
+     * @param userId The ID of the requesting user, or null
+     * @param since The version the client already has, or null for a full bundle
+     * @return The ETag, or null if the course does not exist
+     */
+    @Transactional(readOnly = true)
+    public String getBundleETag(Long courseId, String userId, Long since) {
+        String representation = "bundle-" + (since != null ? since : "full")
+                + (enrollmentCache.isEnrolled(userId, courseId) ? "-enrolled" : "");
+        return courseRepository.findVersionById(courseId, userId)
+                .map(version -> version.toETag(representation))
+                .orElse(null);
+    }
+
+    /**
+     * Get a course with its modules, quizzes and the user's progress. Draft courses are only
+     * available to their instructor. Runs in one snapshot so the content matches the version returned.
+     * @param courseId The course ID
+     * @param userId The ID of the requesting user, or null
+     * @param since Only include modules that changed after this version, or null for all of them
+     * @return The course bundle
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public CourseBundleDTO getCourseBundle(Long courseId, String userId, Long since) {
+        CourseDTO course = courseService.getCourseById(courseId, userId, false, CourseStatus.PUBLISHED);
+        CourseVersion version = courseRepository.findVersionById(courseId, userId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found"));
+
+        CourseBundleCache.CourseContent content = courseBundleCache.get(courseId, version.version());
+        if (content == null) {
+            content = loadContent(courseId, version.version());
+            courseBundleCache.put(courseId, content);
+        }
+
+        // A version the course has not reached yet cannot be diffed against, so the client gets everything
+        boolean delta = since != null && since <= version.version();
+        List<ModuleDTO> modules = content.modules();
+        List<QuizDTO> quizzes = content.quizzes();
+        if (delta) {
+            Map<Long, Long> contentVersions = content.contentVersions();
+            modules = modules.stream()
+                    .filter(module -> contentVersions.getOrDefault(module.getId(), 0L) > since)
+                    .collect(Collectors.toList());
+            Set<Long> changedModuleIds = modules.stream().map(ModuleDTO::getId).collect(Collectors.toSet());
+            quizzes = quizzes.stream()
+                    .filter(quiz -> changedModuleIds.contains(quiz.getModuleId()))
+                    .collect(Collectors.toList());
+        }
+
+        List<Long> moduleIds = content.modules().stream().map(ModuleDTO::getId).collect(Collectors.toList());
+        List<ProgressDTO> progress = userId != null
+                ? progressRepository.findDTOsByUserIdAndCourseId(userId, courseId)
+                : List.of();
+
+        return new CourseBundleDTO(version.version(), delta ? since : null, course, moduleIds, modules, quizzes, progress);
+    }
+
+    private CourseBundleCache.CourseContent loadContent(Long courseId, long version) {
+        List<ModuleDTO> modules = moduleService.completeModuleDTOs(
+                moduleRepository.findDTOsByCourseIdOrderByModuleOrder(courseId), null);
+
+        Map<Long, Long> contentVersions = new HashMap<>();
+        for (ModuleContentVersion moduleVersion : moduleRepository.findContentVersionsByCourseId(courseId)) {
+            contentVersions.put(moduleVersion.moduleId(), moduleVersion.contentVersion());
+        }
+
+        // Questions and answers of the whole course are read in one query each and attached in memory
+        Map<Long, List<QuizAnswerDTO>> answersByQuestion = new HashMap<>();
+        for (QuizAnswerDTO answer : quizAnswerRepository.findDTOsByCourseId(courseId)) {
+            answersByQuestion.computeIfAbsent(answer.getQuestionId(), id -> new ArrayList<>()).add(answer);
+        }
+        Map<Long, List<QuizQuestionDTO>> questionsByQuiz = new HashMap<>();
+        for (QuizQuestionDTO question : quizQuestionRepository.findDTOsByCourseId(courseId)) {
+            question.setAnswers(answersByQuestion.getOrDefault(question.getId(), new ArrayList<>()));
+            questionsByQuiz.computeIfAbsent(question.getQuizId(), id -> new ArrayList<>()).add(question);
+        }
+        List<QuizDTO> quizzes = quizRepository.findDTOsByCourseId(courseId);
+        for (QuizDTO quiz : quizzes) {
+            quiz.setQuestions(questionsByQuiz.getOrDefault(quiz.getId(), new ArrayList<>()));
+        }
+
+        logger.debug("Loaded bundle content for courseId={} version={} modules={} quizzes={}",
+                courseId, version, modules.size(), quizzes.size());
+        return new CourseBundleCache.CourseContent(version, List.copyOf(modules), Map.copyOf(contentVersions), List.copyOf(quizzes));
+    }
+}
@@ -1,6 +1,7 @@
 package org.edunex.courseservice.service;
 
 import org.edunex.courseservice.dto.CourseDTO;
+import org.edunex.courseservice.dto.CourseSummaryDTO;
 import org.edunex.courseservice.model.Course;
 import org.edunex.courseservice.model.CourseStatus;
 import org.springframework.web.multipart.MultipartFile;
@@ -10,6 +11,8 @@ import java.util.List;
 public interface CourseService {
     List<CourseDTO> getAllCourses(String userId);
     List<CourseDTO> getAllCourses(String userId, CourseStatus status);
+    List<CourseSummaryDTO> getCourseSummaries(String userId, CourseStatus status);
+    String getCourseETag(Long id, String userId, boolean includeModules);
     CourseDTO getCourseById(Long id, String userId, boolean includeModules);
     CourseDTO getCourseById(Long id, String userId, boolean includeModules, CourseStatus requiredStatus);
     List<CourseDTO> getCoursesByInstructorId(String instructorId, String userId);
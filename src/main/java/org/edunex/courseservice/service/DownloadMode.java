@@ -0,0 +1,11 @@
+package org.edunex.courseservice.service;
+
+/**
+ * How file and module content downloads are served, set with s3.download.mode
+ */
+public enum DownloadMode {
+    /** Stream the object from S3 through this service */
+    PROXY,
+    /** Answer with a 302 to a short-lived presigned S3 URL, so the client downloads from S3 directly */
+    REDIRECT
+}
@@ -0,0 +1,125 @@
+package org.edunex.courseservice.service;
+
+import org.edunex.courseservice.repository.EnrollmentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory set of the course IDs each user is enrolled in, so "is enrolled" checks on list pages
+ * are a binary search instead of one query per course. Users are evicted least recently used first,
+ * and entries expire after a TTL to bound staleness from writes made by other instances.
+ */
+@Service
+public class EnrollmentCache {
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Value("${enrollment.cache.max-users:10000}")
+    private int maxUsers;
+
+    @Value("${enrollment.cache.ttl:5m}")
+    private Duration ttl;
+
+    // Access ordered so the eldest entry is the least recently used one
+    private final Map<String, CachedCourseIds> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedCourseIds> eldest) {
+            return size() > maxUsers;
+        }
+    };
+
+    // A marker per user whose enrollments are being loaded. Invalidating the user removes it, so a load
+    // that raced with a write to that user does not cache the old set; loads of other users are unaffected
+    private final Map<String, Object> loads = new HashMap<>();
+
+    private record CachedCourseIds(long[] courseIds, long expiresAt) {
+    }
+
+    /**
+     * Check whether a user is enrolled in a course
+     * @param userId The ID of the user
+     * @param courseId The ID of the course
+     * @return true if the user is enrolled in the course
+     */
+    public boolean isEnrolled(String userId, Long courseId) {
+        if (userId == null || courseId == null) {
+            return false;
+        }
+        return Arrays.binarySearch(getCourseIds(userId), courseId) >= 0;
+    }
+
+    /**
+     * Drop the cached enrollments of a user. When called inside a transaction the entry is dropped
+     * again after commit, so a concurrent read cannot re-cache the pre-commit state.
+     * @param userId The ID of the user whose enrollments changed
+     */
+    public void invalidate(String userId) {
+        if (userId == null) {
+            return;
+        }
+        evict(userId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(userId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Drop every cached entry, e.g. after a course and its enrollments were deleted
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            loads.clear();
+        }
+    }
+
+    private long[] getCourseIds(String userId) {
+        long now = System.nanoTime();
+        Object load = new Object();
+        synchronized (entries) {
+            CachedCourseIds cached = entries.get(userId);
+            if (cached != null && cached.expiresAt() - now > 0) {
+                return cached.courseIds();
+            }
+            loads.put(userId, load);
+        }
+
+        long[] courseIds = null;
+        try {
+            List<Long> loaded = enrollmentRepository.findCourseIdsByUserId(userId);
+            courseIds = loaded.stream().mapToLong(Long::longValue).sorted().toArray();
+            return courseIds;
+        } finally {
+            synchronized (entries) {
+                // The marker is gone if the user was invalidated, or replaced if another load started since
+                if (loads.remove(userId, load) && courseIds != null) {
+                    entries.put(userId, new CachedCourseIds(courseIds, now + ttl.toNanos()));
+                }
+            }
+        }
+    }
+
+    private void evict(String userId) {
+        synchronized (entries) {
+            entries.remove(userId);
+            loads.remove(userId);
+        }
+    }
+}
@@ -1,19 +1,21 @@
 package org.edunex.courseservice.service;
 
 import org.edunex.courseservice.dto.EnrollmentDTO;
-import org.edunex.courseservice.model.Course;
+import org.edunex.courseservice.dto.SliceDTO;
 import org.edunex.courseservice.model.Enrollment;
 import org.edunex.courseservice.repository.CourseRepository;
 import org.edunex.courseservice.repository.EnrollmentRepository;
-import org.edunex.courseservice.repository.ProgressRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.time.LocalDateTime;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public class EnrollmentService {
@@ -25,31 +27,50 @@ public class EnrollmentService {
     private CourseRepository courseRepository;
 
     @Autowired
-    private ProgressRepository progressRepository;
+    private EnrollmentCache enrollmentCache;
 
-    public List<EnrollmentDTO> getAllEnrollments() {
-        List<Enrollment> enrollments = enrollmentRepository.findAll();
-        return mapToEnrollmentDTOs(enrollments);
+    @Autowired
+    private ExportService exportService;
+
+    /**
+     * A page of all enrollments, in ID order
+     */
+    @Transactional(readOnly = true)
+    public SliceDTO<EnrollmentDTO> getAllEnrollments(int page, int size) {
+        return SliceDTO.of(enrollmentRepository.findAllDTOs(Paging.pageRequest(page, size)));
+    }
+
+    /**
+     * Export all enrollments, each with the user's completed and total module counts for the course
+     * @param format The output format
+     * @param output The response body the enrollments are written to
+     */
+    @Transactional(readOnly = true)
+    public void exportAllEnrollments(ExportFormat format, OutputStream output) throws IOException {
+        try (Stream<EnrollmentDTO> enrollments = enrollmentRepository.streamAllDTOs()) {
+            exportService.write(enrollments, format, output);
+        }
     }
 
+    @Transactional(readOnly = true)
     public EnrollmentDTO getEnrollmentById(Long id) {
-        Enrollment enrollment = enrollmentRepository.findById(id)
+        return enrollmentRepository.findDTOById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Enrollment not found"));
-        return mapToEnrollmentDTO(enrollment);
     }
 
+    @Transactional(readOnly = true)
     public List<EnrollmentDTO> getEnrollmentsByUserId(String userId) {
-        List<Enrollment> enrollments = enrollmentRepository.findByUserId(userId);
-        return mapToEnrollmentDTOs(enrollments);
+        return enrollmentRepository.findDTOsByUserId(userId);
     }
 
+    @Transactional(readOnly = true)
     public List<EnrollmentDTO> getEnrollmentsByCourseId(Long courseId) {
-        List<Enrollment> enrollments = enrollmentRepository.findByCourseId(courseId);
-        return mapToEnrollmentDTOs(enrollments);
+        return enrollmentRepository.findDTOsByCourseId(courseId);
     }
 
+    @Transactional(readOnly = true)
     public boolean checkEnrollment(String userId, Long courseId) {
-        return enrollmentRepository.existsByUserIdAndCourseId(userId, courseId);
+        return enrollmentCache.isEnrolled(userId, courseId);
     }
 
     /**
@@ -59,21 +80,41 @@ public class EnrollmentService {
      * @param courseId The ID of the course to enroll in
      * @return The created enrollment details
      */
+    @Transactional
     public EnrollmentDTO createEnrollment(String userId, Long courseId) {
-        if (enrollmentRepository.existsByUserIdAndCourseId(userId, courseId)) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "User already enrolled in this course");
-        }
+        return createEnrollment(userId, courseId, null);
+    }
 
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found"));
+    /**
+     * Create an enrollment for the specified user and course in a single insert.
+     * The unique (user_id, course_id) constraint makes concurrent duplicate requests safe: only one inserts,
+     * the others fall through to the lookup below. A retry carrying the same idempotency key as the
+     * request that created the enrollment gets that enrollment back instead of a conflict.
+     *
+     * @param userId The ID of the user enrolling in the course
+     * @param courseId The ID of the course to enroll in
+     * @param idempotencyKey Optional client supplied key identifying the enrollment request
+     * @return The created (or replayed) enrollment details
+     */
+    @Transactional
+    public EnrollmentDTO createEnrollment(String userId, Long courseId, String idempotencyKey) {
+        Optional<EnrollmentDTO> inserted = enrollmentRepository.insertIfAbsent(userId, courseId, idempotencyKey);
+        if (inserted.isPresent()) {
+            enrollmentCache.invalidate(userId);
+            return inserted.get();
+        }
 
-        Enrollment enrollment = new Enrollment();
-        enrollment.setUserId(userId);
-        enrollment.setCourse(course);
-        enrollment.setEnrolledAt(LocalDateTime.now());
+        // Nothing was inserted: the user is already enrolled or the course does not exist
+        Enrollment existing = enrollmentRepository.findByUserIdAndCourseId(userId, courseId)
+                .orElseThrow(() -> courseRepository.existsById(courseId)
+                        ? new ResponseStatusException(HttpStatus.CONFLICT, "Enrollment was modified concurrently, please retry")
+                        : new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found"));
 
-        Enrollment savedEnrollment = enrollmentRepository.save(enrollment);
-        return mapToEnrollmentDTO(savedEnrollment);
+        if (idempotencyKey != null && idempotencyKey.equals(existing.getIdempotencyKey())) {
+            return enrollmentRepository.findDTOById(existing.getId())
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.CONFLICT, "Enrollment was modified concurrently, please retry"));
+        }
+        throw new ResponseStatusException(HttpStatus.CONFLICT, "User already enrolled in this course");
     }
     
     /**
@@ -83,50 +124,24 @@ public class EnrollmentService {
      * @return The created enrollment details
      */
     @Deprecated
+    @Transactional
     public EnrollmentDTO createEnrollment(EnrollmentDTO enrollmentDTO) {
         return createEnrollment(enrollmentDTO.getUserId(), enrollmentDTO.getCourseId());
     }
 
+    @Transactional
     public void deleteEnrollment(Long id) {
-        if (!enrollmentRepository.existsById(id)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Enrollment not found");
-        }
-        enrollmentRepository.deleteById(id);
+        Enrollment enrollment = enrollmentRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Enrollment not found"));
+        enrollmentRepository.delete(enrollment);
+        enrollmentCache.invalidate(enrollment.getUserId());
     }
 
+    @Transactional
     public void unenrollUserFromCourse(String userId, Long courseId) {
         Enrollment enrollment = enrollmentRepository.findByUserIdAndCourseId(userId, courseId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User is not enrolled in this course"));
         enrollmentRepository.delete(enrollment);
-    }
-
-    private EnrollmentDTO mapToEnrollmentDTO(Enrollment enrollment) {
-        EnrollmentDTO dto = new EnrollmentDTO();
-        dto.setId(enrollment.getId());
-        dto.setUserId(enrollment.getUserId());
-        dto.setEnrolledAt(enrollment.getEnrolledAt());
-
-        if (enrollment.getCourse() != null) {
-            dto.setCourseId(enrollment.getCourse().getId());
-            dto.setCourseTitle(enrollment.getCourse().getTitle());
-
-            Long completedModules = progressRepository.countCompletedModulesByCourseAndUser(
-                    enrollment.getUserId(), enrollment.getCourse().getId());
-
-            Long totalModules = progressRepository.countModulesByCourse(enrollment.getCourse().getId());
-
-            double completionPercentage = totalModules > 0 ?
-                    (double) completedModules / totalModules * 100 : 0;
-
-            dto.setCompletionPercentage(completionPercentage);
-        }
-
-        return dto;
-    }
-
-    private List<EnrollmentDTO> mapToEnrollmentDTOs(List<Enrollment> enrollments) {
-        return enrollments.stream()
-                .map(this::mapToEnrollmentDTO)
-                .collect(Collectors.toList());
+        enrollmentCache.invalidate(userId);
     }
 }
@@ -0,0 +1,124 @@
+package org.edunex.courseservice.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes streamed rows as NDJSON or CSV. Rows are written as they are read from the database cursor,
+ * so an export runs in constant memory however large the table is.
+ */
+@Service
+public class ExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    // Rows between flushes, so the client sees progress without a flush per row
+    private static final int FLUSH_INTERVAL = 1000;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Build the response of an export endpoint
+     * @param name The base name of the downloaded file
+     * @param format The output format
+     * @param body Writes the rows to the response
+     * @return The streaming response
+     */
+    public ResponseEntity<StreamingResponseBody> toResponse(String name, ExportFormat format, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name + "." + format.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    /**
+     * Write rows to the output. The caller owns the stream and closes it.
+     * @param rows The rows to write
+     * @param format The output format
+     * @param output Where the rows are written
+     * @return The number of rows written
+     */
+    public <T> long write(Stream<T> rows, ExportFormat format, OutputStream output) throws IOException {
+        long startedAt = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        long count = 0;
+        List<String> columns = null;
+
+        Iterator<T> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            T row = iterator.next();
+            if (format == ExportFormat.NDJSON) {
+                writer.write(objectMapper.writeValueAsString(row));
+            } else {
+                JsonNode node = objectMapper.valueToTree(row);
+                if (columns == null) {
+                    columns = new ArrayList<>();
+                    node.fieldNames().forEachRemaining(columns::add);
+                    writeCsvLine(writer, columns);
+                    writer.write('\n');
+                }
+                List<String> values = new ArrayList<>(columns.size());
+                for (String column : columns) {
+                    values.add(csvValue(node.get(column)));
+                }
+                writeCsvLine(writer, values);
+            }
+            writer.write('\n');
+
+            if (++count % FLUSH_INTERVAL == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+
+        logger.info("Exported {} rows as {} in {} ms", count, format, (System.nanoTime() - startedAt) / 1_000_000);
+        return count;
+    }
+
+    private String csvValue(JsonNode value) throws IOException {
+        if (value == null || value.isNull()) {
+            return "";
+        }
+        // Nested objects and arrays are written as JSON inside the cell
+        return value.isValueNode() ? value.asText() : objectMapper.writeValueAsString(value);
+    }
+
+    private void writeCsvLine(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values.get(i);
+            if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+    }
+}
@@ -1,27 +1,37 @@
 package org.edunex.courseservice.service;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.edunex.courseservice.dto.FileDTO;
 import org.edunex.courseservice.dto.ModuleDTO;
+import org.edunex.courseservice.dto.ModuleSummaryDTO;
+import org.edunex.courseservice.dto.SliceDTO;
 import org.edunex.courseservice.model.Course;
 import org.edunex.courseservice.model.Module;
-import org.edunex.courseservice.model.Progress;
 import org.edunex.courseservice.model.enums.ModuleType;
 import org.edunex.courseservice.repository.CourseRepository;
 import org.edunex.courseservice.repository.ModuleRepository;
 import org.edunex.courseservice.repository.ProgressRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ModuleService {
@@ -38,54 +48,134 @@ public class ModuleService {
     @Autowired
     private S3Service s3Service;
 
+    @Autowired
+    private ContentObjectService contentObjectService;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     private static final Logger logger = LoggerFactory.getLogger(ModuleService.class);
 
-    public List<ModuleDTO> getAllModules() {
-        List<Module> modules = moduleRepository.findAll();
-        return mapToModuleDTOs(modules, null);
+    /**
+     * Spacing between the ordering keys of neighbouring modules. Leaving room between keys lets a move
+     * take the midpoint of its new neighbours and update only the moved row.
+     */
+    public static final int MODULE_ORDER_GAP = 1024;
+
+    /**
+     * A page of all modules, in ID order
+     */
+    @Transactional(readOnly = true)
+    public SliceDTO<ModuleDTO> getAllModules(int page, int size) {
+        Slice<ModuleDTO> modules = moduleRepository.findAllDTOs(Paging.pageRequest(page, size));
+        completeModuleDTOs(modules.getContent(), null);
+        return SliceDTO.of(modules);
+    }
+
+    /**
+     * Export all modules with their course and quiz IDs, each with a CloudFront URL for its content
+     * @param format The output format
+     * @param output The response body the modules are written to
+     */
+    @Transactional(readOnly = true)
+    public void exportAllModules(ExportFormat format, OutputStream output) throws IOException {
+        try (Stream<ModuleDTO> modules = moduleRepository.streamAllDTOs()) {
+            exportService.write(modules.map(this::addContentCloudFrontUrl), format, output);
+        }
     }
 
+    @Transactional(readOnly = true)
     public ModuleDTO getModuleById(Long id, String userId) {
-        Module module = moduleRepository.findById(id)
+        ModuleDTO dto = moduleRepository.findDTOById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Module not found"));
-        return mapToModuleDTO(module, userId);
+        return completeModuleDTOs(List.of(dto), userId).get(0);
     }
 
+    /**
+     * Compute the ETag of a course's module list for a user without loading the modules
+     * @param courseId The ID of the course
+     * @param userId The ID of the requesting user, or null
+     * @param summary Whether the response is the summary view
+     * @return The ETag, or null if the course does not exist
+     */
+    @Transactional(readOnly = true)
+    public String getModulesETag(Long courseId, String userId, boolean summary) {
+        return courseRepository.findVersionById(courseId, userId)
+                .map(version -> version.toETag(summary ? "modules-summary" : "modules"))
+                .orElse(null);
+    }
+
+    @Transactional(readOnly = true)
     public List<ModuleDTO> getModulesByCourseId(Long courseId, String userId) {
-        List<Module> modules = moduleRepository.findByCourseIdOrderByModuleOrder(courseId);
-        return mapToModuleDTOs(modules, userId);
+        return completeModuleDTOs(moduleRepository.findDTOsByCourseIdOrderByModuleOrder(courseId), userId);
+    }
+
+    /**
+     * Compact outline of a course's modules, read with one projection query plus one query for the user's progress
+     * @param courseId The ID of the course
+     * @param userId The ID of the requesting user, or null
+     * @return The module summaries in course order
+     */
+    @Transactional(readOnly = true)
+    public List<ModuleSummaryDTO> getModuleSummariesByCourseId(Long courseId, String userId) {
+        List<ModuleSummaryDTO> summaries = moduleRepository.findSummariesByCourseId(courseId);
+        if (userId != null && !summaries.isEmpty()) {
+            Set<Long> completedModuleIds = new HashSet<>(progressRepository.findCompletedModuleIdsByCourseAndUser(userId, courseId));
+            summaries.forEach(summary -> summary.setCompleted(completedModuleIds.contains(summary.getId())));
+        }
+        return summaries;
     }
 
+    @Transactional(readOnly = true)
     public List<ModuleDTO> getModulesByType(ModuleType type, String userId) {
-        List<Module> modules = moduleRepository.findByType(type);
-        return mapToModuleDTOs(modules, userId);
+        return completeModuleDTOs(moduleRepository.findDTOsByType(type), userId);
     }
 
+    @Transactional(readOnly = true)
     public List<ModuleDTO> getAvailableModulesByCourseIdAndCoins(Long courseId, int userCoins, String userId) {
-        List<Module> modules = moduleRepository.findByCourseIdAndCoinsRequiredLessThanEqual(courseId, userCoins);
-        return mapToModuleDTOs(modules, userId);
+        return completeModuleDTOs(moduleRepository.findDTOsByCourseIdAndCoinsRequiredLessThanEqual(courseId, userCoins), userId);
     }
 
+    @Transactional
     public ModuleDTO createModule(ModuleDTO moduleDTO) {
-        Course course = courseRepository.findById(moduleDTO.getCourseId())
+        // Without an explicit ordering key the module is appended after the last one, so the course is
+        // locked by the same query that loads it
+        boolean append = moduleDTO.getModuleOrder() <= 0;
+        Course course = (append
+                ? courseRepository.findByIdForUpdate(moduleDTO.getCourseId())
+                : courseRepository.findById(moduleDTO.getCourseId()))
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found"));
 
-        Module module = new Module();
-        module.setTitle(moduleDTO.getTitle());
-        module.setType(moduleDTO.getType());
-        module.setCoinsRequired(moduleDTO.getCoinsRequired());
-        module.setContentUrl(moduleDTO.getContentUrl());
-        module.setModuleOrder(moduleDTO.getModuleOrder());
-        module.setCourse(course);
+        int moduleOrder = append
+                ? moduleRepository.findMaxModuleOrderByCourseId(course.getId()) + MODULE_ORDER_GAP
+                : moduleDTO.getModuleOrder();
+
+        // Inserted with its course_id, as giving a module entity its course would load all of the course's modules
+        Long id = moduleRepository.insertModule(course.getId(), moduleDTO.getTitle(), moduleDTO.getType(),
+                moduleDTO.getCoinsRequired(), moduleDTO.getContentUrl(), moduleOrder);
+        contentObjectService.retain(moduleDTO.getContentUrl());
+        moduleRepository.touchContent(id);
 
-        Module savedModule = moduleRepository.save(module);
-        return mapToModuleDTO(savedModule, null);
+        ModuleDTO created = new ModuleDTO(id, moduleDTO.getTitle(), moduleDTO.getType(), moduleDTO.getCoinsRequired(),
+                moduleDTO.getContentUrl(), moduleOrder, course.getId(), course.getTitle(), null);
+        return addContentCloudFrontUrl(created);
     }
 
+    @Transactional
     public ModuleDTO updateModule(Long id, ModuleDTO moduleDTO) {
         Module module = moduleRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Module not found"));
 
+        // A module pointed at other content holds a reference on the new object instead of the old one
+        String previousContentUrl = module.getContentUrl();
+        if (!Objects.equals(previousContentUrl, moduleDTO.getContentUrl())) {
+            contentObjectService.retain(moduleDTO.getContentUrl());
+            contentObjectService.release(previousContentUrl);
+        }
+
         module.setTitle(moduleDTO.getTitle());
         module.setType(moduleDTO.getType());
         module.setCoinsRequired(moduleDTO.getCoinsRequired());
@@ -95,29 +185,97 @@ public class ModuleService {
         if (!module.getCourse().getId().equals(moduleDTO.getCourseId())) {
             Course newCourse = courseRepository.findById(moduleDTO.getCourseId())
                     .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found"));
+            courseRepository.incrementVersion(module.getCourse().getId());
             module.setCourse(newCourse);
         }
 
-        Module updatedModule = moduleRepository.save(module);
-        return mapToModuleDTO(updatedModule, null);
+        // touchContent runs through JDBC and finds the course by modules.course_id, so a move is flushed
+        // first for it to bump and stamp the new course; the old course was bumped above
+        Module updatedModule = moduleRepository.saveAndFlush(module);
+        moduleRepository.touchContent(updatedModule.getId());
+        return mapToModuleDTO(updatedModule);
     }
 
+    @Transactional
     public void deleteModule(Long id) {
-        if (!moduleRepository.existsById(id)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Module not found");
-        }
-        moduleRepository.deleteById(id);
+        Long courseId = moduleRepository.findCourseIdById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Module not found"));
+        moduleRepository.deleteModuleTree(id);
+        courseRepository.incrementVersion(courseId);
     }
 
-    public void reorderModule(Long id, int newOrder) {
+    /**
+     * Move a module to a new position within its course.
+     * The module gets the midpoint of its new neighbours' ordering keys, so only its row is updated.
+     * When the neighbours have no room left between them the whole course is respaced in one statement.
+     *
+     * @param id The ID of the module to move
+     * @param newPosition The 1-based position the module should end up at
+     */
+    @Transactional
+    public void reorderModule(Long id, int newPosition) {
         Module module = moduleRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Module not found"));
+        Long courseId = module.getCourse().getId();
+        courseRepository.findByIdForUpdate(courseId);
+
+        List<Module> siblings = new ArrayList<>(moduleRepository.findByCourseIdOrderByModuleOrder(courseId));
+        int currentIndex = -1;
+        for (int i = 0; i < siblings.size(); i++) {
+            if (siblings.get(i).getId().equals(id)) {
+                currentIndex = i;
+            }
+        }
+        siblings.removeIf(sibling -> sibling.getId().equals(id));
+
+        int index = Math.max(0, Math.min(newPosition - 1, siblings.size()));
+        if (index == currentIndex) {
+            return;
+        }
+
+        long lower = index > 0 ? siblings.get(index - 1).getModuleOrder() : 0;
+        long upper = index < siblings.size() ? siblings.get(index).getModuleOrder() : lower + 2L * MODULE_ORDER_GAP;
+        if (upper - lower > 1 && upper <= Integer.MAX_VALUE) {
+            module.setModuleOrder((int) ((lower + upper) / 2));
+            moduleRepository.save(module);
+            courseRepository.incrementVersion(courseId);
+            return;
+        }
+
+        siblings.add(index, module);
+        rebalanceModuleOrder(courseId, siblings.stream().map(Module::getId).collect(Collectors.toList()));
+    }
+
+    /**
+     * Replace the order of all modules of a course in a single batched update
+     *
+     * @param courseId The ID of the course
+     * @param moduleIds Every module ID of the course, in the new order
+     */
+    @Transactional
+    public void setModuleOrder(Long courseId, List<Long> moduleIds) {
+        courseRepository.findByIdForUpdate(courseId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found"));
+
+        List<Long> currentIds = moduleRepository.findIdsByCourseId(courseId);
+        if (moduleIds.size() != currentIds.size() || !new HashSet<>(moduleIds).equals(new HashSet<>(currentIds))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Module IDs must list every module of the course exactly once");
+        }
 
-        module.setModuleOrder(newOrder);
-        moduleRepository.save(module);
+        rebalanceModuleOrder(courseId, moduleIds);
     }
 
-    private ModuleDTO mapToModuleDTO(Module module, String userId) {
+    private void rebalanceModuleOrder(Long courseId, List<Long> orderedModuleIds) {
+        List<Integer> moduleOrders = new ArrayList<>(orderedModuleIds.size());
+        for (int i = 0; i < orderedModuleIds.size(); i++) {
+            moduleOrders.add((i + 1) * MODULE_ORDER_GAP);
+        }
+        int updated = moduleRepository.updateModuleOrders(courseId, orderedModuleIds, moduleOrders);
+        courseRepository.incrementVersion(courseId);
+        logger.info("Respaced module order for courseId={} modules={}", courseId, updated);
+    }
+
+    private ModuleDTO mapToModuleDTO(Module module) {
         logger.debug("mapToModuleDTO called for moduleId={}", module.getId());
         ModuleDTO dto = new ModuleDTO();
         dto.setId(module.getId());
@@ -145,25 +303,38 @@ public class ModuleService {
             }
         }
 
-        if (module.getQuiz() != null) {
-            dto.setQuizId(module.getQuiz().getId());
-        }
+        dto.setQuizId(module.getQuizId());
 
-        if (userId != null) {
-            Optional<Progress> progress = progressRepository.findByUserIdAndModuleId(userId, module.getId());
-            dto.setCompleted(progress.isPresent() && progress.get().isCompleted());
-            dto.setProgressPercentage(dto.isCompleted() ? 100.0 : 0.0);
-        }
-
-        logger.debug("mapToModuleDTO completed for moduleId={} completed={}", module.getId(), dto.isCompleted());
+        logger.debug("mapToModuleDTO completed for moduleId={}", module.getId());
 
         return dto;
     }
 
-    private List<ModuleDTO> mapToModuleDTOs(List<Module> modules, String userId) {
-        return modules.stream()
-                .map(module -> mapToModuleDTO(module, userId))
-                .collect(Collectors.toList());
+    /**
+     * Fill in the fields of projected module DTOs that are not columns: the CloudFront URL
+     * and, for a user, completion from a single progress query
+     */
+    List<ModuleDTO> completeModuleDTOs(List<ModuleDTO> dtos, String userId) {
+        Set<Long> completedModuleIds = userId != null && !dtos.isEmpty()
+                ? new HashSet<>(progressRepository.findCompletedModuleIdsByUserAndModuleIds(
+                        userId, dtos.stream().map(ModuleDTO::getId).collect(Collectors.toList())))
+                : Set.of();
+
+        for (ModuleDTO dto : dtos) {
+            addContentCloudFrontUrl(dto);
+            if (userId != null) {
+                dto.setCompleted(completedModuleIds.contains(dto.getId()));
+                dto.setProgressPercentage(dto.isCompleted() ? 100.0 : 0.0);
+            }
+        }
+        return dtos;
+    }
+
+    private ModuleDTO addContentCloudFrontUrl(ModuleDTO dto) {
+        if (dto.getContentUrl() != null && !dto.getContentUrl().isEmpty()) {
+            dto.setContentCloudFrontUrl(s3Service.getCloudFrontUrl(dto.getContentUrl()));
+        }
+        return dto;
     }
     
     /**
@@ -174,8 +345,9 @@ public class ModuleService {
      */
     public FileDTO uploadModuleContent(Long moduleId, MultipartFile file) {
         logger.debug("uploadModuleContent called for moduleId={} filename={} size={}", moduleId, file.getOriginalFilename(), file.getSize());
-        Module module = moduleRepository.findById(moduleId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Module not found"));
+        if (!moduleRepository.existsById(moduleId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Module not found");
+        }
         
         // Check if the file is acceptable (video or PDF)
         String contentType = file.getContentType();
@@ -184,28 +356,22 @@ public class ModuleService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, 
                     "Invalid file type. Only videos and PDFs are allowed.");
         }
-        
-        // If the module already has content, delete the old one
-        if (module.getContentUrl() != null && !module.getContentUrl().isEmpty()) {
-            s3Service.deleteFile(module.getContentUrl());
-        }
-        
-        // Upload the new file
-        String objectKey = s3Service.uploadFile(file, moduleId);
-        
-        // Update the module with the new content URL
-        module.setContentUrl(objectKey);
-        moduleRepository.save(module);
+
+        // Store the new file, or reuse the stored copy when the same file was uploaded before
+        String objectKey = contentObjectService.store(file);
         
         // Set the module type based on the content type
-        if (contentType.startsWith("video/")) {
-            module.setType(ModuleType.VIDEO);
-        } else if (contentType.equals("application/pdf")) {
-            module.setType(ModuleType.PDF);
+        ModuleType type = contentType.startsWith("video/") ? ModuleType.VIDEO : ModuleType.PDF;
+
+        // The module may have been deleted, or the swap may fail, after the new file took its reference
+        try {
+            replaceContent(moduleId, objectKey, type, true);
+        } catch (RuntimeException e) {
+            contentObjectService.release(objectKey);
+            throw e;
         }
-        moduleRepository.save(module);
 
-    logger.info("Uploaded module content moduleId={} objectKey={} contentType={}", moduleId, objectKey, file.getContentType());
+        logger.info("Uploaded module content moduleId={} objectKey={} contentType={}", moduleId, objectKey, file.getContentType());
         
         // Get CloudFront URL for this object
         String cloudFrontUrl = s3Service.getCloudFrontUrl(objectKey);
@@ -221,12 +387,31 @@ public class ModuleService {
         );
     }
     
+    /**
+     * Point a module at content already written to S3, e.g. by a completed resumable upload, and drop
+     * its reference on the previous content
+     * @param moduleId The ID of the module
+     * @param objectKey The S3 object key of the new content
+     * @param filename The original filename
+     * @param contentType A video or PDF content type
+     * @param size The size of the content in bytes
+     * @return The file DTO of the new content
+     */
+    public FileDTO attachContent(Long moduleId, String objectKey, String filename, String contentType, long size) {
+        ModuleType type = contentType.startsWith("video/") ? ModuleType.VIDEO : ModuleType.PDF;
+        replaceContent(moduleId, objectKey, type, false);
+
+        logger.info("Attached module content moduleId={} objectKey={} contentType={}", moduleId, objectKey, contentType);
+        return new FileDTO(moduleId, filename, contentType, objectKey, s3Service.getCloudFrontUrl(objectKey), size);
+    }
+
     /**
      * Download content for a module
      * @param moduleId The ID of the module
-     * @return ResponseEntity with the file content
+     * @param request The download request, for its Range header
+     * @return ResponseEntity with the file content, or a redirect to it in redirect download mode
      */
-    public ResponseEntity<InputStreamResource> downloadModuleContent(Long moduleId) {
+    public ResponseEntity<?> downloadModuleContent(Long moduleId, HttpServletRequest request) {
         logger.debug("downloadModuleContent called for moduleId={}", moduleId);
         Module module = moduleRepository.findById(moduleId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Module not found"));
@@ -235,14 +420,10 @@ public class ModuleService {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Module has no content");
         }
         
-        // Check if the file exists in S3
-        if (!s3Service.doesFileExist(module.getContentUrl())) {
-            logger.warn("File not found in S3 for moduleId={} key={}", moduleId, module.getContentUrl());
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "File not found in storage");
-        }
-        
+        // No existence check first: a missing file is a 404 from the S3 read, the cache fill or S3 itself
+        // after a redirect, and a cached file needs no request to S3 at all
         logger.info("Downloading module content for moduleId={} key={}", moduleId, module.getContentUrl());
-        return s3Service.downloadFile(module.getContentUrl());
+        return s3Service.serveFile(module.getContentUrl(), request);
     }
     
     /**
@@ -251,20 +432,35 @@ public class ModuleService {
      */
     public void deleteModuleContent(Long moduleId) {
         logger.debug("deleteModuleContent called for moduleId={}", moduleId);
-        Module module = moduleRepository.findById(moduleId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Module not found"));
-        
-        if (module.getContentUrl() == null || module.getContentUrl().isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Module has no content to delete");
-        }
-        
-        // Delete the file from S3
-        s3Service.deleteFile(module.getContentUrl());
+        String objectKey = replaceContent(moduleId, null, null, false);
 
-        logger.info("Deleted module content for moduleId={} key={}", moduleId, module.getContentUrl());
-        
-        // Update the module
-        module.setContentUrl(null);
-        moduleRepository.save(module);
+        logger.info("Deleted module content for moduleId={} key={}", moduleId, objectKey);
+    }
+
+    /**
+     * Point a module at other content and drop its reference on the previous content in one
+     * transaction, so concurrent changes to the module's content each release a different key
+     * @param moduleId The ID of the module
+     * @param objectKey The new S3 object key, or null to clear the content
+     * @param type The new module type, or null to keep it
+     * @param referenced Whether the caller took a reference on objectKey for the module, as store() does
+     * @return The object key the module pointed at before
+     */
+    private String replaceContent(Long moduleId, String objectKey, ModuleType type, boolean referenced) {
+        return transactionTemplate.execute(status -> {
+            String previousKey = moduleRepository.replaceContent(moduleId, objectKey, type)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Module not found"))
+                    .objectKey();
+            if (objectKey == null && (previousKey == null || previousKey.isEmpty())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Module has no content to delete");
+            }
+            moduleRepository.touchContent(moduleId);
+            // Uploading the same file again took a second reference on the key, which this drops; attaching
+            // the key the module already points at leaves its one reference alone
+            if (referenced || !Objects.equals(previousKey, objectKey)) {
+                contentObjectService.release(previousKey);
+            }
+            return previousKey;
+        });
     }
 }
@@ -0,0 +1,31 @@
+package org.edunex.courseservice.service;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Page size limits shared by the paginated list endpoints
+ */
+public final class Paging {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private Paging() {
+    }
+
+    /**
+     * Validate client supplied paging parameters
+     * @param page The zero-based page number
+     * @param size The page size, at most {@link #MAX_PAGE_SIZE}
+     * @return The page request, without sorting; queries define their own order
+     */
+    public static PageRequest pageRequest(int page, int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        return PageRequest.of(page, size);
+    }
+}
@@ -0,0 +1,188 @@
+package org.edunex.courseservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Creates and retires the monthly partitions of the time-partitioned tables (quiz_results by submitted_at,
+ * progress_events by occurred_at). Upcoming months are created ahead of time so inserts never land in
+ * the default partition; partitions older than the retention period are detached from the parent table.
+ * The results of a retired quiz_results partition are taken out of the quiz score aggregates in the same
+ * transaction, so stats and ranks keep describing the results that are still in the table.
+ * Tables that have not been converted to partitioned tables yet are skipped.
+ */
+@Service
+public class PartitionMaintenanceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionMaintenanceService.class);
+
+    public static final String QUIZ_RESULTS = "quiz_results";
+    public static final String PROGRESS_EVENTS = "progress_events";
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String IS_PARTITIONED_SQL = """
+            SELECT EXISTS (SELECT 1 FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid
+                           WHERE c.relname = ? AND pg_table_is_visible(c.oid))
+            """;
+
+    private static final String LIST_PARTITIONS_SQL = """
+            SELECT c.relname FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            JOIN pg_class p ON p.oid = i.inhparent
+            WHERE p.relname = ? AND pg_table_is_visible(p.oid)
+            """;
+
+    // Runs after the partition is detached, so quiz_results no longer holds its rows; the detach locks
+    // quiz_results until commit, so no result is submitted or deleted while the aggregates are adjusted.
+    // Each user with a retired result gets their best recomputed from the remaining results, and all
+    // changes are summed per bucket first so every bucket row is updated once. Scores are clamped into
+    // the histogram range as in backfill_quiz_score_stats.sql.
+    private static final String RETIRE_QUIZ_SCORES_SQL = """
+            WITH retired AS (
+                SELECT quiz_id, user_id, LEAST(GREATEST(score, 0), 100) AS score FROM %s
+            ),
+            changed AS (
+                SELECT * FROM (
+                    SELECT s.quiz_id, s.user_id, s.best_score AS old_best,
+                           (SELECT LEAST(GREATEST(MAX(r.score), 0), 100) FROM quiz_results r
+                            WHERE r.quiz_id = s.quiz_id AND r.user_id = s.user_id) AS new_best
+                    FROM quiz_best_scores s
+                    WHERE (s.quiz_id, s.user_id) IN (SELECT quiz_id, user_id FROM retired)
+                ) b
+                WHERE new_best IS DISTINCT FROM old_best
+            ),
+            removed AS (
+                DELETE FROM quiz_best_scores s USING changed c
+                WHERE s.quiz_id = c.quiz_id AND s.user_id = c.user_id AND c.new_best IS NULL
+            ),
+            lowered AS (
+                UPDATE quiz_best_scores s SET best_score = c.new_best FROM changed c
+                WHERE s.quiz_id = c.quiz_id AND s.user_id = c.user_id AND c.new_best IS NOT NULL
+            ),
+            deltas AS (
+                SELECT quiz_id, score, SUM(result_delta) AS result_delta, SUM(best_delta) AS best_delta
+                FROM (
+                    SELECT quiz_id, score, -1 AS result_delta, 0 AS best_delta FROM retired
+                    UNION ALL
+                    SELECT quiz_id, old_best, 0, -1 FROM changed
+                    UNION ALL
+                    SELECT quiz_id, new_best, 0, 1 FROM changed WHERE new_best IS NOT NULL
+                ) d
+                GROUP BY quiz_id, score
+            )
+            UPDATE quiz_score_buckets b
+            SET result_count = b.result_count + d.result_delta, best_count = b.best_count + d.best_delta
+            FROM deltas d
+            WHERE b.quiz_id = d.quiz_id AND b.score = d.score
+            """;
+
+    // Only one instance maintains a table at a time; the others skip the run
+    private static final String TRY_LOCK_SQL = "SELECT pg_try_advisory_xact_lock(hashtext(?))";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${partitioning.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${partitioning.quiz-results.retention-months:0}")
+    private int quizResultsRetentionMonths;
+
+    @Value("${partitioning.progress-events.retention-months:0}")
+    private int progressEventsRetentionMonths;
+
+    @Value("${partitioning.drop-detached:false}")
+    private boolean dropDetached;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        maintainPartitions();
+    }
+
+    @Scheduled(cron = "${partitioning.cron:0 15 3 * * *}")
+    public void maintainPartitions() {
+        YearMonth currentMonth = YearMonth.now();
+        maintain(QUIZ_RESULTS, quizResultsRetentionMonths, currentMonth);
+        maintain(PROGRESS_EVENTS, progressEventsRetentionMonths, currentMonth);
+    }
+
+    /**
+     * Create the partitions of a table up to monthsAhead months after the current one,
+     * and detach those that are older than the retention period
+     * @param table The partitioned parent table
+     * @param retentionMonths Months of partitions to keep before the current one, or 0 to keep all
+     * @param currentMonth The month to maintain the table for
+     */
+    void maintain(String table, int retentionMonths, YearMonth currentMonth) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_LOCK_SQL, Boolean.class, "partitions:" + table))) {
+                    logger.debug("Partition maintenance of {} is running elsewhere, skipping", table);
+                    return;
+                }
+                if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_PARTITIONED_SQL, Boolean.class, table))) {
+                    logger.info("Table {} is not partitioned, skipping partition maintenance", table);
+                    return;
+                }
+
+                for (int i = 0; i <= monthsAhead; i++) {
+                    createPartition(table, currentMonth.plusMonths(i));
+                }
+                if (retentionMonths > 0) {
+                    detachPartitionsBefore(table, currentMonth.minusMonths(retentionMonths));
+                }
+            });
+        } catch (DataAccessException e) {
+            logger.warn("Partition maintenance of {} failed", table, e);
+        }
+    }
+
+    static String partitionName(String table, YearMonth month) {
+        return table + "_p" + month.format(PARTITION_SUFFIX);
+    }
+
+    private void createPartition(String table, YearMonth month) {
+        // Table names are the constants above and bounds are generated dates, never request input
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(table, month)
+                + " PARTITION OF " + table
+                + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+    }
+
+    private void detachPartitionsBefore(String table, YearMonth oldestKept) {
+        String oldestKeptName = partitionName(table, oldestKept);
+        List<String> partitions = jdbcTemplate.queryForList(LIST_PARTITIONS_SQL, String.class, table);
+
+        for (String partition : partitions) {
+            // Monthly partitions sort by name; the default partition and other names are left alone
+            if (!partition.matches(table + "_p\\d{6}") || partition.compareTo(oldestKeptName) >= 0) {
+                continue;
+            }
+            jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition);
+            if (QUIZ_RESULTS.equals(table)) {
+                int buckets = jdbcTemplate.update(RETIRE_QUIZ_SCORES_SQL.formatted(partition));
+                logger.info("Removed the results of partition {} from {} quiz score buckets", partition, buckets);
+            }
+            if (dropDetached) {
+                jdbcTemplate.execute("DROP TABLE " + partition);
+            }
+            logger.info("Retired partition {} of {} ({})", partition, table, dropDetached ? "dropped" : "detached");
+        }
+    }
+}
@@ -1,20 +1,20 @@
 package org.edunex.courseservice.service;
 
 import org.edunex.courseservice.dto.ProgressDTO;
-import org.edunex.courseservice.model.Module;
-import org.edunex.courseservice.model.Progress;
-import org.edunex.courseservice.repository.ModuleRepository;
+import org.edunex.courseservice.dto.SliceDTO;
 import org.edunex.courseservice.repository.ProgressRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ProgressService {
@@ -23,41 +23,57 @@ public class ProgressService {
     private ProgressRepository progressRepository;
 
     @Autowired
-    private ModuleRepository moduleRepository;
+    private ExportService exportService;
+
+    /**
+     * A page of all progress records, in ID order
+     */
+    @Transactional(readOnly = true)
+    public SliceDTO<ProgressDTO> getAllProgress(int page, int size) {
+        return SliceDTO.of(progressRepository.findAllDTOs(Paging.pageRequest(page, size)));
+    }
 
-    public List<ProgressDTO> getAllProgress() {
-        List<Progress> progressList = progressRepository.findAll();
-        return mapToProgressDTOs(progressList);
+    /**
+     * Export the progress of every user on every module, with the module's title, type and course
+     * @param format The output format
+     * @param output The response body the progress records are written to
+     */
+    @Transactional(readOnly = true)
+    public void exportAllProgress(ExportFormat format, OutputStream output) throws IOException {
+        try (Stream<ProgressDTO> records = progressRepository.streamAllDTOs()) {
+            exportService.write(records, format, output);
+        }
     }
 
+    @Transactional(readOnly = true)
     public ProgressDTO getProgressById(Long id) {
-        Progress progress = progressRepository.findById(id)
+        return progressRepository.findDTOById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Progress record not found"));
-        return mapToProgressDTO(progress);
     }
 
+    @Transactional(readOnly = true)
     public List<ProgressDTO> getProgressByUserId(String userId) {
-        List<Progress> progressList = progressRepository.findByUserId(userId);
-        return mapToProgressDTOs(progressList);
+        return progressRepository.findDTOsByUserId(userId);
     }
 
+    @Transactional(readOnly = true)
     public List<ProgressDTO> getProgressByModuleId(Long moduleId) {
-        List<Progress> progressList = progressRepository.findByModuleId(moduleId);
-        return mapToProgressDTOs(progressList);
+        return progressRepository.findDTOsByModuleId(moduleId);
     }
 
+    @Transactional(readOnly = true)
     public ProgressDTO getProgressByUserIdAndModuleId(String userId, Long moduleId) {
-        Progress progress = progressRepository.findByUserIdAndModuleId(userId, moduleId)
+        return progressRepository.findDTOByUserIdAndModuleId(userId, moduleId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
                         "Progress record not found for this user and module"));
-        return mapToProgressDTO(progress);
     }
 
+    @Transactional(readOnly = true)
     public List<ProgressDTO> getProgressByUserIdAndCourseId(String userId, Long courseId) {
-        List<Progress> progressList = progressRepository.findByCourseIdAndUserId(userId, courseId);
-        return mapToProgressDTOs(progressList);
+        return progressRepository.findDTOsByUserIdAndCourseId(userId, courseId);
     }
 
+    @Transactional(readOnly = true)
     public Map<String, Object> getCourseProgressStats(String userId, Long courseId) {
         Long completedModules = progressRepository.countCompletedModulesByCourseAndUser(userId, courseId);
         Long totalModules = progressRepository.countModulesByCourse(courseId);
@@ -74,66 +90,24 @@ public class ProgressService {
         );
     }
 
+    @Transactional
     public ProgressDTO markModuleAsCompleted(String userId, Long moduleId) {
-        Module module = moduleRepository.findById(moduleId)
+        return progressRepository.upsertCompleted(userId, moduleId, LocalDateTime.now())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Module not found"));
-
-        Progress progress = progressRepository.findByUserIdAndModuleId(userId, moduleId)
-                .orElse(new Progress());
-
-        progress.setUserId(userId);
-        progress.setModule(module);
-        progress.setCompleted(true);
-        progress.setCompletedAt(LocalDateTime.now());
-
-        Progress savedProgress = progressRepository.save(progress);
-        return mapToProgressDTO(savedProgress);
     }
 
+    @Transactional
     public ProgressDTO resetModuleProgress(String userId, Long moduleId) {
-        Progress progress = progressRepository.findByUserIdAndModuleId(userId, moduleId)
+        return progressRepository.reset(userId, moduleId, LocalDateTime.now())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
                         "Progress record not found for this user and module"));
-
-        progress.setCompleted(false);
-        progress.setCompletedAt(null);
-
-        Progress savedProgress = progressRepository.save(progress);
-        return mapToProgressDTO(savedProgress);
     }
 
+    @Transactional
     public void deleteProgress(Long id) {
         if (!progressRepository.existsById(id)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Progress record not found");
         }
         progressRepository.deleteById(id);
     }
-
-    private ProgressDTO mapToProgressDTO(Progress progress) {
-        ProgressDTO dto = new ProgressDTO();
-        dto.setId(progress.getId());
-        dto.setUserId(progress.getUserId());
-        dto.setCompleted(progress.isCompleted());
-        dto.setCompletedAt(progress.getCompletedAt());
-
-        if (progress.getModule() != null) {
-            Module module = progress.getModule();
-            dto.setModuleId(module.getId());
-            dto.setModuleTitle(module.getTitle());
-            dto.setModuleType(module.getType());
-
-            if (module.getCourse() != null) {
-                dto.setCourseId(module.getCourse().getId());
-                dto.setCourseTitle(module.getCourse().getTitle());
-            }
-        }
-
-        return dto;
-    }
-
-    private List<ProgressDTO> mapToProgressDTOs(List<Progress> progressList) {
-        return progressList.stream()
-                .map(this::mapToProgressDTO)
-                .collect(Collectors.toList());
-    }
 }
@@ -1,17 +1,23 @@
 package org.edunex.courseservice.service;
 
 import org.edunex.courseservice.dto.QuizAnswerDTO;
+import org.edunex.courseservice.dto.SliceDTO;
 import org.edunex.courseservice.model.QuizAnswer;
-import org.edunex.courseservice.model.QuizQuestion;
+import org.edunex.courseservice.repository.ModuleRepository;
 import org.edunex.courseservice.repository.QuizAnswerRepository;
 import org.edunex.courseservice.repository.QuizQuestionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class QuizAnswerService {
@@ -22,66 +28,92 @@ public class QuizAnswerService {
     @Autowired
     private QuizQuestionRepository quizQuestionRepository;
 
-    public List<QuizAnswerDTO> getAllQuizAnswers() {
-        List<QuizAnswer> answers = quizAnswerRepository.findAll();
-        return mapToQuizAnswerDTOs(answers);
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    @Autowired
+    private ExportService exportService;
+
+    /**
+     * A page of all quiz answers, in ID order
+     */
+    @Transactional(readOnly = true)
+    public SliceDTO<QuizAnswerDTO> getAllQuizAnswers(int page, int size) {
+        return SliceDTO.of(quizAnswerRepository.findAllDTOs(Paging.pageRequest(page, size)));
+    }
+
+    /**
+     * Export all quiz answers, including which are correct, with the ID of their question
+     * @param format The output format
+     * @param output The response body the answers are written to
+     */
+    @Transactional(readOnly = true)
+    public void exportAllQuizAnswers(ExportFormat format, OutputStream output) throws IOException {
+        try (Stream<QuizAnswerDTO> quizAnswers = quizAnswerRepository.streamAllDTOs()) {
+            exportService.write(quizAnswers, format, output);
+        }
     }
 
+    @Transactional(readOnly = true)
     public QuizAnswerDTO getQuizAnswerById(Long id) {
         QuizAnswer answer = quizAnswerRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz answer not found"));
         return mapToQuizAnswerDTO(answer);
     }
 
+    @Transactional(readOnly = true)
     public List<QuizAnswerDTO> getQuizAnswersByQuestionId(Long questionId) {
         List<QuizAnswer> answers = quizAnswerRepository.findByQuestionId(questionId);
         return mapToQuizAnswerDTOs(answers);
     }
 
+    @Transactional(readOnly = true)
     public List<QuizAnswerDTO> getCorrectQuizAnswersByQuestionId(Long questionId) {
         List<QuizAnswer> answers = quizAnswerRepository.findByQuestionIdAndCorrect(questionId, true);
         return mapToQuizAnswerDTOs(answers);
     }
 
+    @Transactional
     public QuizAnswerDTO createQuizAnswer(QuizAnswerDTO answerDTO) {
         if (answerDTO.getAnswerText() == null || answerDTO.getAnswerText().trim().isEmpty()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Answer text cannot be null or empty");
         }
         
-        QuizQuestion question = quizQuestionRepository.findById(answerDTO.getQuestionId())
+        // Checks the question exists and finds the module to stamp. The answer is inserted with its
+        // question_id, as giving an answer entity its question would load the question and all of its answers
+        Long moduleId = quizQuestionRepository.findModuleIdById(answerDTO.getQuestionId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz question not found"));
 
-        QuizAnswer answer = new QuizAnswer();
-        answer.setAnswerText(answerDTO.getAnswerText());
-        answer.setCorrect(answerDTO.isCorrect()); // This will default to false for primitive boolean
-        answer.setQuestion(question);
-
-        QuizAnswer savedAnswer = quizAnswerRepository.save(answer);
-        return mapToQuizAnswerDTO(savedAnswer);
+        // isCorrect() defaults to false for the primitive boolean
+        Long id = quizAnswerRepository.insertAnswer(answerDTO.getQuestionId(), answerDTO.getAnswerText(), answerDTO.isCorrect());
+        moduleRepository.touchContent(moduleId);
+        return new QuizAnswerDTO(id, answerDTO.getAnswerText(), answerDTO.isCorrect(), answerDTO.getQuestionId());
     }
 
+    @Transactional
     public QuizAnswerDTO updateQuizAnswer(Long id, QuizAnswerDTO answerDTO) {
-        QuizAnswer answer = quizAnswerRepository.findById(id)
+        // Neither the answer nor its questions are loaded, only their IDs are read
+        Long previousQuestionId = quizAnswerRepository.findQuestionIdById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz answer not found"));
-
-        answer.setAnswerText(answerDTO.getAnswerText());
-        answer.setCorrect(answerDTO.isCorrect());
-
-        if (!answer.getQuestion().getId().equals(answerDTO.getQuestionId())) {
-            QuizQuestion newQuestion = quizQuestionRepository.findById(answerDTO.getQuestionId())
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz question not found"));
-            answer.setQuestion(newQuestion);
+        Long moduleId = quizQuestionRepository.findModuleIdById(answerDTO.getQuestionId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz question not found"));
+        if (!previousQuestionId.equals(answerDTO.getQuestionId())) {
+            quizQuestionRepository.findModuleIdById(previousQuestionId).ifPresent(moduleRepository::touchContent);
         }
 
-        QuizAnswer updatedAnswer = quizAnswerRepository.save(answer);
-        return mapToQuizAnswerDTO(updatedAnswer);
+        quizAnswerRepository.updateAnswer(id, answerDTO.getQuestionId(), answerDTO.getAnswerText(), answerDTO.isCorrect());
+        moduleRepository.touchContent(moduleId);
+        return new QuizAnswerDTO(id, answerDTO.getAnswerText(), answerDTO.isCorrect(), answerDTO.getQuestionId());
     }
 
+    @Transactional
     public void deleteQuizAnswer(Long id) {
         if (!quizAnswerRepository.existsById(id)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz answer not found");
         }
+        Optional<Long> moduleId = quizAnswerRepository.findModuleIdById(id);
         quizAnswerRepository.deleteById(id);
+        moduleId.ifPresent(moduleRepository::touchContent);
     }
 
     private QuizAnswerDTO mapToQuizAnswerDTO(QuizAnswer answer) {
@@ -1,18 +1,21 @@
 package org.edunex.courseservice.service;
 
 import org.edunex.courseservice.dto.QuizQuestionDTO;
-import org.edunex.courseservice.model.Quiz;
-import org.edunex.courseservice.model.QuizQuestion;
+import org.edunex.courseservice.dto.SliceDTO;
+import org.edunex.courseservice.repository.ModuleRepository;
 import org.edunex.courseservice.repository.QuizQuestionRepository;
 import org.edunex.courseservice.repository.QuizRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public class QuizQuestionService {
@@ -23,73 +26,79 @@ public class QuizQuestionService {
     @Autowired
     private QuizRepository quizRepository;
 
-    public List<QuizQuestionDTO> getAllQuizQuestions() {
-        List<QuizQuestion> questions = quizQuestionRepository.findAll();
-        return mapToQuizQuestionDTOs(questions);
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    @Autowired
+    private ExportService exportService;
+
+    /**
+     * A page of all quiz questions, in ID order
+     */
+    @Transactional(readOnly = true)
+    public SliceDTO<QuizQuestionDTO> getAllQuizQuestions(int page, int size) {
+        return SliceDTO.of(quizQuestionRepository.findAllDTOs(Paging.pageRequest(page, size)));
     }
 
+    /**
+     * Export the text of all quiz questions with their quiz IDs, read into DTOs so the lazy
+     * question text is selected with the row instead of loaded per question
+     * @param format The output format
+     * @param output The response body the questions are written to
+     */
+    @Transactional(readOnly = true)
+    public void exportAllQuizQuestions(ExportFormat format, OutputStream output) throws IOException {
+        try (Stream<QuizQuestionDTO> quizQuestions = quizQuestionRepository.streamAllDTOs()) {
+            exportService.write(quizQuestions, format, output);
+        }
+    }
+
+    @Transactional(readOnly = true)
     public QuizQuestionDTO getQuizQuestionById(Long id) {
-        QuizQuestion question = quizQuestionRepository.findById(id)
+        return quizQuestionRepository.findDTOById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz question not found"));
-        return mapToQuizQuestionDTO(question);
     }
 
+    @Transactional(readOnly = true)
     public List<QuizQuestionDTO> getQuizQuestionsByQuizId(Long quizId) {
-        List<QuizQuestion> questions = quizQuestionRepository.findByQuizId(quizId);
-        return mapToQuizQuestionDTOs(questions);
+        return quizQuestionRepository.findDTOsByQuizId(quizId);
     }
 
+    @Transactional
     public QuizQuestionDTO createQuizQuestion(QuizQuestionDTO questionDTO) {
-        Quiz quiz = quizRepository.findById(questionDTO.getQuizId())
+        // Checks the quiz exists and finds the module to stamp. The question is inserted with its quiz_id,
+        // as giving a question entity its quiz would load the quiz and all of its questions
+        Long moduleId = quizRepository.findModuleIdById(questionDTO.getQuizId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz not found"));
 
-        QuizQuestion question = new QuizQuestion();
-        question.setQuestionText(questionDTO.getQuestionText());
-        question.setQuiz(quiz);
-        question.setAnswers(new ArrayList<>());
-
-        QuizQuestion savedQuestion = quizQuestionRepository.save(question);
-        return mapToQuizQuestionDTO(savedQuestion);
+        Long id = quizQuestionRepository.insertQuestion(questionDTO.getQuizId(), questionDTO.getQuestionText());
+        moduleRepository.touchContent(moduleId);
+        return new QuizQuestionDTO(id, questionDTO.getQuestionText(), questionDTO.getQuizId());
     }
 
+    @Transactional
     public QuizQuestionDTO updateQuizQuestion(Long id, QuizQuestionDTO questionDTO) {
-        QuizQuestion question = quizQuestionRepository.findById(id)
+        // Neither the question nor its quizzes are loaded, only their IDs are read
+        Long previousQuizId = quizQuestionRepository.findQuizIdById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz question not found"));
-
-        question.setQuestionText(questionDTO.getQuestionText());
-
-        if (!question.getQuiz().getId().equals(questionDTO.getQuizId())) {
-            Quiz newQuiz = quizRepository.findById(questionDTO.getQuizId())
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz not found"));
-            question.setQuiz(newQuiz);
+        Long moduleId = quizRepository.findModuleIdById(questionDTO.getQuizId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz not found"));
+        if (!previousQuizId.equals(questionDTO.getQuizId())) {
+            quizRepository.findModuleIdById(previousQuizId).ifPresent(moduleRepository::touchContent);
         }
 
-        QuizQuestion updatedQuestion = quizQuestionRepository.save(question);
-        return mapToQuizQuestionDTO(updatedQuestion);
+        quizQuestionRepository.updateQuestion(id, questionDTO.getQuizId(), questionDTO.getQuestionText());
+        moduleRepository.touchContent(moduleId);
+        return new QuizQuestionDTO(id, questionDTO.getQuestionText(), questionDTO.getQuizId());
     }
 
+    @Transactional
     public void deleteQuizQuestion(Long id) {
         if (!quizQuestionRepository.existsById(id)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz question not found");
         }
+        Optional<Long> moduleId = quizQuestionRepository.findModuleIdById(id);
         quizQuestionRepository.deleteById(id);
-    }
-
-    private QuizQuestionDTO mapToQuizQuestionDTO(QuizQuestion question) {
-        QuizQuestionDTO dto = new QuizQuestionDTO();
-        dto.setId(question.getId());
-        dto.setQuestionText(question.getQuestionText());
-
-        if (question.getQuiz() != null) {
-            dto.setQuizId(question.getQuiz().getId());
-        }
-
-        return dto;
-    }
-
-    private List<QuizQuestionDTO> mapToQuizQuestionDTOs(List<QuizQuestion> questions) {
-        return questions.stream()
-                .map(this::mapToQuizQuestionDTO)
-                .collect(Collectors.toList());
+        moduleId.ifPresent(moduleRepository::touchContent);
     }
 }
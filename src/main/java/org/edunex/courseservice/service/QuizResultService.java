@@ -1,108 +1,181 @@
 package org.edunex.courseservice.service;
 
+import org.edunex.courseservice.dto.QuizRankDTO;
 import org.edunex.courseservice.dto.QuizResultDTO;
-import org.edunex.courseservice.model.Quiz;
+import org.edunex.courseservice.dto.QuizStatsDTO;
+import org.edunex.courseservice.dto.SliceDTO;
 import org.edunex.courseservice.model.QuizResult;
 import org.edunex.courseservice.repository.QuizRepository;
 import org.edunex.courseservice.repository.QuizResultRepository;
+import org.edunex.courseservice.repository.QuizScoreHistogram;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class QuizResultService {
 
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime HISTORY_END = LocalDateTime.of(9999, 12, 31, 0, 0);
+
     @Autowired
     private QuizResultRepository quizResultRepository;
 
     @Autowired
     private QuizRepository quizRepository;
 
-    public List<QuizResultDTO> getAllQuizResults() {
-        List<QuizResult> results = quizResultRepository.findAll();
-        return mapToQuizResultDTOs(results);
+    @Autowired
+    private ExportService exportService;
+
+    /**
+     * A page of all quiz results, in ID order
+     */
+    @Transactional(readOnly = true)
+    public SliceDTO<QuizResultDTO> getAllQuizResults(int page, int size) {
+        return SliceDTO.of(quizResultRepository.findAllDTOs(Paging.pageRequest(page, size)));
+    }
+
+    /**
+     * Export every submitted quiz score with its quiz, module and course titles, reading the
+     * partitioned results table through a cursor in ID order
+     * @param format The output format
+     * @param output The response body the results are written to
+     */
+    @Transactional(readOnly = true)
+    public void exportAllQuizResults(ExportFormat format, OutputStream output) throws IOException {
+        try (Stream<QuizResultDTO> quizResults = quizResultRepository.streamAllDTOs()) {
+            exportService.write(quizResults, format, output);
+        }
     }
 
+    @Transactional(readOnly = true)
     public QuizResultDTO getQuizResultById(Long id) {
-        QuizResult result = quizResultRepository.findById(id)
+        return quizResultRepository.findDTOById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz result not found"));
-        return mapToQuizResultDTO(result);
     }
 
-    public List<QuizResultDTO> getQuizResultsByUserId(String userId) {
-        List<QuizResult> results = quizResultRepository.findByUserId(userId);
-        return mapToQuizResultDTOs(results);
+    /**
+     * A page of a user's results, newest first
+     * @param userId The ID of the user
+     * @param from Only results submitted at or after this time, or null for no lower bound
+     * @param to Only results submitted before this time, or null for no upper bound
+     * @param page The zero-based page number
+     * @param size The page size
+     * @return The page of results
+     */
+    @Transactional(readOnly = true)
+    public SliceDTO<QuizResultDTO> getQuizResultsByUserId(String userId, LocalDateTime from, LocalDateTime to, int page, int size) {
+        return SliceDTO.of(quizResultRepository.findDTOsByUserIdAndSubmittedAtBetween(
+                userId, lowerBound(from), upperBound(to), Paging.pageRequest(page, size)));
     }
 
-    public List<QuizResultDTO> getQuizResultsByQuizId(Long quizId) {
-        List<QuizResult> results = quizResultRepository.findByQuizId(quizId);
-        return mapToQuizResultDTOs(results);
+    /**
+     * A page of a quiz's results, newest first
+     * @param quizId The ID of the quiz
+     * @param from Only results submitted at or after this time, or null for no lower bound
+     * @param to Only results submitted before this time, or null for no upper bound
+     * @param page The zero-based page number
+     * @param size The page size
+     * @return The page of results
+     */
+    @Transactional(readOnly = true)
+    public SliceDTO<QuizResultDTO> getQuizResultsByQuizId(Long quizId, LocalDateTime from, LocalDateTime to, int page, int size) {
+        return SliceDTO.of(quizResultRepository.findDTOsByQuizIdAndSubmittedAtBetween(
+                quizId, lowerBound(from), upperBound(to), Paging.pageRequest(page, size)));
     }
 
+    @Transactional(readOnly = true)
     public List<QuizResultDTO> getQuizResultsByUserIdAndQuizId(String userId, Long quizId) {
-        List<QuizResult> results = quizResultRepository.findByUserIdAndQuizIdOrderBySubmittedAtDesc(userId, quizId);
-        return mapToQuizResultDTOs(results);
+        return quizResultRepository.findDTOsByUserIdAndQuizIdOrderBySubmittedAtDesc(userId, quizId);
     }
 
+    @Transactional(readOnly = true)
     public QuizResultDTO getBestQuizResultForUser(String userId, Long quizId) {
-        QuizResult result = quizResultRepository.findTopByUserIdAndQuizIdOrderByScoreDesc(userId, quizId)
+        return quizResultRepository.findDTOsByUserIdAndQuizIdOrderByScoreDesc(userId, quizId, Limit.of(1))
+                .stream()
+                .findFirst()
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No quiz result found"));
-        return mapToQuizResultDTO(result);
     }
 
+    /**
+     * Score statistics of a quiz, computed from its maintained histogram without scanning its results
+     * @param quizId The ID of the quiz
+     * @return The statistics
+     */
+    @Transactional(readOnly = true)
+    public QuizStatsDTO getQuizStats(Long quizId) {
+        if (!quizRepository.existsById(quizId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz not found");
+        }
+
+        QuizScoreHistogram histogram = quizResultRepository.findScoreHistogram(quizId);
+        long attempts = histogram.attempts();
+
+        QuizStatsDTO dto = new QuizStatsDTO();
+        dto.setQuizId(quizId);
+        dto.setAttempts(attempts);
+        dto.setParticipants(histogram.participants());
+        dto.setAverageScore(attempts > 0 ? (double) histogram.sum() / attempts : null);
+        dto.setMinScore(histogram.percentile(0));
+        dto.setMaxScore(histogram.percentile(100));
+        dto.setMedianScore(histogram.percentile(50));
+        dto.setPercentile25Score(histogram.percentile(25));
+        dto.setPercentile75Score(histogram.percentile(75));
+        dto.setPercentile90Score(histogram.percentile(90));
+        dto.setHistogram(histogram.resultCounts());
+        return dto;
+    }
+
+    /**
+     * A user's rank on a quiz by best score
+     * @param userId The ID of the user
+     * @param quizId The ID of the quiz
+     * @return The user's rank
+     */
+    @Transactional(readOnly = true)
+    public QuizRankDTO getQuizRankForUser(String userId, Long quizId) {
+        return quizResultRepository.findRank(quizId, userId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No quiz result found"));
+    }
+
+    @Transactional
     public QuizResultDTO createQuizResult(QuizResultDTO quizResultDTO) {
-        // Validate the quiz exists
-        Quiz quiz = quizRepository.findById(quizResultDTO.getQuizId())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz not found"));
+        if (quizResultDTO.getScore() < QuizScoreHistogram.MIN_SCORE || quizResultDTO.getScore() > QuizScoreHistogram.MAX_SCORE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Score must be between " + QuizScoreHistogram.MIN_SCORE + " and " + QuizScoreHistogram.MAX_SCORE);
+        }
 
         // The userId will now come from the JWT token in the controller
-        QuizResult quizResult = new QuizResult();
-        quizResult.setUserId(quizResultDTO.getUserId());
-        quizResult.setQuiz(quiz);
-        quizResult.setScore(quizResultDTO.getScore());
-        quizResult.setSubmittedAt(LocalDateTime.now());
-
-        QuizResult savedResult = quizResultRepository.save(quizResult);
-        return mapToQuizResultDTO(savedResult);
+        QuizResultDTO savedResult = quizResultRepository
+                .insertResult(quizResultDTO.getQuizId(), quizResultDTO.getUserId(), quizResultDTO.getScore(), LocalDateTime.now())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz not found"));
+        quizResultRepository.recordScore(savedResult.getQuizId(), savedResult.getUserId(), savedResult.getScore());
+        return savedResult;
     }
 
+    @Transactional
     public void deleteQuizResult(Long id) {
-        if (!quizResultRepository.existsById(id)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz result not found");
-        }
-        quizResultRepository.deleteById(id);
+        QuizResult quizResult = quizResultRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz result not found"));
+        quizResultRepository.delete(quizResult);
+        quizResultRepository.removeScore(id, quizResult.getQuiz().getId(), quizResult.getUserId(), quizResult.getScore());
     }
 
-    private QuizResultDTO mapToQuizResultDTO(QuizResult quizResult) {
-        QuizResultDTO dto = new QuizResultDTO();
-        dto.setId(quizResult.getId());
-        dto.setUserId(quizResult.getUserId());
-        dto.setQuizId(quizResult.getQuiz().getId());
-        dto.setQuizTitle(quizResult.getQuiz().getTitle());
-        dto.setScore(quizResult.getScore());
-        dto.setSubmittedAt(quizResult.getSubmittedAt());
-
-        if (quizResult.getQuiz().getModule() != null) {
-            dto.setModuleTitle(quizResult.getQuiz().getModule().getTitle());
-
-            if (quizResult.getQuiz().getModule().getCourse() != null) {
-                dto.setCourseId(quizResult.getQuiz().getModule().getCourse().getId());
-                dto.setCourseTitle(quizResult.getQuiz().getModule().getCourse().getTitle());
-            }
-        }
-
-        return dto;
+    // Open ends of a date range are replaced with fixed bounds so the queries need no IS NULL branches
+    private LocalDateTime lowerBound(LocalDateTime from) {
+        return from != null ? from : HISTORY_START;
     }
 
-    private List<QuizResultDTO> mapToQuizResultDTOs(List<QuizResult> quizResults) {
-        return quizResults.stream()
-                .map(this::mapToQuizResultDTO)
-                .collect(Collectors.toList());
+    private LocalDateTime upperBound(LocalDateTime to) {
+        return to != null ? to : HISTORY_END;
     }
 }
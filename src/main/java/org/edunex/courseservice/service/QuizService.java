@@ -3,6 +3,7 @@ package org.edunex.courseservice.service;
 import org.edunex.courseservice.dto.QuizAnswerDTO;
 import org.edunex.courseservice.dto.QuizDTO;
 import org.edunex.courseservice.dto.QuizQuestionDTO;
+import org.edunex.courseservice.dto.SliceDTO;
 import org.edunex.courseservice.model.Module;
 import org.edunex.courseservice.model.Quiz;
 import org.edunex.courseservice.model.QuizAnswer;
@@ -12,11 +13,15 @@ import org.edunex.courseservice.repository.QuizRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class QuizService {
@@ -27,23 +32,44 @@ public class QuizService {
     @Autowired
     private ModuleRepository moduleRepository;
 
+    @Autowired
+    private ExportService exportService;
 
-    public List<QuizDTO> getAllQuizzes() {
-        List<Quiz> quizzes = quizRepository.findAll();
-        return mapToQuizDTOs(quizzes);
+
+    /**
+     * A page of all quizzes, in ID order
+     */
+    @Transactional(readOnly = true)
+    public SliceDTO<QuizDTO> getAllQuizzes(int page, int size) {
+        return SliceDTO.of(quizRepository.findAllDTOs(Paging.pageRequest(page, size)));
+    }
+
+    /**
+     * Export all quizzes with the ID and title of the module each belongs to
+     * @param format The output format
+     * @param output The response body the quizzes are written to
+     */
+    @Transactional(readOnly = true)
+    public void exportAllQuizzes(ExportFormat format, OutputStream output) throws IOException {
+        try (Stream<QuizDTO> quizzes = quizRepository.streamAllDTOs()) {
+            exportService.write(quizzes, format, output);
+        }
     }
 
+    @Transactional(readOnly = true)
     public QuizDTO getQuizById(Long id) {
         Quiz quiz = quizRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz not found"));
         return mapToQuizDTO(quiz);
     }
 
+    @Transactional(readOnly = true)
     public List<QuizDTO> getQuizzesByModuleId(Long moduleId) {
         List<Quiz> quizzes = quizRepository.findByModuleId(moduleId);
         return mapToQuizDTOs(quizzes);
     }
 
+    @Transactional
     public QuizDTO createQuiz(QuizDTO quizDTO) {
         Module module = moduleRepository.findById(quizDTO.getModuleId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Module not found"));
@@ -67,6 +93,7 @@ public class QuizService {
         quiz.setQuestions(questions);
 
         Quiz savedQuiz = quizRepository.save(quiz);
+        moduleRepository.touchContent(module.getId());
         return mapToQuizDTO(savedQuiz);
     }
 
@@ -106,27 +133,32 @@ public class QuizService {
         return answer;
     }
 
+    @Transactional
     public QuizDTO updateQuiz(Long id, QuizDTO quizDTO) {
         Quiz quiz = quizRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz not found"));
 
         quiz.setTitle(quizDTO.getTitle());
 
-        if (!quiz.getModule().getId().equals(quizDTO.getModuleId())) {
+        Long previousModuleId = quiz.getModule().getId();
+        if (!previousModuleId.equals(quizDTO.getModuleId())) {
             Module newModule = moduleRepository.findById(quizDTO.getModuleId())
                     .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Module not found"));
             quiz.setModule(newModule);
+            moduleRepository.touchContent(previousModuleId);
         }
 
         Quiz updatedQuiz = quizRepository.save(quiz);
+        moduleRepository.touchContent(updatedQuiz.getModule().getId());
         return mapToQuizDTO(updatedQuiz);
     }
 
+    @Transactional
     public void deleteQuiz(Long id) {
-        if (!quizRepository.existsById(id)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz not found");
-        }
+        Long moduleId = quizRepository.findModuleIdById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz not found"));
         quizRepository.deleteById(id);
+        moduleRepository.touchContent(moduleId);
     }
 
     private QuizDTO mapToQuizDTO(Quiz quiz) {
@@ -0,0 +1,255 @@
+package org.edunex.courseservice.service;
+
+import org.edunex.courseservice.model.ContentUpload;
+import org.edunex.courseservice.repository.ContentUploadRepository;
+import org.edunex.courseservice.repository.ModuleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Resumable (tus-style) uploads of module content. An upload is created with its total length, then
+ * sent as chunks at increasing offsets; each chunk is streamed straight to S3 as the next part of a
+ * multipart upload, so nothing is staged on local disk and a failed chunk only needs that chunk resent.
+ * The upload state lives in content_uploads, so a client can resume on any instance. Uploads that stop
+ * advancing are aborted by {@link #sweepAbandoned()}.
+ */
+@Service
+public class ResumableUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumableUploadService.class);
+
+    /** S3 rejects multipart parts smaller than this, except for the last one */
+    public static final long MIN_CHUNK_SIZE = 5L * 1024 * 1024;
+
+    // S3 allows at most this many parts per multipart upload
+    private static final int MAX_PARTS = 10_000;
+
+    // Uploads are removed before their S3 upload is aborted, so no request can add a chunk to an
+    // aborted upload. A completed upload whose module update failed already has an object in S3;
+    // its key is queued for S3CleanupService, which leaves it alone if a module does point at it.
+    private static final String SWEEP_SQL = """
+            WITH expired AS (
+                DELETE FROM content_uploads u WHERE u.id IN (
+                    SELECT id FROM content_uploads
+                    WHERE updated_at < now() - CAST(? AS interval)
+                      AND (lease_until IS NULL OR lease_until < now())
+                    ORDER BY updated_at
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED)
+                RETURNING u.id, u.object_key, u.s3_upload_id, u.upload_offset = u.upload_length AS complete),
+            queued AS (
+                INSERT INTO s3_deletions (object_key, queued_at)
+                SELECT object_key, now() FROM expired WHERE complete)
+            SELECT id, object_key, s3_upload_id FROM expired
+            """;
+
+    @Autowired
+    private ContentUploadRepository contentUploadRepository;
+
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    @Autowired
+    private ModuleService moduleService;
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${upload.resumable.max-length:10GB}")
+    private DataSize maxLength;
+
+    @Value("${upload.resumable.lease:10m}")
+    private Duration lease;
+
+    @Value("${upload.resumable.expire-after:24h}")
+    private Duration expireAfter;
+
+    @Value("${upload.resumable.sweep-batch-size:100}")
+    private int sweepBatchSize;
+
+    /**
+     * Start a resumable upload of module content
+     * @param moduleId The ID of the module the content is for
+     * @param userId The uploading user; only they can add chunks
+     * @param length The total size of the file in bytes
+     * @param filename The original filename, if known
+     * @param contentType A video or PDF content type
+     * @return The new upload, at offset 0
+     */
+    public ContentUpload createUpload(Long moduleId, String userId, long length, String filename, String contentType) {
+        if (!moduleRepository.existsById(moduleId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Module not found");
+        }
+        if (contentType == null ||
+                !(contentType.startsWith("video/") || contentType.equals("application/pdf"))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Invalid file type. Only videos and PDFs are allowed.");
+        }
+        if (length <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Upload length must be positive");
+        }
+        if (length > maxLength.toBytes()) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Upload exceeds the maximum size of " + maxLength);
+        }
+
+        S3Service.MultipartUpload multipart = s3Service.startMultipartUpload(moduleId, contentType);
+        LocalDateTime now = LocalDateTime.now();
+        ContentUpload upload = new ContentUpload(UUID.randomUUID().toString(), moduleId, userId,
+                multipart.objectKey(), multipart.uploadId(), filename, contentType, length, 0, 0, null, now, now);
+        contentUploadRepository.save(upload);
+
+        logger.info("Created resumable upload id={} moduleId={} length={}", upload.getId(), moduleId, length);
+        return upload;
+    }
+
+    /**
+     * Look up an upload of the given user
+     * @param moduleId The module ID from the upload URL
+     * @param uploadId The upload ID
+     * @param userId The requesting user
+     * @return The upload, with the offset the next chunk must start at
+     */
+    public ContentUpload getUpload(Long moduleId, String uploadId, String userId) {
+        return contentUploadRepository.findById(uploadId)
+                .filter(upload -> upload.getModuleId().equals(moduleId) && upload.getUserId().equals(userId))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload not found"));
+    }
+
+    /**
+     * Write a chunk at the upload's current offset. Every chunk but the last must be at least
+     * MIN_CHUNK_SIZE. When the chunk completes the file, the S3 object is assembled and the module is
+     * pointed at it. Sending an empty chunk at the end offset retries a completion that failed.
+     * @param moduleId The module ID from the upload URL
+     * @param uploadId The upload ID
+     * @param userId The requesting user
+     * @param offset The offset the client is writing at; must equal the upload's offset
+     * @param chunkLength The chunk size in bytes
+     * @param chunk The chunk content
+     * @return The upload offset after the chunk
+     */
+    public long appendChunk(Long moduleId, String uploadId, String userId, long offset, long chunkLength, InputStream chunk) {
+        ContentUpload upload = getUpload(moduleId, uploadId, userId);
+        if (offset != upload.getUploadOffset()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Upload-Offset " + offset + " does not match the upload offset " + upload.getUploadOffset());
+        }
+        if (chunkLength < 0) {
+            throw new ResponseStatusException(HttpStatus.LENGTH_REQUIRED, "Chunks must have a Content-Length");
+        }
+        long newOffset = offset + chunkLength;
+        if (newOffset > upload.getUploadLength()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Chunk extends past the upload length");
+        }
+
+        if (offset == upload.getUploadLength()) {
+            completeUpload(upload);
+            return newOffset;
+        }
+        if (chunkLength == 0) {
+            return offset;
+        }
+        if (chunkLength < MIN_CHUNK_SIZE && newOffset < upload.getUploadLength()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Chunks other than the last must be at least " + MIN_CHUNK_SIZE + " bytes");
+        }
+        if (upload.getPartCount() >= MAX_PARTS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Upload has too many chunks");
+        }
+
+        if (contentUploadRepository.claim(uploadId, offset, lease.toSeconds() + " seconds") == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Another chunk is being written to this upload");
+        }
+        try {
+            s3Service.uploadPart(upload.getObjectKey(), upload.getS3UploadId(), upload.getPartCount() + 1, chunk, chunkLength);
+        } catch (RuntimeException e) {
+            contentUploadRepository.releaseLease(uploadId);
+            throw e;
+        }
+        if (contentUploadRepository.advance(uploadId, offset, newOffset) == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "The upload was changed while the chunk was written");
+        }
+        logger.debug("Resumable upload id={} at {} of {} bytes", uploadId, newOffset, upload.getUploadLength());
+
+        if (newOffset == upload.getUploadLength()) {
+            upload.setUploadOffset(newOffset);
+            upload.setPartCount(upload.getPartCount() + 1);
+            completeUpload(upload);
+        }
+        return newOffset;
+    }
+
+    /**
+     * Abandon an upload and discard the chunks written so far
+     * @param moduleId The module ID from the upload URL
+     * @param uploadId The upload ID
+     * @param userId The requesting user
+     */
+    public void cancelUpload(Long moduleId, String uploadId, String userId) {
+        ContentUpload upload = getUpload(moduleId, uploadId, userId);
+        contentUploadRepository.deleteById(uploadId);
+        s3Service.abortMultipartUpload(upload.getObjectKey(), upload.getS3UploadId());
+        logger.info("Cancelled resumable upload id={} moduleId={}", uploadId, moduleId);
+    }
+
+    private void completeUpload(ContentUpload upload) {
+        s3Service.completeMultipartUpload(upload.getObjectKey(), upload.getS3UploadId(),
+                upload.getPartCount(), upload.getUploadLength());
+        moduleService.attachContent(upload.getModuleId(), upload.getObjectKey(), upload.getFilename(),
+                upload.getContentType(), upload.getUploadLength());
+        contentUploadRepository.deleteById(upload.getId());
+        logger.info("Completed resumable upload id={} moduleId={} objectKey={}", upload.getId(), upload.getModuleId(), upload.getObjectKey());
+    }
+
+    /**
+     * Abort uploads that have not advanced for expire-after, in batches until none are left
+     */
+    @Scheduled(cron = "${upload.resumable.sweep-cron:0 */15 * * * *}")
+    public void sweepAbandoned() {
+        try {
+            int swept;
+            do {
+                swept = sweepBatch();
+            } while (swept == sweepBatchSize);
+        } catch (DataAccessException e) {
+            logger.warn("Resumable upload sweep failed", e);
+        }
+    }
+
+    /**
+     * Remove one batch of abandoned uploads and abort their S3 multipart uploads
+     * @return The number of uploads removed
+     */
+    int sweepBatch() {
+        List<Map<String, Object>> expired = jdbcTemplate.queryForList(
+                SWEEP_SQL, expireAfter.toSeconds() + " seconds", sweepBatchSize);
+        int aborted = 0;
+        for (Map<String, Object> row : expired) {
+            if (s3Service.abortMultipartUpload((String) row.get("object_key"), (String) row.get("s3_upload_id"))) {
+                aborted++;
+            }
+        }
+        if (!expired.isEmpty()) {
+            logger.info("Swept {} abandoned uploads, aborted {} in S3", expired.size(), aborted);
+        }
+        return expired.size();
+    }
+}
@@ -0,0 +1,135 @@
+package org.edunex.courseservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Removes the S3 objects queued in s3_deletions by deletes and content replacements. A batch is claimed for
+ * claim-timeout, deleted from S3 without holding a database connection, and then dropped from the
+ * queue; keys S3 failed to delete, and batches of an instance that died mid-run, are retried once
+ * their claim expires.
+ */
+@Service
+public class S3CleanupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3CleanupService.class);
+
+    // SKIP LOCKED lets several instances claim disjoint batches. Cloned courses share content files
+    // and thumbnails, so keys still used by another module or course are dropped from the queue instead.
+    // A deduplicated content object is only removed once its reference count is zero; its row is deleted
+    // under the row lock uploads take a reference with, so an upload either keeps the object alive or
+    // stores a new one.
+    private static final String CLAIM_SQL = """
+            WITH claim AS (SELECT now() + CAST(? AS interval) AS until),
+            candidates AS (
+                SELECT d.id, d.object_key,
+                       EXISTS (SELECT 1 FROM modules m WHERE m.content_url = d.object_key)
+                       OR EXISTS (SELECT 1 FROM courses c WHERE c.thumbnail_object_key = d.object_key) AS referenced
+                FROM s3_deletions d
+                WHERE d.claimed_until IS NULL OR d.claimed_until < now()
+                ORDER BY d.id
+                LIMIT ?
+                FOR UPDATE OF d SKIP LOCKED),
+            released AS (
+                DELETE FROM content_objects o USING candidates c
+                WHERE o.object_key = c.object_key AND o.ref_count <= 0 AND NOT c.referenced
+                RETURNING o.object_key),
+            checked AS (
+                SELECT c.id, c.object_key,
+                       c.referenced
+                       OR (EXISTS (SELECT 1 FROM content_objects o WHERE o.object_key = c.object_key)
+                           AND NOT EXISTS (SELECT 1 FROM released r WHERE r.object_key = c.object_key)) AS in_use
+                FROM candidates c),
+            dropped AS (
+                DELETE FROM s3_deletions d USING checked c WHERE d.id = c.id AND c.in_use),
+            claimed AS (
+                UPDATE s3_deletions d SET claimed_until = claim.until FROM checked c, claim
+                WHERE d.id = c.id AND NOT c.in_use)
+            SELECT id, object_key, in_use FROM checked
+            """;
+
+    private static final String DELETE_SQL = "DELETE FROM s3_deletions WHERE id = ANY(?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Autowired
+    private ContentDiskCache contentDiskCache;
+
+    @Value("${s3.cleanup.batch-size:500}")
+    private int batchSize;
+
+    @Value("${s3.cleanup.claim-timeout:10m}")
+    private Duration claimTimeout;
+
+    @Scheduled(cron = "${s3.cleanup.cron:0 * * * * *}")
+    public void cleanUp() {
+        try {
+            int claimed;
+            do {
+                claimed = cleanUpBatch();
+            } while (claimed == batchSize);
+        } catch (DataAccessException e) {
+            logger.warn("S3 cleanup failed", e);
+        }
+    }
+
+    /**
+     * Claim one batch of queued keys, delete them from S3 and drop the deleted ones from the queue
+     * @return The number of queued keys processed, including those dropped as still in use
+     */
+    int cleanUpBatch() {
+        List<Map<String, Object>> claimed = jdbcTemplate.queryForList(
+                CLAIM_SQL, claimTimeout.toSeconds() + " seconds", batchSize);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        List<String> keys = new ArrayList<>();
+        for (Map<String, Object> row : claimed) {
+            if (!Boolean.TRUE.equals(row.get("in_use"))) {
+                keys.add((String) row.get("object_key"));
+            }
+        }
+        if (keys.isEmpty()) {
+            return claimed.size();
+        }
+        List<String> deleted = s3Service.deleteFiles(keys);
+        contentDiskCache.evict(deleted);
+        Set<String> deletedKeys = new HashSet<>(deleted);
+
+        List<Long> deletedIds = new ArrayList<>();
+        for (Map<String, Object> row : claimed) {
+            if (!Boolean.TRUE.equals(row.get("in_use")) && deletedKeys.contains((String) row.get("object_key"))) {
+                deletedIds.add(((Number) row.get("id")).longValue());
+            }
+        }
+        if (!deletedIds.isEmpty()) {
+            jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(DELETE_SQL);
+                ps.setArray(1, con.createArrayOf("bigint", deletedIds.toArray()));
+                return ps;
+            });
+        }
+
+        logger.info("S3 cleanup removed {} of {} queued objects", deletedIds.size(), keys.size());
+        return claimed.size();
+    }
+}
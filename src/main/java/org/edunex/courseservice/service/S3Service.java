@@ -1,8 +1,10 @@
 package org.edunex.courseservice.service;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -13,13 +15,22 @@ import org.springframework.web.server.ResponseStatusException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -28,6 +39,9 @@ public class S3Service {
 
     private static final Logger logger = LoggerFactory.getLogger(S3Service.class);
 
+    // DeleteObjects accepts at most this many keys per request
+    private static final int MAX_KEYS_PER_DELETE = 1000;
+
     @Autowired
     private S3Client s3Client;
 
@@ -37,43 +51,60 @@ public class S3Service {
     @Value("${aws.cloudfront.domain-name}")
     private String cloudfrontDomain;
 
+    @Autowired
+    private S3Presigner s3Presigner;
+
+    @Autowired
+    private ContentDiskCache contentDiskCache;
+
+    @Value("${s3.download.mode:proxy}")
+    private DownloadMode downloadMode;
+
+    @Value("${s3.download.presign-ttl:10m}")
+    private Duration presignTtl;
+
+    @Value("${s3.download.url-cache.max-entries:10000}")
+    private int maxCachedUrls;
+
+    // Presigned download URLs by object key, access ordered so the eldest entry is the least recently used one
+    private final Map<String, PresignedUrl> presignedUrls = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PresignedUrl> eldest) {
+            return size() > maxCachedUrls;
+        }
+    };
+
+    private record PresignedUrl(String url, long reuseUntil) {
+    }
 
     /**
-     * Upload file to S3 bucket
+     * Upload module content under a key derived from its SHA-256, streaming it from the staged upload
      * @param file The file to upload
-     * @param moduleId The module ID to associate with the file (used in the object key)
-     * @return The generated S3 object key for the uploaded file
+     * @param hash Hex SHA-256 of the file content
+     * @return The generated S3 object key, content/{hash}/{uuid}.{extension}
      */
-    public String uploadFile(MultipartFile file, Long moduleId) {
-        logger.debug("uploadFile called for moduleId={}, originalFilename={}, size={}", moduleId, file.getOriginalFilename(), file.getSize());
+    public String uploadContent(MultipartFile file, String hash) {
+        logger.debug("uploadContent called for hash={}, originalFilename={}, size={}", hash, file.getOriginalFilename(), file.getSize());
         try {
             String contentType = file.getContentType();
-            String extension = getExtensionFromContentType(contentType);
-            
-            // Generate a unique key for the object in S3
-            String objectKey = "module-" + moduleId + "/" + UUID.randomUUID() + "." + extension;
-            
-            // Create metadata for the file
-            Map<String, String> metadata = new HashMap<>();
-            metadata.put("Content-Type", contentType);
-            metadata.put("module-id", moduleId.toString());
-            
-            // Upload the file to S3
+            // The random part keeps a re-upload of content whose object is being deleted clear of that delete
+            String objectKey = "content/" + hash + "/" + UUID.randomUUID() + "." + getExtensionFromContentType(contentType);
+
             PutObjectRequest putObjectRequest = PutObjectRequest.builder()
                     .bucket(bucketName)
                     .key(objectKey)
                     .contentType(contentType)
-                    .metadata(metadata)
+                    .metadata(Map.of("sha256", hash))
                     .build();
 
-            s3Client.putObject(putObjectRequest, RequestBody.fromBytes(file.getBytes()));
-            logger.info("Uploaded file to S3: bucket={}, key={}, moduleId={}", bucketName, objectKey, moduleId);
+            s3Client.putObject(putObjectRequest, RequestBody.fromInputStream(file.getInputStream(), file.getSize()));
+            logger.info("Uploaded content to S3: bucket={}, key={}", bucketName, objectKey);
             return objectKey;
         } catch (IOException e) {
-            logger.error("IOException while uploading file for moduleId={}: {}", moduleId, e.getMessage(), e);
+            logger.error("IOException while uploading content hash={}: {}", hash, e.getMessage(), e);
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to upload file: " + e.getMessage());
         } catch (S3Exception e) {
-            logger.error("S3Exception while uploading file for moduleId={}: {}", moduleId, e.getMessage(), e);
+            logger.error("S3Exception while uploading content hash={}: {}", hash, e.getMessage(), e);
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "S3 error: " + e.getMessage());
         }
     }
@@ -124,25 +155,236 @@ public class S3Service {
     }
 
     /**
-     * Delete file from S3 bucket
+     * Serve a file in the configured download mode: streamed through this service (from the disk
+     * cache when it is enabled), or as a redirect to a presigned S3 URL
+     * @param objectKey The S3 object key for the file
+     * @param request The download request, for its Range header
+     * @return ResponseEntity with the file content or a 302 to the file
+     */
+    public ResponseEntity<?> serveFile(String objectKey, HttpServletRequest request) {
+        if (redirectsDownloads()) {
+            return redirectToFile(objectKey);
+        }
+        return contentDiskCache.serve(objectKey, request).orElseGet(() -> downloadFile(objectKey));
+    }
+
+    /**
+     * @return true if downloads are answered with a redirect to S3 instead of being streamed
+     */
+    public boolean redirectsDownloads() {
+        return downloadMode == DownloadMode.REDIRECT;
+    }
+
+    /**
+     * Redirect to a presigned S3 URL for a file. The client may reuse the redirect for as long as
+     * this service would hand out the same URL.
      * @param objectKey The S3 object key for the file
+     * @return A 302 response to the presigned URL
+     */
+    public ResponseEntity<Void> redirectToFile(String objectKey) {
+        PresignedUrl presigned = getPresignedUrl(objectKey);
+        long maxAgeSeconds = Math.max(0, (presigned.reuseUntil() - System.nanoTime()) / 1_000_000_000L);
+        return ResponseEntity.status(HttpStatus.FOUND)
+                .location(URI.create(presigned.url()))
+                .cacheControl(CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePrivate())
+                .build();
+    }
+
+    // Presigned GET URLs are valid for presign-ttl and reused while at least half of their lifetime is
+    // left, so each object is signed at most once per half TTL however often it is requested
+    private PresignedUrl getPresignedUrl(String objectKey) {
+        long now = System.nanoTime();
+        synchronized (presignedUrls) {
+            PresignedUrl cached = presignedUrls.get(objectKey);
+            if (cached != null && cached.reuseUntil() - now > 0) {
+                return cached;
+            }
+        }
+
+        // Same Content-Disposition as a proxied download
+        String filename = objectKey.substring(objectKey.lastIndexOf("/") + 1);
+        GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
+                .signatureDuration(presignTtl)
+                .getObjectRequest(GetObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(objectKey)
+                        .responseContentDisposition("attachment; filename=\"" + filename + "\"")
+                        .build())
+                .build();
+        String url = s3Presigner.presignGetObject(presignRequest).url().toString();
+        PresignedUrl presigned = new PresignedUrl(url, now + presignTtl.toNanos() / 2);
+
+        synchronized (presignedUrls) {
+            presignedUrls.put(objectKey, presigned);
+        }
+        logger.debug("Presigned download URL for key={} valid for {}", objectKey, presignTtl);
+        return presigned;
+    }
+
+    /**
+     * Delete many files from the S3 bucket with one request per 1000 keys.
+     * Keys that do not exist count as deleted.
+     * @param objectKeys The S3 object keys to delete
+     * @return The keys that were deleted; the others failed and can be retried
+     */
+    public List<String> deleteFiles(List<String> objectKeys) {
+        List<String> deleted = new ArrayList<>();
+        for (int from = 0; from < objectKeys.size(); from += MAX_KEYS_PER_DELETE) {
+            List<ObjectIdentifier> batch = objectKeys.subList(from, Math.min(from + MAX_KEYS_PER_DELETE, objectKeys.size()))
+                    .stream()
+                    .map(key -> ObjectIdentifier.builder().key(key).build())
+                    .toList();
+            try {
+                DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                        .bucket(bucketName)
+                        .delete(Delete.builder().objects(batch).quiet(false).build())
+                        .build());
+                response.deleted().forEach(object -> deleted.add(object.key()));
+                response.errors().forEach(error ->
+                        logger.warn("Failed to delete key={} from S3: {} {}", error.key(), error.code(), error.message()));
+            } catch (S3Exception e) {
+                logger.error("S3Exception while deleting {} keys: {}", batch.size(), e.getMessage(), e);
+            }
+        }
+        logger.info("Deleted {} of {} objects from S3: bucket={}", deleted.size(), objectKeys.size(), bucketName);
+        return deleted;
+    }
+
+    /**
+     * A started S3 multipart upload of module content
+     * @param objectKey The key the object is stored under once the upload completes
+     * @param uploadId The S3 upload ID the parts are written to
+     */
+    public record MultipartUpload(String objectKey, String uploadId) {
+    }
+
+    /**
+     * Start a multipart upload of module content, written part by part as a resumable upload's chunks arrive
+     * @param moduleId The module ID to associate with the file (used in the object key)
+     * @param contentType The content type of the file
+     * @return The object key and S3 upload ID
      */
-    public void deleteFile(String objectKey) {
-        logger.debug("deleteFile called for key={}", objectKey);
+    public MultipartUpload startMultipartUpload(Long moduleId, String contentType) {
+        String objectKey = "module-" + moduleId + "/" + UUID.randomUUID() + "." + getExtensionFromContentType(contentType);
         try {
-            DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
+            CreateMultipartUploadResponse response = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
                     .bucket(bucketName)
                     .key(objectKey)
-                    .build();
-            
-            s3Client.deleteObject(deleteObjectRequest);
-            logger.info("Deleted object from S3: bucket={}, key={}", bucketName, objectKey);
+                    .contentType(contentType)
+                    .metadata(Map.of("module-id", moduleId.toString()))
+                    .build());
+            logger.info("Started multipart upload: bucket={}, key={}, uploadId={}", bucketName, objectKey, response.uploadId());
+            return new MultipartUpload(objectKey, response.uploadId());
         } catch (S3Exception e) {
-            logger.error("S3Exception while deleting key={}: {}", objectKey, e.getMessage(), e);
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to delete file: " + e.getMessage());
+            logger.error("S3Exception while starting multipart upload for moduleId={}: {}", moduleId, e.getMessage(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "S3 error: " + e.getMessage());
         }
     }
-    
+
+    /**
+     * Stream one part of a multipart upload to S3. Writing a part number again replaces the earlier part.
+     * @param objectKey The object key of the upload
+     * @param uploadId The S3 upload ID
+     * @param partNumber The part number, from 1
+     * @param content The part content, read up to length bytes
+     * @param length The part size in bytes
+     */
+    public void uploadPart(String objectKey, String uploadId, int partNumber, InputStream content, long length) {
+        try {
+            s3Client.uploadPart(UploadPartRequest.builder()
+                    .bucket(bucketName)
+                    .key(objectKey)
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                    .contentLength(length)
+                    .build(), RequestBody.fromInputStream(content, length));
+            logger.debug("Uploaded part {} ({} bytes) of key={}", partNumber, length, objectKey);
+        } catch (SdkException e) {
+            // A client disconnecting mid-chunk surfaces here as a failed read of the request body
+            logger.error("Failed to upload part {} of key={}: {}", partNumber, objectKey, e.getMessage(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to upload chunk: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Complete a multipart upload from its first partCount parts, after checking they add up to the
+     * expected size. Completing an upload that was already completed succeeds if the object exists.
+     * @param objectKey The object key of the upload
+     * @param uploadId The S3 upload ID
+     * @param partCount The number of parts written
+     * @param expectedLength The size the object must have
+     */
+    public void completeMultipartUpload(String objectKey, String uploadId, int partCount, long expectedLength) {
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            long length = 0;
+            Integer marker = null;
+            ListPartsResponse page;
+            do {
+                page = s3Client.listParts(ListPartsRequest.builder()
+                        .bucket(bucketName)
+                        .key(objectKey)
+                        .uploadId(uploadId)
+                        .partNumberMarker(marker)
+                        .build());
+                for (Part part : page.parts()) {
+                    // Parts past partCount were written by chunks that were never recorded
+                    if (part.partNumber() <= partCount) {
+                        parts.add(CompletedPart.builder().partNumber(part.partNumber()).eTag(part.eTag()).build());
+                        length += part.size();
+                    }
+                }
+                marker = page.nextPartNumberMarker();
+            } while (Boolean.TRUE.equals(page.isTruncated()));
+
+            if (parts.size() != partCount || length != expectedLength) {
+                logger.error("Multipart upload key={} has {} parts of {} bytes, expected {} parts of {} bytes",
+                        objectKey, parts.size(), length, partCount, expectedLength);
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Uploaded chunks do not match the upload length");
+            }
+
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(objectKey)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+            logger.info("Completed multipart upload: bucket={}, key={}, parts={}, size={}", bucketName, objectKey, partCount, length);
+        } catch (NoSuchUploadException e) {
+            if (doesFileExist(objectKey)) {
+                logger.info("Multipart upload of key={} was already completed", objectKey);
+                return;
+            }
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload not found");
+        } catch (S3Exception e) {
+            logger.error("S3Exception while completing multipart upload key={}: {}", objectKey, e.getMessage(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "S3 error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Abort a multipart upload, discarding its parts. An upload that no longer exists counts as aborted.
+     * @param objectKey The object key of the upload
+     * @param uploadId The S3 upload ID
+     * @return true if the upload is gone, false if S3 failed and it may still hold parts
+     */
+    public boolean abortMultipartUpload(String objectKey, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(objectKey)
+                    .uploadId(uploadId)
+                    .build());
+            logger.info("Aborted multipart upload: bucket={}, key={}", bucketName, objectKey);
+            return true;
+        } catch (NoSuchUploadException e) {
+            return true;
+        } catch (S3Exception e) {
+            logger.warn("Failed to abort multipart upload key={}: {}", objectKey, e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * Determine if the file exists in the S3 bucket
      * @param objectKey The S3 object key to check
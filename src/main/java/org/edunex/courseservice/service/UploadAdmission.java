@@ -0,0 +1,207 @@
+package org.edunex.courseservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission control for content uploads. An upload runs only while the number of uploads in progress,
+ * the uploading user's own uploads and the bytes in flight are all within their limits; otherwise it
+ * waits in a bounded queue for up to queue-timeout. Uploads that cannot be admitted are turned away
+ * with a 429, so a burst of uploads cannot take all request threads, heap and temp disk from reads.
+ */
+@Service
+public class UploadAdmission {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadAdmission.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${upload.admission.max-concurrent:8}")
+    private int maxConcurrent;
+
+    @Value("${upload.admission.max-concurrent-per-user:2}")
+    private int maxConcurrentPerUser;
+
+    @Value("${upload.admission.max-in-flight:2GB}")
+    private DataSize maxInFlight;
+
+    @Value("${upload.admission.max-queued:32}")
+    private int maxQueued;
+
+    @Value("${upload.admission.queue-timeout:30s}")
+    private Duration queueTimeout;
+
+    @Value("${upload.admission.retry-after:10s}")
+    private Duration retryAfter;
+
+    // Fair, so a queued upload is not overtaken by every later one each time a slot frees up
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition released = lock.newCondition();
+
+    // Guarded by lock
+    private int active;
+    private long bytesInFlight;
+    private int queued;
+    private final Map<String, Integer> activeByUser = new HashMap<>();
+
+    private Counter admitted;
+    private Counter rejectedPerUser;
+    private Counter rejectedQueueFull;
+    private Counter rejectedTimeout;
+
+    /**
+     * An admitted upload; closing it frees its slot and bytes for the next one
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final String userId;
+        private final long bytes;
+        private boolean closed;
+
+        private Permit(String userId, long bytes) {
+            this.userId = userId;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                active--;
+                bytesInFlight -= bytes;
+                activeByUser.computeIfPresent(userId, (user, count) -> count > 1 ? count - 1 : null);
+                released.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("upload.admission.active", this, admission -> admission.read(() -> admission.active))
+                .description("Uploads in progress")
+                .register(meterRegistry);
+        Gauge.builder("upload.admission.queued", this, admission -> admission.read(() -> admission.queued))
+                .description("Uploads waiting to be admitted")
+                .register(meterRegistry);
+        Gauge.builder("upload.admission.in-flight", this, admission -> admission.read(() -> admission.bytesInFlight))
+                .description("Bytes of the uploads in progress")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        admitted = meterRegistry.counter("upload.admission.admitted");
+        rejectedPerUser = meterRegistry.counter("upload.admission.rejected", "reason", "per-user");
+        rejectedQueueFull = meterRegistry.counter("upload.admission.rejected", "reason", "queue-full");
+        rejectedTimeout = meterRegistry.counter("upload.admission.rejected", "reason", "timeout");
+    }
+
+    /**
+     * Admit an upload, waiting in the queue if the limits are reached
+     * @param userId The uploading user
+     * @param bytes The size of the upload, or -1 if unknown; counted as at most the whole byte budget
+     * @return The permit to close once the upload is finished
+     * @throws ResponseStatusException 429 if the user has too many uploads in progress, the queue is
+     *         full, or the upload was not admitted within queue-timeout
+     */
+    public Permit admit(String userId, long bytes) {
+        long budget = maxInFlight.toBytes();
+        long charged = bytes < 0 ? budget : Math.min(bytes, budget);
+
+        lock.lock();
+        try {
+            // Waiting would only hold a request thread for an upload the user's own uploads are blocking
+            if (activeByUser.getOrDefault(userId, 0) >= maxConcurrentPerUser) {
+                rejectedPerUser.increment();
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                        "Too many uploads in progress for this user");
+            }
+            if (!fits(userId, charged)) {
+                if (queued >= maxQueued) {
+                    rejectedQueueFull.increment();
+                    throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Upload queue is full");
+                }
+                waitToFit(userId, charged);
+            }
+
+            active++;
+            bytesInFlight += charged;
+            activeByUser.merge(userId, 1, Integer::sum);
+            admitted.increment();
+            return new Permit(userId, charged);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void waitToFit(String userId, long charged) {
+        queued++;
+        try {
+            long remaining = queueTimeout.toNanos();
+            while (!fits(userId, charged)) {
+                if (remaining <= 0) {
+                    rejectedTimeout.increment();
+                    logger.info("Upload of {} bytes for userId={} not admitted within {}", charged, userId, queueTimeout);
+                    throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Upload not admitted in time");
+                }
+                remaining = released.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting to upload");
+        } finally {
+            queued--;
+        }
+    }
+
+    // An upload as large as the whole budget still runs, once nothing else is in flight
+    private boolean fits(String userId, long charged) {
+        return active < maxConcurrent
+                && bytesInFlight + charged <= maxInFlight.toBytes()
+                && activeByUser.getOrDefault(userId, 0) < maxConcurrentPerUser;
+    }
+
+    private double read(LongSupplier value) {
+        lock.lock();
+        try {
+            return value.getAsLong();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of uploads waiting to be admitted
+     */
+    public int getQueued() {
+        return (int) read(() -> queued);
+    }
+
+    /**
+     * @return Seconds a rejected client should wait before retrying, for the Retry-After header
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, retryAfter.toSeconds());
+    }
+}
@@ -1,25 +1,30 @@
 package org.edunex.courseservice.service.impl;
 
 import org.edunex.courseservice.dto.CourseDTO;
-import org.edunex.courseservice.dto.ModuleDTO;
+import org.edunex.courseservice.dto.CourseSummaryDTO;
 import org.edunex.courseservice.model.Course;
 import org.edunex.courseservice.model.CourseStatus;
 import org.edunex.courseservice.repository.CourseRepository;
-import org.edunex.courseservice.repository.EnrollmentRepository;
 import org.edunex.courseservice.repository.ModuleRepository;
 import org.edunex.courseservice.repository.ProgressRepository;
+import org.edunex.courseservice.repository.S3DeletionRepository;
 import org.edunex.courseservice.service.CourseService;
+import org.edunex.courseservice.service.EnrollmentCache;
 import org.edunex.courseservice.service.S3Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,48 +39,103 @@ public class CourseServiceImpl implements CourseService {
     private ModuleRepository moduleRepository;
 
     @Autowired
-    private EnrollmentRepository enrollmentRepository;
+    private ProgressRepository progressRepository;
 
     @Autowired
-    private ProgressRepository progressRepository;
+    private EnrollmentCache enrollmentCache;
     
     @Autowired
     private S3Service s3Service;
 
+    @Autowired
+    private S3DeletionRepository s3DeletionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Transactional(readOnly = true)
     public List<CourseDTO> getAllCourses(String userId, CourseStatus status) {
-        List<Course> courses;
+        List<CourseDTO> courses;
 
         if (userId == null) {
             // Return courses filtered by status
-            courses = courseRepository.findByStatus(status);
+            courses = courseRepository.findDTOsByStatus(status);
+        } else if (courseRepository.existsByInstructorId(userId)) {
+            // If the user is an instructor, they can see all their courses
+            // If status is specified, filter by status
+            courses = status != null
+                    ? courseRepository.findDTOsByInstructorIdAndStatus(userId, status)
+                    : courseRepository.findDTOsByInstructorId(userId);
+        } else {
+            // For a regular user, show their enrolled courses with the specified status
+            courses = courseRepository.findEnrolledDTOsByUserIdAndStatus(userId, status);
+        }
+
+        return completeCourseDTOs(courses, userId);
+    }
+    
+    /**
+     * Same selection as {@link #getAllCourses(String, CourseStatus)}, returned as compact summaries
+     * read with projection queries instead of full course entities
+     * @param userId The ID of the user, or null for the public catalogue
+     * @param status The course status to filter by
+     * @return The course summaries
+     */
+    @Transactional(readOnly = true)
+    public List<CourseSummaryDTO> getCourseSummaries(String userId, CourseStatus status) {
+        List<CourseSummaryDTO> summaries;
+
+        if (userId == null) {
+            summaries = courseRepository.findSummariesByStatus(status);
+        } else if (courseRepository.existsByInstructorId(userId)) {
+            summaries = status != null
+                    ? courseRepository.findSummariesByInstructorIdAndStatus(userId, status)
+                    : courseRepository.findSummariesByInstructorId(userId);
         } else {
-            // Check if this user is an instructor with courses
-            List<Course> instructorCourses = courseRepository.findByInstructorId(userId);
-            if (instructorCourses != null && !instructorCourses.isEmpty()) {
-                // If the user is an instructor, they can see all their courses
-                // If status is specified, filter by status
-                if (status != null) {
-                    courses = courseRepository.findByInstructorIdAndStatus(userId, status);
-                } else {
-                    // If no status is specified, show all their instructor courses
-                    courses = instructorCourses;
+            summaries = courseRepository.findEnrolledSummariesByUserIdAndStatus(userId, status);
+        }
+
+        if (userId != null && !summaries.isEmpty()) {
+            Map<Long, Long> completedByCourse = countCompletedModules(userId,
+                    summaries.stream().map(CourseSummaryDTO::getId).collect(Collectors.toList()));
+
+            for (CourseSummaryDTO summary : summaries) {
+                summary.setUserEnrolled(enrollmentCache.isEnrolled(userId, summary.getId()));
+                if (summary.isUserEnrolled() && summary.getModuleCount() > 0) {
+                    long completedModules = completedByCourse.getOrDefault(summary.getId(), 0L);
+                    summary.setCompletionPercentage((double) completedModules / summary.getModuleCount() * 100);
                 }
-            } else {
-                // For a regular user, show their enrolled courses with the specified status
-                courses = courseRepository.findEnrolledCoursesByUserIdAndStatus(userId, status);
             }
         }
 
-        return mapToCourseDTOs(courses, userId);
+        return summaries;
     }
-    
+
     // Keep the old method for backward compatibility
+    @Transactional(readOnly = true)
     public List<CourseDTO> getAllCourses(String userId) {
         return getAllCourses(userId, CourseStatus.PUBLISHED);
     }
 
+    /**
+     * Compute the ETag of a course response for a user without loading or mapping the course
+     * @param id The course ID
+     * @param userId The ID of the requesting user, or null
+     * @param includeModules Whether the response includes the course's modules
+     * @return The ETag, or null if the course does not exist
+     */
+    @Transactional(readOnly = true)
+    public String getCourseETag(Long id, String userId, boolean includeModules) {
+        String representation = (includeModules ? "course-modules" : "course")
+                + (enrollmentCache.isEnrolled(userId, id) ? "-enrolled" : "");
+        return courseRepository.findVersionById(id, userId)
+                .map(version -> version.toETag(representation))
+                .orElse(null);
+    }
+
+    @Transactional(readOnly = true)
     public CourseDTO getCourseById(Long id, String userId, boolean includeModules) {
-        Course course = courseRepository.findById(id)
+        CourseDTO course = courseRepository.findDTOById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found"));
                 
         // If no specific user and course is not published, return 403
@@ -83,11 +143,12 @@ public class CourseServiceImpl implements CourseService {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Course not available");
         }
         
-        return mapToCourseDTO(course, userId, includeModules);
+        return completeCourseDTO(course, userId, includeModules);
     }
     
+    @Transactional(readOnly = true)
     public CourseDTO getCourseById(Long id, String userId, boolean includeModules, CourseStatus requiredStatus) {
-        Course course = courseRepository.findById(id)
+        CourseDTO course = courseRepository.findDTOById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found"));
                 
         // If requiredStatus is provided, check that the course matches
@@ -101,16 +162,18 @@ public class CourseServiceImpl implements CourseService {
             }
         }
         
-        return mapToCourseDTO(course, userId, includeModules);
+        return completeCourseDTO(course, userId, includeModules);
     }
 
+    @Transactional(readOnly = true)
     public List<CourseDTO> getCoursesByInstructorId(String instructorId, String userId) {
         // By default, only return published courses
         return getCoursesByInstructorId(instructorId, userId, CourseStatus.PUBLISHED);
     }
     
+    @Transactional(readOnly = true)
     public List<CourseDTO> getCoursesByInstructorId(String instructorId, String userId, CourseStatus status) {
-        List<Course> courses;
+        List<CourseDTO> courses;
         
         // Check if the requesting user is the instructor
         boolean isOwnCourses = userId != null && userId.equals(instructorId);
@@ -119,51 +182,58 @@ public class CourseServiceImpl implements CourseService {
             // For instructors viewing their own courses, show all courses regardless of status
             // If a specific status is requested, still apply that filter
             if (status != null) {
-                courses = courseRepository.findByInstructorIdAndStatus(instructorId, status);
+                courses = courseRepository.findDTOsByInstructorIdAndStatus(instructorId, status);
             } else {
                 // If no status specified, return all courses for the instructor
-                courses = courseRepository.findByInstructorId(instructorId);
+                courses = courseRepository.findDTOsByInstructorId(instructorId);
             }
         } else {
             // For other users viewing an instructor's courses, only show courses with the requested status
-            courses = courseRepository.findByInstructorIdAndStatus(instructorId, status);
+            courses = courseRepository.findDTOsByInstructorIdAndStatus(instructorId, status);
         }
         
-        return mapToCourseDTOs(courses, userId);
+        return completeCourseDTOs(courses, userId);
     }
 
+    @Transactional(readOnly = true)
     public List<CourseDTO> getCoursesByCategory(String category, String userId) {
         // By default, only return published courses
         return getCoursesByCategory(category, userId, CourseStatus.PUBLISHED);
     }
     
+    @Transactional(readOnly = true)
     public List<CourseDTO> getCoursesByCategory(String category, String userId, CourseStatus status) {
         // Need to filter by category and status
-        List<Course> courses = courseRepository.findByCategoryAndStatus(category, status);
-        return mapToCourseDTOs(courses, userId);
+        List<CourseDTO> courses = courseRepository.findDTOsByCategoryAndStatus(category, status);
+        return completeCourseDTOs(courses, userId);
     }
 
+    @Transactional(readOnly = true)
     public List<CourseDTO> getEnrolledCourses(String userId) {
         // By default, only return published courses
         return getEnrolledCourses(userId, CourseStatus.PUBLISHED);
     }
     
+    @Transactional(readOnly = true)
     public List<CourseDTO> getEnrolledCourses(String userId, CourseStatus status) {
-        List<Course> courses = courseRepository.findEnrolledCoursesByUserIdAndStatus(userId, status);
-        return mapToCourseDTOs(courses, userId);
+        List<CourseDTO> courses = courseRepository.findEnrolledDTOsByUserIdAndStatus(userId, status);
+        return completeCourseDTOs(courses, userId);
     }
 
+    @Transactional(readOnly = true)
     public List<CourseDTO> searchCourses(String query, String userId) {
         // By default, only return published courses when searching
-        List<Course> courses = courseRepository.searchCoursesByStatus(query, CourseStatus.PUBLISHED);
-        return mapToCourseDTOs(courses, userId);
+        List<CourseDTO> courses = courseRepository.searchDTOsByStatus(query, CourseStatus.PUBLISHED);
+        return completeCourseDTOs(courses, userId);
     }
     
+    @Transactional(readOnly = true)
     public List<CourseDTO> searchCourses(String query, String userId, CourseStatus status) {
-        List<Course> courses = courseRepository.searchCoursesByStatus(query, status);
-        return mapToCourseDTOs(courses, userId);
+        List<CourseDTO> courses = courseRepository.searchDTOsByStatus(query, status);
+        return completeCourseDTOs(courses, userId);
     }
 
+    @Transactional
     public CourseDTO createCourse(CourseDTO courseDTO) {
         logger.debug("createCourse called with title={}, instructorId={}", courseDTO.getTitle(), courseDTO.getInstructorId());
         Course course = new Course();
@@ -185,6 +255,7 @@ public class CourseServiceImpl implements CourseService {
         return mapToCourseDTO(savedCourse, null, false);
     }
 
+    @Transactional
     public CourseDTO updateCourse(Long id, CourseDTO courseDTO) {
         logger.debug("updateCourse called for id={} with title={}", id, courseDTO.getTitle());
         Course course = courseRepository.findById(id)
@@ -201,18 +272,23 @@ public class CourseServiceImpl implements CourseService {
 
         // Instructor can't be changed unless by admin - would need additional checks here
 
-        Course updatedCourse = courseRepository.save(course);
-        logger.info("Updated course id={}", updatedCourse.getId());
-        return mapToCourseDTO(updatedCourse, null, false);
+        courseRepository.save(course);
+        logger.info("Updated course id={}", id);
+        // Counts come from the projection instead of loading the course's modules and enrollments
+        return courseRepository.findDTOById(id).orElseThrow();
     }
 
+    @Transactional
     public void deleteCourse(Long id) {
         logger.debug("deleteCourse called for id={}", id);
         if (!courseRepository.existsById(id)) {
             logger.warn("Attempted to delete non-existing course id={}", id);
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found");
         }
-        courseRepository.deleteById(id);
+        // Set-based deletes instead of cascading through every loaded module and enrollment
+        courseRepository.deleteCourseTree(id);
+        // The course's enrollments are deleted with it and could belong to any cached user
+        enrollmentCache.invalidateAll();
         logger.info("Deleted course id={}", id);
     }
 
@@ -235,7 +311,7 @@ public class CourseServiceImpl implements CourseService {
 
         // Check if user is enrolled
         if (userId != null) {
-            dto.setUserEnrolled(enrollmentRepository.existsByUserIdAndCourseId(userId, course.getId()));
+            dto.setUserEnrolled(enrollmentCache.isEnrolled(userId, course.getId()));
 
             // Calculate completion percentage if user is enrolled
             if (dto.isUserEnrolled()) {
@@ -247,28 +323,7 @@ public class CourseServiceImpl implements CourseService {
 
         // Include modules if requested
         if (includeModules) {
-            List<ModuleDTO> moduleDTOs = moduleRepository.findByCourseIdOrderByModuleOrder(course.getId())
-                    .stream()
-                    .map(module -> {
-                        ModuleDTO moduleDTO = new ModuleDTO();
-                        moduleDTO.setId(module.getId());
-                        moduleDTO.setTitle(module.getTitle());
-                        moduleDTO.setType(module.getType());
-                        moduleDTO.setCoinsRequired(module.getCoinsRequired());
-                        moduleDTO.setContentUrl(module.getContentUrl());
-                        moduleDTO.setModuleOrder(module.getModuleOrder());
-                        moduleDTO.setCourseId(course.getId());
-                        moduleDTO.setCourseName(course.getTitle());
-
-                        if (module.getQuiz() != null) {
-                            moduleDTO.setQuizId(module.getQuiz().getId());
-                        }
-
-                        return moduleDTO;
-                    })
-                    .collect(Collectors.toList());
-
-            dto.setModules(moduleDTOs);
+            dto.setModules(moduleRepository.findDTOsByCourseIdOrderByModuleOrder(course.getId()));
         }
 
         return dto;
@@ -279,6 +334,50 @@ public class CourseServiceImpl implements CourseService {
                 .map(course -> mapToCourseDTO(course, userId, false))
                 .collect(Collectors.toList());
     }
+
+    /**
+     * Fill in the per-user fields of projected course DTOs, counting completed modules
+     * for all of the courses with one grouped query
+     */
+    private List<CourseDTO> completeCourseDTOs(List<CourseDTO> courses, String userId) {
+        if (userId == null || courses.isEmpty()) {
+            return courses;
+        }
+
+        Map<Long, Long> completedByCourse = countCompletedModules(userId,
+                courses.stream().map(CourseDTO::getId).collect(Collectors.toList()));
+        for (CourseDTO course : courses) {
+            course.setUserEnrolled(enrollmentCache.isEnrolled(userId, course.getId()));
+            if (course.isUserEnrolled() && course.getModuleCount() > 0) {
+                long completedModules = completedByCourse.getOrDefault(course.getId(), 0L);
+                course.setCompletionPercentage((double) completedModules / course.getModuleCount() * 100);
+            }
+        }
+        return courses;
+    }
+
+    private CourseDTO completeCourseDTO(CourseDTO course, String userId, boolean includeModules) {
+        if (userId != null) {
+            course.setUserEnrolled(enrollmentCache.isEnrolled(userId, course.getId()));
+            if (course.isUserEnrolled() && course.getModuleCount() > 0) {
+                Long completedModules = progressRepository.countCompletedModulesByCourseAndUser(userId, course.getId());
+                course.setCompletionPercentage((double) completedModules / course.getModuleCount() * 100);
+            }
+        }
+
+        if (includeModules) {
+            course.setModules(moduleRepository.findDTOsByCourseIdOrderByModuleOrder(course.getId()));
+        }
+        return course;
+    }
+
+    private Map<Long, Long> countCompletedModules(String userId, List<Long> courseIds) {
+        Map<Long, Long> completedByCourse = new HashMap<>();
+        for (Object[] row : progressRepository.countCompletedModulesByCoursesAndUser(userId, courseIds)) {
+            completedByCourse.put((Long) row[0], (Long) row[1]);
+        }
+        return completedByCourse;
+    }
     
     /**
      * Upload a thumbnail image for a course
@@ -294,25 +393,28 @@ public class CourseServiceImpl implements CourseService {
         Course course = courseRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found"));
         
-        // Delete old thumbnail if it exists
-        if (course.getThumbnailObjectKey() != null && !course.getThumbnailObjectKey().isEmpty()) {
-            s3Service.deleteFile(course.getThumbnailObjectKey());
-        }
-        
+        // The old thumbnail is queued for deletion with the update; a cloned course may still be using it
+        String previousKey = course.getThumbnailObjectKey();
+
         // Upload the new thumbnail
         String objectKey = s3Service.uploadCourseThumbnail(file, id);
         
         // Generate CloudFront URL
         String thumbnailUrl = s3Service.getCloudFrontUrl(objectKey);
         
-        // Update course with new thumbnail details
-        course.setThumbnailObjectKey(objectKey);
-        course.setThumbnailUrl(thumbnailUrl);
-        Course updatedCourse = courseRepository.save(course);
-        logger.info("Uploaded thumbnail for courseId={} objectKey={}", id, objectKey);
-        
-        // Return updated course
-        return mapToCourseDTO(updatedCourse, null, false);
+        // Update course with new thumbnail details. The S3 calls above run without a transaction
+        // so only the update and mapping hold a database connection; the course was loaded outside
+        // it, so it is updated by ID rather than merged.
+        return transactionTemplate.execute(status -> {
+            courseRepository.updateThumbnail(id, objectKey, thumbnailUrl);
+            if (previousKey != null && !previousKey.isEmpty()) {
+                s3DeletionRepository.enqueue(previousKey);
+            }
+            logger.info("Uploaded thumbnail for courseId={} objectKey={}", id, objectKey);
+
+            // Return updated course
+            return courseRepository.findDTOById(id).orElseThrow();
+        });
     }
     
     /**
@@ -323,6 +425,7 @@ public class CourseServiceImpl implements CourseService {
      * @return The updated course DTO with PUBLISHED status
      */
     @Override
+    @Transactional
     public CourseDTO publishCourse(Long id, String userId) {
         logger.debug("publishCourse called for id={} by userId={}", id, userId);
         // Find the course
@@ -343,10 +446,10 @@ public class CourseServiceImpl implements CourseService {
         
         // Update the course status to PUBLISHED
         course.setStatus(CourseStatus.PUBLISHED);
-        Course updatedCourse = courseRepository.save(course);
+        courseRepository.save(course);
         logger.info("Published course id={} by instructorId={}", id, userId);
         
         // Return updated course
-        return mapToCourseDTO(updatedCourse, userId, false);
+        return completeCourseDTO(courseRepository.findDTOById(id).orElseThrow(), userId, false);
     }
 }
@@ -0,0 +1,91 @@
+package org.edunex.courseservice.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+
+    private PrimaryStickiness stickiness;
+    private ReplicaRoutingDataSource routingDataSource;
+    private final String TEST_USER_ID = "user-123";
+
+    @BeforeEach
+    void setUp() {
+        stickiness = new PrimaryStickiness(Duration.ofSeconds(5));
+        routingDataSource = new ReplicaRoutingDataSource(stickiness);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Should route read-only transactions to the replica")
+    void determineCurrentLookupKey_whenReadOnly_shouldRouteToReplica() {
+        // Arrange
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Act
+        Object route = routingDataSource.determineCurrentLookupKey();
+
+        // Assert
+        assertThat(route).isEqualTo(ReplicaRoutingDataSource.Route.REPLICA);
+    }
+
+    @Test
+    @DisplayName("Should route read-write transactions to the primary")
+    void determineCurrentLookupKey_whenReadWrite_shouldRouteToPrimary() {
+        // Arrange
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        // Act
+        Object route = routingDataSource.determineCurrentLookupKey();
+
+        // Assert
+        assertThat(route).isEqualTo(ReplicaRoutingDataSource.Route.PRIMARY);
+    }
+
+    @Test
+    @DisplayName("Should keep a user's reads on the primary after they write")
+    void determineCurrentLookupKey_afterWrite_shouldPinUserToPrimary() {
+        // Arrange
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(TEST_USER_ID, null, "ROLE_USER"));
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        routingDataSource.determineCurrentLookupKey();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Act
+        Object route = routingDataSource.determineCurrentLookupKey();
+
+        // Assert
+        assertThat(route).isEqualTo(ReplicaRoutingDataSource.Route.PRIMARY);
+        assertThat(stickiness.isPinned(TEST_USER_ID)).isTrue();
+        assertThat(stickiness.isPinned("other-user")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should release the pin once the sticky window has passed")
+    void isPinned_afterWindowExpires_shouldReturnFalse() {
+        // Arrange
+        PrimaryStickiness noWindow = new PrimaryStickiness(Duration.ZERO);
+
+        // Act
+        noWindow.recordWrite(TEST_USER_ID);
+
+        // Assert
+        assertThat(noWindow.isPinned(TEST_USER_ID)).isFalse();
+    }
+}
@@ -0,0 +1,86 @@
+package org.edunex.courseservice.model;
+
+import jakarta.persistence.Entity;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.mapping.OneToOne;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.Property;
+import org.hibernate.mapping.ToOne;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the Hibernate mapping of Module, built from the entity annotations without a database.
+ * Loading a module must not cost extra queries: every to-one association has to be a lazy proxy,
+ * and the quiz is read as an ID in the module's own statement instead of an inverse @OneToOne.
+ */
+class ModuleMappingTest {
+
+    private static StandardServiceRegistry registry;
+    private static PersistentClass moduleMapping;
+
+    @BeforeAll
+    static void buildMetadata() {
+        registry = new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect")
+                .applySetting("hibernate.boot.allow_jdbc_metadata_access", "false")
+                .build();
+        MetadataSources sources = new MetadataSources(registry);
+
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Entity.class));
+        for (BeanDefinition entity : scanner.findCandidateComponents(Module.class.getPackageName())) {
+            sources.addAnnotatedClassName(entity.getBeanClassName());
+        }
+
+        Metadata metadata = sources.buildMetadata();
+        moduleMapping = metadata.getEntityBinding(Module.class.getName());
+    }
+
+    @AfterAll
+    static void destroyRegistry() {
+        StandardServiceRegistryBuilder.destroy(registry);
+    }
+
+    @Test
+    @DisplayName("Should not map the quiz as an association of Module")
+    void module_shouldNotHaveQuizAssociation() {
+        // Act
+        boolean hasQuiz = moduleMapping.getProperties().stream().anyMatch(property -> property.getName().equals("quiz"));
+
+        // Assert
+        assertThat(hasQuiz).isFalse();
+        assertThat(moduleMapping.getProperty("quizId").getValue().hasFormula()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should map every to-one association of Module as a lazy, proxyable owning side")
+    void module_toOneAssociations_shouldBeProxyable() {
+        // Act
+        List<Property> toOnes = moduleMapping.getProperties().stream()
+                .filter(property -> property.getValue() instanceof ToOne)
+                .toList();
+
+        // Assert
+        assertThat(toOnes).extracting(Property::getName).containsExactly("course");
+        for (Property property : toOnes) {
+            ToOne toOne = (ToOne) property.getValue();
+            assertThat(toOne.isLazy()).as("%s is lazy", property.getName()).isTrue();
+            if (toOne instanceof OneToOne oneToOne) {
+                assertThat(oneToOne.getMappedByProperty()).as("%s is an inverse @OneToOne", property.getName()).isNull();
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.edunex.courseservice.repository;
+
+import org.edunex.courseservice.model.enums.ModuleType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ModuleRepositoryCustomImplTest {
+
+    private RecordingJdbc jdbc;
+    private ModuleRepositoryCustomImpl moduleRepository;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new RecordingJdbc();
+        moduleRepository = new ModuleRepositoryCustomImpl();
+        ReflectionTestUtils.setField(moduleRepository, "jdbcTemplate", jdbc.jdbcTemplate());
+    }
+
+    @Test
+    @DisplayName("Should swap the content key and read the old one from the locked row in one statement")
+    void replaceContent_shouldReturnPreviousKeyFromOneStatement() {
+        // Arrange
+        jdbc.returning(List.of(Map.of("content_url", "module-1/old.mp4")));
+
+        // Act
+        Optional<ModuleRepositoryCustom.PreviousContent> previous =
+                moduleRepository.replaceContent(1L, "content/abc/lecture.pdf", ModuleType.PDF);
+
+        // Assert
+        assertThat(previous).contains(new ModuleRepositoryCustom.PreviousContent("module-1/old.mp4"));
+        assertThat(jdbc.statements()).hasSize(1);
+        RecordingJdbc.Statement statement = jdbc.statements().get(0);
+        assertThat(statement.sql()).contains("FOR UPDATE").contains("RETURNING previous.content_url");
+        assertThat(statement.parameters()).isEqualTo(Map.of(1, "content/abc/lecture.pdf", 2, "PDF", 3, 1L));
+    }
+
+    @Test
+    @DisplayName("Should return nothing when the module does not exist")
+    void replaceContent_whenModuleMissing_shouldReturnEmpty() {
+        // Act
+        Optional<ModuleRepositoryCustom.PreviousContent> previous =
+                moduleRepository.replaceContent(1L, "content/abc/lecture.pdf", ModuleType.PDF);
+
+        // Assert
+        assertThat(previous).isEmpty();
+        assertThat(jdbc.statements()).hasSize(1);
+    }
+}
@@ -0,0 +1,104 @@
+package org.edunex.courseservice.repository;
+
+import org.edunex.courseservice.dto.ProgressDTO;
+import org.edunex.courseservice.model.enums.ModuleType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProgressRepositoryCustomImplTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 19, 12, 0);
+
+    private RecordingJdbc jdbc;
+    private ProgressRepositoryCustomImpl progressRepository;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new RecordingJdbc();
+        progressRepository = new ProgressRepositoryCustomImpl();
+        ReflectionTestUtils.setField(progressRepository, "jdbcTemplate", jdbc.jdbcTemplate());
+    }
+
+    @Test
+    @DisplayName("Should complete a module, bump the row version and append a COMPLETED event in one statement")
+    void upsertCompleted_shouldRunOneStatement() {
+        // Arrange
+        jdbc.returning(List.of(progressRow(true, NOW)));
+
+        // Act
+        Optional<ProgressDTO> result = progressRepository.upsertCompleted("user-1", 10L, NOW);
+
+        // Assert
+        assertThat(jdbc.statements()).hasSize(1);
+        RecordingJdbc.Statement statement = jdbc.statements().get(0);
+        assertThat(statement.sql())
+                .contains("SELECT ?, m.id, true, ?, 0 FROM modules m WHERE m.id = ?")
+                .contains("ON CONFLICT (user_id, module_id) DO UPDATE")
+                .contains("version = progress.version + 1")
+                .contains("INSERT INTO progress_events");
+        assertThat(statement.parameters()).isEqualTo(Map.of(1, "user-1", 2, NOW, 3, 10L, 4, "COMPLETED"));
+        assertThat(result).contains(new ProgressDTO(5L, "user-1", 10L, "Intro", ModuleType.VIDEO, true, NOW, 3L, "Course"));
+    }
+
+    @Test
+    @DisplayName("Should return nothing when the module does not exist")
+    void upsertCompleted_withMissingModule_shouldReturnEmpty() {
+        // Act
+        Optional<ProgressDTO> result = progressRepository.upsertCompleted("user-1", 99L, NOW);
+
+        // Assert
+        assertThat(result).isEmpty();
+        assertThat(jdbc.statements()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should reset progress, bump the row version and append a RESET event in one statement")
+    void reset_shouldRunOneStatement() {
+        // Arrange
+        jdbc.returning(List.of(progressRow(false, null)));
+
+        // Act
+        Optional<ProgressDTO> result = progressRepository.reset("user-1", 10L, NOW);
+
+        // Assert
+        assertThat(jdbc.statements()).hasSize(1);
+        RecordingJdbc.Statement statement = jdbc.statements().get(0);
+        assertThat(statement.sql())
+                .contains("SET completed = false, completed_at = NULL, version = version + 1")
+                .contains("WHERE user_id = ? AND module_id = ?")
+                .contains("INSERT INTO progress_events");
+        assertThat(statement.parameters()).isEqualTo(Map.of(1, "user-1", 2, 10L, 3, "RESET", 4, NOW));
+        assertThat(result).get().extracting(ProgressDTO::isCompleted).isEqualTo(false);
+    }
+
+    @Test
+    @DisplayName("Should return nothing when the user has no progress on the module")
+    void reset_withoutProgress_shouldReturnEmpty() {
+        // Act & Assert
+        assertThat(progressRepository.reset("user-1", 10L, NOW)).isEmpty();
+    }
+
+    private Map<String, Object> progressRow(boolean completed, LocalDateTime completedAt) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", 5L);
+        row.put("user_id", "user-1");
+        row.put("module_id", 10L);
+        row.put("module_title", "Intro");
+        row.put("module_type", "VIDEO");
+        row.put("completed", completed);
+        row.put("completed_at", completedAt);
+        row.put("course_id", 3L);
+        row.put("course_title", "Course");
+        return row;
+    }
+}
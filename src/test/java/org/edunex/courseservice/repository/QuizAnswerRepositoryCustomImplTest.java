@@ -0,0 +1,58 @@
+package org.edunex.courseservice.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QuizAnswerRepositoryCustomImplTest {
+
+    private RecordingJdbc jdbc;
+    private QuizAnswerRepositoryCustomImpl quizAnswerRepository;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new RecordingJdbc();
+        quizAnswerRepository = new QuizAnswerRepositoryCustomImpl();
+        ReflectionTestUtils.setField(quizAnswerRepository, "jdbcTemplate", jdbc.jdbcTemplate());
+    }
+
+    @Test
+    @DisplayName("Should insert an answer with its question_id in one statement, reading no question or sibling answers")
+    void insertAnswer_shouldRunOneStatement() {
+        // Arrange
+        jdbc.returning(List.of(Map.of("id", 40L)));
+
+        // Act
+        Long id = quizAnswerRepository.insertAnswer(12L, "A monoid in the category of endofunctors", true);
+
+        // Assert
+        assertThat(id).isEqualTo(40L);
+        assertThat(jdbc.statements()).hasSize(1);
+        RecordingJdbc.Statement statement = jdbc.statements().get(0);
+        assertThat(statement.sql()).contains("INSERT INTO quiz_answers (answer_text, correct, question_id) VALUES (?, ?, ?) RETURNING id");
+        assertThat(statement.parameters()).isEqualTo(Map.of(1, "A monoid in the category of endofunctors", 2, true, 3, 12L));
+    }
+
+    @Test
+    @DisplayName("Should report no rows when updating an answer that does not exist")
+    void updateAnswer_withMissingAnswer_shouldReturnZero() {
+        // Arrange
+        jdbc.updating(0);
+
+        // Act
+        int updated = quizAnswerRepository.updateAnswer(99L, 12L, "Yes", false);
+
+        // Assert
+        assertThat(updated).isZero();
+        assertThat(jdbc.statements()).hasSize(1);
+        RecordingJdbc.Statement statement = jdbc.statements().get(0);
+        assertThat(statement.sql()).contains("UPDATE quiz_answers SET answer_text = ?, correct = ?, question_id = ? WHERE id = ?");
+        assertThat(statement.parameters()).isEqualTo(Map.of(1, "Yes", 2, false, 3, 12L, 4, 99L));
+    }
+}
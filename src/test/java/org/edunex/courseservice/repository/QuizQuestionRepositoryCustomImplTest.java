@@ -0,0 +1,58 @@
+package org.edunex.courseservice.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QuizQuestionRepositoryCustomImplTest {
+
+    private RecordingJdbc jdbc;
+    private QuizQuestionRepositoryCustomImpl quizQuestionRepository;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new RecordingJdbc();
+        quizQuestionRepository = new QuizQuestionRepositoryCustomImpl();
+        ReflectionTestUtils.setField(quizQuestionRepository, "jdbcTemplate", jdbc.jdbcTemplate());
+    }
+
+    @Test
+    @DisplayName("Should insert a question with its quiz_id in one statement, reading no quiz or sibling questions")
+    void insertQuestion_shouldRunOneStatement() {
+        // Arrange
+        jdbc.returning(List.of(Map.of("id", 12L)));
+
+        // Act
+        Long id = quizQuestionRepository.insertQuestion(3L, "What is a monad?");
+
+        // Assert
+        assertThat(id).isEqualTo(12L);
+        assertThat(jdbc.statements()).hasSize(1);
+        RecordingJdbc.Statement statement = jdbc.statements().get(0);
+        assertThat(statement.sql()).contains("INSERT INTO quiz_questions (question_text, quiz_id) VALUES (?, ?) RETURNING id");
+        assertThat(statement.parameters()).isEqualTo(Map.of(1, "What is a monad?", 2, 3L));
+    }
+
+    @Test
+    @DisplayName("Should move a question to another quiz with one update")
+    void updateQuestion_shouldRunOneStatement() {
+        // Arrange
+        jdbc.updating(1);
+
+        // Act
+        int updated = quizQuestionRepository.updateQuestion(12L, 4L, "What is a functor?");
+
+        // Assert
+        assertThat(updated).isEqualTo(1);
+        assertThat(jdbc.statements()).hasSize(1);
+        RecordingJdbc.Statement statement = jdbc.statements().get(0);
+        assertThat(statement.sql()).contains("UPDATE quiz_questions SET question_text = ?, quiz_id = ? WHERE id = ?");
+        assertThat(statement.parameters()).isEqualTo(Map.of(1, "What is a functor?", 2, 4L, 3, 12L));
+    }
+}
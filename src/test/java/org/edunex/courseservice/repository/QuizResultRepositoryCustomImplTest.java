@@ -0,0 +1,85 @@
+package org.edunex.courseservice.repository;
+
+import org.edunex.courseservice.dto.QuizResultDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QuizResultRepositoryCustomImplTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 19, 12, 0);
+
+    private RecordingJdbc jdbc;
+    private QuizResultRepositoryCustomImpl quizResultRepository;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new RecordingJdbc();
+        quizResultRepository = new QuizResultRepositoryCustomImpl();
+        ReflectionTestUtils.setField(quizResultRepository, "jdbcTemplate", jdbc.jdbcTemplate());
+    }
+
+    @Test
+    @DisplayName("Should insert a result and read its titles back in one statement")
+    void insertResult_shouldRunOneStatement() {
+        // Arrange
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", 7L);
+        row.put("user_id", "user-1");
+        row.put("quiz_id", 2L);
+        row.put("quiz_title", "Quiz");
+        row.put("score", 80);
+        row.put("submitted_at", NOW);
+        row.put("module_title", "Intro");
+        row.put("course_id", 3L);
+        row.put("course_title", "Course");
+        jdbc.returning(List.of(row));
+
+        // Act
+        Optional<QuizResultDTO> result = quizResultRepository.insertResult(2L, "user-1", 80, NOW);
+
+        // Assert
+        assertThat(jdbc.statements()).hasSize(1);
+        RecordingJdbc.Statement statement = jdbc.statements().get(0);
+        assertThat(statement.sql())
+                .contains("INSERT INTO quiz_results (user_id, quiz_id, score, submitted_at)")
+                .contains("FROM quizzes q WHERE q.id = ?");
+        assertThat(statement.parameters()).isEqualTo(Map.of(1, "user-1", 2, 80, 3, NOW, 4, 2L));
+        assertThat(result).contains(new QuizResultDTO(7L, "user-1", 2L, "Quiz", 80, NOW, "Intro", 3L, "Course"));
+    }
+
+    @Test
+    @DisplayName("Should return nothing when the quiz does not exist")
+    void insertResult_withMissingQuiz_shouldReturnEmpty() {
+        // Act & Assert
+        assertThat(quizResultRepository.insertResult(99L, "user-1", 80, NOW)).isEmpty();
+        assertThat(jdbc.statements()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should record a user's first score with a best-score insert and one bucket upsert")
+    void recordScore_forFirstResult_shouldRunTwoStatements() {
+        // Act
+        quizResultRepository.recordScore(2L, "user-1", 80);
+
+        // Assert
+        assertThat(jdbc.statements()).hasSize(2);
+        assertThat(jdbc.statements().get(0).sql()).contains("INSERT INTO quiz_best_scores");
+        assertThat(jdbc.statements().get(0).parameters()).isEqualTo(Map.of(1, 2L, 2, "user-1", 3, 80));
+        RecordingJdbc.Statement buckets = jdbc.statements().get(1);
+        assertThat(buckets.sql()).contains("INSERT INTO quiz_score_buckets").contains("ON CONFLICT (quiz_id, score) DO UPDATE");
+        assertThat(buckets.parameters().get(1)).isEqualTo(2L);
+        assertThat((Object[]) buckets.parameters().get(2)).containsExactly(80);
+        assertThat((Object[]) buckets.parameters().get(3)).containsExactly(1L);
+        assertThat((Object[]) buckets.parameters().get(4)).containsExactly(1L);
+    }
+}
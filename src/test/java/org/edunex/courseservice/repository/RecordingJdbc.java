@@ -0,0 +1,124 @@
+package org.edunex.courseservice.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A JdbcTemplate over a mocked connection that records every statement prepared through it, with
+ * its bound parameters, and answers queries with queued rows. Lets repository tests check the exact
+ * statements a write runs without a database.
+ */
+class RecordingJdbc {
+
+    record Statement(String sql, Map<Integer, Object> parameters) {
+    }
+
+    private final List<Statement> statements = new ArrayList<>();
+    private final Deque<List<Map<String, Object>>> results = new ArrayDeque<>();
+    private final Deque<Integer> updateCounts = new ArrayDeque<>();
+    private final JdbcTemplate jdbcTemplate;
+
+    RecordingJdbc() {
+        try {
+            Connection connection = mock(Connection.class);
+            when(connection.prepareStatement(anyString())).thenAnswer(invocation -> prepare(invocation.getArgument(0)));
+            when(connection.createArrayOf(anyString(), any())).thenAnswer(invocation -> {
+                Array array = mock(Array.class);
+                when(array.getArray()).thenReturn(invocation.getArgument(1));
+                return array;
+            });
+            DataSource dataSource = mock(DataSource.class);
+            when(dataSource.getConnection()).thenReturn(connection);
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    JdbcTemplate jdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    List<Statement> statements() {
+        return statements;
+    }
+
+    /**
+     * Rows returned by the next query; queries with nothing queued return no rows
+     */
+    RecordingJdbc returning(List<Map<String, Object>> rows) {
+        results.add(rows);
+        return this;
+    }
+
+    /**
+     * Row count returned by the next update; updates with nothing queued report one row
+     */
+    RecordingJdbc updating(int count) {
+        updateCounts.add(count);
+        return this;
+    }
+
+    private PreparedStatement prepare(String sql) {
+        Map<Integer, Object> parameters = new HashMap<>();
+        statements.add(new Statement(sql, parameters));
+        return mock(PreparedStatement.class, invocation -> {
+            String method = invocation.getMethod().getName();
+            Object[] arguments = invocation.getArguments();
+            if (method.startsWith("set") && arguments.length >= 2 && arguments[0] instanceof Integer index) {
+                Object value = arguments[1] instanceof Array array ? array.getArray() : arguments[1];
+                parameters.put(index, value);
+                return null;
+            }
+            if (method.equals("executeQuery")) {
+                return resultSet(results.isEmpty() ? List.of() : results.poll());
+            }
+            if (method.equals("executeUpdate")) {
+                return updateCounts.isEmpty() ? 1 : updateCounts.poll();
+            }
+            return RETURNS_DEFAULTS.answer(invocation);
+        });
+    }
+
+    private static ResultSet resultSet(List<Map<String, Object>> rows) {
+        Iterator<Map<String, Object>> iterator = rows.iterator();
+        Map<String, Object>[] current = new Map[1];
+        return mock(ResultSet.class, invocation -> {
+            String method = invocation.getMethod().getName();
+            if (method.equals("next")) {
+                current[0] = iterator.hasNext() ? iterator.next() : null;
+                return current[0] != null;
+            }
+            if (method.startsWith("get") && invocation.getArguments().length >= 1
+                    && invocation.getArgument(0) instanceof String column) {
+                Object value = current[0].get(column);
+                return switch (method) {
+                    case "getLong" -> value != null ? ((Number) value).longValue() : 0L;
+                    case "getInt" -> value != null ? ((Number) value).intValue() : 0;
+                    case "getBoolean" -> value != null && (Boolean) value;
+                    default -> value;
+                };
+            }
+            return RETURNS_DEFAULTS.answer(invocation);
+        });
+    }
+}
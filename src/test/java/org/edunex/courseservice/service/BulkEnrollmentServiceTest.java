@@ -0,0 +1,176 @@
+package org.edunex.courseservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.edunex.courseservice.repository.CourseRepository;
+import org.edunex.courseservice.repository.EnrollmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkEnrollmentServiceTest {
+
+    @Mock
+    private EnrollmentRepository enrollmentRepository;
+
+    @Mock
+    private CourseRepository courseRepository;
+
+    @Mock
+    private EnrollmentCache enrollmentCache;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private BulkEnrollmentService bulkEnrollmentService;
+
+    private final Long TEST_COURSE_ID = 1L;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(bulkEnrollmentService, "batchSize", 2);
+    }
+
+    @Test
+    @DisplayName("Should enroll users from a JSON array in batches and stream a result per user in input order")
+    void importEnrollments_withJsonArray_shouldStreamResultPerUser() throws Exception {
+        // Arrange
+        String body = "[\"user-1\", \"\", \"user-2\", \"user-3\"]";
+        when(enrollmentRepository.insertAllIfAbsent(TEST_COURSE_ID, Set.of("user-1"))).thenReturn(Set.of("user-1"));
+        when(enrollmentRepository.insertAllIfAbsent(TEST_COURSE_ID, Set.of("user-2", "user-3"))).thenReturn(Set.of("user-3"));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        bulkEnrollmentService.importEnrollments(TEST_COURSE_ID, stream(body), MediaType.APPLICATION_JSON, output);
+
+        // Assert
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).containsExactly(
+                "{\"userId\":\"user-1\",\"status\":\"ENROLLED\"}",
+                "{\"userId\":\"\",\"status\":\"INVALID\"}",
+                "{\"userId\":\"user-2\",\"status\":\"ALREADY_ENROLLED\"}",
+                "{\"userId\":\"user-3\",\"status\":\"ENROLLED\"}"
+        );
+        verify(enrollmentRepository, times(2)).insertAllIfAbsent(eq(TEST_COURSE_ID), anyCollection());
+        verify(enrollmentCache).invalidate("user-1");
+        verify(enrollmentCache).invalidate("user-3");
+        verify(enrollmentCache, never()).invalidate("user-2");
+    }
+
+    @Test
+    @DisplayName("Should read user ids from NDJSON lines")
+    void importEnrollments_withNdjson_shouldReadUserIds() throws Exception {
+        // Arrange
+        String body = "{\"userId\":\"user-1\"}\n\"user-2\"\n";
+        when(enrollmentRepository.insertAllIfAbsent(eq(TEST_COURSE_ID), anyCollection())).thenReturn(Set.of("user-1", "user-2"));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        bulkEnrollmentService.importEnrollments(TEST_COURSE_ID, stream(body), MediaType.APPLICATION_NDJSON, output);
+
+        // Assert
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).containsExactly(
+                "{\"userId\":\"user-1\",\"status\":\"ENROLLED\"}",
+                "{\"userId\":\"user-2\",\"status\":\"ENROLLED\"}"
+        );
+    }
+
+    @Test
+    @DisplayName("Should read the first CSV column, skipping the header and reporting duplicates")
+    void importEnrollments_withCsv_shouldReadFirstColumn() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(bulkEnrollmentService, "batchSize", 1000);
+        String body = "userId,email\n\"user-1\",a@example.com\nuser-2,b@example.com\nuser-1,a@example.com\n";
+        when(enrollmentRepository.insertAllIfAbsent(TEST_COURSE_ID, Set.of("user-1", "user-2"))).thenReturn(Set.of("user-2"));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        bulkEnrollmentService.importEnrollments(TEST_COURSE_ID, stream(body), MediaType.parseMediaType("text/csv"), output);
+
+        // Assert
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).containsExactly(
+                "{\"userId\":\"user-1\",\"status\":\"ALREADY_ENROLLED\"}",
+                "{\"userId\":\"user-2\",\"status\":\"ENROLLED\"}",
+                "{\"userId\":\"user-1\",\"status\":\"DUPLICATE\"}"
+        );
+        verify(enrollmentRepository, times(1)).insertAllIfAbsent(eq(TEST_COURSE_ID), anyCollection());
+    }
+
+    @Test
+    @DisplayName("Should report a malformed NDJSON line and keep reading the lines after it")
+    void importEnrollments_withMalformedNdjsonLine_shouldContinue() throws Exception {
+        // Arrange
+        String body = "\"user-1\"\n{\"userId\": \n\"user-2\"\n";
+        when(enrollmentRepository.insertAllIfAbsent(eq(TEST_COURSE_ID), anyCollection())).thenReturn(Set.of("user-1"), Set.of("user-2"));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        bulkEnrollmentService.importEnrollments(TEST_COURSE_ID, stream(body), MediaType.APPLICATION_NDJSON, output);
+
+        // Assert
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).containsExactly(
+                "{\"userId\":\"user-1\",\"status\":\"ENROLLED\"}",
+                "{\"userId\":null,\"status\":\"MALFORMED\"}",
+                "{\"userId\":\"user-2\",\"status\":\"ENROLLED\"}"
+        );
+    }
+
+    @Test
+    @DisplayName("Should report a broken JSON array and still enroll the users read before it")
+    void importEnrollments_withMalformedJsonArray_shouldReportAndFlush() throws Exception {
+        // Arrange
+        String body = "[\"user-1\", user-2, \"user-3\"]";
+        when(enrollmentRepository.insertAllIfAbsent(TEST_COURSE_ID, Set.of("user-1"))).thenReturn(Set.of("user-1"));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        bulkEnrollmentService.importEnrollments(TEST_COURSE_ID, stream(body), MediaType.APPLICATION_JSON, output);
+
+        // Assert
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).containsExactly(
+                "{\"userId\":\"user-1\",\"status\":\"ENROLLED\"}",
+                "{\"userId\":null,\"status\":\"MALFORMED\"}"
+        );
+    }
+
+    @Test
+    @DisplayName("Should throw exception when importing into a non-existent course")
+    void verifyCourseExists_whenCourseNotFound_shouldThrowException() {
+        // Arrange
+        when(courseRepository.existsById(999L)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(ResponseStatusException.class, () -> bulkEnrollmentService.verifyCourseExists(999L));
+        verify(enrollmentRepository, never()).insertAllIfAbsent(anyLong(), anyCollection());
+    }
+
+    private ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,272 @@
+package org.edunex.courseservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ContentDiskCacheTest {
+
+    @Mock
+    private S3Client s3Client;
+
+    @InjectMocks
+    private ContentDiskCache contentDiskCache;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(contentDiskCache, "bucketName", "test-bucket");
+        ReflectionTestUtils.setField(contentDiskCache, "directory", directory);
+        ReflectionTestUtils.setField(contentDiskCache, "maxBytes", 10L);
+        ReflectionTestUtils.setField(contentDiskCache, "sendfileLinkTtl", Duration.ZERO);
+        contentDiskCache.initialize();
+    }
+
+    @Test
+    @DisplayName("Should fetch an object from S3 once and serve later requests from disk")
+    void serve_shouldFetchEachObjectOnce() throws Exception {
+        // Arrange
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> s3Object("hello"));
+
+        // Act
+        ResponseEntity<?> first = contentDiskCache.serve("module-1/a.pdf", new MockHttpServletRequest()).orElseThrow();
+        ResponseEntity<?> second = contentDiskCache.serve("module-1/a.pdf", new MockHttpServletRequest()).orElseThrow();
+
+        // Assert
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(body(second)).isEqualTo("hello");
+        assertThat(second.getHeaders().getContentLength()).isEqualTo(5);
+        verify(s3Client, times(1)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    @DisplayName("Should share one S3 fetch between concurrent requests for an uncached object")
+    void serve_withConcurrentRequests_shouldFetchOnce() throws Exception {
+        // Arrange
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            fetching.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return s3Object("hello");
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // Act
+            Future<ResponseEntity<?>> first = executor.submit(
+                    () -> contentDiskCache.serve("module-1/a.pdf", new MockHttpServletRequest()).orElseThrow());
+            fetching.await(5, TimeUnit.SECONDS);
+            Future<ResponseEntity<?>> second = executor.submit(
+                    () -> contentDiskCache.serve("module-1/a.pdf", new MockHttpServletRequest()).orElseThrow());
+            Thread.sleep(100);
+            release.countDown();
+
+            // Assert
+            assertThat(body(first.get(5, TimeUnit.SECONDS))).isEqualTo("hello");
+            assertThat(body(second.get(5, TimeUnit.SECONDS))).isEqualTo("hello");
+            verify(s3Client, times(1)).getObject(any(GetObjectRequest.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used file once over the byte budget")
+    void serve_whenOverBudget_shouldEvictLeastRecentlyUsed() throws Exception {
+        // Arrange
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> s3Object("12345"));
+        download("a");
+        download("b");
+        download("a");
+
+        // Act
+        download("c");
+        download("a");
+        download("b");
+
+        // Assert
+        verify(s3Client, times(4)).getObject(any(GetObjectRequest.class));
+        try (var files = Files.list(directory)) {
+            assertThat(files.count()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    @DisplayName("Should answer a byte range with a partial response")
+    void serve_withRange_shouldReturnPartialContent() throws Exception {
+        // Arrange
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> s3Object("0123456789"));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+        // Act
+        ResponseEntity<?> response = contentDiskCache.serve("module-1/a.mp4", request).orElseThrow();
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/10");
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(4);
+        assertThat(body(response)).isEqualTo("2345");
+    }
+
+    @Test
+    @DisplayName("Should reject a range past the end of the file")
+    void serve_withUnsatisfiableRange_shouldReturn416() {
+        // Arrange
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> s3Object("0123456789"));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.RANGE, "bytes=20-");
+
+        // Act
+        ResponseEntity<?> response = contentDiskCache.serve("module-1/a.mp4", request).orElseThrow();
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */10");
+    }
+
+    @Test
+    @DisplayName("Should hand the file to Tomcat's sendfile when the connector supports it")
+    void serve_withSendfileSupport_shouldSetSendfileAttributes() {
+        // Arrange
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> s3Object("0123456789"));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(ContentDiskCache.SENDFILE_SUPPORTED_ATTR, Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=4-");
+
+        // Act
+        ResponseEntity<?> response = contentDiskCache.serve("module-1/a.mp4", request).orElseThrow();
+
+        // Assert
+        assertThat(response.getBody()).isNull();
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(6);
+        assertThat((String) request.getAttribute(ContentDiskCache.SENDFILE_FILENAME_ATTR)).startsWith(directory.toString());
+        assertThat(request.getAttribute(ContentDiskCache.SENDFILE_START_ATTR)).isEqualTo(4L);
+        assertThat(request.getAttribute(ContentDiskCache.SENDFILE_END_ATTR)).isEqualTo(10L);
+    }
+
+    @Test
+    @DisplayName("Should not cache objects larger than the whole cache")
+    void serve_withObjectLargerThanCache_shouldReturnEmpty() {
+        // Arrange
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> s3Object("0123456789ABC"));
+
+        // Act
+        Optional<ResponseEntity<?>> first = contentDiskCache.serve("module-1/big.mp4", new MockHttpServletRequest());
+        Optional<ResponseEntity<?>> second = contentDiskCache.serve("module-1/big.mp4", new MockHttpServletRequest());
+
+        // Assert
+        assertThat(first).isEmpty();
+        assertThat(second).isEmpty();
+        verify(s3Client, times(1)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    @DisplayName("Should keep an evicted file until the response sending it has finished")
+    void evict_whileResponseInFlight_shouldKeepFileUntilSent() throws Exception {
+        // Arrange
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> s3Object("hello"));
+        ResponseEntity<?> response = contentDiskCache.serve("module-1/a.pdf", new MockHttpServletRequest()).orElseThrow();
+
+        // Act
+        contentDiskCache.evict(List.of("module-1/a.pdf"));
+        String sent = body(response);
+
+        // Assert
+        assertThat(sent).isEqualTo("hello");
+        try (var files = Files.list(directory)) {
+            assertThat(files.count()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep an evicted file readable for a sendfile response until its link is swept")
+    void evict_afterSendfileResponse_shouldLeaveLinkReadable() throws Exception {
+        // Arrange
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> s3Object("0123456789"));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(ContentDiskCache.SENDFILE_SUPPORTED_ATTR, Boolean.TRUE);
+        contentDiskCache.serve("module-1/a.mp4", request);
+        Path link = Path.of((String) request.getAttribute(ContentDiskCache.SENDFILE_FILENAME_ATTR));
+
+        // Act
+        contentDiskCache.evict(List.of("module-1/a.mp4"));
+
+        // Assert
+        assertThat(Files.readString(link)).isEqualTo("0123456789");
+        contentDiskCache.sweepSendfileLinks();
+        assertThat(link).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Should drop evicted keys so the next request reads S3 again")
+    void evict_shouldDropCachedCopies() {
+        // Arrange
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> s3Object("hello"));
+        contentDiskCache.serve("module-1/a.pdf", new MockHttpServletRequest());
+
+        // Act
+        contentDiskCache.evict(List.of("module-1/a.pdf"));
+        contentDiskCache.serve("module-1/a.pdf", new MockHttpServletRequest());
+
+        // Assert
+        verify(s3Client, times(2)).getObject(any(GetObjectRequest.class));
+    }
+
+    private ResponseInputStream<GetObjectResponse> s3Object(String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        GetObjectResponse response = GetObjectResponse.builder()
+                .contentType("application/pdf")
+                .contentLength((long) bytes.length)
+                .build();
+        return new ResponseInputStream<>(response, AbortableInputStream.create(new ByteArrayInputStream(bytes)));
+    }
+
+    private void download(String objectKey) throws Exception {
+        body(contentDiskCache.serve(objectKey, new MockHttpServletRequest()).orElseThrow());
+    }
+
+    private String body(ResponseEntity<?> response) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,140 @@
+package org.edunex.courseservice.service;
+
+import org.edunex.courseservice.repository.ContentObjectRepository;
+import org.edunex.courseservice.repository.S3DeletionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ContentObjectServiceTest {
+
+    @Mock
+    private ContentObjectRepository contentObjectRepository;
+
+    @Mock
+    private S3DeletionRepository s3DeletionRepository;
+
+    @Mock
+    private S3Service s3Service;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private ContentObjectService contentObjectService;
+
+    private MockMultipartFile file;
+    private String hash;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = new MockMultipartFile("file", "intro.mp4", "video/mp4", "intro video".getBytes(StandardCharsets.UTF_8));
+        hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(file.getBytes()));
+    }
+
+    @Test
+    @DisplayName("Should reuse the stored object and skip the upload when the content is known")
+    void store_withKnownContent_shouldNotUpload() {
+        // Arrange
+        when(contentObjectRepository.acquireByHash(hash)).thenReturn(Optional.of("content/" + hash + "/a.mp4"));
+
+        // Act
+        String objectKey = contentObjectService.store(file);
+
+        // Assert
+        assertThat(objectKey).isEqualTo("content/" + hash + "/a.mp4");
+        verifyNoInteractions(s3Service);
+        verify(contentObjectRepository, never()).acquire(anyString(), anyString(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Should upload new content and record it with one reference")
+    void store_withNewContent_shouldUploadAndRecord() {
+        // Arrange
+        runTransactions();
+        when(contentObjectRepository.acquireByHash(hash)).thenReturn(Optional.empty());
+        when(s3Service.uploadContent(file, hash)).thenReturn("content/" + hash + "/b.mp4");
+        when(contentObjectRepository.acquire(hash, "content/" + hash + "/b.mp4", 11L, "video/mp4"))
+                .thenReturn("content/" + hash + "/b.mp4");
+
+        // Act
+        String objectKey = contentObjectService.store(file);
+
+        // Assert
+        assertThat(objectKey).isEqualTo("content/" + hash + "/b.mp4");
+        verifyNoInteractions(s3DeletionRepository);
+    }
+
+    @Test
+    @DisplayName("Should use the object of a concurrent identical upload and queue its own copy")
+    void store_whenConcurrentUploadWins_shouldQueueOwnCopy() {
+        // Arrange
+        runTransactions();
+        when(contentObjectRepository.acquireByHash(hash)).thenReturn(Optional.empty());
+        when(s3Service.uploadContent(file, hash)).thenReturn("content/" + hash + "/mine.mp4");
+        when(contentObjectRepository.acquire(hash, "content/" + hash + "/mine.mp4", 11L, "video/mp4"))
+                .thenReturn("content/" + hash + "/theirs.mp4");
+
+        // Act
+        String objectKey = contentObjectService.store(file);
+
+        // Assert
+        assertThat(objectKey).isEqualTo("content/" + hash + "/theirs.mp4");
+        verify(s3DeletionRepository).enqueue("content/" + hash + "/mine.mp4");
+        verify(transactionTemplate).execute(any());
+    }
+
+    @Test
+    @DisplayName("Should drop a reference and queue the object for the cleanup job")
+    void release_shouldDecrementAndQueue() {
+        // Act
+        contentObjectService.release("content/" + hash + "/a.mp4");
+
+        // Assert
+        verify(contentObjectRepository).release("content/" + hash + "/a.mp4");
+        verify(s3DeletionRepository).enqueue("content/" + hash + "/a.mp4");
+    }
+
+    @Test
+    @DisplayName("Should ignore modules without content")
+    void release_withoutKey_shouldDoNothing() {
+        // Act
+        contentObjectService.release(null);
+        contentObjectService.retain("");
+
+        // Assert
+        verifyNoInteractions(contentObjectRepository, s3DeletionRepository);
+    }
+
+    @Test
+    @DisplayName("Should drop the reference and queue the object in one transaction")
+    void release_shouldBeTransactional() throws Exception {
+        // Act & Assert
+        assertThat(ContentObjectService.class.getMethod("release", String.class).isAnnotationPresent(Transactional.class)).isTrue();
+    }
+
+    private void runTransactions() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+}
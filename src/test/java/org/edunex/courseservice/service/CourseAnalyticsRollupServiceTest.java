@@ -0,0 +1,85 @@
+package org.edunex.courseservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CourseAnalyticsRollupServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private CourseAnalyticsRollupService courseAnalyticsRollupService;
+
+    private final LocalDateTime HIGH_WATER = LocalDateTime.of(2026, 10, 19, 12, 0);
+    private final LocalDateTime PROGRESS_WATERMARK = LocalDateTime.of(2026, 10, 19, 11, 55);
+
+    @BeforeEach
+    void setUp() {
+        // Run the rollup callback inline
+        lenient().doAnswer(invocation -> {
+            Consumer<TransactionStatus> action = invocation.getArgument(0);
+            action.accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    @DisplayName("Should roll up rows between the watermarks and the new high water mark, then advance the watermarks")
+    void rollup_shouldProcessWindowAndAdvanceWatermarks() {
+        // Arrange
+        when(jdbcTemplate.queryForObject(contains("pg_try_advisory_xact_lock"), eq(Boolean.class))).thenReturn(true);
+        when(jdbcTemplate.queryForList(contains("analytics_watermarks"), eq(LocalDateTime.class), anyString()))
+                .thenAnswer(invocation -> CourseAnalyticsRollupService.PROGRESS.equals(invocation.getArgument(2))
+                        ? List.of(PROGRESS_WATERMARK)
+                        : List.of());
+        LocalDateTime initial = CourseAnalyticsRollupService.INITIAL_WATERMARK;
+
+        // Act
+        courseAnalyticsRollupService.rollup(HIGH_WATER);
+
+        // Assert
+        verify(jdbcTemplate).update(contains("INSERT INTO course_daily_stats"),
+                eq(initial), eq(HIGH_WATER), eq(PROGRESS_WATERMARK), eq(HIGH_WATER), eq(initial), eq(HIGH_WATER));
+        verify(jdbcTemplate).update(contains("INSERT INTO module_completion_counts"),
+                eq(PROGRESS_WATERMARK), eq(HIGH_WATER), eq(PROGRESS_WATERMARK), eq(HIGH_WATER));
+        verify(jdbcTemplate).update(contains("INSERT INTO analytics_watermarks"), eq(CourseAnalyticsRollupService.ENROLLMENTS), eq(HIGH_WATER));
+        verify(jdbcTemplate).update(contains("INSERT INTO analytics_watermarks"), eq(CourseAnalyticsRollupService.PROGRESS), eq(HIGH_WATER));
+        verify(jdbcTemplate).update(contains("INSERT INTO analytics_watermarks"), eq(CourseAnalyticsRollupService.QUIZ_RESULTS), eq(HIGH_WATER));
+    }
+
+    @Test
+    @DisplayName("Should skip the run when another instance holds the rollup lock")
+    void rollup_whenLockedElsewhere_shouldSkip() {
+        // Arrange
+        when(jdbcTemplate.queryForObject(contains("pg_try_advisory_xact_lock"), eq(Boolean.class))).thenReturn(false);
+
+        // Act
+        courseAnalyticsRollupService.rollup(HIGH_WATER);
+
+        // Assert
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+}
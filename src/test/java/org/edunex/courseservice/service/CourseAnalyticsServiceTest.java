@@ -0,0 +1,117 @@
+package org.edunex.courseservice.service;
+
+import org.edunex.courseservice.dto.CourseAnalyticsDTO;
+import org.edunex.courseservice.dto.CourseDailyStatsDTO;
+import org.edunex.courseservice.dto.ModuleFunnelDTO;
+import org.edunex.courseservice.model.Course;
+import org.edunex.courseservice.repository.AnalyticsWatermarkRepository;
+import org.edunex.courseservice.repository.CourseDailyStatsRepository;
+import org.edunex.courseservice.repository.CourseRepository;
+import org.edunex.courseservice.repository.ModuleCompletionCountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CourseAnalyticsServiceTest {
+
+    @Mock
+    private CourseRepository courseRepository;
+
+    @Mock
+    private CourseDailyStatsRepository courseDailyStatsRepository;
+
+    @Mock
+    private ModuleCompletionCountRepository moduleCompletionCountRepository;
+
+    @Mock
+    private AnalyticsWatermarkRepository analyticsWatermarkRepository;
+
+    @InjectMocks
+    private CourseAnalyticsService courseAnalyticsService;
+
+    private Course testCourse;
+    private final Long TEST_COURSE_ID = 1L;
+    private final String TEST_INSTRUCTOR_ID = "instructor-123";
+    private final LocalDate FROM = LocalDate.of(2026, 10, 1);
+    private final LocalDate TO = LocalDate.of(2026, 10, 19);
+
+    @BeforeEach
+    void setUp() {
+        testCourse = new Course();
+        testCourse.setId(TEST_COURSE_ID);
+        testCourse.setTitle("Test Course");
+        testCourse.setInstructorId(TEST_INSTRUCTOR_ID);
+    }
+
+    @Test
+    @DisplayName("Should combine the daily rollup rows and the completion funnel")
+    void getCourseAnalytics_shouldSummarizeRange() {
+        // Arrange
+        LocalDateTime refreshedUpTo = LocalDateTime.of(2026, 10, 19, 11, 58);
+        when(courseRepository.findById(TEST_COURSE_ID)).thenReturn(Optional.of(testCourse));
+        when(courseDailyStatsRepository.findDTOsByCourseIdAndDateBetween(TEST_COURSE_ID, FROM, TO)).thenReturn(List.of(
+                new CourseDailyStatsDTO(LocalDate.of(2026, 10, 2), 3, 5, 2, 150),
+                new CourseDailyStatsDTO(LocalDate.of(2026, 10, 3), 1, 2, 0, 0)));
+        when(moduleCompletionCountRepository.findFunnelByCourseId(TEST_COURSE_ID)).thenReturn(List.of(
+                new ModuleFunnelDTO(10L, "Intro", 1024, 7),
+                new ModuleFunnelDTO(11L, "Basics", 2048, 4)));
+        when(analyticsWatermarkRepository.findLowestHighWater()).thenReturn(Optional.of(refreshedUpTo));
+
+        // Act
+        CourseAnalyticsDTO result = courseAnalyticsService.getCourseAnalytics(TEST_COURSE_ID, TEST_INSTRUCTOR_ID, FROM, TO);
+
+        // Assert
+        assertThat(result.getEnrollments()).isEqualTo(4);
+        assertThat(result.getQuizSubmissions()).isEqualTo(2);
+        assertThat(result.getAverageQuizScore()).isEqualTo(75.0);
+        assertThat(result.getDays().get(0).getAverageQuizScore()).isEqualTo(75.0);
+        assertThat(result.getDays().get(1).getAverageQuizScore()).isNull();
+        assertThat(result.getFunnel()).extracting(ModuleFunnelDTO::getCompletions).containsExactly(7L, 4L);
+        assertThat(result.getRefreshedUpTo()).isEqualTo(refreshedUpTo);
+    }
+
+    @Test
+    @DisplayName("Should reject users who are not the course's instructor")
+    void getCourseAnalytics_whenNotInstructor_shouldThrowForbidden() {
+        // Arrange
+        when(courseRepository.findById(TEST_COURSE_ID)).thenReturn(Optional.of(testCourse));
+
+        // Act & Assert
+        assertThatThrownBy(() -> courseAnalyticsService.getCourseAnalytics(TEST_COURSE_ID, "student-1", FROM, TO))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting(e -> ((ResponseStatusException) e).getStatusCode())
+                .isEqualTo(HttpStatus.FORBIDDEN);
+        verify(courseDailyStatsRepository, never()).findDTOsByCourseIdAndDateBetween(anyLong(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should reject date ranges longer than the maximum")
+    void getCourseAnalytics_withTooLongRange_shouldThrowBadRequest() {
+        // Arrange
+        when(courseRepository.findById(TEST_COURSE_ID)).thenReturn(Optional.of(testCourse));
+
+        // Act & Assert
+        assertThatThrownBy(() -> courseAnalyticsService.getCourseAnalytics(TEST_COURSE_ID, TEST_INSTRUCTOR_ID, TO.minusYears(2), TO))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting(e -> ((ResponseStatusException) e).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+}
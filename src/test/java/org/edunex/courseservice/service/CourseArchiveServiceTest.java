@@ -0,0 +1,258 @@
+package org.edunex.courseservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.edunex.courseservice.dto.CourseArchiveDTO;
+import org.edunex.courseservice.dto.CourseDTO;
+import org.edunex.courseservice.model.enums.ModuleType;
+import org.edunex.courseservice.repository.CourseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CourseArchiveServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private CourseRepository courseRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private CourseArchiveService courseArchiveService;
+
+    private CourseDTO testCourse;
+    private final Long TEST_COURSE_ID = 1L;
+    private final String TEST_INSTRUCTOR_ID = "instructor-123";
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(courseArchiveService, "importBatchSize", 2);
+
+        testCourse = new CourseDTO();
+        testCourse.setId(TEST_COURSE_ID);
+        testCourse.setTitle("Java Basics");
+        testCourse.setDescription("Learn Java");
+        testCourse.setCategory("Programming");
+        testCourse.setInstructorId(TEST_INSTRUCTOR_ID);
+    }
+
+    @Test
+    @DisplayName("Should write the joined rows as nested modules, quizzes, questions and answers")
+    void exportCourse_shouldNestRows() throws Exception {
+        // Arrange
+        when(courseRepository.findDTOById(TEST_COURSE_ID)).thenReturn(Optional.of(testCourse));
+        List<ResultSet> rows = List.of(
+                row(1L, "Intro", 5L, "Quiz 1", 7L, "2 + 2?", 8L, "4", true),
+                row(1L, "Intro", 5L, "Quiz 1", 7L, "2 + 2?", 9L, "5", false),
+                row(1L, "Intro", 5L, "Quiz 1", 10L, "Unanswered", null, null, null),
+                row(2L, "Video", null, null, null, null, null, null, null));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (ResultSet rs : rows) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        courseArchiveService.exportCourse(TEST_COURSE_ID, output);
+
+        // Assert
+        CourseArchiveDTO archive = new ObjectMapper().readValue(output.toByteArray(), CourseArchiveDTO.class);
+        assertThat(archive.getFormatVersion()).isEqualTo(CourseArchiveDTO.FORMAT_VERSION);
+        assertThat(archive.getTitle()).isEqualTo("Java Basics");
+        assertThat(archive.getModules()).hasSize(2);
+
+        CourseArchiveDTO.Module first = archive.getModules().get(0);
+        assertThat(first.getTitle()).isEqualTo("Intro");
+        assertThat(first.getQuiz().getTitle()).isEqualTo("Quiz 1");
+        assertThat(first.getQuiz().getQuestions()).extracting(CourseArchiveDTO.Question::getQuestionText)
+                .containsExactly("2 + 2?", "Unanswered");
+        assertThat(first.getQuiz().getQuestions().get(0).getAnswers())
+                .containsExactly(new CourseArchiveDTO.Answer("4", true), new CourseArchiveDTO.Answer("5", false));
+        assertThat(first.getQuiz().getQuestions().get(1).getAnswers()).isEmpty();
+
+        CourseArchiveDTO.Module second = archive.getModules().get(1);
+        assertThat(second.getType()).isEqualTo(ModuleType.VIDEO);
+        assertThat(second.getQuiz()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should import a DRAFT course and insert its modules in batches")
+    void importCourse_shouldInsertModulesInBatches() throws Exception {
+        // Arrange
+        String json = """
+                {"formatVersion": 1, "title": "Java Basics", "modules": [
+                  {"title": "M1", "type": "VIDEO", "coinsRequired": 0,
+                   "quiz": {"title": "Q1", "questions": [{"questionText": "2 + 2?", "answers": [{"answerText": "4", "correct": true}]}]}},
+                  {"title": "M2", "type": "PDF", "coinsRequired": 5},
+                  {"title": "M3", "type": "VIDEO", "coinsRequired": 0}
+                ]}
+                """;
+        when(jdbcTemplate.queryForObject(contains("INSERT INTO courses"), eq(Long.class),
+                eq("Java Basics"), isNull(), eq(TEST_INSTRUCTOR_ID), isNull(), eq("DRAFT"))).thenReturn(100L);
+        when(jdbcTemplate.queryForList(contains("nextval"), eq(Long.class), eq("modules"), eq(2))).thenReturn(List.of(10L, 11L));
+        when(jdbcTemplate.queryForList(contains("nextval"), eq(Long.class), eq("modules"), eq(1))).thenReturn(List.of(12L));
+        when(jdbcTemplate.queryForList(contains("nextval"), eq(Long.class), eq("quizzes"), eq(1))).thenReturn(List.of(20L));
+        when(jdbcTemplate.queryForList(contains("nextval"), eq(Long.class), eq("quiz_questions"), eq(1))).thenReturn(List.of(30L));
+        CourseDTO imported = new CourseDTO();
+        imported.setId(100L);
+        when(courseRepository.findDTOById(100L)).thenReturn(Optional.of(imported));
+
+        // Act
+        CourseDTO result = courseArchiveService.importCourse(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), TEST_INSTRUCTOR_ID);
+
+        // Assert
+        assertThat(result.getId()).isEqualTo(100L);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> modules = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(contains("INSERT INTO modules"), modules.capture());
+        assertThat(modules.getAllValues().get(0)).hasSize(2);
+        assertThat(modules.getAllValues().get(1).get(0))
+                .containsExactly(12L, "M3", "VIDEO", 0, 3 * ModuleService.MODULE_ORDER_GAP, 100L);
+
+        verify(jdbcTemplate).batchUpdate(eq("INSERT INTO quizzes (id, title, module_id) VALUES (?, ?, ?)"),
+                argThat((List<Object[]> rows) -> rows.size() == 1 && rows.get(0)[0].equals(20L) && rows.get(0)[2].equals(10L)));
+        verify(jdbcTemplate).batchUpdate(contains("INSERT INTO quiz_questions"),
+                argThat((List<Object[]> rows) -> rows.size() == 1 && rows.get(0)[0].equals(30L) && rows.get(0)[2].equals(20L)));
+        verify(jdbcTemplate).batchUpdate(contains("INSERT INTO quiz_answers"),
+                argThat((List<Object[]> rows) -> rows.size() == 1 && rows.get(0)[2].equals(30L)));
+    }
+
+    @Test
+    @DisplayName("Should reject a module without a type before inserting it")
+    void importCourse_withInvalidModule_shouldThrowBadRequest() {
+        // Arrange
+        String json = """
+                {"title": "Java Basics", "modules": [{"title": "M1", "coinsRequired": 0}]}
+                """;
+        when(jdbcTemplate.queryForObject(contains("INSERT INTO courses"), eq(Long.class),
+                any(), any(), any(), any(), any())).thenReturn(100L);
+
+        // Act & Assert
+        assertThatThrownBy(() -> courseArchiveService.importCourse(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), TEST_INSTRUCTOR_ID))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting(e -> ((ResponseStatusException) e).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    @DisplayName("Should reject an archive whose modules come before the course title")
+    void importCourse_withModulesBeforeTitle_shouldThrowBadRequest() {
+        // Arrange
+        String json = """
+                {"modules": [], "title": "Java Basics"}
+                """;
+
+        // Act & Assert
+        assertThatThrownBy(() -> courseArchiveService.importCourse(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), TEST_INSTRUCTOR_ID))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting(e -> ((ResponseStatusException) e).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should clone a course for its instructor")
+    void cloneCourse_shouldReturnCopy() {
+        // Arrange
+        CourseDTO copy = new CourseDTO();
+        copy.setId(2L);
+        when(courseRepository.findDTOById(TEST_COURSE_ID)).thenReturn(Optional.of(testCourse));
+        when(courseRepository.cloneCourseTree(TEST_COURSE_ID, TEST_INSTRUCTOR_ID, "Java Template")).thenReturn(Optional.of(2L));
+        when(courseRepository.findDTOById(2L)).thenReturn(Optional.of(copy));
+
+        // Act
+        CourseDTO result = courseArchiveService.cloneCourse(TEST_COURSE_ID, TEST_INSTRUCTOR_ID, "Java Template");
+
+        // Assert
+        assertThat(result.getId()).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Should not clone a course for anyone but its instructor")
+    void cloneCourse_byOtherUser_shouldThrowForbidden() {
+        // Arrange
+        when(courseRepository.findDTOById(TEST_COURSE_ID)).thenReturn(Optional.of(testCourse));
+
+        // Act & Assert
+        assertThatThrownBy(() -> courseArchiveService.cloneCourse(TEST_COURSE_ID, "someone-else", null))
+                .isInstanceOf(ResponseStatusException.class)
+                .extracting(e -> ((ResponseStatusException) e).getStatusCode())
+                .isEqualTo(HttpStatus.FORBIDDEN);
+        verify(courseRepository, never()).cloneCourseTree(any(), any(), any());
+    }
+
+    // A row of the export query; getters return the column's value and wasNull reports on the last one read
+    private static ResultSet row(Long moduleId, String moduleTitle, Long quizId, String quizTitle,
+                                 Long questionId, String questionText, Long answerId, String answerText, Boolean correct) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("module_id", moduleId);
+        values.put("module_title", moduleTitle);
+        values.put("type", moduleId == 1L ? "PDF" : "VIDEO");
+        values.put("coins_required", 0);
+        values.put("quiz_id", quizId);
+        values.put("quiz_title", quizTitle);
+        values.put("question_id", questionId);
+        values.put("question_text", questionText);
+        values.put("answer_id", answerId);
+        values.put("answer_text", answerText);
+        values.put("correct", correct);
+
+        Object[] lastRead = new Object[1];
+        return mock(ResultSet.class, invocation -> {
+            if (invocation.getMethod().getName().equals("wasNull")) {
+                return lastRead[0] == null;
+            }
+            Object value = values.get((String) invocation.getArgument(0));
+            lastRead[0] = value;
+            return switch (invocation.getMethod().getName()) {
+                case "getLong" -> value == null ? 0L : ((Number) value).longValue();
+                case "getInt" -> value == null ? 0 : ((Number) value).intValue();
+                case "getBoolean" -> Boolean.TRUE.equals(value);
+                default -> value;
+            };
+        });
+    }
+}
@@ -0,0 +1,167 @@
+package org.edunex.courseservice.service;
+
+import org.edunex.courseservice.dto.CourseBundleDTO;
+import org.edunex.courseservice.dto.CourseDTO;
+import org.edunex.courseservice.dto.ModuleDTO;
+import org.edunex.courseservice.dto.QuizAnswerDTO;
+import org.edunex.courseservice.dto.QuizDTO;
+import org.edunex.courseservice.dto.QuizQuestionDTO;
+import org.edunex.courseservice.model.CourseStatus;
+import org.edunex.courseservice.model.enums.ModuleType;
+import org.edunex.courseservice.repository.CourseRepository;
+import org.edunex.courseservice.repository.CourseVersion;
+import org.edunex.courseservice.repository.ModuleContentVersion;
+import org.edunex.courseservice.repository.ModuleRepository;
+import org.edunex.courseservice.repository.ProgressRepository;
+import org.edunex.courseservice.repository.QuizAnswerRepository;
+import org.edunex.courseservice.repository.QuizQuestionRepository;
+import org.edunex.courseservice.repository.QuizRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CourseBundleServiceTest {
+
+    @Mock
+    private CourseService courseService;
+
+    @Mock
+    private CourseRepository courseRepository;
+
+    @Mock
+    private ModuleRepository moduleRepository;
+
+    @Mock
+    private QuizRepository quizRepository;
+
+    @Mock
+    private QuizQuestionRepository quizQuestionRepository;
+
+    @Mock
+    private QuizAnswerRepository quizAnswerRepository;
+
+    @Mock
+    private ProgressRepository progressRepository;
+
+    @Mock
+    private ModuleService moduleService;
+
+    @Mock
+    private EnrollmentCache enrollmentCache;
+
+    @Mock
+    private CourseBundleCache courseBundleCache;
+
+    @InjectMocks
+    private CourseBundleService courseBundleService;
+
+    private CourseDTO testCourse;
+    private ModuleDTO intro;
+    private ModuleDTO basics;
+    private final Long TEST_COURSE_ID = 1L;
+    private final String TEST_USER_ID = "user-123";
+    private final long VERSION = 7L;
+
+    @BeforeEach
+    void setUp() {
+        testCourse = new CourseDTO();
+        testCourse.setId(TEST_COURSE_ID);
+        testCourse.setTitle("Test Course");
+
+        intro = new ModuleDTO(10L, "Intro", ModuleType.VIDEO, 0, null, 1, TEST_COURSE_ID, "Test Course", null);
+        basics = new ModuleDTO(11L, "Basics", ModuleType.VIDEO, 0, null, 2, TEST_COURSE_ID, "Test Course", 20L);
+
+        when(courseService.getCourseById(TEST_COURSE_ID, TEST_USER_ID, false, CourseStatus.PUBLISHED)).thenReturn(testCourse);
+        when(courseRepository.findVersionById(TEST_COURSE_ID, TEST_USER_ID))
+                .thenReturn(Optional.of(new CourseVersion(VERSION, 3L, 0L, 0L)));
+    }
+
+    @Test
+    @DisplayName("Should load the full bundle with nested quiz content and cache it")
+    void getCourseBundle_withoutSince_shouldLoadAndCacheContent() {
+        // Arrange
+        List<ModuleDTO> modules = new ArrayList<>(List.of(intro, basics));
+        when(moduleRepository.findDTOsByCourseIdOrderByModuleOrder(TEST_COURSE_ID)).thenReturn(modules);
+        when(moduleService.completeModuleDTOs(modules, null)).thenReturn(modules);
+        when(moduleRepository.findContentVersionsByCourseId(TEST_COURSE_ID)).thenReturn(List.of(
+                new ModuleContentVersion(10L, 2L), new ModuleContentVersion(11L, 6L)));
+        when(quizRepository.findDTOsByCourseId(TEST_COURSE_ID)).thenReturn(List.of(new QuizDTO(20L, "Quiz", 11L, "Basics")));
+        when(quizQuestionRepository.findDTOsByCourseId(TEST_COURSE_ID)).thenReturn(List.of(new QuizQuestionDTO(30L, "Why?", 20L)));
+        when(quizAnswerRepository.findDTOsByCourseId(TEST_COURSE_ID)).thenReturn(List.of(
+                new QuizAnswerDTO(40L, "Because", true, 30L), new QuizAnswerDTO(41L, "No idea", false, 30L)));
+        when(progressRepository.findDTOsByUserIdAndCourseId(TEST_USER_ID, TEST_COURSE_ID)).thenReturn(List.of());
+
+        // Act
+        CourseBundleDTO result = courseBundleService.getCourseBundle(TEST_COURSE_ID, TEST_USER_ID, null);
+
+        // Assert
+        assertThat(result.getVersion()).isEqualTo(VERSION);
+        assertThat(result.getSince()).isNull();
+        assertThat(result.getCourse()).isSameAs(testCourse);
+        assertThat(result.getModuleIds()).containsExactly(10L, 11L);
+        assertThat(result.getModules()).containsExactly(intro, basics);
+        assertThat(result.getQuizzes()).hasSize(1);
+        assertThat(result.getQuizzes().get(0).getQuestions()).hasSize(1);
+        assertThat(result.getQuizzes().get(0).getQuestions().get(0).getAnswers())
+                .extracting(QuizAnswerDTO::getId).containsExactly(40L, 41L);
+
+        ArgumentCaptor<CourseBundleCache.CourseContent> cached = ArgumentCaptor.forClass(CourseBundleCache.CourseContent.class);
+        verify(courseBundleCache).put(eq(TEST_COURSE_ID), cached.capture());
+        assertThat(cached.getValue().version()).isEqualTo(VERSION);
+        assertThat(cached.getValue().contentVersions()).containsEntry(11L, 6L);
+    }
+
+    @Test
+    @DisplayName("Should serve cached content and only include modules changed after since")
+    void getCourseBundle_withSince_shouldReturnChangedModulesFromCache() {
+        // Arrange
+        QuizDTO quiz = new QuizDTO(20L, "Quiz", 11L, "Basics");
+        when(courseBundleCache.get(TEST_COURSE_ID, VERSION)).thenReturn(new CourseBundleCache.CourseContent(
+                VERSION, List.of(intro, basics), Map.of(10L, 2L, 11L, 6L), List.of(quiz)));
+        when(progressRepository.findDTOsByUserIdAndCourseId(TEST_USER_ID, TEST_COURSE_ID)).thenReturn(List.of());
+
+        // Act
+        CourseBundleDTO result = courseBundleService.getCourseBundle(TEST_COURSE_ID, TEST_USER_ID, 5L);
+
+        // Assert
+        assertThat(result.getSince()).isEqualTo(5L);
+        assertThat(result.getModuleIds()).containsExactly(10L, 11L);
+        assertThat(result.getModules()).containsExactly(basics);
+        assertThat(result.getQuizzes()).containsExactly(quiz);
+        verify(moduleRepository, never()).findDTOsByCourseIdOrderByModuleOrder(anyLong());
+        verify(quizRepository, never()).findDTOsByCourseId(anyLong());
+        verify(courseBundleCache, never()).put(anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Should return the full bundle when since is ahead of the course version")
+    void getCourseBundle_withFutureSince_shouldReturnFullBundle() {
+        // Arrange
+        when(courseBundleCache.get(TEST_COURSE_ID, VERSION)).thenReturn(new CourseBundleCache.CourseContent(
+                VERSION, List.of(intro, basics), Map.of(10L, 2L, 11L, 6L), List.of()));
+        when(progressRepository.findDTOsByUserIdAndCourseId(TEST_USER_ID, TEST_COURSE_ID)).thenReturn(List.of());
+
+        // Act
+        CourseBundleDTO result = courseBundleService.getCourseBundle(TEST_COURSE_ID, TEST_USER_ID, VERSION + 1);
+
+        // Assert
+        assertThat(result.getSince()).isNull();
+        assertThat(result.getModules()).containsExactly(intro, basics);
+    }
+}
@@ -0,0 +1,131 @@
+package org.edunex.courseservice.service;
+
+import org.edunex.courseservice.repository.EnrollmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EnrollmentCacheTest {
+
+    @Mock
+    private EnrollmentRepository enrollmentRepository;
+
+    @InjectMocks
+    private EnrollmentCache enrollmentCache;
+
+    private final String TEST_USER_ID = "user-123";
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(enrollmentCache, "maxUsers", 2);
+        ReflectionTestUtils.setField(enrollmentCache, "ttl", Duration.ofMinutes(5));
+    }
+
+    @Test
+    @DisplayName("Should load a user's enrollments once and answer later checks from memory")
+    void isEnrolled_shouldLoadOncePerUser() {
+        // Arrange
+        when(enrollmentRepository.findCourseIdsByUserId(TEST_USER_ID)).thenReturn(List.of(7L, 3L, 5L));
+
+        // Act & Assert
+        assertThat(enrollmentCache.isEnrolled(TEST_USER_ID, 3L)).isTrue();
+        assertThat(enrollmentCache.isEnrolled(TEST_USER_ID, 7L)).isTrue();
+        assertThat(enrollmentCache.isEnrolled(TEST_USER_ID, 4L)).isFalse();
+        verify(enrollmentRepository, times(1)).findCourseIdsByUserId(TEST_USER_ID);
+    }
+
+    @Test
+    @DisplayName("Should reload a user's enrollments after invalidation")
+    void invalidate_shouldReloadOnNextCheck() {
+        // Arrange
+        when(enrollmentRepository.findCourseIdsByUserId(TEST_USER_ID))
+                .thenReturn(List.of())
+                .thenReturn(List.of(1L));
+        assertThat(enrollmentCache.isEnrolled(TEST_USER_ID, 1L)).isFalse();
+
+        // Act
+        enrollmentCache.invalidate(TEST_USER_ID);
+
+        // Assert
+        assertThat(enrollmentCache.isEnrolled(TEST_USER_ID, 1L)).isTrue();
+        verify(enrollmentRepository, times(2)).findCourseIdsByUserId(TEST_USER_ID);
+    }
+
+    @Test
+    @DisplayName("Should not cache a load that raced with an invalidation of the same user")
+    void isEnrolled_whenUserInvalidatedDuringLoad_shouldNotCacheOldSet() {
+        // Arrange
+        when(enrollmentRepository.findCourseIdsByUserId(TEST_USER_ID))
+                .thenAnswer(invocation -> {
+                    enrollmentCache.invalidate(TEST_USER_ID);
+                    return List.of();
+                })
+                .thenReturn(List.of(1L));
+
+        // Act
+        boolean duringWrite = enrollmentCache.isEnrolled(TEST_USER_ID, 1L);
+        boolean afterWrite = enrollmentCache.isEnrolled(TEST_USER_ID, 1L);
+
+        // Assert
+        assertThat(duringWrite).isFalse();
+        assertThat(afterWrite).isTrue();
+        verify(enrollmentRepository, times(2)).findCourseIdsByUserId(TEST_USER_ID);
+    }
+
+    @Test
+    @DisplayName("Should still cache a load that raced with an invalidation of another user")
+    void isEnrolled_whenOtherUserInvalidatedDuringLoad_shouldCache() {
+        // Arrange
+        when(enrollmentRepository.findCourseIdsByUserId(TEST_USER_ID)).thenAnswer(invocation -> {
+            enrollmentCache.invalidate("user-456");
+            return List.of(1L);
+        });
+
+        // Act
+        enrollmentCache.isEnrolled(TEST_USER_ID, 1L);
+        enrollmentCache.isEnrolled(TEST_USER_ID, 1L);
+
+        // Assert
+        verify(enrollmentRepository, times(1)).findCourseIdsByUserId(TEST_USER_ID);
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used user when full")
+    void isEnrolled_whenFull_shouldEvictLeastRecentlyUsed() {
+        // Arrange
+        when(enrollmentRepository.findCourseIdsByUserId(anyString())).thenReturn(List.of(1L));
+        enrollmentCache.isEnrolled("user-a", 1L);
+        enrollmentCache.isEnrolled("user-b", 1L);
+        enrollmentCache.isEnrolled("user-a", 1L);
+
+        // Act
+        enrollmentCache.isEnrolled("user-c", 1L);
+        enrollmentCache.isEnrolled("user-a", 1L);
+        enrollmentCache.isEnrolled("user-b", 1L);
+
+        // Assert
+        verify(enrollmentRepository, times(1)).findCourseIdsByUserId("user-a");
+        verify(enrollmentRepository, times(2)).findCourseIdsByUserId("user-b");
+    }
+
+    @Test
+    @DisplayName("Should not query for anonymous users")
+    void isEnrolled_withNullUserId_shouldReturnFalse() {
+        // Act & Assert
+        assertThat(enrollmentCache.isEnrolled(null, 1L)).isFalse();
+        verifyNoInteractions(enrollmentRepository);
+    }
+}
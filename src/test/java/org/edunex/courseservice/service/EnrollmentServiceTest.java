@@ -1,11 +1,11 @@
 package org.edunex.courseservice.service;
 
 import org.edunex.courseservice.dto.EnrollmentDTO;
+import org.edunex.courseservice.dto.SliceDTO;
 import org.edunex.courseservice.model.Course;
 import org.edunex.courseservice.model.Enrollment;
 import org.edunex.courseservice.repository.CourseRepository;
 import org.edunex.courseservice.repository.EnrollmentRepository;
-import org.edunex.courseservice.repository.ProgressRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,6 +13,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
@@ -24,6 +26,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,12 +39,13 @@ class EnrollmentServiceTest {
     private CourseRepository courseRepository;
 
     @Mock
-    private ProgressRepository progressRepository;
+    private EnrollmentCache enrollmentCache;
 
     @InjectMocks
     private EnrollmentService enrollmentService;
 
     private Enrollment testEnrollment;
+    private EnrollmentDTO testEnrollmentDTO;
     private Course testCourse;
     private final String TEST_USER_ID = "user-123";
     private final Long TEST_COURSE_ID = 1L;
@@ -59,30 +63,34 @@ class EnrollmentServiceTest {
         testEnrollment.setUserId(TEST_USER_ID);
         testEnrollment.setCourse(testCourse);
         testEnrollment.setEnrolledAt(LocalDateTime.now());
+
+        // Setup the projection returned by the read queries
+        testEnrollmentDTO = new EnrollmentDTO(1L, TEST_USER_ID, TEST_COURSE_ID, "Test Course",
+                testEnrollment.getEnrolledAt(), 0L, 0L);
     }
 
     @Test
     @DisplayName("Should return all enrollments")
     void getAllEnrollments_shouldReturnAllEnrollments() {
         // Arrange
-        List<Enrollment> enrollments = Arrays.asList(testEnrollment);
-        when(enrollmentRepository.findAll()).thenReturn(enrollments);
+        List<EnrollmentDTO> enrollments = Arrays.asList(testEnrollmentDTO);
+        when(enrollmentRepository.findAllDTOs(PageRequest.of(0, 50))).thenReturn(new SliceImpl<>(enrollments));
 
         // Act
-        List<EnrollmentDTO> result = enrollmentService.getAllEnrollments();
+        SliceDTO<EnrollmentDTO> result = enrollmentService.getAllEnrollments(0, 50);
 
         // Assert
         assertThat(result).isNotNull();
-        assertThat(result.size()).isEqualTo(1);
-        assertThat(result.get(0).getUserId()).isEqualTo(TEST_USER_ID);
-        verify(enrollmentRepository).findAll();
+        assertThat(result.getContent().size()).isEqualTo(1);
+        assertThat(result.getContent().get(0).getUserId()).isEqualTo(TEST_USER_ID);
+        verify(enrollmentRepository).findAllDTOs(PageRequest.of(0, 50));
     }
 
     @Test
     @DisplayName("Should return enrollment by id")
     void getEnrollmentById_shouldReturnEnrollment() {
         // Arrange
-        when(enrollmentRepository.findById(1L)).thenReturn(Optional.of(testEnrollment));
+        when(enrollmentRepository.findDTOById(1L)).thenReturn(Optional.of(testEnrollmentDTO));
 
         // Act
         EnrollmentDTO result = enrollmentService.getEnrollmentById(1L);
@@ -91,26 +99,26 @@ class EnrollmentServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(1L);
         assertThat(result.getUserId()).isEqualTo(TEST_USER_ID);
-        verify(enrollmentRepository).findById(1L);
+        verify(enrollmentRepository).findDTOById(1L);
     }
 
     @Test
     @DisplayName("Should throw exception when enrollment not found")
     void getEnrollmentById_whenEnrollmentNotFound_shouldThrowException() {
         // Arrange
-        when(enrollmentRepository.findById(999L)).thenReturn(Optional.empty());
+        when(enrollmentRepository.findDTOById(999L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ResponseStatusException.class, () -> enrollmentService.getEnrollmentById(999L));
-        verify(enrollmentRepository).findById(999L);
+        verify(enrollmentRepository).findDTOById(999L);
     }
 
     @Test
     @DisplayName("Should return enrollments by user id")
     void getEnrollmentsByUserId_shouldReturnEnrollments() {
         // Arrange
-        List<Enrollment> enrollments = Arrays.asList(testEnrollment);
-        when(enrollmentRepository.findByUserId(TEST_USER_ID)).thenReturn(enrollments);
+        List<EnrollmentDTO> enrollments = Arrays.asList(testEnrollmentDTO);
+        when(enrollmentRepository.findDTOsByUserId(TEST_USER_ID)).thenReturn(enrollments);
 
         // Act
         List<EnrollmentDTO> result = enrollmentService.getEnrollmentsByUserId(TEST_USER_ID);
@@ -119,15 +127,15 @@ class EnrollmentServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.size()).isEqualTo(1);
         assertThat(result.get(0).getUserId()).isEqualTo(TEST_USER_ID);
-        verify(enrollmentRepository).findByUserId(TEST_USER_ID);
+        verify(enrollmentRepository).findDTOsByUserId(TEST_USER_ID);
     }
 
     @Test
     @DisplayName("Should return enrollments by course id")
     void getEnrollmentsByCourseId_shouldReturnEnrollments() {
         // Arrange
-        List<Enrollment> enrollments = Arrays.asList(testEnrollment);
-        when(enrollmentRepository.findByCourseId(TEST_COURSE_ID)).thenReturn(enrollments);
+        List<EnrollmentDTO> enrollments = Arrays.asList(testEnrollmentDTO);
+        when(enrollmentRepository.findDTOsByCourseId(TEST_COURSE_ID)).thenReturn(enrollments);
 
         // Act
         List<EnrollmentDTO> result = enrollmentService.getEnrollmentsByCourseId(TEST_COURSE_ID);
@@ -136,21 +144,22 @@ class EnrollmentServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.size()).isEqualTo(1);
         assertThat(result.get(0).getCourseId()).isEqualTo(TEST_COURSE_ID);
-        verify(enrollmentRepository).findByCourseId(TEST_COURSE_ID);
+        verify(enrollmentRepository).findDTOsByCourseId(TEST_COURSE_ID);
     }
 
     @Test
     @DisplayName("Should check if user is enrolled in a course")
     void checkEnrollment_shouldReturnEnrollmentStatus() {
         // Arrange
-        when(enrollmentRepository.existsByUserIdAndCourseId(TEST_USER_ID, TEST_COURSE_ID)).thenReturn(true);
+        when(enrollmentCache.isEnrolled(TEST_USER_ID, TEST_COURSE_ID)).thenReturn(true);
 
         // Act
         boolean result = enrollmentService.checkEnrollment(TEST_USER_ID, TEST_COURSE_ID);
 
         // Assert
         assertThat(result).isTrue();
-        verify(enrollmentRepository).existsByUserIdAndCourseId(TEST_USER_ID, TEST_COURSE_ID);
+        verify(enrollmentCache).isEnrolled(TEST_USER_ID, TEST_COURSE_ID);
+        verify(enrollmentRepository, never()).existsByUserIdAndCourseId(anyString(), anyLong());
     }
 
     @Test
@@ -161,9 +170,13 @@ class EnrollmentServiceTest {
         enrollmentDTO.setUserId(TEST_USER_ID);
         enrollmentDTO.setCourseId(TEST_COURSE_ID);
 
-        when(courseRepository.findById(TEST_COURSE_ID)).thenReturn(Optional.of(testCourse));
-        when(enrollmentRepository.existsByUserIdAndCourseId(TEST_USER_ID, TEST_COURSE_ID)).thenReturn(false);
-        when(enrollmentRepository.save(any(Enrollment.class))).thenReturn(testEnrollment);
+        EnrollmentDTO insertedEnrollment = new EnrollmentDTO();
+        insertedEnrollment.setId(1L);
+        insertedEnrollment.setUserId(TEST_USER_ID);
+        insertedEnrollment.setCourseId(TEST_COURSE_ID);
+        insertedEnrollment.setCourseTitle("Test Course");
+
+        when(enrollmentRepository.insertIfAbsent(TEST_USER_ID, TEST_COURSE_ID, null)).thenReturn(Optional.of(insertedEnrollment));
 
         // Act
         EnrollmentDTO result = enrollmentService.createEnrollment(enrollmentDTO);
@@ -172,9 +185,11 @@ class EnrollmentServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getUserId()).isEqualTo(TEST_USER_ID);
         assertThat(result.getCourseId()).isEqualTo(TEST_COURSE_ID);
-        verify(courseRepository).findById(TEST_COURSE_ID);
-        verify(enrollmentRepository).existsByUserIdAndCourseId(TEST_USER_ID, TEST_COURSE_ID);
-        verify(enrollmentRepository).save(any(Enrollment.class));
+        verify(enrollmentRepository).insertIfAbsent(TEST_USER_ID, TEST_COURSE_ID, null);
+        verify(enrollmentCache).invalidate(TEST_USER_ID);
+        verify(enrollmentRepository, never()).existsByUserIdAndCourseId(anyString(), anyLong());
+        verify(courseRepository, never()).findById(anyLong());
+        verify(enrollmentRepository, never()).save(any(Enrollment.class));
     }
 
     @Test
@@ -185,12 +200,15 @@ class EnrollmentServiceTest {
         enrollmentDTO.setUserId(TEST_USER_ID);
         enrollmentDTO.setCourseId(999L);
 
-        when(courseRepository.findById(999L)).thenReturn(Optional.empty());
+        when(enrollmentRepository.insertIfAbsent(TEST_USER_ID, 999L, null)).thenReturn(Optional.empty());
+        when(enrollmentRepository.findByUserIdAndCourseId(TEST_USER_ID, 999L)).thenReturn(Optional.empty());
+        when(courseRepository.existsById(999L)).thenReturn(false);
 
         // Act & Assert
-        assertThrows(ResponseStatusException.class, () -> enrollmentService.createEnrollment(enrollmentDTO));
-        verify(courseRepository).findById(999L);
-        verify(enrollmentRepository, never()).save(any(Enrollment.class));
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> enrollmentService.createEnrollment(enrollmentDTO));
+        assertThat(exception.getStatusCode().value()).isEqualTo(404);
+        verify(courseRepository).existsById(999L);
     }
 
     @Test
@@ -201,41 +219,74 @@ class EnrollmentServiceTest {
         enrollmentDTO.setUserId(TEST_USER_ID);
         enrollmentDTO.setCourseId(TEST_COURSE_ID);
 
-        when(courseRepository.findById(TEST_COURSE_ID)).thenReturn(Optional.of(testCourse));
-        when(enrollmentRepository.existsByUserIdAndCourseId(TEST_USER_ID, TEST_COURSE_ID)).thenReturn(true);
+        when(enrollmentRepository.insertIfAbsent(TEST_USER_ID, TEST_COURSE_ID, null)).thenReturn(Optional.empty());
+        when(enrollmentRepository.findByUserIdAndCourseId(TEST_USER_ID, TEST_COURSE_ID)).thenReturn(Optional.of(testEnrollment));
 
         // Act & Assert
-        assertThrows(ResponseStatusException.class, () -> enrollmentService.createEnrollment(enrollmentDTO));
-        verify(courseRepository).findById(TEST_COURSE_ID);
-        verify(enrollmentRepository).existsByUserIdAndCourseId(TEST_USER_ID, TEST_COURSE_ID);
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> enrollmentService.createEnrollment(enrollmentDTO));
+        assertThat(exception.getStatusCode().value()).isEqualTo(409);
+        verify(enrollmentRepository).insertIfAbsent(TEST_USER_ID, TEST_COURSE_ID, null);
         verify(enrollmentRepository, never()).save(any(Enrollment.class));
     }
 
+    @Test
+    @DisplayName("Should return the existing enrollment when a request is retried with the same idempotency key")
+    void createEnrollment_whenRetriedWithSameIdempotencyKey_shouldReturnExistingEnrollment() {
+        // Arrange
+        testEnrollment.setIdempotencyKey("key-1");
+        when(enrollmentRepository.insertIfAbsent(TEST_USER_ID, TEST_COURSE_ID, "key-1")).thenReturn(Optional.empty());
+        when(enrollmentRepository.findByUserIdAndCourseId(TEST_USER_ID, TEST_COURSE_ID)).thenReturn(Optional.of(testEnrollment));
+        when(enrollmentRepository.findDTOById(1L)).thenReturn(Optional.of(testEnrollmentDTO));
+
+        // Act
+        EnrollmentDTO result = enrollmentService.createEnrollment(TEST_USER_ID, TEST_COURSE_ID, "key-1");
+
+        // Assert
+        assertThat(result.getId()).isEqualTo(1L);
+        assertThat(result.getCourseId()).isEqualTo(TEST_COURSE_ID);
+    }
+
+    @Test
+    @DisplayName("Should reject a different idempotency key when the user is already enrolled")
+    void createEnrollment_whenDifferentIdempotencyKey_shouldThrowConflict() {
+        // Arrange
+        testEnrollment.setIdempotencyKey("key-1");
+        when(enrollmentRepository.insertIfAbsent(TEST_USER_ID, TEST_COURSE_ID, "key-2")).thenReturn(Optional.empty());
+        when(enrollmentRepository.findByUserIdAndCourseId(TEST_USER_ID, TEST_COURSE_ID)).thenReturn(Optional.of(testEnrollment));
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> enrollmentService.createEnrollment(TEST_USER_ID, TEST_COURSE_ID, "key-2"));
+        assertThat(exception.getStatusCode().value()).isEqualTo(409);
+    }
+
     @Test
     @DisplayName("Should delete enrollment")
     void deleteEnrollment_shouldDeleteEnrollment() {
         // Arrange
-        when(enrollmentRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(enrollmentRepository).deleteById(1L);
+        when(enrollmentRepository.findById(1L)).thenReturn(Optional.of(testEnrollment));
 
         // Act
         enrollmentService.deleteEnrollment(1L);
 
         // Assert
-        verify(enrollmentRepository).existsById(1L);
-        verify(enrollmentRepository).deleteById(1L);
+        verify(enrollmentRepository).findById(1L);
+        verify(enrollmentRepository).delete(testEnrollment);
+        verify(enrollmentCache).invalidate(TEST_USER_ID);
     }
 
     @Test
     @DisplayName("Should throw exception when deleting non-existent enrollment")
     void deleteEnrollment_whenEnrollmentNotFound_shouldThrowException() {
         // Arrange
-        when(enrollmentRepository.existsById(999L)).thenReturn(false);
+        when(enrollmentRepository.findById(999L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ResponseStatusException.class, () -> enrollmentService.deleteEnrollment(999L));
-        verify(enrollmentRepository).existsById(999L);
-        verify(enrollmentRepository, never()).deleteById(anyLong());
+        verify(enrollmentRepository).findById(999L);
+        verify(enrollmentRepository, never()).delete(any(Enrollment.class));
+        verify(enrollmentCache, never()).invalidate(anyString());
     }
 
     @Test
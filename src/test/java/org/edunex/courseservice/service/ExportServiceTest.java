@@ -0,0 +1,109 @@
+package org.edunex.courseservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.edunex.courseservice.dto.QuizAnswerDTO;
+import org.edunex.courseservice.dto.QuizQuestionDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExportServiceTest {
+
+    private ExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new ExportService();
+        ReflectionTestUtils.setField(exportService, "objectMapper", new ObjectMapper());
+    }
+
+    @Test
+    @DisplayName("Should write one JSON object per line as NDJSON")
+    void write_asNdjson_shouldWriteOneLinePerRow() throws Exception {
+        // Arrange
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Stream<QuizAnswerDTO> rows = Stream.of(
+                new QuizAnswerDTO(1L, "Yes", true, 10L),
+                new QuizAnswerDTO(2L, "No", false, 10L));
+
+        // Act
+        long count = exportService.write(rows, ExportFormat.NDJSON, output);
+
+        // Assert
+        assertThat(count).isEqualTo(2);
+        assertThat(output.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                {"id":1,"answerText":"Yes","correct":true,"questionId":10}
+                {"id":2,"answerText":"No","correct":false,"questionId":10}
+                """);
+    }
+
+    @Test
+    @DisplayName("Should write a header row and quote values that need it as CSV")
+    void write_asCsv_shouldWriteHeaderAndEscapeValues() throws Exception {
+        // Arrange
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Stream<QuizQuestionDTO> rows = Stream.of(
+                new QuizQuestionDTO(1L, "Pick one, or \"both\"", 5L),
+                new QuizQuestionDTO(2L, "Plain", null));
+
+        // Act
+        long count = exportService.write(rows, ExportFormat.CSV, output);
+
+        // Assert
+        assertThat(count).isEqualTo(2);
+        assertThat(output.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "id,questionText,quizId,answers\n"
+                        + "1,\"Pick one, or \"\"both\"\"\",5,\n"
+                        + "2,Plain,,\n");
+    }
+
+    @Test
+    @DisplayName("Should write nothing for an empty export")
+    void write_withNoRows_shouldWriteNothing() throws Exception {
+        // Arrange
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        long count = exportService.write(Stream.empty(), ExportFormat.CSV, output);
+
+        // Assert
+        assertThat(count).isZero();
+        assertThat(output.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should name the download after the export and its format")
+    void toResponse_shouldSetContentTypeAndFilename() {
+        // Arrange
+        StreamingResponseBody body = output -> { };
+
+        // Act
+        ResponseEntity<StreamingResponseBody> response = exportService.toResponse("quiz-answers", ExportFormat.CSV, body);
+
+        // Assert
+        assertThat(response.getHeaders().getContentType()).isEqualTo(ExportFormat.CSV.getMediaType());
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION))
+                .isEqualTo("attachment; filename=\"quiz-answers.csv\"");
+        assertThat(response.getBody()).isSameAs(body);
+    }
+
+    @Test
+    @DisplayName("Should reject an unknown export format")
+    void exportFormatFrom_withUnknownFormat_shouldThrowBadRequest() {
+        assertThatThrownBy(() -> ExportFormat.from("xml"))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("Unsupported export format");
+    }
+}
@@ -1,24 +1,36 @@
 package org.edunex.courseservice.service;
 
 import org.edunex.courseservice.dto.ModuleDTO;
+import org.edunex.courseservice.dto.ModuleSummaryDTO;
+import org.edunex.courseservice.dto.SliceDTO;
 import org.edunex.courseservice.model.Course;
 import org.edunex.courseservice.model.Module;
 import org.edunex.courseservice.model.Progress;
 import org.edunex.courseservice.model.Quiz;
 import org.edunex.courseservice.model.enums.ModuleType;
 import org.edunex.courseservice.repository.CourseRepository;
+import org.edunex.courseservice.repository.CourseVersion;
 import org.edunex.courseservice.repository.ModuleRepository;
+import org.edunex.courseservice.repository.ModuleRepositoryCustom;
 import org.edunex.courseservice.repository.ProgressRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -26,6 +38,7 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -44,10 +57,17 @@ class ModuleServiceTest {
     @Mock
     private S3Service s3Service;
 
+    @Mock
+    private ContentObjectService contentObjectService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private ModuleService moduleService;
 
     private Module testModule;
+    private ModuleDTO testModuleDTO;
     private Course testCourse;
     private Progress testProgress;
     private final String TEST_USER_ID = "user-123";
@@ -76,7 +96,11 @@ class ModuleServiceTest {
         quiz.setId(1L);
         quiz.setTitle("Test Quiz");
         quiz.setModule(testModule);
-        testModule.setQuiz(quiz);
+        testModule.setQuizId(quiz.getId());
+
+        // Setup the projection returned by the read queries
+        testModuleDTO = new ModuleDTO(TEST_MODULE_ID, "Test Module", ModuleType.VIDEO, 10, "https://example.com/video", 1,
+                TEST_COURSE_ID, "Test Course", 1L);
         
         // Setup test progress
         testProgress = new Progress();
@@ -94,24 +118,24 @@ class ModuleServiceTest {
     @DisplayName("Should return all modules")
     void getAllModules_shouldReturnAllModules() {
         // Arrange
-        List<Module> modules = Arrays.asList(testModule);
-        when(moduleRepository.findAll()).thenReturn(modules);
+        List<ModuleDTO> modules = Arrays.asList(testModuleDTO);
+        when(moduleRepository.findAllDTOs(PageRequest.of(0, 50))).thenReturn(new SliceImpl<>(modules));
 
         // Act
-        List<ModuleDTO> result = moduleService.getAllModules();
+        SliceDTO<ModuleDTO> result = moduleService.getAllModules(0, 50);
 
         // Assert
         assertThat(result).isNotNull();
-        assertThat(result.size()).isEqualTo(1);
-        assertThat(result.get(0).getTitle()).isEqualTo("Test Module");
-        verify(moduleRepository).findAll();
+        assertThat(result.getContent().size()).isEqualTo(1);
+        assertThat(result.getContent().get(0).getTitle()).isEqualTo("Test Module");
+        verify(moduleRepository).findAllDTOs(PageRequest.of(0, 50));
     }
 
     @Test
     @DisplayName("Should return module by id")
     void getModuleById_shouldReturnModule() {
         // Arrange
-        when(moduleRepository.findById(TEST_MODULE_ID)).thenReturn(Optional.of(testModule));
+        when(moduleRepository.findDTOById(TEST_MODULE_ID)).thenReturn(Optional.of(testModuleDTO));
 
         // Act
         ModuleDTO result = moduleService.getModuleById(TEST_MODULE_ID, null);
@@ -120,16 +144,16 @@ class ModuleServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(TEST_MODULE_ID);
         assertThat(result.getTitle()).isEqualTo("Test Module");
-        verify(moduleRepository).findById(TEST_MODULE_ID);
+        verify(moduleRepository).findDTOById(TEST_MODULE_ID);
     }
 
     @Test
     @DisplayName("Should return module by id with user progress")
     void getModuleById_withUserId_shouldReturnModuleWithProgress() {
         // Arrange
-        when(moduleRepository.findById(TEST_MODULE_ID)).thenReturn(Optional.of(testModule));
-        when(progressRepository.findByUserIdAndModuleId(TEST_USER_ID, TEST_MODULE_ID))
-            .thenReturn(Optional.of(testProgress));
+        when(moduleRepository.findDTOById(TEST_MODULE_ID)).thenReturn(Optional.of(testModuleDTO));
+        when(progressRepository.findCompletedModuleIdsByUserAndModuleIds(TEST_USER_ID, List.of(TEST_MODULE_ID)))
+            .thenReturn(List.of(TEST_MODULE_ID));
 
         // Act
         ModuleDTO result = moduleService.getModuleById(TEST_MODULE_ID, TEST_USER_ID);
@@ -138,27 +162,27 @@ class ModuleServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(TEST_MODULE_ID);
         assertThat(result.isCompleted()).isTrue();
-        verify(moduleRepository).findById(TEST_MODULE_ID);
-        verify(progressRepository).findByUserIdAndModuleId(TEST_USER_ID, TEST_MODULE_ID);
+        verify(moduleRepository).findDTOById(TEST_MODULE_ID);
+        verify(progressRepository).findCompletedModuleIdsByUserAndModuleIds(TEST_USER_ID, List.of(TEST_MODULE_ID));
     }
 
     @Test
     @DisplayName("Should throw exception when module not found")
     void getModuleById_whenModuleNotFound_shouldThrowException() {
         // Arrange
-        when(moduleRepository.findById(999L)).thenReturn(Optional.empty());
+        when(moduleRepository.findDTOById(999L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ResponseStatusException.class, () -> moduleService.getModuleById(999L, null));
-        verify(moduleRepository).findById(999L);
+        verify(moduleRepository).findDTOById(999L);
     }
 
     @Test
     @DisplayName("Should return modules by course id")
     void getModulesByCourseId_shouldReturnModules() {
         // Arrange
-        List<Module> modules = Arrays.asList(testModule);
-        when(moduleRepository.findByCourseIdOrderByModuleOrder(TEST_COURSE_ID)).thenReturn(modules);
+        List<ModuleDTO> modules = Arrays.asList(testModuleDTO);
+        when(moduleRepository.findDTOsByCourseIdOrderByModuleOrder(TEST_COURSE_ID)).thenReturn(modules);
 
         // Act
         List<ModuleDTO> result = moduleService.getModulesByCourseId(TEST_COURSE_ID, null);
@@ -167,15 +191,38 @@ class ModuleServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.size()).isEqualTo(1);
         assertThat(result.get(0).getCourseId()).isEqualTo(TEST_COURSE_ID);
-        verify(moduleRepository).findByCourseIdOrderByModuleOrder(TEST_COURSE_ID);
+        verify(moduleRepository).findDTOsByCourseIdOrderByModuleOrder(TEST_COURSE_ID);
+    }
+
+    @Test
+    @DisplayName("Should list any number of modules with one module query and one progress query")
+    void getModulesByCourseId_withManyModules_shouldUseOneModuleAndOneProgressQuery() {
+        // Arrange
+        List<ModuleDTO> modules = new ArrayList<>();
+        for (long id = 1; id <= 50; id++) {
+            modules.add(new ModuleDTO(id, "Module " + id, ModuleType.VIDEO, 0, null, (int) id, TEST_COURSE_ID, "Test Course", id));
+        }
+        when(moduleRepository.findDTOsByCourseIdOrderByModuleOrder(TEST_COURSE_ID)).thenReturn(modules);
+        when(progressRepository.findCompletedModuleIdsByUserAndModuleIds(eq(TEST_USER_ID), anyList())).thenReturn(List.of(3L));
+
+        // Act
+        List<ModuleDTO> result = moduleService.getModulesByCourseId(TEST_COURSE_ID, TEST_USER_ID);
+
+        // Assert
+        assertThat(result).hasSize(50);
+        assertThat(result.get(2).isCompleted()).isTrue();
+        assertThat(result.get(49).getQuizId()).isEqualTo(50L);
+        verify(moduleRepository).findDTOsByCourseIdOrderByModuleOrder(TEST_COURSE_ID);
+        verify(progressRepository).findCompletedModuleIdsByUserAndModuleIds(eq(TEST_USER_ID), anyList());
+        verifyNoMoreInteractions(moduleRepository, progressRepository);
     }
 
     @Test
     @DisplayName("Should return modules by type")
     void getModulesByType_shouldReturnModules() {
         // Arrange
-        List<Module> modules = Arrays.asList(testModule);
-        when(moduleRepository.findByType(ModuleType.VIDEO)).thenReturn(modules);
+        List<ModuleDTO> modules = Arrays.asList(testModuleDTO);
+        when(moduleRepository.findDTOsByType(ModuleType.VIDEO)).thenReturn(modules);
 
         // Act
         List<ModuleDTO> result = moduleService.getModulesByType(ModuleType.VIDEO, null);
@@ -184,7 +231,7 @@ class ModuleServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.size()).isEqualTo(1);
         assertThat(result.get(0).getType()).isEqualTo(ModuleType.VIDEO);
-        verify(moduleRepository).findByType(ModuleType.VIDEO);
+        verify(moduleRepository).findDTOsByType(ModuleType.VIDEO);
     }
 
     @Test
@@ -192,8 +239,8 @@ class ModuleServiceTest {
     void getAvailableModulesByCourseIdAndCoins_shouldReturnAvailableModules() {
         // Arrange
         int userCoins = 15;
-        List<Module> modules = Arrays.asList(testModule);
-        when(moduleRepository.findByCourseIdAndCoinsRequiredLessThanEqual(TEST_COURSE_ID, userCoins))
+        List<ModuleDTO> modules = Arrays.asList(testModuleDTO);
+        when(moduleRepository.findDTOsByCourseIdAndCoinsRequiredLessThanEqual(TEST_COURSE_ID, userCoins))
             .thenReturn(modules);
 
         // Act
@@ -204,7 +251,7 @@ class ModuleServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.size()).isEqualTo(1);
         assertThat(result.get(0).getCoinsRequired()).isLessThanOrEqualTo(userCoins);
-        verify(moduleRepository).findByCourseIdAndCoinsRequiredLessThanEqual(TEST_COURSE_ID, userCoins);
+        verify(moduleRepository).findDTOsByCourseIdAndCoinsRequiredLessThanEqual(TEST_COURSE_ID, userCoins);
     }
 
     @Test
@@ -219,17 +266,9 @@ class ModuleServiceTest {
         moduleDTO.setModuleOrder(2);
         moduleDTO.setCourseId(TEST_COURSE_ID);
 
-        Module newModule = new Module();
-        newModule.setId(2L);
-        newModule.setTitle(moduleDTO.getTitle());
-        newModule.setType(moduleDTO.getType());
-        newModule.setCoinsRequired(moduleDTO.getCoinsRequired());
-        newModule.setContentUrl(moduleDTO.getContentUrl());
-        newModule.setModuleOrder(moduleDTO.getModuleOrder());
-        newModule.setCourse(testCourse);
-
         when(courseRepository.findById(TEST_COURSE_ID)).thenReturn(Optional.of(testCourse));
-        when(moduleRepository.save(any(Module.class))).thenReturn(newModule);
+        when(moduleRepository.insertModule(TEST_COURSE_ID, "New Module", ModuleType.VIDEO, 5, "https://example.com/new-video", 2))
+                .thenReturn(2L);
 
         // Act
         ModuleDTO result = moduleService.createModule(moduleDTO);
@@ -238,8 +277,125 @@ class ModuleServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(2L);
         assertThat(result.getTitle()).isEqualTo("New Module");
+        assertThat(result.getCourseName()).isEqualTo("Test Course");
         verify(courseRepository).findById(TEST_COURSE_ID);
-        verify(moduleRepository).save(any(Module.class));
+        verify(moduleRepository).insertModule(TEST_COURSE_ID, "New Module", ModuleType.VIDEO, 5, "https://example.com/new-video", 2);
+        verify(moduleRepository).touchContent(2L);
+        verify(contentObjectService).retain("https://example.com/new-video");
+        verifyNoMoreInteractions(courseRepository, moduleRepository);
+    }
+
+    @Test
+    @DisplayName("Should replace module content with one update and release the old file")
+    void uploadModuleContent_shouldUpdateModuleOnce() {
+        // Arrange
+        MockMultipartFile file = new MockMultipartFile("file", "lecture.pdf", "application/pdf", new byte[]{1, 2, 3});
+        runTransactions();
+        when(moduleRepository.existsById(TEST_MODULE_ID)).thenReturn(true);
+        when(contentObjectService.store(file)).thenReturn("content/abc/lecture.pdf");
+        when(moduleRepository.replaceContent(TEST_MODULE_ID, "content/abc/lecture.pdf", ModuleType.PDF))
+                .thenReturn(Optional.of(new ModuleRepositoryCustom.PreviousContent("module-1/old.mp4")));
+
+        // Act
+        moduleService.uploadModuleContent(TEST_MODULE_ID, file);
+
+        // Assert
+        InOrder inOrder = inOrder(moduleRepository, contentObjectService);
+        inOrder.verify(moduleRepository).replaceContent(TEST_MODULE_ID, "content/abc/lecture.pdf", ModuleType.PDF);
+        inOrder.verify(moduleRepository).touchContent(TEST_MODULE_ID);
+        inOrder.verify(contentObjectService).release("module-1/old.mp4");
+        verify(contentObjectService, never()).release("content/abc/lecture.pdf");
+    }
+
+    @Test
+    @DisplayName("Should give the new file's reference back when the module update fails")
+    void uploadModuleContent_whenUpdateFails_shouldReleaseNewFile() {
+        // Arrange
+        MockMultipartFile file = new MockMultipartFile("file", "lecture.pdf", "application/pdf", new byte[]{1, 2, 3});
+        runTransactions();
+        when(moduleRepository.existsById(TEST_MODULE_ID)).thenReturn(true);
+        when(contentObjectService.store(file)).thenReturn("content/abc/lecture.pdf");
+        when(moduleRepository.replaceContent(TEST_MODULE_ID, "content/abc/lecture.pdf", ModuleType.PDF))
+                .thenThrow(new IllegalStateException("connection lost"));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> moduleService.uploadModuleContent(TEST_MODULE_ID, file));
+        verify(contentObjectService).release("content/abc/lecture.pdf");
+        verify(contentObjectService, times(1)).release(any());
+    }
+
+    @Test
+    @DisplayName("Should return 404 and release the new file when the module is deleted during the upload")
+    void uploadModuleContent_whenModuleDeletedDuringUpload_shouldReleaseNewFile() {
+        // Arrange
+        MockMultipartFile file = new MockMultipartFile("file", "lecture.pdf", "application/pdf", new byte[]{1, 2, 3});
+        runTransactions();
+        when(moduleRepository.existsById(TEST_MODULE_ID)).thenReturn(true);
+        when(contentObjectService.store(file)).thenReturn("content/abc/lecture.pdf");
+        when(moduleRepository.replaceContent(TEST_MODULE_ID, "content/abc/lecture.pdf", ModuleType.PDF))
+                .thenReturn(Optional.empty());
+
+        // Act
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> moduleService.uploadModuleContent(TEST_MODULE_ID, file));
+
+        // Assert
+        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        verify(contentObjectService).release("content/abc/lecture.pdf");
+        verify(contentObjectService, times(1)).release(any());
+        verify(moduleRepository, never()).touchContent(any());
+    }
+
+    @Test
+    @DisplayName("Should keep the reference when a module is attached to the key it already points at")
+    void attachContent_whenKeyUnchanged_shouldNotRelease() {
+        // Arrange
+        runTransactions();
+        when(moduleRepository.replaceContent(TEST_MODULE_ID, "module-1/a.mp4", ModuleType.VIDEO))
+                .thenReturn(Optional.of(new ModuleRepositoryCustom.PreviousContent("module-1/a.mp4")));
+
+        // Act
+        moduleService.attachContent(TEST_MODULE_ID, "module-1/a.mp4", "a.mp4", "video/mp4", 3L);
+
+        // Assert
+        verify(moduleRepository).touchContent(TEST_MODULE_ID);
+        verify(contentObjectService, never()).release(any());
+    }
+
+    @Test
+    @DisplayName("Should clear module content with one update and release the file")
+    void deleteModuleContent_shouldUpdateModuleOnce() {
+        // Arrange
+        runTransactions();
+        when(moduleRepository.replaceContent(TEST_MODULE_ID, null, null))
+                .thenReturn(Optional.of(new ModuleRepositoryCustom.PreviousContent("module-1/old.mp4")));
+
+        // Act
+        moduleService.deleteModuleContent(TEST_MODULE_ID);
+
+        // Assert
+        verify(moduleRepository).replaceContent(TEST_MODULE_ID, null, null);
+        verify(moduleRepository).touchContent(TEST_MODULE_ID);
+        verify(contentObjectService).release("module-1/old.mp4");
+        verifyNoMoreInteractions(moduleRepository, contentObjectService);
+    }
+
+    @Test
+    @DisplayName("Should return 400 when deleting content from a module that has none")
+    void deleteModuleContent_whenNoContent_shouldThrowBadRequest() {
+        // Arrange
+        runTransactions();
+        when(moduleRepository.replaceContent(TEST_MODULE_ID, null, null))
+                .thenReturn(Optional.of(new ModuleRepositoryCustom.PreviousContent(null)));
+
+        // Act
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> moduleService.deleteModuleContent(TEST_MODULE_ID));
+
+        // Assert
+        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verify(moduleRepository, never()).touchContent(any());
+        verifyNoInteractions(contentObjectService);
     }
 
     @Test
@@ -250,12 +406,12 @@ class ModuleServiceTest {
         moduleDTO.setTitle("New Module");
         moduleDTO.setCourseId(999L);
 
-        when(courseRepository.findById(999L)).thenReturn(Optional.empty());
+        when(courseRepository.findByIdForUpdate(999L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ResponseStatusException.class, () -> moduleService.createModule(moduleDTO));
-        verify(courseRepository).findById(999L);
-        verify(moduleRepository, never()).save(any(Module.class));
+        verify(courseRepository).findByIdForUpdate(999L);
+        verifyNoInteractions(moduleRepository);
     }
 
     @Test
@@ -279,11 +435,11 @@ class ModuleServiceTest {
         updatedModule.setContentUrl(moduleDTO.getContentUrl());
         updatedModule.setModuleOrder(moduleDTO.getModuleOrder());
         updatedModule.setCourse(testCourse);
-        updatedModule.setQuiz(testModule.getQuiz());
+        updatedModule.setQuizId(testModule.getQuizId());
 
         when(moduleRepository.findById(TEST_MODULE_ID)).thenReturn(Optional.of(existingModule));
         when(courseRepository.findById(TEST_COURSE_ID)).thenReturn(Optional.of(testCourse));
-        when(moduleRepository.save(any(Module.class))).thenReturn(updatedModule);
+        when(moduleRepository.saveAndFlush(any(Module.class))).thenReturn(updatedModule);
 
         // Act
         ModuleDTO result = moduleService.updateModule(TEST_MODULE_ID, moduleDTO);
@@ -295,7 +451,35 @@ class ModuleServiceTest {
         assertThat(result.getType()).isEqualTo(ModuleType.PDF);
         verify(moduleRepository).findById(TEST_MODULE_ID);
         verify(courseRepository).findById(TEST_COURSE_ID);
-        verify(moduleRepository).save(any(Module.class));
+        verify(moduleRepository).saveAndFlush(any(Module.class));
+        verify(contentObjectService).retain("https://example.com/updated-content");
+        verify(contentObjectService).release("https://example.com/video");
+    }
+
+    @Test
+    @DisplayName("Should bump both courses and stamp the moved module only after the move is flushed")
+    void updateModule_toAnotherCourse_shouldFlushBeforeTouchingContent() {
+        // Arrange
+        Course targetCourse = new Course();
+        targetCourse.setId(2L);
+        targetCourse.setTitle("Target Course");
+        ModuleDTO moduleDTO = new ModuleDTO(TEST_MODULE_ID, "Test Module", ModuleType.VIDEO, 10, "https://example.com/video", 1,
+                2L, "Target Course", 1L);
+
+        when(moduleRepository.findById(TEST_MODULE_ID)).thenReturn(Optional.of(testModule));
+        when(courseRepository.findById(2L)).thenReturn(Optional.of(targetCourse));
+        when(moduleRepository.saveAndFlush(testModule)).thenReturn(testModule);
+
+        // Act
+        ModuleDTO result = moduleService.updateModule(TEST_MODULE_ID, moduleDTO);
+
+        // Assert
+        assertThat(result.getCourseId()).isEqualTo(2L);
+        InOrder inOrder = inOrder(courseRepository, moduleRepository);
+        inOrder.verify(courseRepository).incrementVersion(TEST_COURSE_ID);
+        inOrder.verify(moduleRepository).saveAndFlush(testModule);
+        inOrder.verify(moduleRepository).touchContent(TEST_MODULE_ID);
+        verify(moduleRepository, never()).save(any(Module.class));
     }
 
     @Test
@@ -317,43 +501,93 @@ class ModuleServiceTest {
     @DisplayName("Should delete module")
     void deleteModule_shouldDeleteModule() {
         // Arrange
-        when(moduleRepository.existsById(TEST_MODULE_ID)).thenReturn(true);
-        doNothing().when(moduleRepository).deleteById(TEST_MODULE_ID);
+        when(moduleRepository.findCourseIdById(TEST_MODULE_ID)).thenReturn(Optional.of(TEST_COURSE_ID));
+        when(moduleRepository.deleteModuleTree(TEST_MODULE_ID)).thenReturn(1);
 
         // Act
         moduleService.deleteModule(TEST_MODULE_ID);
 
         // Assert
-        verify(moduleRepository).existsById(TEST_MODULE_ID);
-        verify(moduleRepository).deleteById(TEST_MODULE_ID);
+        verify(moduleRepository).findCourseIdById(TEST_MODULE_ID);
+        verify(moduleRepository).deleteModuleTree(TEST_MODULE_ID);
+        verify(courseRepository).incrementVersion(TEST_COURSE_ID);
     }
 
     @Test
     @DisplayName("Should throw exception when deleting non-existent module")
     void deleteModule_whenModuleNotFound_shouldThrowException() {
         // Arrange
-        when(moduleRepository.existsById(999L)).thenReturn(false);
+        when(moduleRepository.findCourseIdById(999L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ResponseStatusException.class, () -> moduleService.deleteModule(999L));
-        verify(moduleRepository).existsById(999L);
-        verify(moduleRepository, never()).deleteById(anyLong());
+        verify(moduleRepository).findCourseIdById(999L);
+        verify(moduleRepository, never()).deleteModuleTree(anyLong());
     }
 
     @Test
-    @DisplayName("Should reorder a module")
+    @DisplayName("Should move a module between its new neighbours by updating only that module")
     void reorderModule_shouldUpdateModuleOrder() {
         // Arrange
-        int newOrder = 5;
+        Module second = moduleWithOrder(2L, 2048);
+        Module third = moduleWithOrder(3L, 3072);
+        testModule.setModuleOrder(1024);
         when(moduleRepository.findById(TEST_MODULE_ID)).thenReturn(Optional.of(testModule));
+        when(moduleRepository.findByCourseIdOrderByModuleOrder(TEST_COURSE_ID)).thenReturn(Arrays.asList(testModule, second, third));
         when(moduleRepository.save(any(Module.class))).thenReturn(testModule);
 
         // Act
-        moduleService.reorderModule(TEST_MODULE_ID, newOrder);
+        moduleService.reorderModule(TEST_MODULE_ID, 2);
 
         // Assert
-        verify(moduleRepository).findById(TEST_MODULE_ID);
-        verify(moduleRepository).save(any(Module.class));
+        assertThat(testModule.getModuleOrder()).isEqualTo(2560);
+        verify(courseRepository).findByIdForUpdate(TEST_COURSE_ID);
+        verify(moduleRepository).save(testModule);
+        verify(courseRepository).incrementVersion(TEST_COURSE_ID);
+        verify(moduleRepository, never()).updateModuleOrders(anyLong(), anyList(), anyList());
+    }
+
+    @Test
+    @DisplayName("Should respace the whole course when there is no gap left between neighbours")
+    void reorderModule_whenNoGapLeft_shouldRebalance() {
+        // Arrange
+        Module second = moduleWithOrder(2L, 2);
+        Module third = moduleWithOrder(3L, 3);
+        when(moduleRepository.findById(TEST_MODULE_ID)).thenReturn(Optional.of(testModule));
+        when(moduleRepository.findByCourseIdOrderByModuleOrder(TEST_COURSE_ID)).thenReturn(Arrays.asList(testModule, second, third));
+
+        // Act
+        moduleService.reorderModule(TEST_MODULE_ID, 2);
+
+        // Assert
+        verify(moduleRepository).updateModuleOrders(TEST_COURSE_ID, List.of(2L, 1L, 3L), List.of(1024, 2048, 3072));
+        verify(moduleRepository, never()).save(any(Module.class));
+    }
+
+    @Test
+    @DisplayName("Should set the order of all modules of a course in one update")
+    void setModuleOrder_shouldUpdateAllModules() {
+        // Arrange
+        when(courseRepository.findByIdForUpdate(TEST_COURSE_ID)).thenReturn(Optional.of(testCourse));
+        when(moduleRepository.findIdsByCourseId(TEST_COURSE_ID)).thenReturn(List.of(1L, 2L, 3L));
+
+        // Act
+        moduleService.setModuleOrder(TEST_COURSE_ID, List.of(3L, 1L, 2L));
+
+        // Assert
+        verify(moduleRepository).updateModuleOrders(TEST_COURSE_ID, List.of(3L, 1L, 2L), List.of(1024, 2048, 3072));
+    }
+
+    @Test
+    @DisplayName("Should reject an order that does not list every module of the course")
+    void setModuleOrder_withMissingModule_shouldThrowException() {
+        // Arrange
+        when(courseRepository.findByIdForUpdate(TEST_COURSE_ID)).thenReturn(Optional.of(testCourse));
+        when(moduleRepository.findIdsByCourseId(TEST_COURSE_ID)).thenReturn(List.of(1L, 2L, 3L));
+
+        // Act & Assert
+        assertThrows(ResponseStatusException.class, () -> moduleService.setModuleOrder(TEST_COURSE_ID, List.of(1L, 2L, 2L)));
+        verify(moduleRepository, never()).updateModuleOrders(anyLong(), anyList(), anyList());
     }
 
     @Test
@@ -367,4 +601,64 @@ class ModuleServiceTest {
         verify(moduleRepository).findById(999L);
         verify(moduleRepository, never()).save(any(Module.class));
     }
+
+    @Test
+    @DisplayName("Should derive the module list ETag from the course version and the user's progress")
+    void getModulesETag_shouldChangeWithCourseVersion() {
+        // Arrange
+        when(courseRepository.findVersionById(TEST_COURSE_ID, TEST_USER_ID))
+                .thenReturn(Optional.of(new CourseVersion(3L, 10L, 1L, 42L)))
+                .thenReturn(Optional.of(new CourseVersion(4L, 10L, 1L, 42L)));
+
+        // Act
+        String first = moduleService.getModulesETag(TEST_COURSE_ID, TEST_USER_ID, false);
+        String second = moduleService.getModulesETag(TEST_COURSE_ID, TEST_USER_ID, false);
+
+        // Assert
+        assertThat(first).startsWith("\"").endsWith("\"");
+        assertThat(second).isNotEqualTo(first);
+        verify(moduleRepository, never()).findByCourseIdOrderByModuleOrder(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should not compute an ETag for a non-existent course")
+    void getModulesETag_whenCourseNotFound_shouldReturnNull() {
+        // Arrange
+        when(courseRepository.findVersionById(999L, TEST_USER_ID)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThat(moduleService.getModulesETag(999L, TEST_USER_ID, false)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should build module summaries from the projection and mark completed modules")
+    void getModuleSummariesByCourseId_shouldMarkCompletedModules() {
+        // Arrange
+        List<ModuleSummaryDTO> summaries = List.of(
+                new ModuleSummaryDTO(1L, "Intro", ModuleType.VIDEO, 0, 1024, TEST_COURSE_ID, null),
+                new ModuleSummaryDTO(2L, "Quiz", ModuleType.PDF, 5, 2048, TEST_COURSE_ID, 7L));
+        when(moduleRepository.findSummariesByCourseId(TEST_COURSE_ID)).thenReturn(summaries);
+        when(progressRepository.findCompletedModuleIdsByCourseAndUser(TEST_USER_ID, TEST_COURSE_ID)).thenReturn(List.of(2L));
+
+        // Act
+        List<ModuleSummaryDTO> result = moduleService.getModuleSummariesByCourseId(TEST_COURSE_ID, TEST_USER_ID);
+
+        // Assert
+        assertThat(result).extracting(ModuleSummaryDTO::isCompleted).containsExactly(false, true);
+        verify(moduleRepository, never()).findByCourseIdOrderByModuleOrder(anyLong());
+        verifyNoInteractions(s3Service);
+    }
+
+    private Module moduleWithOrder(Long id, int moduleOrder) {
+        Module module = new Module();
+        module.setId(id);
+        module.setModuleOrder(moduleOrder);
+        module.setCourse(testCourse);
+        return module;
+    }
+
+    private void runTransactions() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
 }
@@ -0,0 +1,153 @@
+package org.edunex.courseservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PartitionMaintenanceServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private PartitionMaintenanceService partitionMaintenanceService;
+
+    private final String TABLE = PartitionMaintenanceService.QUIZ_RESULTS;
+    private final YearMonth CURRENT_MONTH = YearMonth.of(2026, 10);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(partitionMaintenanceService, "monthsAhead", 2);
+
+        // Run the maintenance callback inline
+        lenient().doAnswer(invocation -> {
+            Consumer<TransactionStatus> action = invocation.getArgument(0);
+            action.accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        lenient().when(jdbcTemplate.queryForObject(contains("pg_try_advisory_xact_lock"), eq(Boolean.class), anyString()))
+                .thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("Should name partitions after the table and month")
+    void partitionName_shouldUseYearAndMonth() {
+        assertThat(PartitionMaintenanceService.partitionName(TABLE, CURRENT_MONTH)).isEqualTo("quiz_results_p202610");
+    }
+
+    @Test
+    @DisplayName("Should create the current and upcoming monthly partitions")
+    void maintain_shouldCreateUpcomingPartitions() {
+        // Arrange
+        when(jdbcTemplate.queryForObject(contains("pg_partitioned_table"), eq(Boolean.class), eq(TABLE))).thenReturn(true);
+
+        // Act
+        partitionMaintenanceService.maintain(TABLE, 0, CURRENT_MONTH);
+
+        // Assert
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS quiz_results_p202610 PARTITION OF quiz_results"
+                + " FOR VALUES FROM ('2026-10-01') TO ('2026-11-01')");
+        verify(jdbcTemplate).execute(contains("quiz_results_p202611"));
+        verify(jdbcTemplate).execute(contains("quiz_results_p202612"));
+        verify(jdbcTemplate, never()).execute(contains("DETACH"));
+    }
+
+    @Test
+    @DisplayName("Should detach monthly partitions older than the retention period")
+    void maintain_withRetention_shouldDetachOldPartitions() {
+        // Arrange
+        when(jdbcTemplate.queryForObject(contains("pg_partitioned_table"), eq(Boolean.class), eq(TABLE))).thenReturn(true);
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class), eq(TABLE)))
+                .thenReturn(List.of("quiz_results_default", "quiz_results_p202603", "quiz_results_p202604", "quiz_results_p202610"));
+
+        // Act
+        partitionMaintenanceService.maintain(TABLE, 6, CURRENT_MONTH);
+
+        // Assert
+        verify(jdbcTemplate).execute("ALTER TABLE quiz_results DETACH PARTITION quiz_results_p202603");
+        verify(jdbcTemplate, never()).execute(contains("DETACH PARTITION quiz_results_p202604"));
+        verify(jdbcTemplate, never()).execute(contains("DETACH PARTITION quiz_results_default"));
+        verify(jdbcTemplate, never()).execute(startsWith("DROP TABLE"));
+    }
+
+    @Test
+    @DisplayName("Should take the results of a detached partition out of the score aggregates before dropping it")
+    void maintain_withRetention_shouldAdjustScoreAggregates() {
+        // Arrange
+        ReflectionTestUtils.setField(partitionMaintenanceService, "dropDetached", true);
+        when(jdbcTemplate.queryForObject(contains("pg_partitioned_table"), eq(Boolean.class), eq(TABLE))).thenReturn(true);
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class), eq(TABLE)))
+                .thenReturn(List.of("quiz_results_p202603", "quiz_results_p202610"));
+
+        // Act
+        partitionMaintenanceService.maintain(TABLE, 6, CURRENT_MONTH);
+
+        // Assert
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE quiz_results DETACH PARTITION quiz_results_p202603");
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        inOrder.verify(jdbcTemplate).update(sql.capture());
+        inOrder.verify(jdbcTemplate).execute("DROP TABLE quiz_results_p202603");
+        assertThat(sql.getValue())
+                .contains("FROM quiz_results_p202603")
+                .contains("DELETE FROM quiz_best_scores")
+                .contains("UPDATE quiz_best_scores")
+                .contains("UPDATE quiz_score_buckets");
+        verify(jdbcTemplate, times(1)).update(anyString());
+    }
+
+    @Test
+    @DisplayName("Should leave the score aggregates alone when retiring progress event partitions")
+    void maintain_progressEventsWithRetention_shouldNotAdjustScoreAggregates() {
+        // Arrange
+        String progressEvents = PartitionMaintenanceService.PROGRESS_EVENTS;
+        when(jdbcTemplate.queryForObject(contains("pg_partitioned_table"), eq(Boolean.class), eq(progressEvents))).thenReturn(true);
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class), eq(progressEvents)))
+                .thenReturn(List.of("progress_events_p202603"));
+
+        // Act
+        partitionMaintenanceService.maintain(progressEvents, 6, CURRENT_MONTH);
+
+        // Assert
+        verify(jdbcTemplate).execute("ALTER TABLE progress_events DETACH PARTITION progress_events_p202603");
+        verify(jdbcTemplate, never()).update(anyString());
+    }
+
+    @Test
+    @DisplayName("Should skip tables that are not partitioned")
+    void maintain_whenTableNotPartitioned_shouldSkip() {
+        // Arrange
+        when(jdbcTemplate.queryForObject(contains("pg_partitioned_table"), eq(Boolean.class), eq(TABLE))).thenReturn(false);
+
+        // Act
+        partitionMaintenanceService.maintain(TABLE, 6, CURRENT_MONTH);
+
+        // Assert
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+}
@@ -1,11 +1,11 @@
 package org.edunex.courseservice.service;
 
 import org.edunex.courseservice.dto.ProgressDTO;
+import org.edunex.courseservice.dto.SliceDTO;
 import org.edunex.courseservice.model.Course;
 import org.edunex.courseservice.model.Module;
 import org.edunex.courseservice.model.Progress;
 import org.edunex.courseservice.model.enums.ModuleType;
-import org.edunex.courseservice.repository.ModuleRepository;
 import org.edunex.courseservice.repository.ProgressRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,6 +14,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
@@ -26,6 +29,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,13 +38,11 @@ class ProgressServiceTest {
     @Mock
     private ProgressRepository progressRepository;
 
-    @Mock
-    private ModuleRepository moduleRepository;
-
     @InjectMocks
     private ProgressService progressService;
 
     private Progress testProgress;
+    private ProgressDTO testProgressDTO;
     private Module testModule;
     private Course testCourse;
     private final String TEST_USER_ID = "user-123";
@@ -68,30 +70,34 @@ class ProgressServiceTest {
         testProgress.setModule(testModule);
         testProgress.setCompleted(true);
         testProgress.setCompletedAt(LocalDateTime.now());
+
+        // Setup the projection returned by the read queries
+        testProgressDTO = new ProgressDTO(1L, TEST_USER_ID, TEST_MODULE_ID, "Test Module", ModuleType.VIDEO,
+                true, testProgress.getCompletedAt(), TEST_COURSE_ID, "Test Course");
     }
 
     @Test
     @DisplayName("Should return all progress records")
     void getAllProgress_shouldReturnAllProgressRecords() {
         // Arrange
-        List<Progress> progressList = Arrays.asList(testProgress);
-        when(progressRepository.findAll()).thenReturn(progressList);
+        List<ProgressDTO> progressList = Arrays.asList(testProgressDTO);
+        when(progressRepository.findAllDTOs(PageRequest.of(0, 50))).thenReturn(new SliceImpl<>(progressList));
 
         // Act
-        List<ProgressDTO> result = progressService.getAllProgress();
+        SliceDTO<ProgressDTO> result = progressService.getAllProgress(0, 50);
 
         // Assert
         assertThat(result).isNotNull();
-        assertThat(result.size()).isEqualTo(1);
-        assertThat(result.get(0).getUserId()).isEqualTo(TEST_USER_ID);
-        verify(progressRepository).findAll();
+        assertThat(result.getContent().size()).isEqualTo(1);
+        assertThat(result.getContent().get(0).getUserId()).isEqualTo(TEST_USER_ID);
+        verify(progressRepository).findAllDTOs(PageRequest.of(0, 50));
     }
 
     @Test
     @DisplayName("Should return progress by id")
     void getProgressById_shouldReturnProgress() {
         // Arrange
-        when(progressRepository.findById(1L)).thenReturn(Optional.of(testProgress));
+        when(progressRepository.findDTOById(1L)).thenReturn(Optional.of(testProgressDTO));
 
         // Act
         ProgressDTO result = progressService.getProgressById(1L);
@@ -101,26 +107,26 @@ class ProgressServiceTest {
         assertThat(result.getId()).isEqualTo(1L);
         assertThat(result.getUserId()).isEqualTo(TEST_USER_ID);
         assertThat(result.isCompleted()).isTrue();
-        verify(progressRepository).findById(1L);
+        verify(progressRepository).findDTOById(1L);
     }
 
     @Test
     @DisplayName("Should throw exception when progress not found")
     void getProgressById_whenProgressNotFound_shouldThrowException() {
         // Arrange
-        when(progressRepository.findById(999L)).thenReturn(Optional.empty());
+        when(progressRepository.findDTOById(999L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ResponseStatusException.class, () -> progressService.getProgressById(999L));
-        verify(progressRepository).findById(999L);
+        verify(progressRepository).findDTOById(999L);
     }
 
     @Test
     @DisplayName("Should return progress by user id")
     void getProgressByUserId_shouldReturnProgress() {
         // Arrange
-        List<Progress> progressList = Arrays.asList(testProgress);
-        when(progressRepository.findByUserId(TEST_USER_ID)).thenReturn(progressList);
+        List<ProgressDTO> progressList = Arrays.asList(testProgressDTO);
+        when(progressRepository.findDTOsByUserId(TEST_USER_ID)).thenReturn(progressList);
 
         // Act
         List<ProgressDTO> result = progressService.getProgressByUserId(TEST_USER_ID);
@@ -129,15 +135,15 @@ class ProgressServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.size()).isEqualTo(1);
         assertThat(result.get(0).getUserId()).isEqualTo(TEST_USER_ID);
-        verify(progressRepository).findByUserId(TEST_USER_ID);
+        verify(progressRepository).findDTOsByUserId(TEST_USER_ID);
     }
 
     @Test
     @DisplayName("Should return progress by module id")
     void getProgressByModuleId_shouldReturnProgress() {
         // Arrange
-        List<Progress> progressList = Arrays.asList(testProgress);
-        when(progressRepository.findByModuleId(TEST_MODULE_ID)).thenReturn(progressList);
+        List<ProgressDTO> progressList = Arrays.asList(testProgressDTO);
+        when(progressRepository.findDTOsByModuleId(TEST_MODULE_ID)).thenReturn(progressList);
 
         // Act
         List<ProgressDTO> result = progressService.getProgressByModuleId(TEST_MODULE_ID);
@@ -146,15 +152,15 @@ class ProgressServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.size()).isEqualTo(1);
         assertThat(result.get(0).getModuleId()).isEqualTo(TEST_MODULE_ID);
-        verify(progressRepository).findByModuleId(TEST_MODULE_ID);
+        verify(progressRepository).findDTOsByModuleId(TEST_MODULE_ID);
     }
 
     @Test
     @DisplayName("Should return progress by user id and module id")
     void getProgressByUserIdAndModuleId_shouldReturnProgress() {
         // Arrange
-        when(progressRepository.findByUserIdAndModuleId(TEST_USER_ID, TEST_MODULE_ID))
-            .thenReturn(Optional.of(testProgress));
+        when(progressRepository.findDTOByUserIdAndModuleId(TEST_USER_ID, TEST_MODULE_ID))
+            .thenReturn(Optional.of(testProgressDTO));
 
         // Act
         ProgressDTO result = progressService.getProgressByUserIdAndModuleId(TEST_USER_ID, TEST_MODULE_ID);
@@ -163,30 +169,28 @@ class ProgressServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getUserId()).isEqualTo(TEST_USER_ID);
         assertThat(result.getModuleId()).isEqualTo(TEST_MODULE_ID);
-        verify(progressRepository).findByUserIdAndModuleId(TEST_USER_ID, TEST_MODULE_ID);
+        verify(progressRepository).findDTOByUserIdAndModuleId(TEST_USER_ID, TEST_MODULE_ID);
     }
 
     @Test
     @DisplayName("Should throw exception when progress by user id and module id not found")
     void getProgressByUserIdAndModuleId_whenProgressNotFound_shouldThrowException() {
         // Arrange
-        when(progressRepository.findByUserIdAndModuleId(TEST_USER_ID, 999L))
+        when(progressRepository.findDTOByUserIdAndModuleId(TEST_USER_ID, 999L))
             .thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ResponseStatusException.class, 
             () -> progressService.getProgressByUserIdAndModuleId(TEST_USER_ID, 999L));
-        verify(progressRepository).findByUserIdAndModuleId(TEST_USER_ID, 999L);
+        verify(progressRepository).findDTOByUserIdAndModuleId(TEST_USER_ID, 999L);
     }
 
     @Test
-    @DisplayName("Should mark module as completed")
+    @DisplayName("Should mark module as completed with a single upsert")
     void markModuleAsCompleted_shouldReturnCompletedProgress() {
         // Arrange
-        when(moduleRepository.findById(TEST_MODULE_ID)).thenReturn(Optional.of(testModule));
-        when(progressRepository.findByUserIdAndModuleId(TEST_USER_ID, TEST_MODULE_ID))
-            .thenReturn(Optional.empty());
-        when(progressRepository.save(any(Progress.class))).thenReturn(testProgress);
+        when(progressRepository.upsertCompleted(eq(TEST_USER_ID), eq(TEST_MODULE_ID), any(LocalDateTime.class)))
+            .thenReturn(Optional.of(testProgressDTO));
 
         // Act
         ProgressDTO result = progressService.markModuleAsCompleted(TEST_USER_ID, TEST_MODULE_ID);
@@ -196,71 +200,33 @@ class ProgressServiceTest {
         assertThat(result.getUserId()).isEqualTo(TEST_USER_ID);
         assertThat(result.getModuleId()).isEqualTo(TEST_MODULE_ID);
         assertThat(result.isCompleted()).isTrue();
-        verify(moduleRepository).findById(TEST_MODULE_ID);
-        verify(progressRepository).findByUserIdAndModuleId(TEST_USER_ID, TEST_MODULE_ID);
-        verify(progressRepository).save(any(Progress.class));
-    }
-
-    @Test
-    @DisplayName("Should update progress when already exists")
-    void markModuleAsCompleted_whenProgressExists_shouldUpdateProgress() {
-        // Arrange
-        Progress existingProgress = new Progress();
-        existingProgress.setId(1L);
-        existingProgress.setUserId(TEST_USER_ID);
-        existingProgress.setModule(testModule);
-        existingProgress.setCompleted(false);
-
-        when(moduleRepository.findById(TEST_MODULE_ID)).thenReturn(Optional.of(testModule));
-        when(progressRepository.findByUserIdAndModuleId(TEST_USER_ID, TEST_MODULE_ID))
-            .thenReturn(Optional.of(existingProgress));
-        when(progressRepository.save(any(Progress.class))).thenReturn(testProgress);
-
-        // Act
-        ProgressDTO result = progressService.markModuleAsCompleted(TEST_USER_ID, TEST_MODULE_ID);
-
-        // Assert
-        assertThat(result).isNotNull();
-        assertThat(result.isCompleted()).isTrue();
-        verify(moduleRepository).findById(TEST_MODULE_ID);
-        verify(progressRepository).findByUserIdAndModuleId(TEST_USER_ID, TEST_MODULE_ID);
-        verify(progressRepository).save(any(Progress.class));
+        verify(progressRepository).upsertCompleted(eq(TEST_USER_ID), eq(TEST_MODULE_ID), any(LocalDateTime.class));
+        verifyNoMoreInteractions(progressRepository);
     }
 
     @Test
     @DisplayName("Should throw exception when marking non-existent module as completed")
     void markModuleAsCompleted_whenModuleNotFound_shouldThrowException() {
         // Arrange
-        when(moduleRepository.findById(999L)).thenReturn(Optional.empty());
+        when(progressRepository.upsertCompleted(eq(TEST_USER_ID), eq(999L), any(LocalDateTime.class)))
+            .thenReturn(Optional.empty());
 
         // Act & Assert
-        assertThrows(ResponseStatusException.class, 
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
             () -> progressService.markModuleAsCompleted(TEST_USER_ID, 999L));
-        verify(moduleRepository).findById(999L);
-        verify(progressRepository, never()).save(any(Progress.class));
+        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        verify(progressRepository).upsertCompleted(eq(TEST_USER_ID), eq(999L), any(LocalDateTime.class));
+        verifyNoMoreInteractions(progressRepository);
     }
 
     @Test
-    @DisplayName("Should reset module progress")
+    @DisplayName("Should reset module progress with a single update")
     void resetModuleProgress_shouldReturnResetProgress() {
         // Arrange
-        Progress existingProgress = new Progress();
-        existingProgress.setId(1L);
-        existingProgress.setUserId(TEST_USER_ID);
-        existingProgress.setModule(testModule);
-        existingProgress.setCompleted(true);
-        existingProgress.setCompletedAt(LocalDateTime.now());
-
-        Progress resetProgress = new Progress();
-        resetProgress.setId(1L);
-        resetProgress.setUserId(TEST_USER_ID);
-        resetProgress.setModule(testModule);
-        resetProgress.setCompleted(false);
-        resetProgress.setCompletedAt(null);
-
-        when(progressRepository.findByUserIdAndModuleId(TEST_USER_ID, TEST_MODULE_ID))
-            .thenReturn(Optional.of(existingProgress));
-        when(progressRepository.save(any(Progress.class))).thenReturn(resetProgress);
+        ProgressDTO resetProgress = new ProgressDTO(1L, TEST_USER_ID, TEST_MODULE_ID, "Test Module", ModuleType.VIDEO,
+                false, null, TEST_COURSE_ID, "Test Course");
+        when(progressRepository.reset(eq(TEST_USER_ID), eq(TEST_MODULE_ID), any(LocalDateTime.class)))
+            .thenReturn(Optional.of(resetProgress));
 
         // Act
         ProgressDTO result = progressService.resetModuleProgress(TEST_USER_ID, TEST_MODULE_ID);
@@ -268,22 +234,23 @@ class ProgressServiceTest {
         // Assert
         assertThat(result).isNotNull();
         assertThat(result.isCompleted()).isFalse();
-        verify(progressRepository).findByUserIdAndModuleId(TEST_USER_ID, TEST_MODULE_ID);
-        verify(progressRepository).save(any(Progress.class));
+        assertThat(result.getCompletedAt()).isNull();
+        verify(progressRepository).reset(eq(TEST_USER_ID), eq(TEST_MODULE_ID), any(LocalDateTime.class));
+        verifyNoMoreInteractions(progressRepository);
     }
 
     @Test
     @DisplayName("Should throw exception when resetting non-existent progress")
     void resetModuleProgress_whenProgressNotFound_shouldThrowException() {
         // Arrange
-        when(progressRepository.findByUserIdAndModuleId(TEST_USER_ID, 999L))
+        when(progressRepository.reset(eq(TEST_USER_ID), eq(999L), any(LocalDateTime.class)))
             .thenReturn(Optional.empty());
 
         // Act & Assert
-        assertThrows(ResponseStatusException.class, 
+        assertThrows(ResponseStatusException.class,
             () -> progressService.resetModuleProgress(TEST_USER_ID, 999L));
-        verify(progressRepository).findByUserIdAndModuleId(TEST_USER_ID, 999L);
-        verify(progressRepository, never()).save(any(Progress.class));
+        verify(progressRepository).reset(eq(TEST_USER_ID), eq(999L), any(LocalDateTime.class));
+        verifyNoMoreInteractions(progressRepository);
     }
 
     @Test
@@ -367,8 +334,8 @@ class ProgressServiceTest {
     @DisplayName("Should return progress by user id and course id")
     void getProgressByUserIdAndCourseId_shouldReturnProgress() {
         // Arrange
-        List<Progress> progressList = Arrays.asList(testProgress);
-        when(progressRepository.findByCourseIdAndUserId(TEST_USER_ID, TEST_COURSE_ID))
+        List<ProgressDTO> progressList = Arrays.asList(testProgressDTO);
+        when(progressRepository.findDTOsByUserIdAndCourseId(TEST_USER_ID, TEST_COURSE_ID))
             .thenReturn(progressList);
 
         // Act
@@ -379,14 +346,14 @@ class ProgressServiceTest {
         assertThat(result.size()).isEqualTo(1);
         assertThat(result.get(0).getUserId()).isEqualTo(TEST_USER_ID);
         assertThat(result.get(0).getCourseId()).isEqualTo(TEST_COURSE_ID);
-        verify(progressRepository).findByCourseIdAndUserId(TEST_USER_ID, TEST_COURSE_ID);
+        verify(progressRepository).findDTOsByUserIdAndCourseId(TEST_USER_ID, TEST_COURSE_ID);
     }
 
     @Test
     @DisplayName("Should return empty list when no progress found by user id and course id")
     void getProgressByUserIdAndCourseId_whenNoProgressFound_shouldReturnEmptyList() {
         // Arrange
-        when(progressRepository.findByCourseIdAndUserId(TEST_USER_ID, TEST_COURSE_ID))
+        when(progressRepository.findDTOsByUserIdAndCourseId(TEST_USER_ID, TEST_COURSE_ID))
             .thenReturn(List.of());
 
         // Act
@@ -395,6 +362,6 @@ class ProgressServiceTest {
         // Assert
         assertThat(result).isNotNull();
         assertThat(result).isEmpty();
-        verify(progressRepository).findByCourseIdAndUserId(TEST_USER_ID, TEST_COURSE_ID);
+        verify(progressRepository).findDTOsByUserIdAndCourseId(TEST_USER_ID, TEST_COURSE_ID);
     }
 }
\ No newline at end of file
@@ -1,8 +1,10 @@
 package org.edunex.courseservice.service;
 
 import org.edunex.courseservice.dto.QuizAnswerDTO;
+import org.edunex.courseservice.dto.SliceDTO;
 import org.edunex.courseservice.model.QuizAnswer;
 import org.edunex.courseservice.model.QuizQuestion;
+import org.edunex.courseservice.repository.ModuleRepository;
 import org.edunex.courseservice.repository.QuizAnswerRepository;
 import org.edunex.courseservice.repository.QuizQuestionRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,6 +14,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Arrays;
@@ -33,6 +37,9 @@ class QuizAnswerServiceTest {
     @Mock
     private QuizQuestionRepository quizQuestionRepository;
 
+    @Mock
+    private ModuleRepository moduleRepository;
+
     @InjectMocks
     private QuizAnswerService quizAnswerService;
 
@@ -40,6 +47,7 @@ class QuizAnswerServiceTest {
     private QuizQuestion testQuestion;
     private final Long TEST_QUESTION_ID = 1L;
     private final Long TEST_ANSWER_ID = 1L;
+    private final Long TEST_MODULE_ID = 1L;
 
     @BeforeEach
     void setUp() {
@@ -60,17 +68,17 @@ class QuizAnswerServiceTest {
     @DisplayName("Should return all quiz answers")
     void getAllQuizAnswers_shouldReturnAllAnswers() {
         // Arrange
-        List<QuizAnswer> answers = Arrays.asList(testAnswer);
-        when(quizAnswerRepository.findAll()).thenReturn(answers);
+        List<QuizAnswerDTO> answers = Arrays.asList(new QuizAnswerDTO(TEST_ANSWER_ID, "Test Answer", true, TEST_QUESTION_ID));
+        when(quizAnswerRepository.findAllDTOs(PageRequest.of(0, 50))).thenReturn(new SliceImpl<>(answers));
 
         // Act
-        List<QuizAnswerDTO> result = quizAnswerService.getAllQuizAnswers();
+        SliceDTO<QuizAnswerDTO> result = quizAnswerService.getAllQuizAnswers(0, 50);
 
         // Assert
         assertThat(result).isNotNull();
-        assertThat(result.size()).isEqualTo(1);
-        assertThat(result.get(0).getAnswerText()).isEqualTo("Test Answer");
-        verify(quizAnswerRepository).findAll();
+        assertThat(result.getContent().size()).isEqualTo(1);
+        assertThat(result.getContent().get(0).getAnswerText()).isEqualTo("Test Answer");
+        verify(quizAnswerRepository).findAllDTOs(PageRequest.of(0, 50));
     }
 
     @Test
@@ -143,8 +151,8 @@ class QuizAnswerServiceTest {
         answerDTO.setCorrect(true);
         answerDTO.setQuestionId(TEST_QUESTION_ID);
 
-        when(quizQuestionRepository.findById(TEST_QUESTION_ID)).thenReturn(Optional.of(testQuestion));
-        when(quizAnswerRepository.save(any(QuizAnswer.class))).thenReturn(testAnswer);
+        when(quizQuestionRepository.findModuleIdById(TEST_QUESTION_ID)).thenReturn(Optional.of(TEST_MODULE_ID));
+        when(quizAnswerRepository.insertAnswer(TEST_QUESTION_ID, "New Answer", true)).thenReturn(TEST_ANSWER_ID);
 
         // Act
         QuizAnswerDTO result = quizAnswerService.createQuizAnswer(answerDTO);
@@ -152,9 +160,12 @@ class QuizAnswerServiceTest {
         // Assert
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(TEST_ANSWER_ID);
-        assertThat(result.getAnswerText()).isEqualTo("Test Answer");
-        verify(quizQuestionRepository).findById(TEST_QUESTION_ID);
-        verify(quizAnswerRepository).save(any(QuizAnswer.class));
+        assertThat(result.getAnswerText()).isEqualTo("New Answer");
+        assertThat(result.getQuestionId()).isEqualTo(TEST_QUESTION_ID);
+        verify(quizQuestionRepository).findModuleIdById(TEST_QUESTION_ID);
+        verify(quizAnswerRepository).insertAnswer(TEST_QUESTION_ID, "New Answer", true);
+        verify(moduleRepository).touchContent(TEST_MODULE_ID);
+        verifyNoMoreInteractions(quizQuestionRepository, quizAnswerRepository, moduleRepository);
     }
 
     @Test
@@ -165,12 +176,13 @@ class QuizAnswerServiceTest {
         answerDTO.setAnswerText("New Answer");
         answerDTO.setQuestionId(999L);
 
-        when(quizQuestionRepository.findById(999L)).thenReturn(Optional.empty());
+        when(quizQuestionRepository.findModuleIdById(999L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ResponseStatusException.class, () -> quizAnswerService.createQuizAnswer(answerDTO));
-        verify(quizQuestionRepository).findById(999L);
-        verify(quizAnswerRepository, never()).save(any(QuizAnswer.class));
+        verify(quizQuestionRepository).findModuleIdById(999L);
+        verifyNoInteractions(quizAnswerRepository);
+        verifyNoInteractions(moduleRepository);
     }
 
     @Test
@@ -182,16 +194,8 @@ class QuizAnswerServiceTest {
         answerDTO.setCorrect(false);
         answerDTO.setQuestionId(TEST_QUESTION_ID);
 
-        QuizAnswer existingAnswer = testAnswer;
-        QuizAnswer updatedAnswer = new QuizAnswer();
-        updatedAnswer.setId(TEST_ANSWER_ID);
-        updatedAnswer.setAnswerText("Updated Answer");
-        updatedAnswer.setCorrect(false);
-        updatedAnswer.setQuestion(testQuestion);
-
-        when(quizAnswerRepository.findById(TEST_ANSWER_ID)).thenReturn(Optional.of(existingAnswer));
-        when(quizQuestionRepository.findById(TEST_QUESTION_ID)).thenReturn(Optional.of(testQuestion));
-        when(quizAnswerRepository.save(any(QuizAnswer.class))).thenReturn(updatedAnswer);
+        when(quizAnswerRepository.findQuestionIdById(TEST_ANSWER_ID)).thenReturn(Optional.of(TEST_QUESTION_ID));
+        when(quizQuestionRepository.findModuleIdById(TEST_QUESTION_ID)).thenReturn(Optional.of(TEST_MODULE_ID));
 
         // Act
         QuizAnswerDTO result = quizAnswerService.updateQuizAnswer(TEST_ANSWER_ID, answerDTO);
@@ -201,9 +205,35 @@ class QuizAnswerServiceTest {
         assertThat(result.getId()).isEqualTo(TEST_ANSWER_ID);
         assertThat(result.getAnswerText()).isEqualTo("Updated Answer");
         assertThat(result.isCorrect()).isFalse();
-        verify(quizAnswerRepository).findById(TEST_ANSWER_ID);
-        verify(quizQuestionRepository).findById(TEST_QUESTION_ID);
-        verify(quizAnswerRepository).save(any(QuizAnswer.class));
+        verify(quizAnswerRepository).findQuestionIdById(TEST_ANSWER_ID);
+        verify(quizQuestionRepository).findModuleIdById(TEST_QUESTION_ID);
+        verify(quizAnswerRepository).updateAnswer(TEST_ANSWER_ID, TEST_QUESTION_ID, "Updated Answer", false);
+        verify(moduleRepository).touchContent(TEST_MODULE_ID);
+        verifyNoMoreInteractions(quizQuestionRepository, quizAnswerRepository, moduleRepository);
+    }
+
+    @Test
+    @DisplayName("Should move an answer to another question by its question_id")
+    void updateQuizAnswer_whenQuestionChanges_shouldTouchBothModules() {
+        // Arrange
+        QuizAnswerDTO answerDTO = new QuizAnswerDTO();
+        answerDTO.setAnswerText("Moved Answer");
+        answerDTO.setQuestionId(2L);
+
+        when(quizAnswerRepository.findQuestionIdById(TEST_ANSWER_ID)).thenReturn(Optional.of(TEST_QUESTION_ID));
+        when(quizQuestionRepository.findModuleIdById(2L)).thenReturn(Optional.of(2L));
+        when(quizQuestionRepository.findModuleIdById(TEST_QUESTION_ID)).thenReturn(Optional.of(TEST_MODULE_ID));
+
+        // Act
+        QuizAnswerDTO result = quizAnswerService.updateQuizAnswer(TEST_ANSWER_ID, answerDTO);
+
+        // Assert
+        assertThat(result.getQuestionId()).isEqualTo(2L);
+        verify(quizAnswerRepository).updateAnswer(TEST_ANSWER_ID, 2L, "Moved Answer", false);
+        verify(quizAnswerRepository, never()).findById(anyLong());
+        verify(quizQuestionRepository, never()).findById(anyLong());
+        verify(moduleRepository).touchContent(TEST_MODULE_ID);
+        verify(moduleRepository).touchContent(2L);
     }
 
     @Test
@@ -213,12 +243,12 @@ class QuizAnswerServiceTest {
         QuizAnswerDTO answerDTO = new QuizAnswerDTO();
         answerDTO.setAnswerText("Updated Answer");
 
-        when(quizAnswerRepository.findById(999L)).thenReturn(Optional.empty());
+        when(quizAnswerRepository.findQuestionIdById(999L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ResponseStatusException.class, () -> quizAnswerService.updateQuizAnswer(999L, answerDTO));
-        verify(quizAnswerRepository).findById(999L);
-        verify(quizAnswerRepository, never()).save(any(QuizAnswer.class));
+        verify(quizAnswerRepository).findQuestionIdById(999L);
+        verify(quizAnswerRepository, never()).updateAnswer(anyLong(), anyLong(), any(), anyBoolean());
     }
 
     @Test
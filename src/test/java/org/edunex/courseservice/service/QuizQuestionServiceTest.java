@@ -1,8 +1,8 @@
 package org.edunex.courseservice.service;
 
 import org.edunex.courseservice.dto.QuizQuestionDTO;
-import org.edunex.courseservice.model.Quiz;
-import org.edunex.courseservice.model.QuizQuestion;
+import org.edunex.courseservice.dto.SliceDTO;
+import org.edunex.courseservice.repository.ModuleRepository;
 import org.edunex.courseservice.repository.QuizQuestionRepository;
 import org.edunex.courseservice.repository.QuizRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,9 +12,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -34,54 +35,45 @@ class QuizQuestionServiceTest {
     @Mock
     private QuizRepository quizRepository;
 
+    @Mock
+    private ModuleRepository moduleRepository;
+
     @InjectMocks
     private QuizQuestionService quizQuestionService;
 
-    private QuizQuestion testQuestion;
-    private Quiz testQuiz;
+    private QuizQuestionDTO testQuestionDTO;
     private final Long TEST_QUIZ_ID = 1L;
     private final Long TEST_QUESTION_ID = 1L;
+    private final Long TEST_MODULE_ID = 1L;
 
     @BeforeEach
     void setUp() {
-        // Setup test quiz
-        testQuiz = new Quiz();
-        testQuiz.setId(TEST_QUIZ_ID);
-        testQuiz.setTitle("Test Quiz");
-        testQuiz.setQuestions(new ArrayList<>());
-        
-        // Setup test question
-        testQuestion = new QuizQuestion();
-        testQuestion.setId(TEST_QUESTION_ID);
-        testQuestion.setQuestionText("Test Question");
-        testQuestion.setQuiz(testQuiz);
-        testQuestion.setAnswers(new ArrayList<>());
-        
-        testQuiz.getQuestions().add(testQuestion);
+        // Setup the projection returned by the read queries
+        testQuestionDTO = new QuizQuestionDTO(TEST_QUESTION_ID, "Test Question", TEST_QUIZ_ID);
     }
 
     @Test
     @DisplayName("Should return all quiz questions")
     void getAllQuizQuestions_shouldReturnAllQuestions() {
         // Arrange
-        List<QuizQuestion> questions = Arrays.asList(testQuestion);
-        when(quizQuestionRepository.findAll()).thenReturn(questions);
+        List<QuizQuestionDTO> questions = Arrays.asList(testQuestionDTO);
+        when(quizQuestionRepository.findAllDTOs(PageRequest.of(0, 50))).thenReturn(new SliceImpl<>(questions));
 
         // Act
-        List<QuizQuestionDTO> result = quizQuestionService.getAllQuizQuestions();
+        SliceDTO<QuizQuestionDTO> result = quizQuestionService.getAllQuizQuestions(0, 50);
 
         // Assert
         assertThat(result).isNotNull();
-        assertThat(result.size()).isEqualTo(1);
-        assertThat(result.get(0).getQuestionText()).isEqualTo("Test Question");
-        verify(quizQuestionRepository).findAll();
+        assertThat(result.getContent().size()).isEqualTo(1);
+        assertThat(result.getContent().get(0).getQuestionText()).isEqualTo("Test Question");
+        verify(quizQuestionRepository).findAllDTOs(PageRequest.of(0, 50));
     }
 
     @Test
     @DisplayName("Should return quiz question by id")
     void getQuizQuestionById_shouldReturnQuestion() {
         // Arrange
-        when(quizQuestionRepository.findById(TEST_QUESTION_ID)).thenReturn(Optional.of(testQuestion));
+        when(quizQuestionRepository.findDTOById(TEST_QUESTION_ID)).thenReturn(Optional.of(testQuestionDTO));
 
         // Act
         QuizQuestionDTO result = quizQuestionService.getQuizQuestionById(TEST_QUESTION_ID);
@@ -90,26 +82,27 @@ class QuizQuestionServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(TEST_QUESTION_ID);
         assertThat(result.getQuestionText()).isEqualTo("Test Question");
-        verify(quizQuestionRepository).findById(TEST_QUESTION_ID);
+        verify(quizQuestionRepository).findDTOById(TEST_QUESTION_ID);
+        verifyNoMoreInteractions(quizQuestionRepository);
     }
 
     @Test
     @DisplayName("Should throw exception when quiz question not found")
     void getQuizQuestionById_whenQuestionNotFound_shouldThrowException() {
         // Arrange
-        when(quizQuestionRepository.findById(999L)).thenReturn(Optional.empty());
+        when(quizQuestionRepository.findDTOById(999L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ResponseStatusException.class, () -> quizQuestionService.getQuizQuestionById(999L));
-        verify(quizQuestionRepository).findById(999L);
+        verify(quizQuestionRepository).findDTOById(999L);
     }
 
     @Test
     @DisplayName("Should return quiz questions by quiz id")
     void getQuizQuestionsByQuizId_shouldReturnQuestions() {
         // Arrange
-        List<QuizQuestion> questions = Arrays.asList(testQuestion);
-        when(quizQuestionRepository.findByQuizId(TEST_QUIZ_ID)).thenReturn(questions);
+        List<QuizQuestionDTO> questions = Arrays.asList(testQuestionDTO);
+        when(quizQuestionRepository.findDTOsByQuizId(TEST_QUIZ_ID)).thenReturn(questions);
 
         // Act
         List<QuizQuestionDTO> result = quizQuestionService.getQuizQuestionsByQuizId(TEST_QUIZ_ID);
@@ -118,7 +111,9 @@ class QuizQuestionServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.size()).isEqualTo(1);
         assertThat(result.get(0).getQuizId()).isEqualTo(TEST_QUIZ_ID);
-        verify(quizQuestionRepository).findByQuizId(TEST_QUIZ_ID);
+        assertThat(result.get(0).getQuestionText()).isEqualTo("Test Question");
+        verify(quizQuestionRepository).findDTOsByQuizId(TEST_QUIZ_ID);
+        verifyNoMoreInteractions(quizQuestionRepository);
     }
 
     @Test
@@ -129,14 +124,8 @@ class QuizQuestionServiceTest {
         questionDTO.setQuestionText("New Question");
         questionDTO.setQuizId(TEST_QUIZ_ID);
 
-        QuizQuestion newQuestion = new QuizQuestion();
-        newQuestion.setId(2L);
-        newQuestion.setQuestionText("New Question");
-        newQuestion.setQuiz(testQuiz);
-        newQuestion.setAnswers(new ArrayList<>());
-
-        when(quizRepository.findById(TEST_QUIZ_ID)).thenReturn(Optional.of(testQuiz));
-        when(quizQuestionRepository.save(any(QuizQuestion.class))).thenReturn(newQuestion);
+        when(quizRepository.findModuleIdById(TEST_QUIZ_ID)).thenReturn(Optional.of(TEST_MODULE_ID));
+        when(quizQuestionRepository.insertQuestion(TEST_QUIZ_ID, "New Question")).thenReturn(2L);
 
         // Act
         QuizQuestionDTO result = quizQuestionService.createQuizQuestion(questionDTO);
@@ -145,8 +134,11 @@ class QuizQuestionServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(2L);
         assertThat(result.getQuestionText()).isEqualTo("New Question");
-        verify(quizRepository).findById(TEST_QUIZ_ID);
-        verify(quizQuestionRepository).save(any(QuizQuestion.class));
+        assertThat(result.getQuizId()).isEqualTo(TEST_QUIZ_ID);
+        verify(quizRepository).findModuleIdById(TEST_QUIZ_ID);
+        verify(quizQuestionRepository).insertQuestion(TEST_QUIZ_ID, "New Question");
+        verify(moduleRepository).touchContent(TEST_MODULE_ID);
+        verifyNoMoreInteractions(quizRepository, quizQuestionRepository, moduleRepository);
     }
 
     @Test
@@ -157,12 +149,13 @@ class QuizQuestionServiceTest {
         questionDTO.setQuestionText("New Question");
         questionDTO.setQuizId(999L);
 
-        when(quizRepository.findById(999L)).thenReturn(Optional.empty());
+        when(quizRepository.findModuleIdById(999L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ResponseStatusException.class, () -> quizQuestionService.createQuizQuestion(questionDTO));
-        verify(quizRepository).findById(999L);
-        verify(quizQuestionRepository, never()).save(any(QuizQuestion.class));
+        verify(quizRepository).findModuleIdById(999L);
+        verifyNoInteractions(quizQuestionRepository);
+        verifyNoInteractions(moduleRepository);
     }
 
     @Test
@@ -173,16 +166,8 @@ class QuizQuestionServiceTest {
         questionDTO.setQuestionText("Updated Question");
         questionDTO.setQuizId(TEST_QUIZ_ID);
 
-        QuizQuestion existingQuestion = testQuestion;
-        QuizQuestion updatedQuestion = new QuizQuestion();
-        updatedQuestion.setId(TEST_QUESTION_ID);
-        updatedQuestion.setQuestionText("Updated Question");
-        updatedQuestion.setQuiz(testQuiz);
-        updatedQuestion.setAnswers(new ArrayList<>());
-
-        when(quizQuestionRepository.findById(TEST_QUESTION_ID)).thenReturn(Optional.of(existingQuestion));
-        when(quizRepository.findById(TEST_QUIZ_ID)).thenReturn(Optional.of(testQuiz));
-        when(quizQuestionRepository.save(any(QuizQuestion.class))).thenReturn(updatedQuestion);
+        when(quizQuestionRepository.findQuizIdById(TEST_QUESTION_ID)).thenReturn(Optional.of(TEST_QUIZ_ID));
+        when(quizRepository.findModuleIdById(TEST_QUIZ_ID)).thenReturn(Optional.of(TEST_MODULE_ID));
 
         // Act
         QuizQuestionDTO result = quizQuestionService.updateQuizQuestion(TEST_QUESTION_ID, questionDTO);
@@ -191,9 +176,11 @@ class QuizQuestionServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(TEST_QUESTION_ID);
         assertThat(result.getQuestionText()).isEqualTo("Updated Question");
-        verify(quizQuestionRepository).findById(TEST_QUESTION_ID);
-        verify(quizRepository).findById(TEST_QUIZ_ID);
-        verify(quizQuestionRepository).save(any(QuizQuestion.class));
+        verify(quizQuestionRepository).findQuizIdById(TEST_QUESTION_ID);
+        verify(quizRepository).findModuleIdById(TEST_QUIZ_ID);
+        verify(quizQuestionRepository).updateQuestion(TEST_QUESTION_ID, TEST_QUIZ_ID, "Updated Question");
+        verify(moduleRepository).touchContent(TEST_MODULE_ID);
+        verifyNoMoreInteractions(quizRepository, quizQuestionRepository, moduleRepository);
     }
 
     @Test
@@ -203,12 +190,12 @@ class QuizQuestionServiceTest {
         QuizQuestionDTO questionDTO = new QuizQuestionDTO();
         questionDTO.setQuestionText("Updated Question");
 
-        when(quizQuestionRepository.findById(999L)).thenReturn(Optional.empty());
+        when(quizQuestionRepository.findQuizIdById(999L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ResponseStatusException.class, () -> quizQuestionService.updateQuizQuestion(999L, questionDTO));
-        verify(quizQuestionRepository).findById(999L);
-        verify(quizQuestionRepository, never()).save(any(QuizQuestion.class));
+        verify(quizQuestionRepository).findQuizIdById(999L);
+        verify(quizQuestionRepository, never()).updateQuestion(anyLong(), anyLong(), any());
     }
 
     @Test
@@ -216,6 +203,7 @@ class QuizQuestionServiceTest {
     void deleteQuizQuestion_shouldDeleteQuestion() {
         // Arrange
         when(quizQuestionRepository.existsById(TEST_QUESTION_ID)).thenReturn(true);
+        when(quizQuestionRepository.findModuleIdById(TEST_QUESTION_ID)).thenReturn(Optional.of(5L));
         doNothing().when(quizQuestionRepository).deleteById(TEST_QUESTION_ID);
 
         // Act
@@ -224,6 +212,7 @@ class QuizQuestionServiceTest {
         // Assert
         verify(quizQuestionRepository).existsById(TEST_QUESTION_ID);
         verify(quizQuestionRepository).deleteById(TEST_QUESTION_ID);
+        verify(moduleRepository).touchContent(5L);
     }
 
     @Test
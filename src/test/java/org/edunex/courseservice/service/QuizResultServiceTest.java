@@ -1,11 +1,14 @@
 package org.edunex.courseservice.service;
 
 import org.edunex.courseservice.dto.QuizResultDTO;
+import org.edunex.courseservice.dto.QuizStatsDTO;
+import org.edunex.courseservice.dto.SliceDTO;
 import org.edunex.courseservice.model.Module;
 import org.edunex.courseservice.model.Quiz;
 import org.edunex.courseservice.model.QuizResult;
 import org.edunex.courseservice.repository.QuizRepository;
 import org.edunex.courseservice.repository.QuizResultRepository;
+import org.edunex.courseservice.repository.QuizScoreHistogram;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,6 +16,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
@@ -23,7 +29,10 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -39,6 +48,7 @@ class QuizResultServiceTest {
     private QuizResultService quizResultService;
 
     private QuizResult testQuizResult;
+    private QuizResultDTO testQuizResultDTO;
     private Quiz testQuiz;
     private Module testModule;
     private final String TEST_USER_ID = "user-123";
@@ -65,30 +75,34 @@ class QuizResultServiceTest {
         testQuizResult.setQuiz(testQuiz);
         testQuizResult.setScore(80);
         testQuizResult.setSubmittedAt(LocalDateTime.now());
+
+        // Setup the projection returned by the read queries
+        testQuizResultDTO = new QuizResultDTO(TEST_RESULT_ID, TEST_USER_ID, TEST_QUIZ_ID, "Test Quiz", 80,
+                testQuizResult.getSubmittedAt(), "Test Module", null, null);
     }
 
     @Test
     @DisplayName("Should return all quiz results")
     void getAllQuizResults_shouldReturnAllResults() {
         // Arrange
-        List<QuizResult> results = Arrays.asList(testQuizResult);
-        when(quizResultRepository.findAll()).thenReturn(results);
+        List<QuizResultDTO> results = Arrays.asList(testQuizResultDTO);
+        when(quizResultRepository.findAllDTOs(PageRequest.of(0, 50))).thenReturn(new SliceImpl<>(results));
 
         // Act
-        List<QuizResultDTO> resultDTOs = quizResultService.getAllQuizResults();
+        SliceDTO<QuizResultDTO> resultDTOs = quizResultService.getAllQuizResults(0, 50);
 
         // Assert
         assertThat(resultDTOs).isNotNull();
-        assertThat(resultDTOs.size()).isEqualTo(1);
-        assertThat(resultDTOs.get(0).getScore()).isEqualTo(80);
-        verify(quizResultRepository).findAll();
+        assertThat(resultDTOs.getContent().size()).isEqualTo(1);
+        assertThat(resultDTOs.getContent().get(0).getScore()).isEqualTo(80);
+        verify(quizResultRepository).findAllDTOs(PageRequest.of(0, 50));
     }
 
     @Test
     @DisplayName("Should return quiz result by id")
     void getQuizResultById_shouldReturnResult() {
         // Arrange
-        when(quizResultRepository.findById(TEST_RESULT_ID)).thenReturn(Optional.of(testQuizResult));
+        when(quizResultRepository.findDTOById(TEST_RESULT_ID)).thenReturn(Optional.of(testQuizResultDTO));
 
         // Act
         QuizResultDTO result = quizResultService.getQuizResultById(TEST_RESULT_ID);
@@ -97,60 +111,76 @@ class QuizResultServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(TEST_RESULT_ID);
         assertThat(result.getUserId()).isEqualTo(TEST_USER_ID);
-        verify(quizResultRepository).findById(TEST_RESULT_ID);
+        verify(quizResultRepository).findDTOById(TEST_RESULT_ID);
     }
 
     @Test
     @DisplayName("Should throw exception when quiz result not found")
     void getQuizResultById_whenResultNotFound_shouldThrowException() {
         // Arrange
-        when(quizResultRepository.findById(999L)).thenReturn(Optional.empty());
+        when(quizResultRepository.findDTOById(999L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ResponseStatusException.class, () -> quizResultService.getQuizResultById(999L));
-        verify(quizResultRepository).findById(999L);
+        verify(quizResultRepository).findDTOById(999L);
     }
 
     @Test
     @DisplayName("Should return quiz results by user id")
     void getQuizResultsByUserId_shouldReturnResults() {
         // Arrange
-        List<QuizResult> results = Arrays.asList(testQuizResult);
-        when(quizResultRepository.findByUserId(TEST_USER_ID)).thenReturn(results);
+        List<QuizResultDTO> results = Arrays.asList(testQuizResultDTO);
+        when(quizResultRepository.findDTOsByUserIdAndSubmittedAtBetween(
+                eq(TEST_USER_ID), any(LocalDateTime.class), any(LocalDateTime.class), eq(PageRequest.of(0, 50))))
+            .thenReturn(new SliceImpl<>(results, PageRequest.of(0, 50), false));
 
         // Act
-        List<QuizResultDTO> resultDTOs = quizResultService.getQuizResultsByUserId(TEST_USER_ID);
+        SliceDTO<QuizResultDTO> resultDTOs = quizResultService.getQuizResultsByUserId(TEST_USER_ID, null, null, 0, 50);
 
         // Assert
         assertThat(resultDTOs).isNotNull();
-        assertThat(resultDTOs.size()).isEqualTo(1);
-        assertThat(resultDTOs.get(0).getUserId()).isEqualTo(TEST_USER_ID);
-        verify(quizResultRepository).findByUserId(TEST_USER_ID);
+        assertThat(resultDTOs.getContent().size()).isEqualTo(1);
+        assertThat(resultDTOs.getContent().get(0).getUserId()).isEqualTo(TEST_USER_ID);
+        assertThat(resultDTOs.isHasNext()).isFalse();
     }
 
     @Test
     @DisplayName("Should return quiz results by quiz id")
     void getQuizResultsByQuizId_shouldReturnResults() {
         // Arrange
-        List<QuizResult> results = Arrays.asList(testQuizResult);
-        when(quizResultRepository.findByQuizId(TEST_QUIZ_ID)).thenReturn(results);
+        LocalDateTime from = LocalDateTime.of(2026, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2026, 2, 1, 0, 0);
+        List<QuizResultDTO> results = Arrays.asList(testQuizResultDTO);
+        when(quizResultRepository.findDTOsByQuizIdAndSubmittedAtBetween(TEST_QUIZ_ID, from, to, PageRequest.of(1, 1)))
+            .thenReturn(new SliceImpl<>(results, PageRequest.of(1, 1), true));
 
         // Act
-        List<QuizResultDTO> resultDTOs = quizResultService.getQuizResultsByQuizId(TEST_QUIZ_ID);
+        SliceDTO<QuizResultDTO> resultDTOs = quizResultService.getQuizResultsByQuizId(TEST_QUIZ_ID, from, to, 1, 1);
 
         // Assert
         assertThat(resultDTOs).isNotNull();
-        assertThat(resultDTOs.size()).isEqualTo(1);
-        assertThat(resultDTOs.get(0).getQuizId()).isEqualTo(TEST_QUIZ_ID);
-        verify(quizResultRepository).findByQuizId(TEST_QUIZ_ID);
+        assertThat(resultDTOs.getContent().size()).isEqualTo(1);
+        assertThat(resultDTOs.getContent().get(0).getQuizId()).isEqualTo(TEST_QUIZ_ID);
+        assertThat(resultDTOs.getPage()).isEqualTo(1);
+        assertThat(resultDTOs.isHasNext()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should reject a page size above the limit")
+    void getQuizResultsByQuizId_whenPageTooLarge_shouldThrowBadRequest() {
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> quizResultService.getQuizResultsByQuizId(TEST_QUIZ_ID, null, null, 0, Paging.MAX_PAGE_SIZE + 1));
+        assertThat(exception.getStatusCode().value()).isEqualTo(400);
+        verifyNoInteractions(quizResultRepository);
     }
 
     @Test
     @DisplayName("Should return quiz results by user id and quiz id")
     void getQuizResultsByUserIdAndQuizId_shouldReturnResults() {
         // Arrange
-        List<QuizResult> results = Arrays.asList(testQuizResult);
-        when(quizResultRepository.findByUserIdAndQuizIdOrderBySubmittedAtDesc(TEST_USER_ID, TEST_QUIZ_ID)).thenReturn(results);
+        List<QuizResultDTO> results = Arrays.asList(testQuizResultDTO);
+        when(quizResultRepository.findDTOsByUserIdAndQuizIdOrderBySubmittedAtDesc(TEST_USER_ID, TEST_QUIZ_ID)).thenReturn(results);
 
         // Act
         List<QuizResultDTO> resultDTOs = quizResultService.getQuizResultsByUserIdAndQuizId(TEST_USER_ID, TEST_QUIZ_ID);
@@ -160,22 +190,18 @@ class QuizResultServiceTest {
         assertThat(resultDTOs.size()).isEqualTo(1);
         assertThat(resultDTOs.get(0).getUserId()).isEqualTo(TEST_USER_ID);
         assertThat(resultDTOs.get(0).getQuizId()).isEqualTo(TEST_QUIZ_ID);
-        verify(quizResultRepository).findByUserIdAndQuizIdOrderBySubmittedAtDesc(TEST_USER_ID, TEST_QUIZ_ID);
+        verify(quizResultRepository).findDTOsByUserIdAndQuizIdOrderBySubmittedAtDesc(TEST_USER_ID, TEST_QUIZ_ID);
     }
 
     @Test
     @DisplayName("Should return best quiz result for user")
     void getBestQuizResultForUser_shouldReturnBestResult() {
         // Arrange
-        QuizResult bestResult = new QuizResult();
-        bestResult.setId(2L);
-        bestResult.setUserId(TEST_USER_ID);
-        bestResult.setQuiz(testQuiz);
-        bestResult.setScore(95);
-        bestResult.setSubmittedAt(LocalDateTime.now());
+        QuizResultDTO bestResult = new QuizResultDTO(2L, TEST_USER_ID, TEST_QUIZ_ID, "Test Quiz", 95,
+                LocalDateTime.now(), "Test Module", null, null);
 
-        when(quizResultRepository.findTopByUserIdAndQuizIdOrderByScoreDesc(TEST_USER_ID, TEST_QUIZ_ID))
-            .thenReturn(Optional.of(bestResult));
+        when(quizResultRepository.findDTOsByUserIdAndQuizIdOrderByScoreDesc(TEST_USER_ID, TEST_QUIZ_ID, Limit.of(1)))
+            .thenReturn(List.of(bestResult));
 
         // Act
         QuizResultDTO result = quizResultService.getBestQuizResultForUser(TEST_USER_ID, TEST_QUIZ_ID);
@@ -184,20 +210,20 @@ class QuizResultServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(2L);
         assertThat(result.getScore()).isEqualTo(95);
-        verify(quizResultRepository).findTopByUserIdAndQuizIdOrderByScoreDesc(TEST_USER_ID, TEST_QUIZ_ID);
+        verify(quizResultRepository).findDTOsByUserIdAndQuizIdOrderByScoreDesc(TEST_USER_ID, TEST_QUIZ_ID, Limit.of(1));
     }
 
     @Test
     @DisplayName("Should throw exception when no quiz result found for user and quiz")
     void getBestQuizResultForUser_whenResultNotFound_shouldThrowException() {
         // Arrange
-        when(quizResultRepository.findTopByUserIdAndQuizIdOrderByScoreDesc(TEST_USER_ID, 999L))
-            .thenReturn(Optional.empty());
+        when(quizResultRepository.findDTOsByUserIdAndQuizIdOrderByScoreDesc(TEST_USER_ID, 999L, Limit.of(1)))
+            .thenReturn(List.of());
 
         // Act & Assert
         assertThrows(ResponseStatusException.class, 
             () -> quizResultService.getBestQuizResultForUser(TEST_USER_ID, 999L));
-        verify(quizResultRepository).findTopByUserIdAndQuizIdOrderByScoreDesc(TEST_USER_ID, 999L);
+        verify(quizResultRepository).findDTOsByUserIdAndQuizIdOrderByScoreDesc(TEST_USER_ID, 999L, Limit.of(1));
     }
 
     @Test
@@ -207,10 +233,10 @@ class QuizResultServiceTest {
         QuizResultDTO quizResultDTO = new QuizResultDTO();
         quizResultDTO.setUserId(TEST_USER_ID);
         quizResultDTO.setQuizId(TEST_QUIZ_ID);
-        quizResultDTO.setScore(90);
+        quizResultDTO.setScore(80);
 
-        when(quizRepository.findById(TEST_QUIZ_ID)).thenReturn(Optional.of(testQuiz));
-        when(quizResultRepository.save(any(QuizResult.class))).thenReturn(testQuizResult);
+        when(quizResultRepository.insertResult(eq(TEST_QUIZ_ID), eq(TEST_USER_ID), eq(80), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(testQuizResultDTO));
 
         // Act
         QuizResultDTO result = quizResultService.createQuizResult(quizResultDTO);
@@ -219,8 +245,27 @@ class QuizResultServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(TEST_RESULT_ID);
         assertThat(result.getUserId()).isEqualTo(TEST_USER_ID);
-        verify(quizRepository).findById(TEST_QUIZ_ID);
-        verify(quizResultRepository).save(any(QuizResult.class));
+        assertThat(result.getQuizTitle()).isEqualTo("Test Quiz");
+        verify(quizResultRepository).insertResult(eq(TEST_QUIZ_ID), eq(TEST_USER_ID), eq(80), any(LocalDateTime.class));
+        verify(quizResultRepository).recordScore(TEST_QUIZ_ID, TEST_USER_ID, 80);
+        verifyNoMoreInteractions(quizResultRepository);
+        verifyNoInteractions(quizRepository);
+    }
+
+    @Test
+    @DisplayName("Should reject a score outside the 0-100 range")
+    void createQuizResult_whenScoreOutOfRange_shouldThrowBadRequest() {
+        // Arrange
+        QuizResultDTO quizResultDTO = new QuizResultDTO();
+        quizResultDTO.setUserId(TEST_USER_ID);
+        quizResultDTO.setQuizId(TEST_QUIZ_ID);
+        quizResultDTO.setScore(101);
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> quizResultService.createQuizResult(quizResultDTO));
+        assertThat(exception.getStatusCode().value()).isEqualTo(400);
+        verifyNoInteractions(quizResultRepository);
     }
 
     @Test
@@ -232,38 +277,94 @@ class QuizResultServiceTest {
         quizResultDTO.setQuizId(999L);
         quizResultDTO.setScore(90);
 
-        when(quizRepository.findById(999L)).thenReturn(Optional.empty());
+        when(quizResultRepository.insertResult(eq(999L), eq(TEST_USER_ID), eq(90), any(LocalDateTime.class)))
+                .thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ResponseStatusException.class, () -> quizResultService.createQuizResult(quizResultDTO));
-        verify(quizRepository).findById(999L);
-        verify(quizResultRepository, never()).save(any(QuizResult.class));
+        verify(quizResultRepository, never()).recordScore(anyLong(), anyString(), anyInt());
     }
 
     @Test
     @DisplayName("Should delete quiz result")
     void deleteQuizResult_shouldDeleteResult() {
         // Arrange
-        when(quizResultRepository.existsById(TEST_RESULT_ID)).thenReturn(true);
-        doNothing().when(quizResultRepository).deleteById(TEST_RESULT_ID);
+        when(quizResultRepository.findById(TEST_RESULT_ID)).thenReturn(Optional.of(testQuizResult));
 
         // Act
         quizResultService.deleteQuizResult(TEST_RESULT_ID);
 
         // Assert
-        verify(quizResultRepository).existsById(TEST_RESULT_ID);
-        verify(quizResultRepository).deleteById(TEST_RESULT_ID);
+        verify(quizResultRepository).delete(testQuizResult);
+        verify(quizResultRepository).removeScore(TEST_RESULT_ID, TEST_QUIZ_ID, TEST_USER_ID, 80);
     }
 
     @Test
     @DisplayName("Should throw exception when deleting non-existent result")
     void deleteQuizResult_whenResultNotFound_shouldThrowException() {
         // Arrange
-        when(quizResultRepository.existsById(999L)).thenReturn(false);
+        when(quizResultRepository.findById(999L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ResponseStatusException.class, () -> quizResultService.deleteQuizResult(999L));
-        verify(quizResultRepository).existsById(999L);
-        verify(quizResultRepository, never()).deleteById(anyLong());
+        verify(quizResultRepository).findById(999L);
+        verify(quizResultRepository, never()).delete(any(QuizResult.class));
+        verify(quizResultRepository, never()).removeScore(anyLong(), anyLong(), anyString(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should compute quiz statistics from the score histogram")
+    void getQuizStats_shouldComputeStatsFromHistogram() {
+        // Arrange
+        QuizScoreHistogram histogram = QuizScoreHistogram.empty();
+        histogram.resultCounts()[40] = 1;
+        histogram.resultCounts()[60] = 2;
+        histogram.resultCounts()[90] = 1;
+        histogram.bestCounts()[60] = 1;
+        histogram.bestCounts()[90] = 1;
+        when(quizRepository.existsById(TEST_QUIZ_ID)).thenReturn(true);
+        when(quizResultRepository.findScoreHistogram(TEST_QUIZ_ID)).thenReturn(histogram);
+
+        // Act
+        QuizStatsDTO stats = quizResultService.getQuizStats(TEST_QUIZ_ID);
+
+        // Assert
+        assertThat(stats.getAttempts()).isEqualTo(4);
+        assertThat(stats.getParticipants()).isEqualTo(2);
+        assertThat(stats.getAverageScore()).isEqualTo(62.5);
+        assertThat(stats.getMinScore()).isEqualTo(40);
+        assertThat(stats.getMaxScore()).isEqualTo(90);
+        assertThat(stats.getMedianScore()).isEqualTo(60);
+        assertThat(stats.getPercentile90Score()).isEqualTo(90);
+        assertThat(stats.getHistogram()).hasSize(101);
+        verify(quizResultRepository, never()).findDTOsByQuizIdAndSubmittedAtBetween(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should return empty statistics for a quiz without results")
+    void getQuizStats_whenNoResults_shouldReturnEmptyStats() {
+        // Arrange
+        when(quizRepository.existsById(TEST_QUIZ_ID)).thenReturn(true);
+        when(quizResultRepository.findScoreHistogram(TEST_QUIZ_ID)).thenReturn(QuizScoreHistogram.empty());
+
+        // Act
+        QuizStatsDTO stats = quizResultService.getQuizStats(TEST_QUIZ_ID);
+
+        // Assert
+        assertThat(stats.getAttempts()).isZero();
+        assertThat(stats.getAverageScore()).isNull();
+        assertThat(stats.getMedianScore()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should throw exception when ranking a user without results")
+    void getQuizRankForUser_whenNoResult_shouldThrowException() {
+        // Arrange
+        when(quizResultRepository.findRank(TEST_QUIZ_ID, TEST_USER_ID)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> quizResultService.getQuizRankForUser(TEST_USER_ID, TEST_QUIZ_ID));
+        assertThat(exception.getStatusCode().value()).isEqualTo(404);
     }
 }
@@ -2,6 +2,8 @@ package org.edunex.courseservice.service;
 
 import org.edunex.courseservice.dto.QuizDTO;
 import org.edunex.courseservice.dto.QuizQuestionDTO;
+import org.edunex.courseservice.dto.SliceDTO;
+import org.edunex.courseservice.model.Course;
 import org.edunex.courseservice.model.Module;
 import org.edunex.courseservice.model.Quiz;
 import org.edunex.courseservice.repository.ModuleRepository;
@@ -13,6 +15,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.ArrayList;
@@ -42,6 +46,7 @@ class QuizServiceTest {
     private Module testModule;
     private final Long TEST_MODULE_ID = 1L;
     private final Long TEST_QUIZ_ID = 1L;
+    private final Long TEST_COURSE_ID = 1L;
 
     @BeforeEach
     void setUp() {
@@ -49,6 +54,10 @@ class QuizServiceTest {
         testModule = new Module();
         testModule.setId(TEST_MODULE_ID);
         testModule.setTitle("Test Module");
+
+        Course testCourse = new Course();
+        testCourse.setId(TEST_COURSE_ID);
+        testModule.setCourse(testCourse);
         
         // Setup test quiz
         testQuiz = new Quiz();
@@ -57,24 +66,24 @@ class QuizServiceTest {
         testQuiz.setModule(testModule);
         testQuiz.setQuestions(new ArrayList<>());
         
-        testModule.setQuiz(testQuiz);
+        testModule.setQuizId(testQuiz.getId());
     }
 
     @Test
     @DisplayName("Should return all quizzes")
     void getAllQuizzes_shouldReturnAllQuizzes() {
         // Arrange
-        List<Quiz> quizzes = Arrays.asList(testQuiz);
-        when(quizRepository.findAll()).thenReturn(quizzes);
+        List<QuizDTO> quizzes = Arrays.asList(new QuizDTO(TEST_QUIZ_ID, "Test Quiz", TEST_MODULE_ID, "Test Module"));
+        when(quizRepository.findAllDTOs(PageRequest.of(0, 50))).thenReturn(new SliceImpl<>(quizzes));
 
         // Act
-        List<QuizDTO> result = quizService.getAllQuizzes();
+        SliceDTO<QuizDTO> result = quizService.getAllQuizzes(0, 50);
 
         // Assert
         assertThat(result).isNotNull();
-        assertThat(result.size()).isEqualTo(1);
-        assertThat(result.get(0).getTitle()).isEqualTo("Test Quiz");
-        verify(quizRepository).findAll();
+        assertThat(result.getContent().size()).isEqualTo(1);
+        assertThat(result.getContent().get(0).getTitle()).isEqualTo("Test Quiz");
+        verify(quizRepository).findAllDTOs(PageRequest.of(0, 50));
     }
 
     @Test
@@ -235,26 +244,28 @@ class QuizServiceTest {
     @DisplayName("Should delete quiz")
     void deleteQuiz_shouldDeleteQuiz() {
         // Arrange
-        when(quizRepository.existsById(TEST_QUIZ_ID)).thenReturn(true);
+        when(quizRepository.findModuleIdById(TEST_QUIZ_ID)).thenReturn(Optional.of(TEST_MODULE_ID));
         doNothing().when(quizRepository).deleteById(TEST_QUIZ_ID);
 
         // Act
         quizService.deleteQuiz(TEST_QUIZ_ID);
 
         // Assert
-        verify(quizRepository).existsById(TEST_QUIZ_ID);
+        verify(quizRepository).findModuleIdById(TEST_QUIZ_ID);
         verify(quizRepository).deleteById(TEST_QUIZ_ID);
+        verify(moduleRepository).touchContent(TEST_MODULE_ID);
     }
 
     @Test
     @DisplayName("Should throw exception when deleting non-existent quiz")
     void deleteQuiz_whenQuizNotFound_shouldThrowException() {
         // Arrange
-        when(quizRepository.existsById(999L)).thenReturn(false);
+        when(quizRepository.findModuleIdById(999L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ResponseStatusException.class, () -> quizService.deleteQuiz(999L));
-        verify(quizRepository).existsById(999L);
+        verify(quizRepository).findModuleIdById(999L);
         verify(quizRepository, never()).deleteById(anyLong());
+        verify(moduleRepository, never()).touchContent(anyLong());
     }
 }
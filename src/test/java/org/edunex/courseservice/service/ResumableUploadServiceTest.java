@@ -0,0 +1,228 @@
+package org.edunex.courseservice.service;
+
+import org.edunex.courseservice.model.ContentUpload;
+import org.edunex.courseservice.repository.ContentUploadRepository;
+import org.edunex.courseservice.repository.ModuleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResumableUploadServiceTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @Mock
+    private ContentUploadRepository contentUploadRepository;
+
+    @Mock
+    private ModuleRepository moduleRepository;
+
+    @Mock
+    private ModuleService moduleService;
+
+    @Mock
+    private S3Service s3Service;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private ResumableUploadService resumableUploadService;
+
+    private ContentUpload upload;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(resumableUploadService, "maxLength", DataSize.ofGigabytes(10));
+        ReflectionTestUtils.setField(resumableUploadService, "lease", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(resumableUploadService, "expireAfter", Duration.ofHours(24));
+        ReflectionTestUtils.setField(resumableUploadService, "sweepBatchSize", 2);
+
+        LocalDateTime now = LocalDateTime.now();
+        upload = new ContentUpload("upload-1", 1L, "user-1", "module-1/a.mp4", "s3-upload-1",
+                "lecture.mp4", "video/mp4", 12 * MB, 0, 0, null, now, now);
+    }
+
+    @Test
+    @DisplayName("Should start an S3 multipart upload and record it at offset 0")
+    void createUpload_shouldStartMultipartUpload() {
+        // Arrange
+        when(moduleRepository.existsById(1L)).thenReturn(true);
+        when(s3Service.startMultipartUpload(1L, "video/mp4"))
+                .thenReturn(new S3Service.MultipartUpload("module-1/a.mp4", "s3-upload-1"));
+
+        // Act
+        ContentUpload created = resumableUploadService.createUpload(1L, "user-1", 12 * MB, "lecture.mp4", "video/mp4");
+
+        // Assert
+        assertThat(created.getS3UploadId()).isEqualTo("s3-upload-1");
+        assertThat(created.getUploadOffset()).isZero();
+        assertThat(created.getUserId()).isEqualTo("user-1");
+        verify(contentUploadRepository).save(created);
+    }
+
+    @Test
+    @DisplayName("Should reject uploads that are not videos or PDFs")
+    void createUpload_withInvalidType_shouldThrowBadRequest() {
+        // Arrange
+        when(moduleRepository.existsById(1L)).thenReturn(true);
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> resumableUploadService.createUpload(1L, "user-1", 10, "notes.txt", "text/plain"));
+        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verifyNoInteractions(s3Service);
+    }
+
+    @Test
+    @DisplayName("Should not show an upload to another user")
+    void getUpload_ofAnotherUser_shouldThrowNotFound() {
+        // Arrange
+        when(contentUploadRepository.findById("upload-1")).thenReturn(Optional.of(upload));
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> resumableUploadService.getUpload(1L, "upload-1", "user-2"));
+        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    @DisplayName("Should write a chunk as the next part and advance the offset")
+    void appendChunk_shouldUploadPartAndAdvance() {
+        // Arrange
+        InputStream chunk = new ByteArrayInputStream(new byte[0]);
+        when(contentUploadRepository.findById("upload-1")).thenReturn(Optional.of(upload));
+        when(contentUploadRepository.claim("upload-1", 0, "600 seconds")).thenReturn(1);
+        when(contentUploadRepository.advance("upload-1", 0, 6 * MB)).thenReturn(1);
+
+        // Act
+        long offset = resumableUploadService.appendChunk(1L, "upload-1", "user-1", 0, 6 * MB, chunk);
+
+        // Assert
+        assertThat(offset).isEqualTo(6 * MB);
+        verify(s3Service).uploadPart("module-1/a.mp4", "s3-upload-1", 1, chunk, 6 * MB);
+        verifyNoInteractions(moduleService);
+    }
+
+    @Test
+    @DisplayName("Should reject a chunk at the wrong offset")
+    void appendChunk_withWrongOffset_shouldThrowConflict() {
+        // Arrange
+        upload.setUploadOffset(6 * MB);
+        when(contentUploadRepository.findById("upload-1")).thenReturn(Optional.of(upload));
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> resumableUploadService.appendChunk(1L, "upload-1", "user-1", 0, 6 * MB, InputStream.nullInputStream()));
+        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        verifyNoInteractions(s3Service);
+    }
+
+    @Test
+    @DisplayName("Should reject a chunk below the S3 minimum part size unless it is the last")
+    void appendChunk_withSmallChunk_shouldThrowBadRequest() {
+        // Arrange
+        when(contentUploadRepository.findById("upload-1")).thenReturn(Optional.of(upload));
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> resumableUploadService.appendChunk(1L, "upload-1", "user-1", 0, MB, InputStream.nullInputStream()));
+        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verifyNoInteractions(s3Service);
+    }
+
+    @Test
+    @DisplayName("Should turn away a chunk while another one is being written")
+    void appendChunk_whileLeased_shouldThrowConflict() {
+        // Arrange
+        when(contentUploadRepository.findById("upload-1")).thenReturn(Optional.of(upload));
+        when(contentUploadRepository.claim(anyString(), anyLong(), anyString())).thenReturn(0);
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> resumableUploadService.appendChunk(1L, "upload-1", "user-1", 0, 6 * MB, InputStream.nullInputStream()));
+        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        verifyNoInteractions(s3Service);
+    }
+
+    @Test
+    @DisplayName("Should release the lease when writing the part fails so the chunk can be resent")
+    void appendChunk_whenPartFails_shouldReleaseLease() {
+        // Arrange
+        when(contentUploadRepository.findById("upload-1")).thenReturn(Optional.of(upload));
+        when(contentUploadRepository.claim(anyString(), anyLong(), anyString())).thenReturn(1);
+        doThrow(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR))
+                .when(s3Service).uploadPart(anyString(), anyString(), anyInt(), any(InputStream.class), anyLong());
+
+        // Act & Assert
+        assertThrows(ResponseStatusException.class,
+                () -> resumableUploadService.appendChunk(1L, "upload-1", "user-1", 0, 6 * MB, InputStream.nullInputStream()));
+        verify(contentUploadRepository).releaseLease("upload-1");
+        verify(contentUploadRepository, never()).advance(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should complete the S3 object and attach it to the module with the last chunk")
+    void appendChunk_withLastChunk_shouldCompleteAndAttach() {
+        // Arrange
+        upload.setUploadOffset(6 * MB);
+        upload.setPartCount(1);
+        when(contentUploadRepository.findById("upload-1")).thenReturn(Optional.of(upload));
+        when(contentUploadRepository.claim(anyString(), anyLong(), anyString())).thenReturn(1);
+        when(contentUploadRepository.advance("upload-1", 6 * MB, 12 * MB)).thenReturn(1);
+
+        // Act
+        long offset = resumableUploadService.appendChunk(1L, "upload-1", "user-1", 6 * MB, 6 * MB, InputStream.nullInputStream());
+
+        // Assert
+        assertThat(offset).isEqualTo(12 * MB);
+        verify(s3Service).uploadPart(eq("module-1/a.mp4"), eq("s3-upload-1"), eq(2), any(InputStream.class), eq(6 * MB));
+        verify(s3Service).completeMultipartUpload("module-1/a.mp4", "s3-upload-1", 2, 12 * MB);
+        verify(moduleService).attachContent(1L, "module-1/a.mp4", "lecture.mp4", "video/mp4", 12 * MB);
+        verify(contentUploadRepository).deleteById("upload-1");
+    }
+
+    @Test
+    @DisplayName("Should abort the S3 uploads of abandoned uploads")
+    void sweepBatch_shouldAbortExpiredUploads() {
+        // Arrange
+        when(jdbcTemplate.queryForList(contains("SKIP LOCKED"), eq("86400 seconds"), eq(2))).thenReturn(List.of(
+                Map.of("id", "upload-1", "object_key", "module-1/a.mp4", "s3_upload_id", "s3-upload-1")));
+        when(s3Service.abortMultipartUpload("module-1/a.mp4", "s3-upload-1")).thenReturn(true);
+
+        // Act
+        int swept = resumableUploadService.sweepBatch();
+
+        // Assert
+        assertThat(swept).isEqualTo(1);
+        verify(s3Service).abortMultipartUpload("module-1/a.mp4", "s3-upload-1");
+    }
+}
@@ -0,0 +1,129 @@
+package org.edunex.courseservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class S3CleanupServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private S3Service s3Service;
+
+    @Mock
+    private ContentDiskCache contentDiskCache;
+
+    @InjectMocks
+    private S3CleanupService s3CleanupService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(s3CleanupService, "batchSize", 2);
+        ReflectionTestUtils.setField(s3CleanupService, "claimTimeout", Duration.ofMinutes(10));
+    }
+
+    @Test
+    @DisplayName("Should delete claimed keys from S3 and drop them from the queue")
+    void cleanUpBatch_shouldDeleteClaimedKeys() {
+        // Arrange
+        when(jdbcTemplate.queryForList(contains("SKIP LOCKED"), eq("600 seconds"), eq(2))).thenReturn(List.of(
+                Map.of("id", 1L, "object_key", "module-1/a.mp4"),
+                Map.of("id", 2L, "object_key", "module-1/b.pdf")));
+        when(s3Service.deleteFiles(List.of("module-1/a.mp4", "module-1/b.pdf"))).thenReturn(List.of("module-1/a.mp4", "module-1/b.pdf"));
+
+        // Act
+        int claimed = s3CleanupService.cleanUpBatch();
+
+        // Assert
+        assertThat(claimed).isEqualTo(2);
+        verify(jdbcTemplate).update(any(PreparedStatementCreator.class));
+        verify(contentDiskCache).evict(List.of("module-1/a.mp4", "module-1/b.pdf"));
+    }
+
+    @Test
+    @DisplayName("Should leave keys S3 failed to delete in the queue")
+    void cleanUpBatch_whenS3Fails_shouldKeepKeysQueued() {
+        // Arrange
+        when(jdbcTemplate.queryForList(contains("SKIP LOCKED"), anyString(), anyInt())).thenReturn(List.of(
+                Map.of("id", 1L, "object_key", "module-1/a.mp4")));
+        when(s3Service.deleteFiles(anyList())).thenReturn(List.of());
+
+        // Act
+        int claimed = s3CleanupService.cleanUpBatch();
+
+        // Assert
+        assertThat(claimed).isEqualTo(1);
+        verify(jdbcTemplate, never()).update(any(PreparedStatementCreator.class));
+    }
+
+    @Test
+    @DisplayName("Should not delete keys that a cloned course still uses")
+    void cleanUpBatch_withKeysInUse_shouldNotDeleteThem() {
+        // Arrange
+        when(jdbcTemplate.queryForList(contains("SKIP LOCKED"), anyString(), anyInt())).thenReturn(List.of(
+                Map.of("id", 1L, "object_key", "module-1/a.mp4", "in_use", true),
+                Map.of("id", 2L, "object_key", "module-1/b.pdf", "in_use", false)));
+        when(s3Service.deleteFiles(List.of("module-1/b.pdf"))).thenReturn(List.of("module-1/b.pdf"));
+
+        // Act
+        int claimed = s3CleanupService.cleanUpBatch();
+
+        // Assert
+        assertThat(claimed).isEqualTo(2);
+        verify(s3Service).deleteFiles(List.of("module-1/b.pdf"));
+    }
+
+    @Test
+    @DisplayName("Should keep claiming batches until the queue is drained")
+    void cleanUp_shouldRunUntilBatchIsNotFull() {
+        // Arrange
+        when(jdbcTemplate.queryForList(contains("SKIP LOCKED"), anyString(), anyInt()))
+                .thenReturn(List.of(Map.of("id", 1L, "object_key", "a"), Map.of("id", 2L, "object_key", "b")))
+                .thenReturn(List.of(Map.of("id", 3L, "object_key", "c")));
+        when(s3Service.deleteFiles(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        s3CleanupService.cleanUp();
+
+        // Assert
+        verify(s3Service, times(2)).deleteFiles(anyList());
+        verify(jdbcTemplate, times(2)).update(any(PreparedStatementCreator.class));
+    }
+
+    @Test
+    @DisplayName("Should do nothing when the queue is empty")
+    void cleanUpBatch_withEmptyQueue_shouldNotCallS3() {
+        // Arrange
+        when(jdbcTemplate.queryForList(contains("SKIP LOCKED"), anyString(), anyInt())).thenReturn(List.of());
+
+        // Act
+        int claimed = s3CleanupService.cleanUpBatch();
+
+        // Assert
+        assertThat(claimed).isZero();
+        verifyNoInteractions(s3Service);
+    }
+}
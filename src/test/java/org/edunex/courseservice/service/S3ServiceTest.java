@@ -4,12 +4,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
@@ -19,10 +21,16 @@ import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.http.AbortableInputStream;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -35,12 +43,17 @@ class S3ServiceTest {
     @Mock
     private S3Client s3Client;
 
+    @Mock
+    private S3Presigner s3Presigner;
+
+    @Mock
+    private ContentDiskCache contentDiskCache;
+
     @InjectMocks
     private S3Service s3Service;
 
     private final String bucketName = "test-bucket";
     private final String cloudfrontDomain = "test-distribution.cloudfront.net";
-    private final Long testModuleId = 1L;
     private final Long testCourseId = 1L;
     private MultipartFile testFile;
 
@@ -48,6 +61,9 @@ class S3ServiceTest {
     void setUp() {
         ReflectionTestUtils.setField(s3Service, "bucketName", bucketName);
         ReflectionTestUtils.setField(s3Service, "cloudfrontDomain", cloudfrontDomain);
+        ReflectionTestUtils.setField(s3Service, "downloadMode", DownloadMode.PROXY);
+        ReflectionTestUtils.setField(s3Service, "presignTtl", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(s3Service, "maxCachedUrls", 100);
         
         // Create a test file
         byte[] content = "test file content".getBytes(StandardCharsets.UTF_8);
@@ -59,31 +75,6 @@ class S3ServiceTest {
         );
     }
 
-    @Test
-    @DisplayName("Should upload file successfully and return object key")
-    void uploadFile_shouldUploadFileAndReturnKey() throws IOException {
-        // Act
-        String objectKey = s3Service.uploadFile(testFile, testModuleId);
-
-        // Assert
-        assertThat(objectKey).isNotNull();
-        assertThat(objectKey).startsWith("module-" + testModuleId + "/");
-        assertThat(objectKey).endsWith(".pdf");
-        verify(s3Client).putObject(any(PutObjectRequest.class), any(RequestBody.class));
-    }
-
-    @Test
-    @DisplayName("Should throw exception when upload fails")
-    void uploadFile_whenS3ClientThrowsException_shouldThrowException() throws IOException {
-        // Arrange
-        doThrow(S3Exception.builder().build())
-            .when(s3Client).putObject(any(PutObjectRequest.class), any(RequestBody.class));
-
-        // Act & Assert
-        assertThrows(ResponseStatusException.class, () -> s3Service.uploadFile(testFile, testModuleId));
-        verify(s3Client).putObject(any(PutObjectRequest.class), any(RequestBody.class));
-    }
-
     @Test
     @DisplayName("Should download file successfully and return response entity")
     void downloadFile_shouldReturnResponseEntity() {
@@ -116,51 +107,150 @@ class S3ServiceTest {
     }
 
     @Test
-    @DisplayName("Should throw 404 when file not found")
-    void downloadFile_whenFileNotFound_shouldThrow404() {
+    @DisplayName("Should upload content under a key derived from its hash")
+    void uploadContent_shouldUseHashAddressedKey() {
+        // Act
+        String objectKey = s3Service.uploadContent(testFile, "abc123");
+
+        // Assert
+        assertThat(objectKey).startsWith("content/abc123/").endsWith(".pdf");
+        verify(s3Client).putObject(argThat((PutObjectRequest request) ->
+                objectKey.equals(request.key()) && "abc123".equals(request.metadata().get("sha256"))), any(RequestBody.class));
+    }
+
+    @Test
+    @DisplayName("Should complete a multipart upload from the recorded parts only")
+    void completeMultipartUpload_shouldSkipUnrecordedParts() {
         // Arrange
-        String testObjectKey = "module-1/non-existent.pdf";
-        
-        S3Exception notFoundException = (S3Exception) S3Exception.builder()
-            .statusCode(404)
-            .build();
-            
-        when(s3Client.getObject(any(GetObjectRequest.class))).thenThrow(notFoundException);
+        when(s3Client.listParts(any(ListPartsRequest.class))).thenReturn(ListPartsResponse.builder()
+                .parts(Part.builder().partNumber(1).eTag("e1").size(6L).build(),
+                        Part.builder().partNumber(2).eTag("e2").size(4L).build(),
+                        Part.builder().partNumber(3).eTag("e3").size(4L).build())
+                .isTruncated(false)
+                .build());
+
+        // Act
+        s3Service.completeMultipartUpload("module-1/a.mp4", "upload-1", 2, 10);
+
+        // Assert
+        ArgumentCaptor<CompleteMultipartUploadRequest> requestCaptor = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(requestCaptor.capture());
+        assertThat(requestCaptor.getValue().multipartUpload().parts())
+                .extracting(CompletedPart::eTag)
+                .containsExactly("e1", "e2");
+    }
+
+    @Test
+    @DisplayName("Should refuse to complete a multipart upload whose parts do not add up to its length")
+    void completeMultipartUpload_withWrongLength_shouldThrowConflict() {
+        // Arrange
+        when(s3Client.listParts(any(ListPartsRequest.class))).thenReturn(ListPartsResponse.builder()
+                .parts(Part.builder().partNumber(1).eTag("e1").size(6L).build())
+                .isTruncated(false)
+                .build());
 
         // Act & Assert
-        ResponseStatusException exception = assertThrows(ResponseStatusException.class, 
-            () -> s3Service.downloadFile(testObjectKey));
-        
-        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> s3Service.completeMultipartUpload("module-1/a.mp4", "upload-1", 1, 10));
+        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    @DisplayName("Should redirect to a presigned URL in redirect mode")
+    void serveFile_inRedirectMode_shouldRedirectToPresignedUrl() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(s3Service, "downloadMode", DownloadMode.REDIRECT);
+        String testObjectKey = "module-1/lecture.mp4";
+        PresignedGetObjectRequest presigned = mock(PresignedGetObjectRequest.class);
+        when(presigned.url()).thenReturn(URI.create("https://test-bucket.s3.amazonaws.com/module-1/lecture.mp4?X-Amz-Signature=abc").toURL());
+        when(s3Presigner.presignGetObject(any(GetObjectPresignRequest.class))).thenReturn(presigned);
+
+        // Act
+        ResponseEntity<?> response = s3Service.serveFile(testObjectKey, new MockHttpServletRequest());
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FOUND);
+        assertThat(response.getHeaders().getLocation()).hasToString(
+                "https://test-bucket.s3.amazonaws.com/module-1/lecture.mp4?X-Amz-Signature=abc");
+        assertThat(response.getHeaders().getCacheControl()).contains("private");
+        ArgumentCaptor<GetObjectPresignRequest> requestCaptor = ArgumentCaptor.forClass(GetObjectPresignRequest.class);
+        verify(s3Presigner).presignGetObject(requestCaptor.capture());
+        assertThat(requestCaptor.getValue().signatureDuration()).isEqualTo(Duration.ofMinutes(10));
+        assertThat(requestCaptor.getValue().getObjectRequest().key()).isEqualTo(testObjectKey);
+        verifyNoInteractions(s3Client);
+    }
+
+    @Test
+    @DisplayName("Should reuse a presigned URL for repeated requests of the same object")
+    void redirectToFile_shouldSignEachObjectOnce() throws Exception {
+        // Arrange
+        PresignedGetObjectRequest presigned = mock(PresignedGetObjectRequest.class);
+        when(presigned.url()).thenReturn(URI.create("https://test-bucket.s3.amazonaws.com/module-1/a.pdf?X-Amz-Signature=abc").toURL());
+        when(s3Presigner.presignGetObject(any(GetObjectPresignRequest.class))).thenReturn(presigned);
+
+        // Act
+        ResponseEntity<Void> first = s3Service.redirectToFile("module-1/a.pdf");
+        ResponseEntity<Void> second = s3Service.redirectToFile("module-1/a.pdf");
+
+        // Assert
+        assertThat(second.getHeaders().getLocation()).isEqualTo(first.getHeaders().getLocation());
+        verify(s3Presigner, times(1)).presignGetObject(any(GetObjectPresignRequest.class));
+    }
+
+    @Test
+    @DisplayName("Should stream the file in proxy mode")
+    void serveFile_inProxyMode_shouldStreamFile() {
+        // Arrange
+        GetObjectResponse objectResponse = GetObjectResponse.builder().contentType("application/pdf").build();
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(new ResponseInputStream<>(objectResponse,
+                AbortableInputStream.create(new ByteArrayInputStream(new byte[0]))));
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        when(contentDiskCache.serve("module-1/a.pdf", request)).thenReturn(Optional.empty());
+
+        // Act
+        ResponseEntity<?> response = s3Service.serveFile("module-1/a.pdf", request);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         verify(s3Client).getObject(any(GetObjectRequest.class));
+        verifyNoInteractions(s3Presigner);
     }
 
     @Test
-    @DisplayName("Should delete file successfully")
-    void deleteFile_shouldDeleteFileFromS3() {
+    @DisplayName("Should serve the disk cached copy in proxy mode without reading S3")
+    void serveFile_withCachedCopy_shouldNotReadS3() {
         // Arrange
-        String testObjectKey = "module-1/test-file.pdf";
-        DeleteObjectResponse mockResponse = DeleteObjectResponse.builder().build();
-        when(s3Client.deleteObject(any(DeleteObjectRequest.class))).thenReturn(mockResponse);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        when(contentDiskCache.serve("module-1/a.pdf", request)).thenReturn(Optional.of(ResponseEntity.ok().build()));
 
         // Act
-        s3Service.deleteFile(testObjectKey);
+        ResponseEntity<?> response = s3Service.serveFile("module-1/a.pdf", request);
 
         // Assert
-        verify(s3Client).deleteObject(any(DeleteObjectRequest.class));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        verifyNoInteractions(s3Client);
     }
 
     @Test
-    @DisplayName("Should throw exception when delete fails")
-    void deleteFile_whenS3ClientThrowsException_shouldThrowException() {
+    @DisplayName("Should throw 404 when file not found")
+    void downloadFile_whenFileNotFound_shouldThrow404() {
         // Arrange
-        String testObjectKey = "module-1/test-file.pdf";
-        doThrow(S3Exception.builder().build())
-            .when(s3Client).deleteObject(any(DeleteObjectRequest.class));
+        String testObjectKey = "module-1/non-existent.pdf";
+        
+        S3Exception notFoundException = (S3Exception) S3Exception.builder()
+            .statusCode(404)
+            .build();
+            
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenThrow(notFoundException);
 
         // Act & Assert
-        assertThrows(ResponseStatusException.class, () -> s3Service.deleteFile(testObjectKey));
-        verify(s3Client).deleteObject(any(DeleteObjectRequest.class));
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, 
+            () -> s3Service.downloadFile(testObjectKey));
+        
+        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        verify(s3Client).getObject(any(GetObjectRequest.class));
     }
 
     @Test
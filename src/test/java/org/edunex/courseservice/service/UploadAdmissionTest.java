@@ -0,0 +1,149 @@
+package org.edunex.courseservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UploadAdmissionTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private UploadAdmission uploadAdmission;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        uploadAdmission = new UploadAdmission();
+        ReflectionTestUtils.setField(uploadAdmission, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(uploadAdmission, "maxConcurrent", 2);
+        ReflectionTestUtils.setField(uploadAdmission, "maxConcurrentPerUser", 1);
+        ReflectionTestUtils.setField(uploadAdmission, "maxInFlight", DataSize.ofBytes(100));
+        ReflectionTestUtils.setField(uploadAdmission, "maxQueued", 1);
+        ReflectionTestUtils.setField(uploadAdmission, "queueTimeout", Duration.ofMillis(100));
+        ReflectionTestUtils.setField(uploadAdmission, "retryAfter", Duration.ofSeconds(10));
+        uploadAdmission.registerMetrics();
+    }
+
+    @Test
+    @DisplayName("Should turn away a user's upload beyond their concurrent limit without queueing it")
+    void admit_overPerUserLimit_shouldRejectImmediately() {
+        // Arrange
+        uploadAdmission.admit("user-1", 10);
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> uploadAdmission.admit("user-1", 10));
+        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(meterRegistry.counter("upload.admission.rejected", "reason", "per-user").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should queue an upload over the global limit and admit it once a slot is released")
+    void admit_overGlobalLimit_shouldWaitForRelease() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(uploadAdmission, "queueTimeout", Duration.ofSeconds(5));
+        uploadAdmission.admit("user-1", 10);
+        UploadAdmission.Permit second = uploadAdmission.admit("user-2", 10);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            // Act
+            Future<UploadAdmission.Permit> queued = executor.submit(() -> uploadAdmission.admit("user-3", 10));
+            waitForQueued(1);
+            second.close();
+
+            // Assert
+            assertThat(queued.get(5, TimeUnit.SECONDS)).isNotNull();
+            assertThat(uploadAdmission.getQueued()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject an upload that is not admitted within the queue timeout")
+    void admit_whenNotReleasedInTime_shouldReject() {
+        // Arrange
+        uploadAdmission.admit("user-1", 60);
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> uploadAdmission.admit("user-2", 60));
+        assertThat(exception.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(meterRegistry.counter("upload.admission.rejected", "reason", "timeout").count()).isEqualTo(1);
+        assertThat(uploadAdmission.getQueued()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should reject an upload straight away when the queue is full")
+    void admit_withFullQueue_shouldReject() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(uploadAdmission, "queueTimeout", Duration.ofSeconds(5));
+        UploadAdmission.Permit first = uploadAdmission.admit("user-1", 60);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<UploadAdmission.Permit> queued = executor.submit(() -> uploadAdmission.admit("user-2", 60));
+            waitForQueued(1);
+
+            // Act & Assert
+            ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                    () -> uploadAdmission.admit("user-3", 60));
+            assertThat(exception.getReason()).isEqualTo("Upload queue is full");
+            first.close();
+            assertThat(queued.get(5, TimeUnit.SECONDS)).isNotNull();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should count an upload of unknown size as the whole byte budget")
+    void admit_withUnknownLength_shouldTakeWholeBudget() {
+        // Arrange
+        UploadAdmission.Permit unknown = uploadAdmission.admit("user-1", -1);
+
+        // Act & Assert
+        assertThat(meterRegistry.get("upload.admission.in-flight").gauge().value()).isEqualTo(100);
+        assertThrows(ResponseStatusException.class, () -> uploadAdmission.admit("user-2", 1));
+        unknown.close();
+        assertThat(uploadAdmission.admit("user-2", 1)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should release a permit only once")
+    void close_twice_shouldReleaseOnce() {
+        // Arrange
+        UploadAdmission.Permit permit = uploadAdmission.admit("user-1", 10);
+        uploadAdmission.admit("user-2", 10);
+
+        // Act
+        permit.close();
+        permit.close();
+
+        // Assert
+        assertThat(meterRegistry.get("upload.admission.active").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("upload.admission.in-flight").gauge().value()).isEqualTo(10);
+    }
+
+    private void waitForQueued(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (uploadAdmission.getQueued() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(uploadAdmission.getQueued()).isEqualTo(expected);
+    }
+}
@@ -1,14 +1,18 @@
 package org.edunex.courseservice.service.impl;
 
 import org.edunex.courseservice.dto.CourseDTO;
+import org.edunex.courseservice.dto.CourseSummaryDTO;
+import org.edunex.courseservice.dto.ModuleDTO;
 import org.edunex.courseservice.model.Course;
+import org.edunex.courseservice.model.CourseStatus;
 import org.edunex.courseservice.model.Module;
 import org.edunex.courseservice.model.Quiz;
 import org.edunex.courseservice.model.enums.ModuleType;
 import org.edunex.courseservice.repository.CourseRepository;
-import org.edunex.courseservice.repository.EnrollmentRepository;
+import org.edunex.courseservice.repository.CourseVersion;
 import org.edunex.courseservice.repository.ModuleRepository;
 import org.edunex.courseservice.repository.ProgressRepository;
+import org.edunex.courseservice.service.EnrollmentCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -39,7 +43,7 @@ class CourseServiceImplTest {
     private ModuleRepository moduleRepository;
 
     @Mock
-    private EnrollmentRepository enrollmentRepository;
+    private EnrollmentCache enrollmentCache;
 
     @Mock
     private ProgressRepository progressRepository;
@@ -48,9 +52,9 @@ class CourseServiceImplTest {
     private CourseServiceImpl courseService;
 
     private Course testCourse;
+    private CourseDTO testCourseDTO;
     private Module testModule;
-    private List<Course> testCourses;
-    private List<Module> testModules;
+    private ModuleDTO testModuleDTO;
     private final String TEST_USER_ID = "user-123";
 
     @BeforeEach
@@ -80,22 +84,21 @@ class CourseServiceImplTest {
         quiz.setId(1L);
         quiz.setTitle("Test Quiz");
         quiz.setModule(testModule);
-        testModule.setQuiz(quiz);
-
-        testCourse.getModules().add(testModule);
-
-        // Setup test course list
-        testCourses = Arrays.asList(testCourse);
-        
-        // Setup test module list
-        testModules = Arrays.asList(testModule);
+        testModule.setQuizId(quiz.getId());
+        // setCourse above also added the module to testCourse.getModules() (enhanced association management)
+
+        // Setup the projections the read paths query instead of entities
+        testCourseDTO = new CourseDTO(1L, "Test Course", "This is a test course", "instructor-456", "Programming",
+                LocalDateTime.now(), null, CourseStatus.PUBLISHED, 2L, 5L);
+        testModuleDTO = new ModuleDTO(1L, "Test Module", ModuleType.VIDEO, 10, "https://example.com/video", 1,
+                1L, "Test Course", 1L);
     }
 
     @Test
-    @DisplayName("Should return all courses when userId is null")
+    @DisplayName("Should return published courses when userId is null")
     void getAllCourses_withNullUserId_shouldReturnAllCourses() {
         // Arrange
-        when(courseRepository.findAll()).thenReturn(testCourses);
+        when(courseRepository.findDTOsByStatus(CourseStatus.PUBLISHED)).thenReturn(List.of(testCourseDTO));
 
         // Act
         List<CourseDTO> result = courseService.getAllCourses(null);
@@ -104,15 +107,18 @@ class CourseServiceImplTest {
         assertThat(result).isNotNull();
         assertThat(result.size()).isEqualTo(1);
         assertThat(result.get(0).getTitle()).isEqualTo("Test Course");
-        verify(courseRepository).findAll();
-        verify(courseRepository, never()).findEnrolledCoursesByUserId(any());
+        verify(courseRepository).findDTOsByStatus(CourseStatus.PUBLISHED);
+        verify(courseRepository, never()).findEnrolledDTOsByUserIdAndStatus(any(), any());
+        verifyNoInteractions(progressRepository, enrollmentCache);
     }
 
     @Test
     @DisplayName("Should return enrolled courses when userId is provided")
     void getAllCourses_withUserId_shouldReturnEnrolledCourses() {
         // Arrange
-        when(courseRepository.findEnrolledCoursesByUserId(TEST_USER_ID)).thenReturn(testCourses);
+        when(courseRepository.existsByInstructorId(TEST_USER_ID)).thenReturn(false);
+        when(courseRepository.findEnrolledDTOsByUserIdAndStatus(TEST_USER_ID, CourseStatus.PUBLISHED)).thenReturn(List.of(testCourseDTO));
+        when(enrollmentCache.isEnrolled(TEST_USER_ID, 1L)).thenReturn(true);
 
         // Act
         List<CourseDTO> result = courseService.getAllCourses(TEST_USER_ID);
@@ -121,15 +127,16 @@ class CourseServiceImplTest {
         assertThat(result).isNotNull();
         assertThat(result.size()).isEqualTo(1);
         assertThat(result.get(0).getTitle()).isEqualTo("Test Course");
-        verify(courseRepository).findEnrolledCoursesByUserId(TEST_USER_ID);
-        verify(courseRepository, never()).findAll();
+        assertThat(result.get(0).isUserEnrolled()).isTrue();
+        verify(courseRepository).findEnrolledDTOsByUserIdAndStatus(TEST_USER_ID, CourseStatus.PUBLISHED);
+        verify(courseRepository, never()).findDTOsByStatus(any());
     }
 
     @Test
     @DisplayName("Should get course by id without including modules")
     void getCourseById_withoutModules_shouldReturnCourse() {
         // Arrange
-        when(courseRepository.findById(1L)).thenReturn(Optional.of(testCourse));
+        when(courseRepository.findDTOById(1L)).thenReturn(Optional.of(testCourseDTO));
 
         // Act
         CourseDTO result = courseService.getCourseById(1L, null, false);
@@ -139,16 +146,17 @@ class CourseServiceImplTest {
         assertThat(result.getId()).isEqualTo(1L);
         assertThat(result.getTitle()).isEqualTo("Test Course");
         assertThat(result.getModules()).isNull();
-        verify(courseRepository).findById(1L);
-        verify(moduleRepository, never()).findByCourseIdOrderByModuleOrder(anyLong());
+        verify(courseRepository).findDTOById(1L);
+        verify(courseRepository, never()).findById(anyLong());
+        verifyNoInteractions(moduleRepository);
     }
 
     @Test
     @DisplayName("Should get course by id including modules")
     void getCourseById_withModules_shouldReturnCourseWithModules() {
         // Arrange
-        when(courseRepository.findById(1L)).thenReturn(Optional.of(testCourse));
-        when(moduleRepository.findByCourseIdOrderByModuleOrder(1L)).thenReturn(testModules);
+        when(courseRepository.findDTOById(1L)).thenReturn(Optional.of(testCourseDTO));
+        when(moduleRepository.findDTOsByCourseIdOrderByModuleOrder(1L)).thenReturn(List.of(testModuleDTO));
 
         // Act
         CourseDTO result = courseService.getCourseById(1L, null, true);
@@ -160,15 +168,16 @@ class CourseServiceImplTest {
         assertThat(result.getModules()).isNotNull();
         assertThat(result.getModules().size()).isEqualTo(1);
         assertThat(result.getModules().get(0).getTitle()).isEqualTo("Test Module");
-        verify(courseRepository).findById(1L);
-        verify(moduleRepository).findByCourseIdOrderByModuleOrder(1L);
+        verify(courseRepository).findDTOById(1L);
+        verify(moduleRepository).findDTOsByCourseIdOrderByModuleOrder(1L);
+        verify(moduleRepository, never()).findByCourseIdOrderByModuleOrder(anyLong());
     }
 
     @Test
     @DisplayName("Should throw exception when course not found")
     void getCourseById_whenCourseNotFound_shouldThrowException() {
         // Arrange
-        when(courseRepository.findById(999L)).thenReturn(Optional.empty());
+        when(courseRepository.findDTOById(999L)).thenReturn(Optional.empty());
 
         // Act & Assert
         ResponseStatusException exception = assertThrows(
@@ -178,7 +187,7 @@ class CourseServiceImplTest {
 
         assertThat(exception.getStatusCode().value()).isEqualTo(404);
         assertThat(exception.getReason()).isEqualTo("Course not found");
-        verify(courseRepository).findById(999L);
+        verify(courseRepository).findDTOById(999L);
     }
 
     @Test
@@ -186,7 +195,7 @@ class CourseServiceImplTest {
     void getCoursesByInstructorId_shouldReturnCourses() {
         // Arrange
         String instructorId = "instructor-456";
-        when(courseRepository.findByInstructorId(instructorId)).thenReturn(testCourses);
+        when(courseRepository.findDTOsByInstructorIdAndStatus(instructorId, CourseStatus.PUBLISHED)).thenReturn(List.of(testCourseDTO));
 
         // Act
         List<CourseDTO> result = courseService.getCoursesByInstructorId(instructorId, null);
@@ -195,7 +204,8 @@ class CourseServiceImplTest {
         assertThat(result).isNotNull();
         assertThat(result.size()).isEqualTo(1);
         assertThat(result.get(0).getInstructorId()).isEqualTo(instructorId);
-        verify(courseRepository).findByInstructorId(instructorId);
+        verify(courseRepository).findDTOsByInstructorIdAndStatus(instructorId, CourseStatus.PUBLISHED);
+        verify(courseRepository, never()).findByInstructorId(any());
     }
 
     @Test
@@ -203,7 +213,7 @@ class CourseServiceImplTest {
     void getCoursesByCategory_shouldReturnCourses() {
         // Arrange
         String category = "Programming";
-        when(courseRepository.findByCategory(category)).thenReturn(testCourses);
+        when(courseRepository.findDTOsByCategoryAndStatus(category, CourseStatus.PUBLISHED)).thenReturn(List.of(testCourseDTO));
 
         // Act
         List<CourseDTO> result = courseService.getCoursesByCategory(category, null);
@@ -212,14 +222,18 @@ class CourseServiceImplTest {
         assertThat(result).isNotNull();
         assertThat(result.size()).isEqualTo(1);
         assertThat(result.get(0).getCategory()).isEqualTo(category);
-        verify(courseRepository).findByCategory(category);
+        verify(courseRepository).findDTOsByCategoryAndStatus(category, CourseStatus.PUBLISHED);
+        verify(courseRepository, never()).findByCategory(any());
     }
 
     @Test
-    @DisplayName("Should get enrolled courses for a user")
+    @DisplayName("Should get enrolled courses for a user with their completion")
     void getEnrolledCourses_shouldReturnCourses() {
         // Arrange
-        when(courseRepository.findEnrolledCoursesByUserId(TEST_USER_ID)).thenReturn(testCourses);
+        when(courseRepository.findEnrolledDTOsByUserIdAndStatus(TEST_USER_ID, CourseStatus.PUBLISHED)).thenReturn(List.of(testCourseDTO));
+        when(progressRepository.countCompletedModulesByCoursesAndUser(TEST_USER_ID, List.of(1L)))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 1L}));
+        when(enrollmentCache.isEnrolled(TEST_USER_ID, 1L)).thenReturn(true);
 
         // Act
         List<CourseDTO> result = courseService.getEnrolledCourses(TEST_USER_ID);
@@ -227,15 +241,17 @@ class CourseServiceImplTest {
         // Assert
         assertThat(result).isNotNull();
         assertThat(result.size()).isEqualTo(1);
-        verify(courseRepository).findEnrolledCoursesByUserId(TEST_USER_ID);
+        assertThat(result.get(0).getCompletionPercentage()).isEqualTo(50.0); // 1 completed out of 2 modules
+        verify(courseRepository).findEnrolledDTOsByUserIdAndStatus(TEST_USER_ID, CourseStatus.PUBLISHED);
+        verify(progressRepository, never()).countCompletedModulesByCourseAndUser(anyString(), anyLong());
     }
 
     @Test
-    @DisplayName("Should search courses by query")
+    @DisplayName("Should search published courses by query")
     void searchCourses_shouldReturnMatchingCourses() {
         // Arrange
         String query = "test";
-        when(courseRepository.searchCourses(query)).thenReturn(testCourses);
+        when(courseRepository.searchDTOsByStatus(query, CourseStatus.PUBLISHED)).thenReturn(List.of(testCourseDTO));
 
         // Act
         List<CourseDTO> result = courseService.searchCourses(query, null);
@@ -243,7 +259,8 @@ class CourseServiceImplTest {
         // Assert
         assertThat(result).isNotNull();
         assertThat(result.size()).isEqualTo(1);
-        verify(courseRepository).searchCourses(query);
+        verify(courseRepository).searchDTOsByStatus(query, CourseStatus.PUBLISHED);
+        verify(courseRepository, never()).searchCourses(any());
     }
 
     @Test
@@ -296,16 +313,15 @@ class CourseServiceImplTest {
         existingCourse.setCategory("Old Category");
         existingCourse.setCreatedAt(LocalDateTime.now());
 
-        Course updatedCourse = new Course();
-        updatedCourse.setId(courseId);
-        updatedCourse.setTitle(updateCourseDTO.getTitle());
-        updatedCourse.setDescription(updateCourseDTO.getDescription());
-        updatedCourse.setInstructorId("instructor-456"); // Unchanged
-        updatedCourse.setCategory(updateCourseDTO.getCategory());
-        updatedCourse.setCreatedAt(existingCourse.getCreatedAt());
+        CourseDTO updatedCourseDTO = new CourseDTO();
+        updatedCourseDTO.setId(courseId);
+        updatedCourseDTO.setTitle(updateCourseDTO.getTitle());
+        updatedCourseDTO.setDescription(updateCourseDTO.getDescription());
+        updatedCourseDTO.setInstructorId("instructor-456"); // Unchanged
+        updatedCourseDTO.setCategory(updateCourseDTO.getCategory());
 
         when(courseRepository.findById(courseId)).thenReturn(Optional.of(existingCourse));
-        when(courseRepository.save(any(Course.class))).thenReturn(updatedCourse);
+        when(courseRepository.findDTOById(courseId)).thenReturn(Optional.of(updatedCourseDTO));
 
         // Act
         CourseDTO result = courseService.updateCourse(courseId, updateCourseDTO);
@@ -318,7 +334,10 @@ class CourseServiceImplTest {
         assertThat(result.getCategory()).isEqualTo("Updated Category");
         assertThat(result.getInstructorId()).isEqualTo("instructor-456"); // Should remain unchanged
         verify(courseRepository).findById(courseId);
-        verify(courseRepository).save(any(Course.class));
+        verify(courseRepository).save(existingCourse);
+        verify(courseRepository).findDTOById(courseId);
+        verifyNoMoreInteractions(courseRepository);
+        verifyNoInteractions(moduleRepository);
     }
 
     @Test
@@ -349,14 +368,15 @@ class CourseServiceImplTest {
         // Arrange
         Long courseId = 1L;
         when(courseRepository.existsById(courseId)).thenReturn(true);
-        doNothing().when(courseRepository).deleteById(courseId);
+        when(courseRepository.deleteCourseTree(courseId)).thenReturn(1);
 
         // Act
         courseService.deleteCourse(courseId);
 
         // Assert
-        verify(courseRepository).existsById(courseId);
-        verify(courseRepository).deleteById(courseId);
+        verify(courseRepository).deleteCourseTree(courseId);
+        verify(courseRepository, never()).deleteById(anyLong());
+        verify(enrollmentCache).invalidateAll();
     }
 
     @Test
@@ -375,14 +395,55 @@ class CourseServiceImplTest {
         assertThat(exception.getStatusCode().value()).isEqualTo(404);
         assertThat(exception.getReason()).isEqualTo("Course not found");
         verify(courseRepository).existsById(courseId);
-        verify(courseRepository, never()).deleteById(courseId);
+        verify(courseRepository, never()).deleteCourseTree(courseId);
+    }
+
+    @Test
+    @DisplayName("Should return course summaries with enrollment and completion for the user")
+    void getCourseSummaries_forEnrolledUser_shouldIncludeCompletion() {
+        // Arrange
+        CourseSummaryDTO summary = new CourseSummaryDTO(1L, "Test Course", "instructor-1", "Programming",
+                LocalDateTime.now(), null, CourseStatus.PUBLISHED, 4L, 10L);
+        when(courseRepository.existsByInstructorId(TEST_USER_ID)).thenReturn(false);
+        when(courseRepository.findEnrolledSummariesByUserIdAndStatus(TEST_USER_ID, CourseStatus.PUBLISHED)).thenReturn(List.of(summary));
+        when(progressRepository.countCompletedModulesByCoursesAndUser(TEST_USER_ID, List.of(1L)))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 1L}));
+        when(enrollmentCache.isEnrolled(TEST_USER_ID, 1L)).thenReturn(true);
+
+        // Act
+        List<CourseSummaryDTO> result = courseService.getCourseSummaries(TEST_USER_ID, CourseStatus.PUBLISHED);
+
+        // Assert
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).isUserEnrolled()).isTrue();
+        assertThat(result.get(0).getModuleCount()).isEqualTo(4);
+        assertThat(result.get(0).getCompletionPercentage()).isEqualTo(25.0);
+        verify(courseRepository, never()).findEnrolledCoursesByUserIdAndStatus(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should give different ETags to representations that differ for the same course version")
+    void getCourseETag_shouldDependOnRepresentationAndEnrollment() {
+        // Arrange
+        when(courseRepository.findVersionById(1L, TEST_USER_ID)).thenReturn(Optional.of(new CourseVersion(2L, 5L, 0L, 0L)));
+        when(enrollmentCache.isEnrolled(TEST_USER_ID, 1L)).thenReturn(false, false, true);
+
+        // Act
+        String withoutModules = courseService.getCourseETag(1L, TEST_USER_ID, false);
+        String withModules = courseService.getCourseETag(1L, TEST_USER_ID, true);
+        String afterEnrolling = courseService.getCourseETag(1L, TEST_USER_ID, true);
+
+        // Assert
+        assertThat(withoutModules).isNotEqualTo(withModules);
+        assertThat(afterEnrolling).isNotEqualTo(withModules);
+        verify(courseRepository, never()).findById(anyLong());
     }
 
     @Test
     @DisplayName("Should map course to DTO with enrollment status and progress")
     void mapToCourseDTO_withUserEnrolled_shouldIncludeEnrollmentAndProgress() {
         // Arrange
-        when(enrollmentRepository.existsByUserIdAndCourseId(TEST_USER_ID, 1L)).thenReturn(true);
+        when(enrollmentCache.isEnrolled(TEST_USER_ID, 1L)).thenReturn(true);
         when(progressRepository.countCompletedModulesByCourseAndUser(TEST_USER_ID, 1L)).thenReturn(1L);
 
         // Act
@@ -393,7 +454,7 @@ class CourseServiceImplTest {
         assertThat(result.getId()).isEqualTo(1L);
         assertThat(result.isUserEnrolled()).isTrue();
         assertThat(result.getCompletionPercentage()).isEqualTo(100.0); // 1 completed out of 1 total
-        verify(enrollmentRepository).existsByUserIdAndCourseId(TEST_USER_ID, 1L);
+        verify(enrollmentCache).isEnrolled(TEST_USER_ID, 1L);
         verify(progressRepository).countCompletedModulesByCourseAndUser(TEST_USER_ID, 1L);
     }
 